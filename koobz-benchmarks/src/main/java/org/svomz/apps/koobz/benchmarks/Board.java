@@ -0,0 +1,127 @@
+package org.svomz.apps.koobz.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.svomz.apps.koobz.domain.model.StageNotInProcessException;
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * A board kept in memory, with the given number of stages having each the given number of work
+ * items. It is built again before each iteration, so that the changes made by an iteration, such as
+ * the ranks consumed by the moves, do not add up from one iteration to the next.
+ *
+ * The stages, the work items and the positions the benchmarks use are taken in turn from arrays
+ * filled beforehand: picking them costs an increment, not a random number or a lookup.
+ */
+@State(Scope.Thread)
+public class Board {
+
+  /**
+   * The number of work items added to the board by one measure of
+   * {@link WorkflowBenchmark#addWorkItemToStage(Board)}.
+   */
+  public static final int ADDED_WORK_ITEMS = 1000;
+
+  private static final int PICKS = 1024;
+
+  @Param({"5"})
+  public int stages;
+
+  @Param({"10", "100", "1000"})
+  public int workItemsPerStage;
+
+  Workflow workflow;
+
+  String[] stageIds;
+  String[] workItemIds;
+  String[] addedWorkItemIds;
+
+  /**
+   * The index in {@link #stageIds} of the stage of each work item of {@link #workItemIds}.
+   */
+  int[] stageOfWorkItem;
+
+  private final int[] stagePicks = new int[PICKS];
+  private final int[] stagePositionPicks = new int[PICKS];
+  private final int[] workItemPositionPicks = new int[PICKS];
+  private int pick;
+  private int workItemPick;
+  private int addedWorkItemPick;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws StageNotInProcessException {
+    this.workflow = new Workflow(UUID.randomUUID().toString(), "A board");
+    this.stageIds = new String[this.stages];
+    this.workItemIds = new String[this.stages * this.workItemsPerStage];
+    this.stageOfWorkItem = new int[this.workItemIds.length];
+    for (int i = 0; i < this.stages; i++) {
+      this.stageIds[i] = this.workflow.addStageToWorkflow(UUID.randomUUID().toString(),
+        "Stage " + i).getId();
+      for (int j = 0; j < this.workItemsPerStage; j++) {
+        int workItem = i * this.workItemsPerStage + j;
+        this.workItemIds[workItem] = this.workflow.addWorkItemToStage(this.stageIds[i],
+          UUID.randomUUID().toString(), "Work item " + j, "The description of the work item " + j)
+          .getId();
+        this.stageOfWorkItem[workItem] = i;
+      }
+    }
+    this.workflow.beginChange();
+
+    this.addedWorkItemIds = new String[ADDED_WORK_ITEMS];
+    for (int i = 0; i < ADDED_WORK_ITEMS; i++) {
+      this.addedWorkItemIds[i] = UUID.randomUUID().toString();
+    }
+
+    // the same picks on each iteration and on each fork
+    Random random = new Random(42);
+    for (int i = 0; i < PICKS; i++) {
+      this.stagePicks[i] = random.nextInt(this.stages);
+      this.stagePositionPicks[i] = random.nextInt(this.stages);
+      this.workItemPositionPicks[i] = random.nextInt(Math.max(1, this.workItemsPerStage));
+    }
+    this.pick = 0;
+    this.workItemPick = 0;
+    this.addedWorkItemPick = 0;
+  }
+
+  /**
+   * Moves on to the next picks of {@link #stage()}, {@link #stagePosition()} and
+   * {@link #workItemPosition()}.
+   */
+  void nextPick() {
+    this.pick = (this.pick + 1) & (PICKS - 1);
+  }
+
+  int stage() {
+    return this.stagePicks[this.pick];
+  }
+
+  int stagePosition() {
+    return this.stagePositionPicks[this.pick];
+  }
+
+  int workItemPosition() {
+    return this.workItemPositionPicks[this.pick];
+  }
+
+  /**
+   * @return the index in {@link #workItemIds} of the next work item, all of them being taken in
+   * turn.
+   */
+  int nextWorkItem() {
+    int workItem = this.workItemPick;
+    this.workItemPick = workItem + 1 == this.workItemIds.length ? 0 : workItem + 1;
+    return workItem;
+  }
+
+  String nextAddedWorkItemId() {
+    return this.addedWorkItemIds[this.addedWorkItemPick++];
+  }
+
+}
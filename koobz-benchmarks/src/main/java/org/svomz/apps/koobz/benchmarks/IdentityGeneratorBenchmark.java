@@ -0,0 +1,138 @@
+package org.svomz.apps.koobz.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.svomz.apps.koobz.application.IdentityGenerator;
+import org.svomz.apps.koobz.application.RandomIdentityGenerator;
+import org.svomz.apps.koobz.application.TimeOrderedIdentityGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time ordered identities against the random ones they replaced, the generator being chosen as
+ * the koobz.identity.generator property does: generated by several threads at once, and inserted
+ * as the primary key of a table of an embedded database stored in a file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentityGeneratorBenchmark {
+
+  /**
+   * The number of rows inserted by one measure of {@link #insertBatch(WorkItemsTable)}, as the
+   * imports insert them.
+   */
+  private static final int BATCH_SIZE = 500;
+
+  @Param({"random", "time-ordered"})
+  public String generator;
+
+  private IdentityGenerator identityGenerator;
+
+  @Setup
+  public void setUp() {
+    this.identityGenerator = "random".equals(this.generator)
+      ? new RandomIdentityGenerator() : new TimeOrderedIdentityGenerator();
+  }
+
+  /**
+   * Generates identities from 4 threads sharing the generator.
+   */
+  @Benchmark
+  @Threads(4)
+  public String nextIdentity() {
+    return this.identityGenerator.nextIdentity();
+  }
+
+  /**
+   * Inserts a batch of {@link #BATCH_SIZE} rows then commits it. The table keeps growing during the
+   * trial: the random identities rewrite pages all over its index, the time ordered ones fill its
+   * last page.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 40)
+  @Measurement(iterations = 40)
+  public int[] insertBatch(final WorkItemsTable table) throws SQLException {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      table.insert.setString(1, this.identityGenerator.nextIdentity());
+      table.insert.setString(2, "Work item " + i);
+      table.insert.setString(3, table.workflowId);
+      table.insert.addBatch();
+    }
+    int[] counts = table.insert.executeBatch();
+    table.connection.commit();
+    return counts;
+  }
+
+  /**
+   * The work_items table of an embedded database stored in a temporary folder, with the primary key
+   * and the index of koobz-board.
+   */
+  @State(Scope.Thread)
+  public static class WorkItemsTable {
+
+    private File folder;
+
+    Connection connection;
+    PreparedStatement insert;
+    String workflowId;
+
+    @Setup
+    public void setUp(final IdentityGeneratorBenchmark benchmark)
+      throws IOException, SQLException {
+      this.folder = Files.createTempDirectory("koobz-identities").toFile();
+      String url = "jdbc:h2:" + new File(this.folder, "db").getAbsolutePath() + ";MODE=MySQL";
+      this.connection = DriverManager.getConnection(url, "sa", "");
+      try (Statement statement = this.connection.createStatement()) {
+        statement.execute("CREATE TABLE work_items (id VARCHAR(36) NOT NULL, "
+          + "title VARCHAR(255) NOT NULL, workflow_id VARCHAR(36) NOT NULL, PRIMARY KEY(id))");
+        statement.execute("CREATE INDEX idx_work_items_workflow ON work_items (workflow_id, id)");
+      }
+      this.connection.setAutoCommit(false);
+      this.insert = this.connection.prepareStatement(
+        "INSERT INTO work_items (id, title, workflow_id) VALUES (?, ?, ?)");
+      this.workflowId = benchmark.identityGenerator.nextIdentity();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+      this.insert.close();
+      try (Statement statement = this.connection.createStatement()) {
+        statement.execute("SHUTDOWN");
+      }
+      this.connection.close();
+      File[] files = this.folder.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+      }
+      this.folder.delete();
+    }
+  }
+
+}
@@ -0,0 +1,37 @@
+package org.svomz.apps.koobz.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the gc profiler, so that their allocation rate is reported with their
+ * score. It takes the options of the JMH command line, for instance the regular expression of the
+ * benchmarks to run or -p workItemsPerStage=1000 to run them on the largest boards only.
+ */
+public final class KoobzBenchmarks {
+
+  private KoobzBenchmarks() {}
+
+  public static void main(final String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp()) {
+      commandLine.showHelp();
+      return;
+    }
+
+    Options options = new OptionsBuilder()
+      .parent(commandLine)
+      .addProfiler(GCProfiler.class)
+      .build();
+    Runner runner = new Runner(options);
+    if (commandLine.shouldList()) {
+      runner.list();
+      return;
+    }
+    runner.run();
+  }
+
+}
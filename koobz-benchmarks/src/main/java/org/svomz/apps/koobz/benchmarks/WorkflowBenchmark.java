@@ -0,0 +1,124 @@
+package org.svomz.apps.koobz.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The commands and the queries of a {@link Workflow} kept in memory, as the application service
+ * runs them on the aggregate it has loaded: each command begins a new change of the workflow.
+ *
+ * The commands which move a stage or a work item keep the size of the board, so that their
+ * throughput is measured on the board of the size given by the parameters. Adding work items makes
+ * the board grow: they are added by batches, each one to a board built again.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkflowBenchmark {
+
+  /**
+   * Adds {@link Board#ADDED_WORK_ITEMS} work items to the stages of the board, in turn. The score
+   * is the time taken by the batch.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 200, batchSize = Board.ADDED_WORK_ITEMS)
+  @Measurement(iterations = 100, batchSize = Board.ADDED_WORK_ITEMS)
+  public WorkItem addWorkItemToStage(final Board board) throws Exception {
+    board.workflow.beginChange();
+    board.nextPick();
+    return board.workflow.addWorkItemToStage(board.stageIds[board.stage()],
+      board.nextAddedWorkItemId(), "A work item", "The description of the work item");
+  }
+
+  /**
+   * Moves the work items in turn to the stage following theirs, the last stage to the first one:
+   * each stage gets as many work items as it gives away.
+   */
+  @Benchmark
+  public Workflow moveWorkItemWithIdToStageWithId(final Board board) throws Exception {
+    board.workflow.beginChange();
+    int workItem = board.nextWorkItem();
+    int stage = board.stageOfWorkItem[workItem] + 1 == board.stages
+      ? 0 : board.stageOfWorkItem[workItem] + 1;
+    board.stageOfWorkItem[workItem] = stage;
+    return board.workflow.moveWorkItemWithIdToStageWithId(board.workItemIds[workItem],
+      board.stageIds[stage]);
+  }
+
+  @Benchmark
+  public WorkItem changePriorityOfWorkItemWithId(final Board board) throws Exception {
+    board.workflow.beginChange();
+    board.nextPick();
+    return board.workflow.changePriorityOfWorkItemWithId(
+      board.workItemIds[board.nextWorkItem()], board.workItemPosition());
+  }
+
+  @Benchmark
+  public Workflow moveStageWithIdToPosition(final Board board) throws Exception {
+    board.workflow.beginChange();
+    board.nextPick();
+    return board.workflow.moveStageWithIdToPosition(board.stageIds[board.stage()],
+      board.stagePosition());
+  }
+
+  /**
+   * Archives a work item then sends it back to the board, which keeps its size.
+   */
+  @Benchmark
+  public WorkItem archiveAndSendBackWorkItem(final Board board) throws Exception {
+    board.workflow.beginChange();
+    String workItemId = board.workItemIds[board.nextWorkItem()];
+    board.workflow.archiveWorkItemWithId(workItemId);
+    return board.workflow.sendBackToWorkflowWorkItemWithId(workItemId);
+  }
+
+  /**
+   * Visits the active work items of the board, as the read model does when it renders it.
+   */
+  @Benchmark
+  public void forEachActiveWorkItem(final Board board, final Blackhole blackhole) {
+    board.workflow.forEachActiveWorkItem(blackhole::consume);
+  }
+
+  @Benchmark
+  public List<WorkItem> workItemsInStage(final Board board) throws Exception {
+    board.nextPick();
+    return board.workflow.workItemsInStage(board.stageIds[board.stage()]);
+  }
+
+  @Benchmark
+  public Optional<WorkItem> workItemOfId(final Board board) {
+    return board.workflow.workItemOfId(board.workItemIds[board.nextWorkItem()]);
+  }
+
+  /**
+   * The lookup of a work item as it was before the workflow indexed them, by a scan of a copy of
+   * its visible work items: the baseline of {@link #workItemOfId(Board)}.
+   */
+  @Benchmark
+  public Optional<WorkItem> workItemOfIdByScan(final Board board) {
+    String workItemId = board.workItemIds[board.nextWorkItem()];
+    return new HashSet<>(board.workflow.workItems())
+      .stream()
+      .filter(workItem -> workItemId.equals(workItem.getId()))
+      .findFirst();
+  }
+
+}
@@ -0,0 +1,118 @@
+package org.svomz.apps.koobz.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.svomz.apps.koobz.application.WorkflowDocument;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.infrastructure.readmodel.JdbcWorkflowDocumentRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a command pays to keep the document of a board up to date, as the WorkflowReadModel does it:
+ * the whole document is read and locked, parsed, patched, serialized and written back, so that the
+ * cost of a command grows with the size of the board even when it changes a single work item. The
+ * score is the time taken by one command, on the boards of the sizes given by the {@link Board}
+ * parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkflowDocumentBenchmark {
+
+  /**
+   * Updates a work item in the document stored in the database, in its own transaction.
+   */
+  @Benchmark
+  public String updateStoredDocument(final StoredBoard board)
+    throws SQLException {
+    String json = board.documentRepository.findDocumentForUpdate(board.workflow.getId()).get();
+    String updated = WorkflowDocument.parse(json).updateWorkItem(board.nextStoredWorkItem())
+      .toJson();
+    board.documentRepository.save(board.workflow.getId(), board.workflow.getVersion(), updated);
+    board.connection.commit();
+    return updated;
+  }
+
+  /**
+   * Updates a work item in the document kept in memory: the part of
+   * {@link #updateStoredDocument(StoredBoard)} which does not depend on the database.
+   */
+  @Benchmark
+  public String patchDocument(final StoredBoard board) {
+    return WorkflowDocument.parse(board.json).updateWorkItem(board.nextStoredWorkItem()).toJson();
+  }
+
+  /**
+   * Renders the whole document from the workflow, as it is done when the document does not match
+   * the workflow anymore.
+   */
+  @Benchmark
+  public String renderDocument(final StoredBoard board) {
+    return WorkflowDocument.of(board.workflow).toJson();
+  }
+
+  /**
+   * A {@link Board} whose document is stored in the workflow_views table of an in memory database.
+   */
+  public static class StoredBoard extends Board {
+
+    Connection connection;
+    JdbcWorkflowDocumentRepository documentRepository;
+    String json;
+
+    @Setup
+    public void createTable() throws SQLException {
+      this.connection = DriverManager.getConnection(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+      try (Statement statement = this.connection.createStatement()) {
+        statement.execute("CREATE TABLE workflow_views (workflow_id VARCHAR(36) NOT NULL, "
+          + "version BIGINT NOT NULL, document CLOB NOT NULL, PRIMARY KEY(workflow_id))");
+      }
+      this.connection.setAutoCommit(false);
+      this.documentRepository = new JdbcWorkflowDocumentRepository(
+        new JdbcTemplate(new SingleConnectionDataSource(this.connection, true)));
+    }
+
+    /**
+     * Stores the document of the board built for the iteration, the setup of a {@link Board}
+     * running first.
+     */
+    @Setup(Level.Iteration)
+    public void storeDocument() throws SQLException {
+      this.json = WorkflowDocument.of(this.workflow).toJson();
+      this.documentRepository.save(this.workflow.getId(), this.workflow.getVersion(), this.json);
+      this.connection.commit();
+    }
+
+    WorkItem nextStoredWorkItem() {
+      return this.workflow.workItemOfId(this.workItemIds[this.nextWorkItem()]).get();
+    }
+
+    @TearDown
+    public void dropTable() throws SQLException {
+      try (Statement statement = this.connection.createStatement()) {
+        statement.execute("SHUTDOWN");
+      }
+      this.connection.close();
+    }
+  }
+
+}
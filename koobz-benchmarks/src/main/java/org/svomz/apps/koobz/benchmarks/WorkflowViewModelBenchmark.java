@@ -0,0 +1,39 @@
+package org.svomz.apps.koobz.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowViewModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JSON serialization of the {@link WorkflowViewModel.FullView} of a board, with a mapper
+ * configured as the one Jersey uses by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkflowViewModelBenchmark {
+
+  private final ObjectWriter writer = new ObjectMapper()
+    .writerWithView(WorkflowViewModel.FullView.class);
+
+  @Benchmark
+  public byte[] serializeFullView(final Board board) throws Exception {
+    return this.writer.writeValueAsBytes(new WorkflowViewModel(board.workflow));
+  }
+
+}
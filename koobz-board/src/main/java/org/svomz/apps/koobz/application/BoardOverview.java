@@ -0,0 +1,75 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * A board whose stages only hold the first page of their work items, for the boards
+ * too large to be read at once. The next pages of a stage are read with
+ * {@link WorkflowQueryService#findWorkItemPage(String, String, java.util.OptionalLong, int)}.
+ */
+public final class BoardOverview {
+
+  private final String id;
+  private final String name;
+  private final long version;
+  private final List<StageOverview> stages;
+
+  public BoardOverview(final String anId, final String aName, final long aVersion,
+    final List<StageOverview> someStages) {
+    this.id = Preconditions.checkNotNull(anId);
+    this.name = Preconditions.checkNotNull(aName);
+    this.version = aVersion;
+    this.stages = ImmutableList.copyOf(someStages);
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * @return the stages, in the order of the board.
+   */
+  public List<StageOverview> getStages() {
+    return this.stages;
+  }
+
+  /**
+   * A stage with the first page of its work items.
+   */
+  public static final class StageOverview {
+
+    private final String id;
+    private final String name;
+    private final WorkItemPage firstPage;
+
+    public StageOverview(final String anId, final String aName, final WorkItemPage aFirstPage) {
+      this.id = Preconditions.checkNotNull(anId);
+      this.name = Preconditions.checkNotNull(aName);
+      this.firstPage = Preconditions.checkNotNull(aFirstPage);
+    }
+
+    public String getId() {
+      return this.id;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public WorkItemPage getFirstPage() {
+      return this.firstPage;
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.persistence.OptimisticLockException;
+
+/**
+ * Runs again the commands annotated with {@link RetryOnConflict} which failed on the
+ * optimistic lock of the workflow, a bounded number of times.
+ *
+ * The aspect wraps the {@link WorkflowLanes} and the transaction of the command, so that each
+ * attempt is submitted again to the lane of the workflow and loads the workflow again in a new
+ * transaction. Before each new attempt it waits for a random delay, up to a bound which doubles
+ * with each attempt, so that the commands which conflicted do not conflict again. It waits in the
+ * thread of the caller: the lane runs the commands of its other workflows meanwhile. When the
+ * command is called within a transaction which is already running, it is not retried: the
+ * conflict is left to the caller owning this transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ManagedResource(objectName = "org.svomz.apps.koobz:type=ConflictRetry",
+  description = "Retries of the commands which conflicted with another one")
+public class ConflictRetryAspect {
+
+  private final int maxAttempts;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+
+  private final AtomicLong conflicts = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+
+  @Inject
+  public ConflictRetryAspect(
+    @Value("${koobz.conflict-retry.max-attempts:4}") final int maxAttempts,
+    @Value("${koobz.conflict-retry.initial-backoff-ms:10}") final long initialBackoffMillis,
+    @Value("${koobz.conflict-retry.max-backoff-ms:200}") final long maxBackoffMillis) {
+    Preconditions.checkArgument(maxAttempts >= 1);
+    Preconditions.checkArgument(initialBackoffMillis >= 0);
+    Preconditions.checkArgument(maxBackoffMillis >= initialBackoffMillis);
+
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+  }
+
+  @Around("@annotation(org.svomz.apps.koobz.application.RetryOnConflict)")
+  public Object retryOnConflict(final ProceedingJoinPoint command) throws Throwable {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return command.proceed();
+    }
+
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return command.proceed();
+      } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+        this.conflicts.incrementAndGet();
+        if (attempt >= this.maxAttempts || !this.backOff(attempt)) {
+          this.failures.incrementAndGet();
+          throw e;
+        }
+        this.retries.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Waits before the attempt following the given one.
+   *
+   * @return false if the thread has been interrupted while waiting.
+   */
+  private boolean backOff(final int attempt) {
+    long bound = Math.min(this.maxBackoffMillis,
+      this.initialBackoffMillis << Math.min(attempt - 1, 30));
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  @ManagedAttribute(description = "Number of commands which failed on a concurrent change")
+  public long getConflictCount() {
+    return this.conflicts.get();
+  }
+
+  @ManagedAttribute(description = "Number of commands run again after a conflict")
+  public long getRetryCount() {
+    return this.retries.get();
+  }
+
+  @ManagedAttribute(description = "Number of commands given up after their last attempt")
+  public long getFailureCount() {
+    return this.failures.get();
+  }
+
+}
@@ -0,0 +1,67 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import java.util.Optional;
+
+/**
+ * The version of the workflow a client based its change on, for the commands run by
+ * the current thread. A command changing a workflow which is at another version fails with a
+ * {@link WorkflowVersionMismatchException} instead of applying the change to a board the client
+ * has not seen.
+ *
+ * The version is checked against the workflow loaded by the command, in its transaction: the
+ * optimistic lock of the workflow then guarantees that nobody changes it before the command
+ * commits.
+ */
+public final class ExpectedWorkflowVersion {
+
+  private static final ThreadLocal<Long> EXPECTED_VERSION = new ThreadLocal<>();
+
+  private ExpectedWorkflowVersion() {
+  }
+
+  public static void set(final long version) {
+    Preconditions.checkArgument(version > 0);
+
+    EXPECTED_VERSION.set(version);
+  }
+
+  public static void clear() {
+    EXPECTED_VERSION.remove();
+  }
+
+  /**
+   * @return the version expected by the commands run by the current thread, if any.
+   */
+  public static Optional<Long> get() {
+    return Optional.ofNullable(EXPECTED_VERSION.get());
+  }
+
+  static void check(final Workflow workflow) {
+    check(workflow.getId(), workflow.getVersion());
+  }
+
+  /**
+   * @param version the version of the workflow, read in the transaction of the command
+   */
+  static void check(final String workflowId, final long version) {
+    Long expectedVersion = EXPECTED_VERSION.get();
+    if (expectedVersion != null && expectedVersion != version) {
+      throw new WorkflowVersionMismatchException(workflowId, expectedVersion, version);
+    }
+  }
+
+  /**
+   * Fails if a version is expected for a workflow being created: no client has read it yet.
+   */
+  static void checkNew(final String workflowId) {
+    Long expectedVersion = EXPECTED_VERSION.get();
+    if (expectedVersion != null) {
+      throw new WorkflowVersionMismatchException(workflowId, expectedVersion);
+    }
+  }
+
+}
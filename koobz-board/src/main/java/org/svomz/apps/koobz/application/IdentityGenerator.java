@@ -0,0 +1,15 @@
+package org.svomz.apps.koobz.application;
+
+/**
+ * Generates the identities of the workflows, of their stages and of their work items,
+ * as strings of at most 36 characters. The one used is chosen by the koobz.identity.generator
+ * property.
+ */
+public interface IdentityGenerator {
+
+  /**
+   * @return an identity never generated before. It may be called by many threads at once.
+   */
+  String nextIdentity();
+
+}
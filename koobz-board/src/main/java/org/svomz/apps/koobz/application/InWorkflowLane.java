@@ -0,0 +1,19 @@
+package org.svomz.apps.koobz.application;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a command of a workflow which is run by the lane of this workflow, one command
+ * at a time. The first parameter of the command must be the id of the workflow.
+ *
+ * @see WorkflowLanes
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface InWorkflowLane {
+}
@@ -0,0 +1,119 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * What the persistence did for the request served by the current thread: the SQL
+ * statements it prepared, the entities it loaded, the collections it initialized and the time it
+ * spent flushing. It is recorded by the listeners of Hibernate and, for the statements, by the
+ * connection pool, so that the ones of the JdbcTemplates count too. It is handed over with the
+ * request to the thread running its command, as {@link ExpectedWorkflowVersion} is: an activity is
+ * only used by one thread at a time.
+ *
+ * Nothing is recorded for the work done outside of a request.
+ */
+public final class PersistenceActivity {
+
+  private static final ThreadLocal<PersistenceActivity> CURRENT = new ThreadLocal<>();
+
+  private long statements;
+  private long entitiesLoaded;
+  private long collectionsInitialized;
+  private long flushes;
+  private long flushNanos;
+
+  private int flushDepth;
+  private long flushStart;
+
+  /**
+   * Starts recording the activity of a new request for the current thread.
+   */
+  public static PersistenceActivity start() {
+    PersistenceActivity activity = new PersistenceActivity();
+    CURRENT.set(activity);
+    return activity;
+  }
+
+  /**
+   * @return the activity recorded for the current thread, null if none is.
+   */
+  public static PersistenceActivity current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Records the given activity for the current thread, which continues the request it belongs to.
+   */
+  public static void set(final PersistenceActivity activity) {
+    if (activity == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(activity);
+    }
+  }
+
+  public static void clear() {
+    CURRENT.remove();
+  }
+
+  public void statementPrepared() {
+    this.statements++;
+  }
+
+  public void entityLoaded() {
+    this.entitiesLoaded++;
+  }
+
+  public void collectionInitialized() {
+    this.collectionsInitialized++;
+  }
+
+  /**
+   * Starts timing a flush. A flush started while another one is running, such as the flush of
+   * the changes made by the callbacks of a flush, is part of it.
+   */
+  public void flushStarted() {
+    if (this.flushDepth++ == 0) {
+      this.flushStart = System.nanoTime();
+    }
+  }
+
+  public void flushFinished() {
+    if (this.flushDepth > 0 && --this.flushDepth == 0) {
+      this.flushes++;
+      this.flushNanos += System.nanoTime() - this.flushStart;
+    }
+  }
+
+  public long getStatements() {
+    return this.statements;
+  }
+
+  public long getEntitiesLoaded() {
+    return this.entitiesLoaded;
+  }
+
+  public long getCollectionsInitialized() {
+    return this.collectionsInitialized;
+  }
+
+  public long getFlushes() {
+    return this.flushes;
+  }
+
+  public long getFlushNanos() {
+    return this.flushNanos;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+      .add("statements", this.statements)
+      .add("entitiesLoaded", this.entitiesLoaded)
+      .add("collectionsInitialized", this.collectionsInitialized)
+      .add("flushes", this.flushes)
+      .add("flushNanos", this.flushNanos)
+      .toString();
+  }
+
+}
@@ -0,0 +1,22 @@
+package org.svomz.apps.koobz.application;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Generates random (version 4) UUIDs, as the identities were generated before the
+ * time ordered ones. They come from the secure random generator shared by the whole JVM, and they
+ * are inserted anywhere in the indexes.
+ */
+@Component
+@ConditionalOnProperty(name = "koobz.identity.generator", havingValue = "random")
+public class RandomIdentityGenerator implements IdentityGenerator {
+
+  @Override
+  public String nextIdentity() {
+    return UUID.randomUUID().toString();
+  }
+
+}
@@ -0,0 +1,19 @@
+package org.svomz.apps.koobz.application;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a transactional command which is run again, in a new transaction, when it
+ * fails because another transaction changed the same workflow concurrently.
+ *
+ * @see ConflictRetryAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,27 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The JSON document of a workflow, as stored by the read model, with the version of
+ * the workflow it represents.
+ */
+public final class VersionedDocument {
+
+  private final long version;
+  private final String json;
+
+  public VersionedDocument(final long version, final String json) {
+    this.version = version;
+    this.json = Preconditions.checkNotNull(json);
+  }
+
+  public long getVersion() {
+    return this.version;
+  }
+
+  public String getJson() {
+    return this.json;
+  }
+
+}
@@ -0,0 +1,74 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * A page of the work items of a stage, ordered by rank. The page is found from the
+ * rank of the last work item of the previous page, never from an offset: reading the next page of
+ * a long stage costs as much as reading the first one.
+ */
+public final class WorkItemPage {
+
+  private final List<Entry> workItems;
+  private final OptionalLong next;
+
+  public WorkItemPage(final List<Entry> someWorkItems, final OptionalLong aNext) {
+    this.workItems = ImmutableList.copyOf(someWorkItems);
+    this.next = Preconditions.checkNotNull(aNext);
+  }
+
+  public List<Entry> getWorkItems() {
+    return this.workItems;
+  }
+
+  /**
+   * @return the rank after which the next page starts, or nothing if this page is the last one.
+   */
+  public OptionalLong getNext() {
+    return this.next;
+  }
+
+  /**
+   * A work item of the page, with its rank in the stage.
+   */
+  public static final class Entry {
+
+    private final String id;
+    private final String title;
+    @Nullable
+    private final String description;
+    private final long rank;
+
+    public Entry(final String anId, final String aTitle, @Nullable final String aDescription,
+      final long aRank) {
+      this.id = Preconditions.checkNotNull(anId);
+      this.title = Preconditions.checkNotNull(aTitle);
+      this.description = aDescription;
+      this.rank = aRank;
+    }
+
+    public String getId() {
+      return this.id;
+    }
+
+    public String getTitle() {
+      return this.title;
+    }
+
+    @Nullable
+    public String getDescription() {
+      return this.description;
+    }
+
+    public long getRank() {
+      return this.rank;
+    }
+  }
+
+}
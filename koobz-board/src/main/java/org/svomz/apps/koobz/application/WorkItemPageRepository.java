@@ -0,0 +1,28 @@
+package org.svomz.apps.koobz.application;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Reads the work items of the stages a page at a time, without loading the workflow.
+ */
+public interface WorkItemPageRepository {
+
+  /**
+   * @return the work items of the stage ranked after the given rank, or from the first one, at
+   * most limit of them. Nothing if the workflow does not have this stage.
+   */
+  Optional<WorkItemPage> findPage(String workflowId, String stageId, OptionalLong after, int limit);
+
+  /**
+   * @return the workflow with the first page of the work items of each of its stages, or nothing
+   * if the workflow does not exist.
+   */
+  Optional<BoardOverview> findOverview(String workflowId, int limit);
+
+  /**
+   * @return whether the workflow exists, to tell a missing workflow from a missing stage.
+   */
+  boolean exists(String workflowId);
+
+}
@@ -12,10 +12,15 @@ import org.svomz.apps.koobz.domain.model.WorkItem;
 import org.svomz.apps.koobz.domain.model.WorkItemNotArchivedException;
 import org.svomz.apps.koobz.domain.model.WorkItemNotInProcessException;
 import org.svomz.apps.koobz.domain.model.WorkItemNotInStageException;
+import org.svomz.apps.koobz.domain.model.WorkflowValidationException;
 
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 
@@ -24,12 +29,19 @@ public class WorkflowApplicationService {
 
   private final WorkflowRepository workflowRepository;
   private final WorkflowIdentityService workflowIdentityService;
+  private final WorkflowCache workflowCache;
+  private final WorkflowReadModel workflowReadModel;
+  private final WorkflowChangeLog workflowChangeLog;
 
   @Inject
   public WorkflowApplicationService(final WorkflowRepository aWorkflowRepository,
-    WorkflowIdentityService aWorkflowIdentityService) {
+    WorkflowIdentityService aWorkflowIdentityService, WorkflowCache aWorkflowCache,
+    WorkflowReadModel aWorkflowReadModel, WorkflowChangeLog aWorkflowChangeLog) {
     this.workflowRepository = Preconditions.checkNotNull(aWorkflowRepository);
     this.workflowIdentityService = Preconditions.checkNotNull(aWorkflowIdentityService);
+    this.workflowCache = Preconditions.checkNotNull(aWorkflowCache);
+    this.workflowReadModel = Preconditions.checkNotNull(aWorkflowReadModel);
+    this.workflowChangeLog = Preconditions.checkNotNull(aWorkflowChangeLog);
   }
 
   @Transactional
@@ -40,11 +52,15 @@ public class WorkflowApplicationService {
       this.workflowIdentityService().nextBoardIdentity(),
       aWorkflowName
     );
+    ExpectedWorkflowVersion.checkNew(workflow.getId());
     this.workflowRepository().save(workflow);
+    this.workflowReadModel().rebuild(workflow);
     return workflow;
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void changeWorkflowName(final String workflowId, final String newWorkflowName)
     throws WorkflowNotFoundException {
     Preconditions.checkNotNull(workflowId);
@@ -52,9 +68,12 @@ public class WorkflowApplicationService {
 
     Workflow workflow = this.existingWorkflowOfId(workflowId);
     workflow.setName(newWorkflowName);
+    this.changed(workflow, document -> document.rename(newWorkflowName));
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public Stage addStageToWorkflow(final String aWorkflowId, final String aStageTitle) throws
                                                                                 WorkflowNotFoundException {
     Preconditions.checkNotNull(aWorkflowId);
@@ -65,11 +84,14 @@ public class WorkflowApplicationService {
       this.workflowIdentityService.nextStageIdentity(),
       aStageTitle
     );
+    this.changed(workflow, document -> document.addStage(stage));
 
     return stage;
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void changeStageName(final String aWorkflowId, final String aStageId, final String newStageName)
     throws WorkflowNotFoundException, StageNotInProcessException {
     Preconditions.checkNotNull(aWorkflowId);
@@ -84,9 +106,13 @@ public class WorkflowApplicationService {
 
     Stage stage = optionalStage.get();
     stage.setName(newStageName);
+    this.changed(workflow,
+      document -> document.renameStage(aStageId, newStageName));
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void removeStageFromWorkflow(final String workflowId, final String aStageId)
     throws WorkflowNotFoundException, StageNotInProcessException, StageNotEmptyException {
     Preconditions.checkNotNull(workflowId);
@@ -94,9 +120,12 @@ public class WorkflowApplicationService {
 
     Workflow workflow = this.existingWorkflowOfId(workflowId);
     workflow.removeStageWithId(aStageId);
+    this.changed(workflow, document -> document.removeStage(aStageId));
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public WorkItem addWorkItemToWorkflow(final String workflowId, final String stageId, final String aWorkItemTitle,
     final String aWorkItemDescription) throws WorkflowNotFoundException, StageNotInProcessException {
     Preconditions.checkNotNull(workflowId);
@@ -104,15 +133,19 @@ public class WorkflowApplicationService {
     Preconditions.checkNotNull(aWorkItemDescription);
 
     Workflow workflow = this.existingWorkflowOfId(workflowId);
-    return workflow.addWorkItemToStage(
+    WorkItem workItem = workflow.addWorkItemToStage(
       stageId,
       this.workflowIdentityService().nextWorkItemIdentity(),
       aWorkItemTitle,
       aWorkItemDescription
     );
+    this.changed(workflow, document -> document.addWorkItem(stageId, workItem));
+    return workItem;
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void changeWorkItemInformation(final String workflowId,final String workItemId,
     final String newWorkItemTitle, final String newWorkItemDescription)
     throws WorkflowNotFoundException, WorkItemNotInProcessException {
@@ -128,11 +161,13 @@ public class WorkflowApplicationService {
     }
 
     WorkItem workItem = optionalWorkItem.get();
-    workItem.setTitle(newWorkItemTitle);
-    workItem.setDescription(newWorkItemDescription);
+    workItem.change(newWorkItemTitle, newWorkItemDescription);
+    this.changed(workflow, document -> document.updateWorkItem(workItem));
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void removeWorkItemFromWorkflow(final String boardId, final String workItemId)
     throws WorkflowNotFoundException, WorkItemNotInProcessException {
     Preconditions.checkNotNull(boardId);
@@ -140,9 +175,12 @@ public class WorkflowApplicationService {
 
     Workflow workflow = this.existingWorkflowOfId(boardId);
     workflow.removeWorkItemWithId(workItemId);
+    this.changed(workflow, document -> document.removeWorkItem(workItemId));
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void moveWorkItemToStage(final String boardId, final String aWorkItemId, final String aStageId)
     throws WorkflowNotFoundException, WorkItemNotInProcessException, StageNotInProcessException {
     Preconditions.checkNotNull(boardId);
@@ -150,19 +188,27 @@ public class WorkflowApplicationService {
 
     Workflow workflow = this.existingWorkflowOfId(boardId);
     workflow.moveWorkItemWithIdToStageWithId(aWorkItemId, aStageId);
+    this.changed(workflow,
+      document -> document.moveWorkItemToStage(aWorkItemId, aStageId));
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void changeWorkItemPriority(final String boardId, final String workItemId, int newPriority)
     throws WorkflowNotFoundException, WorkItemNotInProcessException, WorkItemNotInStageException {
     Preconditions.checkNotNull(boardId);
     Preconditions.checkNotNull(workItemId);
 
     Workflow workflow = this.existingWorkflowOfId(boardId);
-    workflow.changePriorityOfWorkItemWithId(workItemId, newPriority);
+    WorkItem workItem = workflow.changePriorityOfWorkItemWithId(workItemId, newPriority);
+    this.changed(workflow,
+      document -> document.moveWorkItem(workItemId, workItem.getPriority()));
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void archiveWorkItem(final String boardId, final String workItemId)
     throws WorkflowNotFoundException, WorkItemNotInProcessException {
     Preconditions.checkNotNull(boardId);
@@ -170,30 +216,181 @@ public class WorkflowApplicationService {
 
     Workflow workflow = this.existingWorkflowOfId(boardId);
     workflow.archiveWorkItemWithId(workItemId);
+    this.changed(workflow, document -> document.removeWorkItem(workItemId));
   }
 
   @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
   public void sendWorkItemBackToWorkflow(final String boardId, final String workItemId)
-    throws WorkflowNotFoundException, WorkItemNotArchivedException {
+    throws WorkflowNotFoundException, WorkItemNotArchivedException, StageNotInProcessException {
     Preconditions.checkNotNull(boardId);
     Preconditions.checkNotNull(workItemId);
 
     Workflow workflow = this.existingWorkflowOfId(boardId);
-    workflow.sendBackToWorkflowWorkItemWithId(workItemId);
+    WorkItem workItem = workflow.sendBackToWorkflowWorkItemWithId(workItemId);
+    this.changed(workflow, document -> document
+      .insertWorkItem(workItem.getStage().getId(), workItem, workItem.getPriority()));
   }
 
+  /**
+   * Applies the given commands to the workflow, in order and in a single transaction: the workflow
+   * is loaded once, the document of the board is patched once and the changes are written by a
+   * single flush, making a single new version of the workflow.
+   *
+   * A command rejected by the workflow does not change it, and does not prevent the next commands
+   * from being applied: its result gives the reason why it has been rejected.
+   */
+  @Transactional
+  @InWorkflowLane
+  @RetryOnConflict
+  public List<WorkflowCommandResult> applyCommands(final String workflowId,
+    final List<WorkflowCommand> commands) throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(commands);
+
+    Workflow workflow = this.existingWorkflowOfId(workflowId);
+    List<Consumer<WorkflowDocument>> patches = new ArrayList<>();
+    List<WorkflowCommandResult> results = new ArrayList<>(commands.size());
+    for (WorkflowCommand command : commands) {
+      try {
+        results.add(WorkflowCommandResult.applied(this.apply(workflow, command, patches)));
+      } catch (StageNotInProcessException | StageNotEmptyException | WorkItemNotInProcessException
+        | WorkItemNotInStageException | WorkItemNotArchivedException
+        | WorkflowValidationException e) {
+        results.add(WorkflowCommandResult.rejected(e));
+      }
+    }
+    if (!patches.isEmpty()) {
+      this.changed(workflow, document -> patches.forEach(
+        patch -> patch.accept(document)));
+    }
+    return results;
+  }
+
+  /**
+   * Applies the command to the workflow, and adds the matching patch of the document to the given
+   * ones. The values the patch depends on are read right away, since the next commands may change
+   * them.
+   *
+   * @return the id of the stage or work item the command added, if any.
+   */
+  @Nullable
+  private String apply(final Workflow workflow, final WorkflowCommand command,
+    final List<Consumer<WorkflowDocument>> patches)
+    throws StageNotInProcessException, StageNotEmptyException, WorkItemNotInProcessException,
+           WorkItemNotInStageException, WorkItemNotArchivedException {
+    switch (command.getType()) {
+      case RENAME_WORKFLOW: {
+        workflow.setName(command.getName());
+        patches.add(document -> document.rename(command.getName()));
+        return null;
+      }
+      case ADD_STAGE: {
+        Stage stage = workflow.addStageToWorkflow(
+          this.workflowIdentityService().nextStageIdentity(), command.getName());
+        patches.add(document -> document.addStage(stage));
+        return stage.getId();
+      }
+      case RENAME_STAGE: {
+        Stage stage = workflow.stageOfId(command.getStageId())
+          .orElseThrow(StageNotInProcessException::new);
+        stage.setName(command.getName());
+        patches.add(document -> document.renameStage(command.getStageId(), command.getName()));
+        return null;
+      }
+      case REMOVE_STAGE: {
+        workflow.removeStageWithId(command.getStageId());
+        patches.add(document -> document.removeStage(command.getStageId()));
+        return null;
+      }
+      case ADD_WORK_ITEM: {
+        WorkItem workItem = workflow.addWorkItemToStage(command.getStageId(),
+          this.workflowIdentityService().nextWorkItemIdentity(), command.getName(),
+          command.getDescription());
+        patches.add(document -> document.addWorkItem(command.getStageId(), workItem));
+        return workItem.getId();
+      }
+      case CHANGE_WORK_ITEM: {
+        WorkItem workItem = workflow.workItemOfId(command.getWorkItemId())
+          .orElseThrow(WorkItemNotInProcessException::new);
+        workItem.change(command.getName(), command.getDescription());
+        patches.add(document -> document.updateWorkItem(workItem));
+        return null;
+      }
+      case REMOVE_WORK_ITEM: {
+        workflow.removeWorkItemWithId(command.getWorkItemId());
+        patches.add(document -> document.removeWorkItem(command.getWorkItemId()));
+        return null;
+      }
+      case MOVE_WORK_ITEM: {
+        workflow.moveWorkItemWithIdToStageWithId(command.getWorkItemId(), command.getStageId());
+        patches.add(document -> document.moveWorkItemToStage(command.getWorkItemId(),
+          command.getStageId()));
+        return null;
+      }
+      case CHANGE_WORK_ITEM_PRIORITY: {
+        int priority = workflow.changePriorityOfWorkItemWithId(command.getWorkItemId(),
+          command.getPosition()).getPriority();
+        patches.add(document -> document.moveWorkItem(command.getWorkItemId(), priority));
+        return null;
+      }
+      case ARCHIVE_WORK_ITEM: {
+        workflow.archiveWorkItemWithId(command.getWorkItemId());
+        patches.add(document -> document.removeWorkItem(command.getWorkItemId()));
+        return null;
+      }
+      case SEND_BACK_WORK_ITEM: {
+        WorkItem workItem = workflow.sendBackToWorkflowWorkItemWithId(command.getWorkItemId());
+        String stageId = workItem.getStage().getId();
+        int priority = workItem.getPriority();
+        patches.add(document -> document.insertWorkItem(stageId, workItem, priority));
+        return null;
+      }
+      default:
+        throw new IllegalArgumentException("Unknown command " + command.getType());
+    }
+  }
+
+  /**
+   * Only the workflow itself is read: the stages and work items a command needs are loaded when the
+   * command looks them up, so that its cost does not depend on the size of the board. Within the
+   * lane of the workflow, they are usually still in memory from the previous commands and are not
+   * read at all. The cached copy of the workflow is evicted once the command commits.
+   *
+   * The version of the workflow is the one the command changes, even when the workflow is still in
+   * memory from a previous command: the command fails when committing if another one changed the
+   * workflow meanwhile, and is then run again by {@link ConflictRetryAspect}.
+   */
   private Workflow existingWorkflowOfId(String boardId) throws WorkflowNotFoundException {
     Workflow workflow = this.workflowRepository().findOne(boardId);
     if (workflow == null) {
       throw new WorkflowNotFoundException(boardId);
     }
+    ExpectedWorkflowVersion.check(workflow);
+    workflow.beginChange();
+    this.workflowCache.invalidateOnCommit(boardId);
     return workflow;
   }
 
+  /**
+   * Writes the ranks shifted at once by the change made to the workflow, applies the change to its
+   * document, and records it in the change log of the workflow.
+   */
+  private void changed(final Workflow workflow, final Consumer<WorkflowDocument> patch) {
+    this.workflowRepository().writeRankShifts(workflow);
+    this.workflowReadModel().update(workflow, patch);
+    this.workflowChangeLog.record(workflow);
+  }
+
   private WorkflowRepository workflowRepository() {
     return workflowRepository;
   }
 
+  private WorkflowReadModel workflowReadModel() {
+    return this.workflowReadModel;
+  }
+
   private WorkflowIdentityService workflowIdentityService() {
     return this.workflowIdentityService;
   }
@@ -0,0 +1,166 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+
+/**
+ * Keeps in memory the workflow aggregates loaded to be read, so that polling the same
+ * boards does not hit the database.
+ *
+ * The boards are served from the documents of the {@link WorkflowReadModel}: the cache is only a
+ * fallback for the workflows created before the read model, which have no document until their
+ * first command, and for the callers of {@link WorkflowQueryService#findBoard(String)}.
+ *
+ * The cache is bounded by the number of stages and work items of the cached workflows rather than
+ * by the number of workflows. A workflow is evicted when a transaction changing it commits.
+ *
+ * The cached workflows are shared by all the readers: they must never be modified. The commands
+ * load their own copy of the workflow.
+ */
+@Component
+@ManagedResource(objectName = "org.svomz.apps.koobz:type=WorkflowCache",
+  description = "Cache of the workflows loaded to be read")
+public class WorkflowCache {
+
+  private final Cache<String, Workflow> workflows;
+
+  /**
+   * Incremented on each invalidation. A workflow loaded while an invalidation happens may be
+   * stale: it is not kept in the cache.
+   */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  @Inject
+  public WorkflowCache(
+    @Value("${koobz.workflow-cache.maximum-weight:100000}") final long maximumWeight) {
+    Preconditions.checkArgument(maximumWeight >= 0);
+
+    this.workflows = CacheBuilder.newBuilder()
+      .maximumWeight(maximumWeight)
+      .weigher((String workflowId, Workflow workflow) -> weightOf(workflow))
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * @return the cached workflow having the given id, or the one returned by the given loader if
+   * there is none. The loaded workflow is cached unless the loader returned null.
+   */
+  public Workflow get(final String workflowId, final Supplier<Workflow> loader) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(loader);
+
+    Workflow workflow = this.workflows.getIfPresent(workflowId);
+    if (workflow != null) {
+      return workflow;
+    }
+
+    long invalidationsBeforeLoading = this.invalidations.get();
+    workflow = loader.get();
+    if (workflow == null) {
+      return null;
+    }
+
+    prepareForSharing(workflow);
+    this.workflows.put(workflowId, workflow);
+    // checked after the put so that an invalidation running concurrently either removes the
+    // workflow itself or is seen here
+    if (this.invalidations.get() != invalidationsBeforeLoading) {
+      this.workflows.invalidate(workflowId);
+    }
+    return workflow;
+  }
+
+  /**
+   * Evicts the workflow having the given id once the current transaction commits, or right away if
+   * there is no transaction.
+   */
+  public void invalidateOnCommit(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      this.invalidate(workflowId);
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCommit() {
+          WorkflowCache.this.invalidate(workflowId);
+        }
+      });
+  }
+
+  public void invalidate(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    this.invalidations.incrementAndGet();
+    this.workflows.invalidate(workflowId);
+  }
+
+  public CacheStats stats() {
+    return this.workflows.stats();
+  }
+
+  @ManagedAttribute(description = "Number of reads served by the cache")
+  public long getHitCount() {
+    return this.stats().hitCount();
+  }
+
+  @ManagedAttribute(description = "Number of reads which had to load the workflow")
+  public long getMissCount() {
+    return this.stats().missCount();
+  }
+
+  @ManagedAttribute(description = "Number of workflows evicted to respect the maximum weight")
+  public long getEvictionCount() {
+    return this.stats().evictionCount();
+  }
+
+  @ManagedAttribute(description = "Ratio of the reads served by the cache")
+  public double getHitRate() {
+    return this.stats().hitRate();
+  }
+
+  @ManagedAttribute(description = "Number of cached workflows")
+  public long getSize() {
+    return this.workflows.size();
+  }
+
+  /**
+   * The weight of a workflow is its number of stages and work items.
+   */
+  private static int weightOf(final Workflow workflow) {
+    return 1 + workflow.stages().size() + workflow.workItems().size();
+  }
+
+  /**
+   * Builds the structures the workflow computes on first use, so that the readers sharing it only
+   * read it.
+   */
+  private static void prepareForSharing(final Workflow workflow) {
+    workflow.workItems().size();
+    for (Stage stage : workflow.stages()) {
+      stage.getPosition();
+      stage.getWorkItems();
+    }
+  }
+
+}
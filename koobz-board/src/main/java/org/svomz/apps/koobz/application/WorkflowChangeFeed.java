@@ -0,0 +1,116 @@
+package org.svomz.apps.koobz.application;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.CaseFormat;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import org.svomz.apps.koobz.domain.model.WorkflowChange;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * The changes made to a workflow since a version of it, each one as a JSON object
+ * giving the version it made. When the changes since this version are not all known anymore, the
+ * feed has none and the whole board has to be read again.
+ */
+public final class WorkflowChangeFeed {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final long version;
+  private final boolean resyncRequired;
+  private final List<String> changes;
+
+  private WorkflowChangeFeed(final long version, final boolean resyncRequired,
+    final List<String> changes) {
+    this.version = version;
+    this.resyncRequired = resyncRequired;
+    this.changes = ImmutableList.copyOf(changes);
+  }
+
+  public static WorkflowChangeFeed of(final long version, final List<String> changes) {
+    Preconditions.checkNotNull(changes);
+
+    return new WorkflowChangeFeed(version, false, changes);
+  }
+
+  public static WorkflowChangeFeed resyncRequired(final long version) {
+    return new WorkflowChangeFeed(version, true, ImmutableList.of());
+  }
+
+  /**
+   * @return the current version of the workflow, the one the changes lead to.
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
+  public boolean isResyncRequired() {
+    return this.resyncRequired;
+  }
+
+  /**
+   * @return the changes, in the order they have been made.
+   */
+  public List<String> getChanges() {
+    return this.changes;
+  }
+
+  /**
+   * A change as stored, with the version it made.
+   */
+  public static final class Entry {
+
+    private final long version;
+    private final String json;
+
+    public Entry(final long version, final String json) {
+      this.version = version;
+      this.json = Preconditions.checkNotNull(json);
+    }
+
+    /**
+     * @return the change as a compact JSON object: its version, its type and the fields of the
+     * change which are set.
+     */
+    public static Entry of(final long version, final WorkflowChange change) {
+      Preconditions.checkNotNull(change);
+
+      ObjectNode node = MAPPER.createObjectNode();
+      node.put("version", version);
+      node.put("type",
+        CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, change.getType().name()));
+      putIfSet(node, "stageId", change.getStageId());
+      putIfSet(node, "workItemId", change.getWorkItemId());
+      putIfSet(node, "name", change.getName());
+      putIfSet(node, "description", change.getDescription());
+      if (change.getPosition() >= 0) {
+        node.put("position", change.getPosition());
+      }
+      try {
+        return new Entry(version, MAPPER.writeValueAsString(node));
+      } catch (JsonProcessingException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static void putIfSet(final ObjectNode node, final String field, final String value) {
+      if (value != null) {
+        node.put(field, value);
+      }
+    }
+
+    public long getVersion() {
+      return this.version;
+    }
+
+    public String getJson() {
+      return this.json;
+    }
+  }
+
+}
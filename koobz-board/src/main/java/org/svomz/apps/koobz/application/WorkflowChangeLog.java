@@ -0,0 +1,153 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowChange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Keeps the changes of the last versions of each workflow, so that the readers of a
+ * board get what changed since the version they have instead of the whole board again.
+ *
+ * Each change is stored as a compact JSON object: its version, its type and the fields of the
+ * change which are set, e.g. {"version":12,"type":"workItemAdded","stageId":...,"workItemId":...,
+ * "name":...,"description":...}. Only the changes of the last versions are given: the older ones
+ * are removed as the workflow changes. The workflows changed without going through a
+ * {@link Workflow}, by an import, have versions without changes: their readers read the board again.
+ *
+ * The recorded changes are also pushed to the subscribers of the workflow once committed.
+ */
+@Component
+public class WorkflowChangeLog {
+
+  private final WorkflowChangeRepository changeRepository;
+  private final WorkflowEvents workflowEvents;
+  private final int window;
+
+  @Inject
+  public WorkflowChangeLog(final WorkflowChangeRepository aChangeRepository,
+    final WorkflowEvents aWorkflowEvents,
+    @Value("${koobz.changes.window:1000}") final int aWindow) {
+    Preconditions.checkArgument(aWindow > 0);
+
+    this.changeRepository = Preconditions.checkNotNull(aChangeRepository);
+    this.workflowEvents = Preconditions.checkNotNull(aWorkflowEvents);
+    this.window = aWindow;
+  }
+
+  /**
+   * Records the changes made to the workflow since its current change began, as the changes making
+   * its current version, and forgets the versions which fell out of the window.
+   */
+  public void record(final Workflow workflow) {
+    Preconditions.checkNotNull(workflow);
+
+    List<WorkflowChange> changes = workflow.changes();
+    if (changes.isEmpty()) {
+      return;
+    }
+
+    long version = workflow.getVersion();
+    List<String> entries = new ArrayList<>(changes.size());
+    for (WorkflowChange change : changes) {
+      entries.add(WorkflowChangeFeed.Entry.of(version, change).getJson());
+    }
+    this.changeRepository.append(workflow.getId(), version, entries);
+    if (version > this.window) {
+      this.changeRepository.compact(workflow.getId(), version - this.window);
+    }
+    this.workflowEvents.publishOnCommit(workflow.getId(), WorkflowChangeFeed.of(version, entries));
+  }
+
+  /**
+   * Subscribes to the changes of the workflow. The subscriber first gets the changes made since the
+   * given version, or is told to read the board again if they are not all known, then the changes
+   * as they are committed.
+   *
+   * @param since the version the subscriber has, or nothing to only get the next changes
+   */
+  public WorkflowEvents.Subscription subscribe(final String workflowId, final OptionalLong since,
+    final WorkflowEventSink sink) throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(since);
+    Preconditions.checkNotNull(sink);
+
+    // subscribed before reading the changes, so that none is missed in between: the changes read
+    // and then published again are not sent twice
+    WorkflowEvents.Subscription subscription = this.workflowEvents.subscribe(workflowId, sink);
+    try {
+      if (!since.isPresent()) {
+        OptionalLong version = this.changeRepository.findWorkflowVersion(workflowId);
+        if (!version.isPresent()) {
+          throw new WorkflowNotFoundException(workflowId);
+        }
+        subscription.start(version.getAsLong(), Optional.empty());
+        return subscription;
+      }
+
+      WorkflowChangeFeed catchUp = this.changesSince(workflowId, since.getAsLong());
+      if (catchUp.isResyncRequired() || !catchUp.getChanges().isEmpty()) {
+        subscription.start(catchUp.getVersion(), Optional.of(catchUp));
+      } else {
+        subscription.start(catchUp.getVersion(), Optional.empty());
+      }
+      return subscription;
+    } catch (WorkflowNotFoundException | RuntimeException e) {
+      subscription.cancel();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the changes made since the given version, or a feed requiring the reader to read the
+   * board again if some of them are not known.
+   */
+  public WorkflowChangeFeed changesSince(final String workflowId, final long since)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+
+    OptionalLong current = this.changeRepository.findWorkflowVersion(workflowId);
+    if (!current.isPresent()) {
+      throw new WorkflowNotFoundException(workflowId);
+    }
+    long version = current.getAsLong();
+    if (since == version) {
+      return WorkflowChangeFeed.of(version, new ArrayList<>());
+    }
+    if (since > version || version - since > this.window) {
+      // a version to come, or older than the changes kept: their store may keep more of them
+      return WorkflowChangeFeed.resyncRequired(version);
+    }
+
+    // every version since the given one has to be found: a missing one has been compacted, or
+    // made without recording its changes
+    List<WorkflowChangeFeed.Entry> entries = this.changeRepository.findSince(workflowId, since);
+    List<String> changes = new ArrayList<>(entries.size());
+    long last = since;
+    for (WorkflowChangeFeed.Entry entry : entries) {
+      if (entry.getVersion() > version) {
+        // made after the version was read
+        break;
+      }
+      if (entry.getVersion() != last && entry.getVersion() != last + 1) {
+        return WorkflowChangeFeed.resyncRequired(version);
+      }
+      last = entry.getVersion();
+      changes.add(entry.getJson());
+    }
+    if (last != version) {
+      return WorkflowChangeFeed.resyncRequired(version);
+    }
+    return WorkflowChangeFeed.of(version, changes);
+  }
+
+}
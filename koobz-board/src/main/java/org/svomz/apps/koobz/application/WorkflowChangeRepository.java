@@ -0,0 +1,32 @@
+package org.svomz.apps.koobz.application;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * The append-only log of the changes of each workflow, as JSON entries keyed by the
+ * version they made and their order in it.
+ */
+public interface WorkflowChangeRepository {
+
+  /**
+   * Appends the changes making the given version of the workflow.
+   */
+  void append(String workflowId, long version, List<String> changes);
+
+  /**
+   * Removes the changes which made the given version of the workflow and the previous ones.
+   */
+  void compact(String workflowId, long upToVersion);
+
+  /**
+   * @return the changes which made the versions following the given one, in order.
+   */
+  List<WorkflowChangeFeed.Entry> findSince(String workflowId, long version);
+
+  /**
+   * @return the current version of the workflow, or nothing if it does not exist.
+   */
+  OptionalLong findWorkflowVersion(String workflowId);
+
+}
@@ -0,0 +1,150 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nullable;
+
+/**
+ * One of the changes {@link WorkflowApplicationService#applyCommands(String, java.util.List)}
+ * applies to a workflow. Each type of command matches one of the commands of the application
+ * service, and only has the parameters of this command.
+ */
+public final class WorkflowCommand {
+
+  public enum Type {
+    RENAME_WORKFLOW,
+    ADD_STAGE,
+    RENAME_STAGE,
+    REMOVE_STAGE,
+    ADD_WORK_ITEM,
+    CHANGE_WORK_ITEM,
+    REMOVE_WORK_ITEM,
+    MOVE_WORK_ITEM,
+    CHANGE_WORK_ITEM_PRIORITY,
+    ARCHIVE_WORK_ITEM,
+    SEND_BACK_WORK_ITEM
+  }
+
+  private final Type type;
+  private final String stageId;
+  private final String workItemId;
+  private final String name;
+  private final String description;
+  private final int position;
+
+  private WorkflowCommand(final Type type, @Nullable final String stageId,
+    @Nullable final String workItemId, @Nullable final String name,
+    @Nullable final String description, final int position) {
+    this.type = type;
+    this.stageId = stageId;
+    this.workItemId = workItemId;
+    this.name = name;
+    this.description = description;
+    this.position = position;
+  }
+
+  public static WorkflowCommand renameWorkflow(final String name) {
+    Preconditions.checkNotNull(name);
+
+    return new WorkflowCommand(Type.RENAME_WORKFLOW, null, null, name, null, 0);
+  }
+
+  public static WorkflowCommand addStage(final String name) {
+    Preconditions.checkNotNull(name);
+
+    return new WorkflowCommand(Type.ADD_STAGE, null, null, name, null, 0);
+  }
+
+  public static WorkflowCommand renameStage(final String stageId, final String name) {
+    Preconditions.checkNotNull(stageId);
+    Preconditions.checkNotNull(name);
+
+    return new WorkflowCommand(Type.RENAME_STAGE, stageId, null, name, null, 0);
+  }
+
+  public static WorkflowCommand removeStage(final String stageId) {
+    Preconditions.checkNotNull(stageId);
+
+    return new WorkflowCommand(Type.REMOVE_STAGE, stageId, null, null, null, 0);
+  }
+
+  public static WorkflowCommand addWorkItem(final String stageId, final String title,
+    final String description) {
+    Preconditions.checkNotNull(stageId);
+    Preconditions.checkNotNull(title);
+    Preconditions.checkNotNull(description);
+
+    return new WorkflowCommand(Type.ADD_WORK_ITEM, stageId, null, title, description, 0);
+  }
+
+  public static WorkflowCommand changeWorkItem(final String workItemId, final String title,
+    final String description) {
+    Preconditions.checkNotNull(workItemId);
+    Preconditions.checkNotNull(title);
+    Preconditions.checkNotNull(description);
+
+    return new WorkflowCommand(Type.CHANGE_WORK_ITEM, null, workItemId, title, description, 0);
+  }
+
+  public static WorkflowCommand removeWorkItem(final String workItemId) {
+    Preconditions.checkNotNull(workItemId);
+
+    return new WorkflowCommand(Type.REMOVE_WORK_ITEM, null, workItemId, null, null, 0);
+  }
+
+  public static WorkflowCommand moveWorkItem(final String workItemId, final String stageId) {
+    Preconditions.checkNotNull(workItemId);
+    Preconditions.checkNotNull(stageId);
+
+    return new WorkflowCommand(Type.MOVE_WORK_ITEM, stageId, workItemId, null, null, 0);
+  }
+
+  public static WorkflowCommand changeWorkItemPriority(final String workItemId,
+    final int position) {
+    Preconditions.checkNotNull(workItemId);
+    Preconditions.checkArgument(position >= 0);
+
+    return new WorkflowCommand(Type.CHANGE_WORK_ITEM_PRIORITY, null, workItemId, null, null,
+      position);
+  }
+
+  public static WorkflowCommand archiveWorkItem(final String workItemId) {
+    Preconditions.checkNotNull(workItemId);
+
+    return new WorkflowCommand(Type.ARCHIVE_WORK_ITEM, null, workItemId, null, null, 0);
+  }
+
+  public static WorkflowCommand sendBackWorkItem(final String workItemId) {
+    Preconditions.checkNotNull(workItemId);
+
+    return new WorkflowCommand(Type.SEND_BACK_WORK_ITEM, null, workItemId, null, null, 0);
+  }
+
+  public Type getType() {
+    return this.type;
+  }
+
+  String getStageId() {
+    return this.stageId;
+  }
+
+  String getWorkItemId() {
+    return this.workItemId;
+  }
+
+  /**
+   * @return the name of the workflow or of the stage, or the title of the work item.
+   */
+  String getName() {
+    return this.name;
+  }
+
+  String getDescription() {
+    return this.description;
+  }
+
+  int getPosition() {
+    return this.position;
+  }
+
+}
@@ -0,0 +1,50 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+/**
+ * Tells whether a {@link WorkflowCommand} has been applied. The result of a command
+ * adding a stage or a work item gives the id of the new stage or work item, the result of a
+ * rejected command gives the reason why the workflow rejected it.
+ */
+public final class WorkflowCommandResult {
+
+  private final boolean applied;
+  private final String createdId;
+  private final String rejection;
+
+  private WorkflowCommandResult(final boolean applied, @Nullable final String createdId,
+    @Nullable final String rejection) {
+    this.applied = applied;
+    this.createdId = createdId;
+    this.rejection = rejection;
+  }
+
+  static WorkflowCommandResult applied(@Nullable final String createdId) {
+    return new WorkflowCommandResult(true, createdId, null);
+  }
+
+  static WorkflowCommandResult rejected(final Exception rejection) {
+    Preconditions.checkNotNull(rejection);
+
+    return new WorkflowCommandResult(false, null, rejection.getMessage() != null
+      ? rejection.getMessage() : rejection.getClass().getSimpleName());
+  }
+
+  public boolean isApplied() {
+    return this.applied;
+  }
+
+  public Optional<String> getCreatedId() {
+    return Optional.ofNullable(this.createdId);
+  }
+
+  public Optional<String> getRejection() {
+    return Optional.ofNullable(this.rejection);
+  }
+
+}
@@ -0,0 +1,232 @@
+package org.svomz.apps.koobz.application;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
+
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The JSON representation of a board served to the readers: the workflow with its
+ * stages and their work items, ordered. It is stored as is and kept up to date by the commands,
+ * which apply their change to the document instead of rendering the whole workflow again.
+ *
+ * The patch methods throw an {@link IllegalStateException} when the document does not contain the
+ * stage or the work item they change: the document is then out of sync with the workflow and has
+ * to be rendered again with {@link #of(Workflow)}.
+ */
+public final class WorkflowDocument {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final ObjectNode root;
+
+  private WorkflowDocument(final ObjectNode root) {
+    this.root = root;
+  }
+
+  /**
+   * Renders the whole workflow. All its stages and work items are read.
+   */
+  public static WorkflowDocument of(final Workflow workflow) {
+    Preconditions.checkNotNull(workflow);
+
+    ObjectNode root = MAPPER.createObjectNode();
+    root.put("id", workflow.getId());
+    root.put("name", workflow.getName());
+    ArrayNode stages = root.putArray("stages");
+
+    List<Stage> orderedStages = new ArrayList<>(workflow.stages());
+    orderedStages.sort(Comparator.comparingInt(Stage::getPosition));
+    orderedStages.forEach(stage -> stages.add(renderStage(stage)));
+    renumber(stages);
+
+    return new WorkflowDocument(root);
+  }
+
+  public static WorkflowDocument parse(final String json) {
+    Preconditions.checkNotNull(json);
+
+    try {
+      return new WorkflowDocument((ObjectNode) MAPPER.readTree(json));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public String toJson() {
+    try {
+      return MAPPER.writeValueAsString(this.root);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public String getWorkflowId() {
+    return this.root.get("id").asText();
+  }
+
+  public WorkflowDocument rename(final String name) {
+    this.root.put("name", name);
+    return this;
+  }
+
+  /**
+   * Adds the new stage after the other ones, as
+   * {@link Workflow#addStageToWorkflow(String, String)} does. A new stage has no work items: the
+   * ones added to it afterwards are added to the document by {@link #addWorkItem(String, WorkItem)}.
+   */
+  public WorkflowDocument addStage(final Stage stage) {
+    ArrayNode stages = this.stages();
+    ObjectNode stageNode = renderStage(stage);
+    stageNode.putArray("workItems");
+    stages.add(stageNode);
+    renumber(stages);
+    return this;
+  }
+
+  public WorkflowDocument renameStage(final String stageId, final String name) {
+    this.stageNode(stageId).put("name", name);
+    return this;
+  }
+
+  public WorkflowDocument removeStage(final String stageId) {
+    ArrayNode stages = this.stages();
+    stages.remove(indexOf(stages, stageId));
+    renumber(stages);
+    return this;
+  }
+
+  /**
+   * Adds the work item after the other ones of the stage, as
+   * {@link Workflow#addWorkItemToStage(String, String, String, String)} does.
+   */
+  public WorkflowDocument addWorkItem(final String stageId, final WorkItem workItem) {
+    ArrayNode workItems = (ArrayNode) this.stageNode(stageId).get("workItems");
+    workItems.add(renderWorkItem(workItem));
+    renumber(workItems);
+    return this;
+  }
+
+  /**
+   * Inserts the work item in the stage at the given position.
+   */
+  public WorkflowDocument insertWorkItem(final String stageId, final WorkItem workItem,
+    final int position) {
+    ArrayNode workItems = (ArrayNode) this.stageNode(stageId).get("workItems");
+    workItems.insert(Math.min(position, workItems.size()), renderWorkItem(workItem));
+    renumber(workItems);
+    return this;
+  }
+
+  public WorkflowDocument updateWorkItem(final WorkItem workItem) {
+    ArrayNode workItems = this.workItemsContaining(workItem.getId());
+    ObjectNode workItemNode = (ObjectNode) workItems.get(indexOf(workItems, workItem.getId()));
+    workItemNode.put("title", workItem.getTitle());
+    workItemNode.put("description", workItem.getDescription());
+    return this;
+  }
+
+  public WorkflowDocument removeWorkItem(final String workItemId) {
+    ArrayNode workItems = this.workItemsContaining(workItemId);
+    workItems.remove(indexOf(workItems, workItemId));
+    renumber(workItems);
+    return this;
+  }
+
+  /**
+   * Moves the work item after the work items of the given stage, as
+   * {@link Workflow#moveWorkItemWithIdToStageWithId(String, String)} does.
+   */
+  public WorkflowDocument moveWorkItemToStage(final String workItemId, final String stageId) {
+    ArrayNode targetWorkItems = (ArrayNode) this.stageNode(stageId).get("workItems");
+    ArrayNode workItems = this.workItemsContaining(workItemId);
+    JsonNode workItemNode = workItems.remove(indexOf(workItems, workItemId));
+    renumber(workItems);
+    targetWorkItems.add(workItemNode);
+    renumber(targetWorkItems);
+    return this;
+  }
+
+  /**
+   * Moves the work item to the given position in its stage.
+   */
+  public WorkflowDocument moveWorkItem(final String workItemId, final int position) {
+    ArrayNode workItems = this.workItemsContaining(workItemId);
+    JsonNode workItemNode = workItems.remove(indexOf(workItems, workItemId));
+    workItems.insert(Math.min(position, workItems.size()), workItemNode);
+    renumber(workItems);
+    return this;
+  }
+
+  private ArrayNode stages() {
+    return (ArrayNode) this.root.get("stages");
+  }
+
+  private ObjectNode stageNode(final String stageId) {
+    ArrayNode stages = this.stages();
+    return (ObjectNode) stages.get(indexOf(stages, stageId));
+  }
+
+  private ArrayNode workItemsContaining(final String workItemId) {
+    for (JsonNode stage : this.stages()) {
+      ArrayNode workItems = (ArrayNode) stage.get("workItems");
+      for (JsonNode workItem : workItems) {
+        if (workItemId.equals(workItem.get("id").asText())) {
+          return workItems;
+        }
+      }
+    }
+    throw new IllegalStateException("The document does not contain the work item " + workItemId);
+  }
+
+  private static int indexOf(final ArrayNode nodes, final String id) {
+    for (int i = 0; i < nodes.size(); i++) {
+      if (id.equals(nodes.get(i).get("id").asText())) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("The document does not contain the element " + id);
+  }
+
+  /**
+   * The order of an element is its index in its array.
+   */
+  private static void renumber(final ArrayNode nodes) {
+    for (int i = 0; i < nodes.size(); i++) {
+      ((ObjectNode) nodes.get(i)).put("order", i);
+    }
+  }
+
+  private static ObjectNode renderStage(final Stage stage) {
+    ObjectNode stageNode = MAPPER.createObjectNode();
+    stageNode.put("id", stage.getId());
+    stageNode.put("name", stage.getName());
+    stageNode.put("order", 0);
+    ArrayNode workItems = stageNode.putArray("workItems");
+    stage.forEachActiveWorkItem(workItem -> workItems.add(renderWorkItem(workItem)));
+    renumber(workItems);
+    return stageNode;
+  }
+
+  private static ObjectNode renderWorkItem(final WorkItem workItem) {
+    ObjectNode workItemNode = MAPPER.createObjectNode();
+    workItemNode.put("id", workItem.getId());
+    workItemNode.put("title", workItem.getTitle());
+    workItemNode.put("order", 0);
+    workItemNode.put("description", workItem.getDescription());
+    return workItemNode;
+  }
+
+}
@@ -0,0 +1,39 @@
+package org.svomz.apps.koobz.application;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Stores the {@link WorkflowDocument} of each workflow as JSON, with the version of
+ * the workflow it represents.
+ */
+public interface WorkflowDocumentRepository {
+
+  /**
+   * @return the JSON document of the workflow, if it has one.
+   */
+  Optional<VersionedDocument> findDocument(String workflowId);
+
+  /**
+   * @return the version of the workflow the document represents, without reading the document.
+   */
+  OptionalLong findVersion(String workflowId);
+
+  /**
+   * Same as {@link #findDocument(String)}, but the document stays locked until the end of the
+   * current transaction so that two commands on the same workflow do not overwrite each other's
+   * change.
+   */
+  Optional<String> findDocumentForUpdate(String workflowId);
+
+  /**
+   * Creates or replaces the document of a workflow.
+   */
+  void save(String workflowId, long version, String document);
+
+  /**
+   * Removes the document of a workflow, if it has one.
+   */
+  void delete(String workflowId);
+
+}
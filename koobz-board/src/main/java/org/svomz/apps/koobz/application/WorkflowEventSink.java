@@ -0,0 +1,31 @@
+package org.svomz.apps.koobz.application;
+
+import java.io.IOException;
+
+/**
+ * Where the changes of a workflow are pushed to one of its subscribers, an open
+ * connection usually. It is only used by one thread at a time.
+ */
+public interface WorkflowEventSink {
+
+  /**
+   * Sends the changes which made a version of the workflow, or the version which requires the
+   * subscriber to read the board again.
+   *
+   * @throws IOException if the subscriber is gone
+   */
+  void send(WorkflowChangeFeed feed) throws IOException;
+
+  /**
+   * Sends nothing but keeps the connection alive, and tells whether the subscriber is gone.
+   *
+   * @throws IOException if the subscriber is gone
+   */
+  void heartbeat() throws IOException;
+
+  /**
+   * Ends the subscription. The subscriber may subscribe again from the last version it received.
+   */
+  void close();
+
+}
@@ -0,0 +1,290 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+/**
+ * Pushes the committed changes of the workflows to their subscribers.
+ *
+ * Publishing never blocks: the changes are put in a bounded buffer of each subscriber, and written
+ * to it by a small pool of writers shared by all the subscribers. A subscriber whose buffer is full
+ * reads slower than the workflow changes: its subscription is ended, and it subscribes again from
+ * the last version it received once it catches up. An idle subscriber has no thread of its own, it
+ * only gets a heartbeat from time to time, which also finds out the subscribers which are gone.
+ */
+@Component
+@ManagedResource(objectName = "org.svomz.apps.koobz:type=WorkflowEvents",
+  description = "Subscribers to the changes of the workflows")
+public class WorkflowEvents {
+
+  private final ConcurrentMap<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+  private final int bufferCapacity;
+  private final ExecutorService writers;
+  private final ScheduledExecutorService heartbeats;
+
+  private final AtomicLong published = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  @Inject
+  public WorkflowEvents(@Value("${koobz.events.buffer-capacity:64}") final int bufferCapacity,
+    @Value("${koobz.events.writer-threads:4}") final int writerThreads,
+    @Value("${koobz.events.heartbeat-seconds:15}") final int heartbeatSeconds) {
+    Preconditions.checkArgument(bufferCapacity > 0);
+    Preconditions.checkArgument(writerThreads > 0);
+    Preconditions.checkArgument(heartbeatSeconds > 0);
+
+    this.bufferCapacity = bufferCapacity;
+    this.writers = Executors.newFixedThreadPool(writerThreads,
+      new ThreadFactoryBuilder().setNameFormat("workflow-events-%d").setDaemon(true).build());
+    this.heartbeats = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("workflow-events-heartbeat").setDaemon(true)
+        .build());
+    this.heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds,
+      TimeUnit.SECONDS);
+  }
+
+  /**
+   * Subscribes to the changes of the workflow. Its changes are buffered from now on, but only sent
+   * once the subscription is started, so that the subscriber may first catch up with the changes
+   * made before.
+   */
+  public Subscription subscribe(final String workflowId, final WorkflowEventSink sink) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(sink);
+
+    Subscription subscription = new Subscription(workflowId, sink);
+    this.subscriptions.computeIfAbsent(workflowId, id -> ConcurrentHashMap.newKeySet())
+      .add(subscription);
+    return subscription;
+  }
+
+  /**
+   * Publishes the changes once the current transaction commits, right away if there is none.
+   */
+  public void publishOnCommit(final String workflowId, final WorkflowChangeFeed feed) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(feed);
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      this.publish(workflowId, feed);
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCommit() {
+          WorkflowEvents.this.publish(workflowId, feed);
+        }
+      });
+  }
+
+  public void publish(final String workflowId, final WorkflowChangeFeed feed) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(feed);
+
+    Set<Subscription> subscribers = this.subscriptions.get(workflowId);
+    if (subscribers == null) {
+      return;
+    }
+    this.published.incrementAndGet();
+    for (Subscription subscription : subscribers) {
+      subscription.offer(Optional.of(feed));
+    }
+  }
+
+  /**
+   * Ends the subscriptions, letting the writers send what they already have.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    this.heartbeats.shutdownNow();
+    this.subscriptions.values().forEach(subscribers -> subscribers.forEach(Subscription::cancel));
+    this.writers.shutdown();
+    this.writers.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  private void heartbeat() {
+    for (Set<Subscription> subscribers : this.subscriptions.values()) {
+      for (Subscription subscription : subscribers) {
+        subscription.offer(Optional.empty());
+      }
+    }
+  }
+
+  private void remove(final Subscription subscription) {
+    this.subscriptions.computeIfPresent(subscription.workflowId, (id, subscribers) -> {
+      subscribers.remove(subscription);
+      return subscribers.isEmpty() ? null : subscribers;
+    });
+  }
+
+  @ManagedAttribute(description = "Number of subscribers to the changes of the workflows")
+  public int getSubscriberCount() {
+    return this.subscriptions.values().stream().mapToInt(Set::size).sum();
+  }
+
+  @ManagedAttribute(description = "Number of workflows having subscribers")
+  public int getWorkflowCount() {
+    return this.subscriptions.size();
+  }
+
+  @ManagedAttribute(description = "Number of changes published to the subscribers of a workflow")
+  public long getPublishedCount() {
+    return this.published.get();
+  }
+
+  @ManagedAttribute(description = "Number of subscribers dropped because they read too slowly")
+  public long getDroppedCount() {
+    return this.dropped.get();
+  }
+
+  /**
+   * The subscription of a sink to the changes of a workflow. Its buffer holds the changes to send,
+   * or nothing for a heartbeat. At most one writer sends them at a time, in order, skipping the
+   * versions the subscriber already has. The sink is closed by a writer as well, never by the
+   * thread which publishes or ends the subscription.
+   */
+  public final class Subscription {
+
+    private final String workflowId;
+    private final WorkflowEventSink sink;
+    private final ArrayBlockingQueue<Optional<WorkflowChangeFeed>> buffer;
+    /**
+     * Held by the subscription until it is started, then by the writer sending its changes.
+     */
+    private final AtomicBoolean writing = new AtomicBoolean(true);
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile boolean started;
+    private volatile boolean cancelled;
+
+    /**
+     * Only used by the writer of the subscription.
+     */
+    private long lastVersion = -1;
+
+    private Subscription(final String workflowId, final WorkflowEventSink sink) {
+      this.workflowId = workflowId;
+      this.sink = sink;
+      this.buffer = new ArrayBlockingQueue<>(WorkflowEvents.this.bufferCapacity);
+    }
+
+    /**
+     * Starts sending the changes, after the changes the subscriber has to catch up with if any.
+     *
+     * @param version the version of the workflow the subscriber has once caught up
+     */
+    public void start(final long version, final Optional<WorkflowChangeFeed> catchUp) {
+      Preconditions.checkNotNull(catchUp);
+
+      this.started = true;
+      WorkflowEvents.this.writers.execute(() -> {
+        if (catchUp.isPresent()) {
+          this.write(catchUp);
+        }
+        this.lastVersion = Math.max(this.lastVersion, version);
+        this.drain();
+      });
+    }
+
+    /**
+     * Ends the subscription, without sending the changes still buffered. The sink is closed by the
+     * writer of the subscription once it is done with it.
+     */
+    public void cancel() {
+      if (this.cancelled) {
+        return;
+      }
+      this.cancelled = true;
+      WorkflowEvents.this.remove(this);
+      if (this.writing.compareAndSet(false, true)) {
+        WorkflowEvents.this.writers.execute(this::drain);
+      } else if (!this.started) {
+        // no writer will ever hold it: the subscription failed before it could be started
+        WorkflowEvents.this.writers.execute(this::close);
+      }
+    }
+
+    private void offer(final Optional<WorkflowChangeFeed> feed) {
+      if (this.cancelled) {
+        return;
+      }
+      if (!feed.isPresent() && !this.buffer.isEmpty()) {
+        // the buffered changes tell as much as a heartbeat
+        return;
+      }
+      if (!this.buffer.offer(feed)) {
+        WorkflowEvents.this.dropped.incrementAndGet();
+        this.cancel();
+        return;
+      }
+      if (this.writing.compareAndSet(false, true)) {
+        WorkflowEvents.this.writers.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      do {
+        Optional<WorkflowChangeFeed> feed;
+        while (!this.cancelled && (feed = this.buffer.poll()) != null) {
+          this.write(feed);
+        }
+        if (this.cancelled) {
+          // the flag is kept: nothing is written to the subscription anymore
+          this.close();
+          return;
+        }
+        this.writing.set(false);
+        // a change offered, or a cancellation, meanwhile may have seen the writer still busy
+      } while ((!this.buffer.isEmpty() || this.cancelled)
+        && this.writing.compareAndSet(false, true));
+    }
+
+    private void write(final Optional<WorkflowChangeFeed> feed) {
+      if (this.cancelled) {
+        return;
+      }
+      try {
+        if (!feed.isPresent()) {
+          this.sink.heartbeat();
+        } else if (feed.get().getVersion() > this.lastVersion) {
+          this.sink.send(feed.get());
+          this.lastVersion = feed.get().getVersion();
+        }
+      } catch (IOException | RuntimeException e) {
+        this.cancel();
+      }
+    }
+
+    private void close() {
+      if (this.closed.compareAndSet(false, true)) {
+        this.sink.close();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,25 @@
+package org.svomz.apps.koobz.application;
+
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Receives the rows of an exported workflow one at a time, in the order they are
+ * exported: the workflow, each stage followed by its work items, then the archived work items.
+ */
+public interface WorkflowExportHandler {
+
+  void workflow(String id, String name, long version) throws IOException;
+
+  void stage(String id, String name) throws IOException;
+
+  /**
+   * A work item of the last stage.
+   */
+  void workItem(String id, String title, @Nullable String description) throws IOException;
+
+  void archivedWorkItem(String id, String title, @Nullable String description, String stageId)
+    throws IOException;
+
+}
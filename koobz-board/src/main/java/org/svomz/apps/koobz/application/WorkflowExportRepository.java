@@ -0,0 +1,19 @@
+package org.svomz.apps.koobz.application;
+
+import java.io.IOException;
+
+/**
+ * Reads the rows of a workflow to export, without loading the workflow nor holding its
+ * rows in memory.
+ */
+public interface WorkflowExportRepository {
+
+  /**
+   * Passes the workflow, its stages with their work items ordered by rank, then its archived work
+   * items to the handler, each row as soon as it is read.
+   *
+   * @return false if the workflow does not exist, the handler being given nothing.
+   */
+  boolean read(String workflowId, WorkflowExportHandler handler) throws IOException;
+
+}
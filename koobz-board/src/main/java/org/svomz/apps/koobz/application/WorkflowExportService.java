@@ -0,0 +1,139 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+/**
+ * Exports a whole workflow, archive included, as a JSON document written while its
+ * rows are read: neither the workflow nor the document are held in memory, whatever the size of
+ * the board.
+ *
+ * The document is {"id": ..., "name": ..., "version": ...,
+ * "stages": [{"id": ..., "name": ..., "workItems": [{"id": ..., "title": ..., "description": ...}]}],
+ * "archivedWorkItems": [{"id": ..., "title": ..., "description": ..., "stageId": ...}]}, the stages
+ * and work items being in the order of the board.
+ */
+@Service
+public class WorkflowExportService {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory()
+    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  private final WorkflowExportRepository exportRepository;
+
+  @Inject
+  public WorkflowExportService(final WorkflowExportRepository anExportRepository) {
+    this.exportRepository = Preconditions.checkNotNull(anExportRepository);
+  }
+
+  /**
+   * Writes the document of the workflow to the output. The rows are read in a single transaction,
+   * so that the document is a consistent snapshot of the workflow.
+   */
+  @Transactional
+  public void export(final String workflowId, final OutputStream output)
+    throws WorkflowNotFoundException, IOException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(output);
+
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+      JsonExport export = new JsonExport(generator);
+      if (!this.exportRepository.read(workflowId, export)) {
+        throw new WorkflowNotFoundException(workflowId);
+      }
+      export.finish();
+    }
+  }
+
+  /**
+   * Writes each row as it comes, opening and closing the arrays of the document as the rows go
+   * from a stage to the next one and from the stages to the archive.
+   */
+  private static final class JsonExport implements WorkflowExportHandler {
+
+    private final JsonGenerator generator;
+    private boolean inStage;
+    private boolean inArchive;
+
+    private JsonExport(final JsonGenerator generator) {
+      this.generator = generator;
+    }
+
+    @Override
+    public void workflow(final String id, final String name, final long version)
+      throws IOException {
+      this.generator.writeStartObject();
+      this.generator.writeStringField("id", id);
+      this.generator.writeStringField("name", name);
+      this.generator.writeNumberField("version", version);
+      this.generator.writeArrayFieldStart("stages");
+    }
+
+    @Override
+    public void stage(final String id, final String name) throws IOException {
+      this.endStage();
+      this.generator.writeStartObject();
+      this.generator.writeStringField("id", id);
+      this.generator.writeStringField("name", name);
+      this.generator.writeArrayFieldStart("workItems");
+      this.inStage = true;
+    }
+
+    @Override
+    public void workItem(final String id, final String title, @Nullable final String description)
+      throws IOException {
+      this.generator.writeStartObject();
+      this.generator.writeStringField("id", id);
+      this.generator.writeStringField("title", title);
+      this.generator.writeStringField("description", description);
+      this.generator.writeEndObject();
+    }
+
+    @Override
+    public void archivedWorkItem(final String id, final String title,
+      @Nullable final String description, final String stageId) throws IOException {
+      this.startArchive();
+      this.generator.writeStartObject();
+      this.generator.writeStringField("id", id);
+      this.generator.writeStringField("title", title);
+      this.generator.writeStringField("description", description);
+      this.generator.writeStringField("stageId", stageId);
+      this.generator.writeEndObject();
+    }
+
+    private void finish() throws IOException {
+      this.startArchive();
+      this.generator.writeEndArray();
+      this.generator.writeEndObject();
+    }
+
+    private void endStage() throws IOException {
+      if (this.inStage) {
+        this.generator.writeEndArray();
+        this.generator.writeEndObject();
+        this.inStage = false;
+      }
+    }
+
+    private void startArchive() throws IOException {
+      if (!this.inArchive) {
+        this.endStage();
+        this.generator.writeEndArray();
+        this.generator.writeArrayFieldStart("archivedWorkItems");
+        this.inArchive = true;
+      }
+    }
+  }
+
+}
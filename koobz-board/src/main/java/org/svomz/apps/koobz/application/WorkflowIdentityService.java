@@ -1,21 +1,30 @@
 package org.svomz.apps.koobz.application;
 
+import com.google.common.base.Preconditions;
+
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
+import javax.inject.Inject;
 
 @Service
 public class WorkflowIdentityService {
 
+  private final IdentityGenerator identityGenerator;
+
+  @Inject
+  public WorkflowIdentityService(final IdentityGenerator anIdentityGenerator) {
+    this.identityGenerator = Preconditions.checkNotNull(anIdentityGenerator);
+  }
+
   public String nextStageIdentity() {
-    return UUID.randomUUID().toString();
+    return this.identityGenerator.nextIdentity();
   }
 
   public String nextBoardIdentity() {
-    return UUID.randomUUID().toString();
+    return this.identityGenerator.nextIdentity();
   }
 
   public String nextWorkItemIdentity() {
-    return UUID.randomUUID().toString();
+    return this.identityGenerator.nextIdentity();
   }
 }
@@ -0,0 +1,21 @@
+package org.svomz.apps.koobz.application;
+
+/**
+ * Follows the progress of an import, as the records are read and written.
+ */
+public interface WorkflowImportListener {
+
+  /**
+   * Called for each record which has not been imported.
+   *
+   * @param line   the line the record has been read from
+   * @param reason why it has not been imported
+   */
+  void rejected(long line, String reason);
+
+  /**
+   * Called each time a batch of records has been committed.
+   */
+  void committed(WorkflowImportProgress progress);
+
+}
@@ -0,0 +1,32 @@
+package org.svomz.apps.koobz.application;
+
+/**
+ * The number of records imported and rejected so far by an import, and the version
+ * of the workflow they made.
+ */
+public final class WorkflowImportProgress {
+
+  private final long importedCount;
+  private final long rejectedCount;
+  private final long version;
+
+  public WorkflowImportProgress(final long importedCount, final long rejectedCount,
+    final long version) {
+    this.importedCount = importedCount;
+    this.rejectedCount = rejectedCount;
+    this.version = version;
+  }
+
+  public long getImportedCount() {
+    return this.importedCount;
+  }
+
+  public long getRejectedCount() {
+    return this.rejectedCount;
+  }
+
+  public long getVersion() {
+    return this.version;
+  }
+
+}
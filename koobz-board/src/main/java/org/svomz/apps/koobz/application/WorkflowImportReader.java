@@ -0,0 +1,140 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads the records of an import one at a time with the Jackson streaming API, so
+ * that only the current record is held in memory whatever the size of the input. The input is
+ * either a JSON array of records, or newline delimited JSON with one record per line.
+ *
+ * A line of newline delimited JSON which cannot be parsed is read as an invalid record, and the
+ * next lines are read as usual. A JSON array cannot be read past a syntax error: the error is read
+ * as an invalid record and ends the input.
+ */
+public final class WorkflowImportReader implements Closeable {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final BufferedReader reader;
+  /** The parser of the whole input, when it is a JSON array */
+  @Nullable
+  private JsonParser arrayParser;
+  /** The current line, or the lines before the array */
+  private long line;
+  private boolean started;
+  private boolean finished;
+
+  public WorkflowImportReader(final InputStream input) {
+    Preconditions.checkNotNull(input);
+
+    this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return the next record, or null once the whole input has been read.
+   */
+  @Nullable
+  public WorkflowImportRecord next() throws IOException {
+    if (!this.started) {
+      this.start();
+    }
+    if (this.finished) {
+      return null;
+    }
+    return this.arrayParser != null ? this.nextElement() : this.nextLine();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.arrayParser != null) {
+      this.arrayParser.close();
+    }
+    this.reader.close();
+  }
+
+  /**
+   * Looks at the first character of the input to tell an array from newline delimited JSON.
+   */
+  private void start() throws IOException {
+    this.started = true;
+
+    int character;
+    do {
+      this.reader.mark(1);
+      character = this.reader.read();
+      if (character == '\n') {
+        this.line++;
+      }
+    } while (character != -1 && Character.isWhitespace(character));
+
+    if (character == -1) {
+      this.finished = true;
+      return;
+    }
+    this.reader.reset();
+    if (character == '[') {
+      this.arrayParser = JSON_FACTORY.createParser(this.reader);
+      this.arrayParser.nextToken();
+    }
+  }
+
+  private WorkflowImportRecord nextElement() throws IOException {
+    try {
+      JsonToken token = this.arrayParser.nextToken();
+      if (token == null || token == JsonToken.END_ARRAY) {
+        this.finished = true;
+        return null;
+      }
+      // the current location is right after the start of the record
+      return WorkflowImportRecord.read(this.arrayParser,
+        this.lineOf(this.arrayParser.getCurrentLocation()));
+    } catch (JsonProcessingException e) {
+      this.finished = true;
+      return WorkflowImportRecord.invalid(this.lineOf(e.getLocation()), e.getOriginalMessage());
+    }
+  }
+
+  private WorkflowImportRecord nextLine() throws IOException {
+    String text;
+    while ((text = this.reader.readLine()) != null) {
+      this.line++;
+      if (text.trim().isEmpty()) {
+        continue;
+      }
+
+      try (JsonParser parser = JSON_FACTORY.createParser(text)) {
+        parser.nextToken();
+        WorkflowImportRecord record = WorkflowImportRecord.read(parser, this.line);
+        if (parser.nextToken() != null) {
+          return WorkflowImportRecord.invalid(this.line, "A line must hold a single record");
+        }
+        return record;
+      } catch (JsonProcessingException e) {
+        return WorkflowImportRecord.invalid(this.line, e.getOriginalMessage());
+      }
+    }
+
+    this.finished = true;
+    return null;
+  }
+
+  private long lineOf(@Nullable final JsonLocation location) {
+    return location == null ? this.line : this.line + location.getLineNr();
+  }
+
+}
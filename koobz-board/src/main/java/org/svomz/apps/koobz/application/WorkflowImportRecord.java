@@ -0,0 +1,180 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * A stage or a work item to import into a workflow, read from one line of the input of
+ * an import. A stage is written {"type": "stage", "name": ...}, a work item {"type": "workItem",
+ * "title": ..., "description": ...} with either the "stageId" or the "stage" name of its stage.
+ *
+ * A record which cannot be read holds the reason why: it is reported as rejected.
+ */
+public final class WorkflowImportRecord {
+
+  public enum Type {
+    STAGE,
+    WORK_ITEM
+  }
+
+  private static final Set<String> FIELDS = ImmutableSet.of("type", "name", "title",
+    "description", "stageId", "stage");
+
+  private final long line;
+  @Nullable
+  private final Type type;
+  @Nullable
+  private final String name;
+  @Nullable
+  private final String description;
+  @Nullable
+  private final String stageId;
+  @Nullable
+  private final String stageName;
+  @Nullable
+  private final String error;
+
+  private WorkflowImportRecord(final long line, @Nullable final Type type,
+    @Nullable final String name, @Nullable final String description,
+    @Nullable final String stageId, @Nullable final String stageName,
+    @Nullable final String error) {
+    this.line = line;
+    this.type = type;
+    this.name = name;
+    this.description = description;
+    this.stageId = stageId;
+    this.stageName = stageName;
+    this.error = error;
+  }
+
+  public static WorkflowImportRecord stage(final long line, final String name) {
+    Preconditions.checkNotNull(name);
+
+    return new WorkflowImportRecord(line, Type.STAGE, name, null, null, null, null);
+  }
+
+  /**
+   * @param stageId   the id of the stage of the work item, or null to find it by name
+   * @param stageName the name of the stage of the work item, used when no id is given
+   */
+  public static WorkflowImportRecord workItem(final long line, @Nullable final String stageId,
+    @Nullable final String stageName, final String title, @Nullable final String description) {
+    Preconditions.checkArgument(stageId != null || stageName != null);
+    Preconditions.checkNotNull(title);
+
+    return new WorkflowImportRecord(line, Type.WORK_ITEM, title, description, stageId, stageName,
+      null);
+  }
+
+  public static WorkflowImportRecord invalid(final long line, final String error) {
+    Preconditions.checkNotNull(error);
+
+    return new WorkflowImportRecord(line, null, null, null, null, null, error);
+  }
+
+  /**
+   * Reads the record the parser is on, up to its end. The fields the record does not know are
+   * ignored.
+   *
+   * @param line the line the record starts on
+   */
+  static WorkflowImportRecord read(final JsonParser parser, final long line) throws IOException {
+    Preconditions.checkNotNull(parser);
+
+    if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return invalid(line, "A record must be a JSON object");
+    }
+
+    Map<String, String> fields = new HashMap<>();
+    String error = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken value = parser.nextToken();
+      if (value == JsonToken.VALUE_STRING) {
+        fields.put(field, parser.getText());
+      } else if (value != JsonToken.VALUE_NULL) {
+        parser.skipChildren();
+        if (error == null && FIELDS.contains(field)) {
+          error = "The field " + field + " must be a string";
+        }
+      }
+    }
+    if (error != null) {
+      return invalid(line, error);
+    }
+
+    String type = fields.get("type");
+    if ("stage".equals(type)) {
+      if (!fields.containsKey("name")) {
+        return invalid(line, "A stage needs a name");
+      }
+      return stage(line, fields.get("name"));
+    }
+    if ("workItem".equals(type)) {
+      if (!fields.containsKey("title")) {
+        return invalid(line, "A work item needs a title");
+      }
+      if (!fields.containsKey("stageId") && !fields.containsKey("stage")) {
+        return invalid(line, "A work item needs the stageId or the stage name of its stage");
+      }
+      return workItem(line, fields.get("stageId"), fields.get("stage"), fields.get("title"),
+        fields.get("description"));
+    }
+    return invalid(line, "Unknown record type " + type);
+  }
+
+  public long getLine() {
+    return this.line;
+  }
+
+  /**
+   * @return the type of the record, or null if it could not be read.
+   */
+  @Nullable
+  public Type getType() {
+    return this.type;
+  }
+
+  /**
+   * @return the name of the stage or the title of the work item.
+   */
+  @Nullable
+  public String getName() {
+    return this.name;
+  }
+
+  @Nullable
+  public String getDescription() {
+    return this.description;
+  }
+
+  @Nullable
+  public String getStageId() {
+    return this.stageId;
+  }
+
+  @Nullable
+  public String getStageName() {
+    return this.stageName;
+  }
+
+  /**
+   * @return why the record could not be read, if it could not.
+   */
+  public Optional<String> getError() {
+    return Optional.ofNullable(this.error);
+  }
+
+}
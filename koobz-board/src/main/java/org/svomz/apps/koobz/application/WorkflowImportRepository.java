@@ -0,0 +1,36 @@
+package org.svomz.apps.koobz.application;
+
+import org.svomz.apps.koobz.domain.model.WorkflowTail;
+
+import java.util.OptionalLong;
+
+/**
+ * Writes the imported stages and work items of a workflow directly, without loading
+ * the workflow.
+ */
+public interface WorkflowImportRepository {
+
+  /**
+   * Locks the workflow until the end of the current transaction, so that no other change of the
+   * workflow is committed meanwhile.
+   *
+   * @return the version of the workflow, if it exists.
+   */
+  OptionalLong lockWorkflow(String workflowId);
+
+  /**
+   * @return the ranks of the last stage of the workflow and of the last work item of each stage.
+   */
+  WorkflowTail findTail(String workflowId);
+
+  /**
+   * Inserts the rows by batches of statements: the stages first, then the work items.
+   */
+  void insert(String workflowId, WorkflowImportRows rows);
+
+  /**
+   * Makes a new version of the workflow.
+   */
+  void incrementVersion(String workflowId);
+
+}
@@ -0,0 +1,105 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * The stages and work items of a batch of imported records, ready to be written.
+ */
+public final class WorkflowImportRows {
+
+  private final List<StageRow> stages = new ArrayList<>();
+  private final List<WorkItemRow> workItems = new ArrayList<>();
+
+  void addStage(final String id, final String name, final long rank) {
+    this.stages.add(new StageRow(id, name, rank));
+  }
+
+  void addWorkItem(final String id, final String stageId, final String title,
+    @Nullable final String description, final long rank) {
+    this.workItems.add(new WorkItemRow(id, stageId, title, description, rank));
+  }
+
+  public List<StageRow> getStages() {
+    return Collections.unmodifiableList(this.stages);
+  }
+
+  public List<WorkItemRow> getWorkItems() {
+    return Collections.unmodifiableList(this.workItems);
+  }
+
+  public int size() {
+    return this.stages.size() + this.workItems.size();
+  }
+
+  public static final class StageRow {
+
+    private final String id;
+    private final String name;
+    private final long rank;
+
+    private StageRow(final String id, final String name, final long rank) {
+      this.id = Preconditions.checkNotNull(id);
+      this.name = Preconditions.checkNotNull(name);
+      this.rank = rank;
+    }
+
+    public String getId() {
+      return this.id;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public long getRank() {
+      return this.rank;
+    }
+  }
+
+  public static final class WorkItemRow {
+
+    private final String id;
+    private final String stageId;
+    private final String title;
+    @Nullable
+    private final String description;
+    private final long rank;
+
+    private WorkItemRow(final String id, final String stageId, final String title,
+      @Nullable final String description, final long rank) {
+      this.id = Preconditions.checkNotNull(id);
+      this.stageId = Preconditions.checkNotNull(stageId);
+      this.title = Preconditions.checkNotNull(title);
+      this.description = description;
+      this.rank = rank;
+    }
+
+    public String getId() {
+      return this.id;
+    }
+
+    public String getStageId() {
+      return this.stageId;
+    }
+
+    public String getTitle() {
+      return this.title;
+    }
+
+    @Nullable
+    public String getDescription() {
+      return this.description;
+    }
+
+    public long getRank() {
+      return this.rank;
+    }
+  }
+
+}
@@ -0,0 +1,123 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+/**
+ * Imports stages and work items into a workflow from a stream of records, read and
+ * written as they come so that the memory an import needs does not depend on its size.
+ */
+@Service
+public class WorkflowImportService {
+
+  private final WorkflowImporter workflowImporter;
+  private final int batchSize;
+
+  @Inject
+  public WorkflowImportService(final WorkflowImporter aWorkflowImporter,
+    @Value("${koobz.import.batch-size:500}") final int batchSize) {
+    Preconditions.checkArgument(batchSize > 0);
+
+    this.workflowImporter = Preconditions.checkNotNull(aWorkflowImporter);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Imports the records read from the input into the workflow. They are written by batches, each
+   * batch in its own transaction making a new version of the workflow: the records imported before
+   * a failure stay imported. Once the import ends, even on a failure, the subscribers of the
+   * workflow are told to read it again if a batch imported records.
+   *
+   * The first batch fails with a {@link WorkflowVersionMismatchException}, importing nothing, if
+   * the workflow is not at the version expected by the current thread, if any: the next batches are
+   * based on the version made by the previous ones.
+   *
+   * A stage is appended after the last stage of the workflow, and a work item after the last work
+   * item of its stage, as when they are added one at a time. A work item refers to its stage by id
+   * or by name, a name shared by several stages referring to the first of them.
+   *
+   * @param input    a JSON array of records, or newline delimited JSON records
+   * @param listener told about each rejected record and each committed batch
+   * @return the records imported and rejected, and the version of the workflow they made
+   */
+  public WorkflowImportProgress importRecords(final String workflowId, final InputStream input,
+    final WorkflowImportListener listener) throws WorkflowNotFoundException, IOException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(input);
+    Preconditions.checkNotNull(listener);
+
+    WorkflowImportProgress progress = new WorkflowImportProgress(0, 0, 0);
+    Optional<Long> expectedVersion = ExpectedWorkflowVersion.get();
+    Throwable failure = null;
+    try {
+      List<WorkflowImportRecord> batch = new ArrayList<>(this.batchSize);
+      try (WorkflowImportReader reader = new WorkflowImportReader(input)) {
+        WorkflowImportRecord record;
+        while ((record = reader.next()) != null) {
+          batch.add(record);
+          if (batch.size() == this.batchSize) {
+            progress = this.importBatch(workflowId, batch, progress, listener);
+            batch.clear();
+            // the next batches are based on the version made by the previous ones
+            ExpectedWorkflowVersion.clear();
+          }
+        }
+      }
+      // the last batch is written even when empty, to tell the version of the workflow
+      progress = this.importBatch(workflowId, batch, progress, listener);
+      return progress;
+    } catch (Throwable e) {
+      failure = e;
+      throw e;
+    } finally {
+      expectedVersion.ifPresent(ExpectedWorkflowVersion::set);
+      // the batches committed before a failure stay imported, and are published as well
+      if (progress.getImportedCount() > 0) {
+        this.finishImport(workflowId, failure);
+      }
+    }
+  }
+
+  /**
+   * Ends the import, without hiding the failure which stopped it, if any, behind a failure to end
+   * it.
+   */
+  private void finishImport(final String workflowId, final Throwable failure) {
+    try {
+      this.workflowImporter.finishImport(workflowId);
+    } catch (RuntimeException e) {
+      if (failure == null) {
+        throw e;
+      }
+      failure.addSuppressed(e);
+    }
+  }
+
+  private WorkflowImportProgress importBatch(final String workflowId,
+    final List<WorkflowImportRecord> batch, final WorkflowImportProgress progress, final WorkflowImportListener listener)
+    throws WorkflowNotFoundException {
+    WorkflowImporter.BatchResult result = this.workflowImporter.importBatch(workflowId, batch);
+    for (Map.Entry<Long, String> rejection : result.getRejections().entries()) {
+      listener.rejected(rejection.getKey(), rejection.getValue());
+    }
+
+    WorkflowImportProgress newProgress = new WorkflowImportProgress(
+      progress.getImportedCount() + result.getImportedCount(),
+      progress.getRejectedCount() + result.getRejections().size(),
+      result.getVersion());
+    listener.committed(newProgress);
+    return newProgress;
+  }
+
+}
@@ -0,0 +1,191 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.domain.model.StageNotInProcessException;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+import org.svomz.apps.koobz.domain.model.WorkflowTail;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+
+/**
+ * Writes the batches of records of the imports, each one in its own transaction.
+ *
+ * The stages and work items are inserted without loading the workflow, its row being locked
+ * meanwhile. Each batch makes a new version of the workflow, written behind the persistence
+ * context: the one of the lane, which may hold the workflow since a previous command, is cleared so
+ * that the next command reads the imported version instead of failing on a stale one. A command
+ * which read the workflow before, elsewhere, fails to commit and is run again.
+ */
+@Component
+public class WorkflowImporter {
+
+  private final WorkflowImportRepository importRepository;
+  private final WorkflowRepository workflowRepository;
+  private final WorkflowIdentityService workflowIdentityService;
+  private final WorkflowReadModel workflowReadModel;
+  private final WorkflowCache workflowCache;
+  private final EntityManagerFactory entityManagerFactory;
+  private final WorkflowEvents workflowEvents;
+
+  @Inject
+  public WorkflowImporter(final WorkflowImportRepository anImportRepository,
+    final WorkflowRepository aWorkflowRepository,
+    final WorkflowIdentityService aWorkflowIdentityService,
+    final WorkflowReadModel aWorkflowReadModel, final WorkflowCache aWorkflowCache,
+    final EntityManagerFactory anEntityManagerFactory, final WorkflowEvents aWorkflowEvents) {
+    this.importRepository = Preconditions.checkNotNull(anImportRepository);
+    this.workflowRepository = Preconditions.checkNotNull(aWorkflowRepository);
+    this.workflowIdentityService = Preconditions.checkNotNull(aWorkflowIdentityService);
+    this.workflowReadModel = Preconditions.checkNotNull(aWorkflowReadModel);
+    this.workflowCache = Preconditions.checkNotNull(aWorkflowCache);
+    this.entityManagerFactory = Preconditions.checkNotNull(anEntityManagerFactory);
+    this.workflowEvents = Preconditions.checkNotNull(aWorkflowEvents);
+  }
+
+  /**
+   * Imports the stages and work items of the records into the workflow. The records which cannot
+   * be imported are skipped and do not prevent the others from being imported. The batch fails
+   * with a {@link WorkflowVersionMismatchException} if the workflow is not at the version expected
+   * by the current thread, if any.
+   *
+   * The document of the workflow is dropped rather than patched: patching it for each batch would
+   * make the cost of an import grow with the square of its size. It is rendered again by
+   * {@link #finishImport(String)} once the import ends, even when it ends on a failure.
+   */
+  @Transactional
+  @InWorkflowLane
+  public BatchResult importBatch(final String workflowId, final List<WorkflowImportRecord> records)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(records);
+
+    OptionalLong version = this.importRepository.lockWorkflow(workflowId);
+    if (!version.isPresent()) {
+      throw new WorkflowNotFoundException(workflowId);
+    }
+    ExpectedWorkflowVersion.check(workflowId, version.getAsLong());
+
+    ListMultimap<Long, String> rejections = LinkedListMultimap.create();
+    if (records.isEmpty()) {
+      return new BatchResult(version.getAsLong(), 0, rejections);
+    }
+
+    WorkflowTail tail = this.importRepository.findTail(workflowId);
+    WorkflowImportRows rows = new WorkflowImportRows();
+    for (WorkflowImportRecord record : records) {
+      if (record.getError().isPresent()) {
+        rejections.put(record.getLine(), record.getError().get());
+        continue;
+      }
+
+      try {
+        this.append(tail, rows, record);
+      } catch (StageNotInProcessException | IllegalArgumentException | IllegalStateException e) {
+        rejections.put(record.getLine(), WorkflowCommandResult.rejected(e).getRejection().get());
+      }
+    }
+
+    if (rows.size() == 0) {
+      return new BatchResult(version.getAsLong(), 0, rejections);
+    }
+    this.importRepository.insert(workflowId, rows);
+    this.importRepository.incrementVersion(workflowId);
+    EntityManagerFactoryUtils.getTransactionalEntityManager(this.entityManagerFactory).clear();
+    this.workflowReadModel.discard(workflowId);
+    this.workflowCache.invalidateOnCommit(workflowId);
+    return new BatchResult(version.getAsLong() + 1, rows.size(), rejections);
+  }
+
+  /**
+   * Ends an import which committed at least one batch, whether it went to its end or stopped
+   * partway: the document of the workflow is rendered again, and its subscribers are told to read
+   * the board again once this is committed. This is done in the lane of the workflow: the changes of
+   * the commands which ran before are published first, and the ones of the commands which run after
+   * are published afterwards, with later versions. Nothing is done if the workflow is gone.
+   */
+  @Transactional
+  @InWorkflowLane
+  public void finishImport(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    Workflow workflow = this.workflowRepository.findAggregate(workflowId);
+    if (workflow == null) {
+      return;
+    }
+    this.workflowReadModel.rebuild(workflow);
+    // the imported records are not recorded as changes: the subscribers read the board again
+    this.workflowEvents.publishOnCommit(workflowId,
+      WorkflowChangeFeed.resyncRequired(workflow.getVersion()));
+  }
+
+  private void append(final WorkflowTail tail, final WorkflowImportRows rows,
+    final WorkflowImportRecord record) throws StageNotInProcessException {
+    switch (record.getType()) {
+      case STAGE: {
+        String stageId = this.workflowIdentityService.nextStageIdentity();
+        long rank = tail.appendStage(stageId, record.getName());
+        rows.addStage(stageId, record.getName(), rank);
+        break;
+      }
+      case WORK_ITEM: {
+        String stageId = record.getStageId() != null
+          ? record.getStageId()
+          : tail.stageIdOfName(record.getStageName()).orElseThrow(StageNotInProcessException::new);
+        String workItemId = this.workflowIdentityService.nextWorkItemIdentity();
+        long rank = tail.appendWorkItem(stageId, workItemId, record.getName(),
+          record.getDescription());
+        rows.addWorkItem(workItemId, stageId, record.getName(), record.getDescription(), rank);
+        break;
+      }
+      default:
+        throw new IllegalArgumentException("Unknown record type " + record.getType());
+    }
+  }
+
+  /**
+   * What a batch of records did to the workflow.
+   */
+  public static final class BatchResult {
+
+    private final long version;
+    private final int importedCount;
+    private final ListMultimap<Long, String> rejections;
+
+    BatchResult(final long version, final int importedCount,
+      final ListMultimap<Long, String> rejections) {
+      this.version = version;
+      this.importedCount = importedCount;
+      this.rejections = Preconditions.checkNotNull(rejections);
+    }
+
+    /**
+     * @return the version of the workflow once the batch has been committed.
+     */
+    public long getVersion() {
+      return this.version;
+    }
+
+    public int getImportedCount() {
+      return this.importedCount;
+    }
+
+    /**
+     * @return the reasons why records have not been imported, by line, in the order of the records.
+     */
+    public ListMultimap<Long, String> getRejections() {
+      return this.rejections;
+    }
+  }
+
+}
@@ -0,0 +1,254 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Runs the commands annotated with {@link InWorkflowLane} in lanes, each lane running
+ * its commands one at a time on its own thread. The commands of a workflow always go to the same
+ * lane, so that they never contend for the rows of the workflow, while the commands of workflows
+ * going to different lanes run in parallel. The caller waits for the command to complete.
+ *
+ * Each lane keeps its persistence context between its commands: the workflow and the stages and
+ * work items loaded by a command stay in memory for the next commands of the workflow, which do
+ * not read them again. The optimistic lock of the workflow still guards against the changes made
+ * outside of the lane, by another instance of the application for example: a command based on a
+ * stale workflow fails, the persistence context is cleared when the transaction rolls back and the
+ * command is submitted again to the lane by {@link ConflictRetryAspect}, which runs around the
+ * lanes, to run on the workflow read from the database. The persistence context is also cleared
+ * after any failed command, and when it holds too many entities.
+ *
+ * A command called within a transaction, or by another command, runs in the thread of its caller.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ManagedResource(objectName = "org.svomz.apps.koobz:type=WorkflowLanes",
+  description = "Lanes running the commands of the workflows one at a time")
+public class WorkflowLanes {
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final int maxWarmEntities;
+  private final Lane[] lanes;
+
+  private final ThreadLocal<Lane> currentLane = new ThreadLocal<>();
+
+  private final AtomicLong commands = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final AtomicLong rejections = new AtomicLong();
+
+  @Inject
+  public WorkflowLanes(final EntityManagerFactory entityManagerFactory,
+    @Value("${koobz.workflow-lanes.count:0}") final int count,
+    @Value("${koobz.workflow-lanes.queue-capacity:1000}") final int queueCapacity,
+    @Value("${koobz.workflow-lanes.max-warm-entities:10000}") final int maxWarmEntities) {
+    Preconditions.checkNotNull(entityManagerFactory);
+    Preconditions.checkArgument(count >= 0);
+    Preconditions.checkArgument(queueCapacity > 0);
+    Preconditions.checkArgument(maxWarmEntities >= 0);
+
+    this.entityManagerFactory = entityManagerFactory;
+    this.maxWarmEntities = maxWarmEntities;
+    this.lanes = new Lane[count > 0 ? count : Runtime.getRuntime().availableProcessors()];
+    for (int i = 0; i < this.lanes.length; i++) {
+      this.lanes[i] = new Lane(i, queueCapacity);
+    }
+  }
+
+  @Around("@annotation(org.svomz.apps.koobz.application.InWorkflowLane)")
+  public Object runInLane(final ProceedingJoinPoint command) throws Throwable {
+    if (this.currentLane.get() != null
+      || TransactionSynchronizationManager.isActualTransactionActive()) {
+      return command.proceed();
+    }
+
+    Object workflowId = command.getArgs()[0];
+    Preconditions.checkArgument(workflowId instanceof String,
+      "The first parameter of %s must be the id of a workflow", command.getSignature());
+
+    Lane lane = this.lanes[this.laneOf((String) workflowId)];
+    Optional<Long> expectedVersion = ExpectedWorkflowVersion.get();
+    PersistenceActivity persistenceActivity = PersistenceActivity.current();
+    long submittedAt = System.nanoTime();
+    Future<Object> result;
+    try {
+      result = lane.executor.submit(() -> {
+        this.recordWait(System.nanoTime() - submittedAt);
+        return lane.run(command, expectedVersion, persistenceActivity);
+      });
+    } catch (RuntimeException e) {
+      this.rejections.incrementAndGet();
+      throw e;
+    }
+
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.cancel(false);
+      throw e;
+    }
+  }
+
+  /**
+   * @return the index of the lane running the commands of the given workflow.
+   */
+  public int laneOf(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    return Math.floorMod(workflowId.hashCode(), this.lanes.length);
+  }
+
+  /**
+   * Runs the commands already waiting in the lanes, then closes the persistence contexts of the
+   * lanes once their threads are done.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    for (Lane lane : this.lanes) {
+      lane.executor.shutdown();
+    }
+    for (Lane lane : this.lanes) {
+      if (lane.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+        lane.closePersistenceContext();
+      }
+    }
+  }
+
+  private void recordWait(final long waitNanos) {
+    this.commands.incrementAndGet();
+    this.totalWaitNanos.addAndGet(waitNanos);
+    this.maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+  }
+
+  @ManagedAttribute(description = "Number of lanes")
+  public int getLaneCount() {
+    return this.lanes.length;
+  }
+
+  @ManagedAttribute(description = "Number of commands waiting in all the lanes")
+  public int getQueueDepth() {
+    int queueDepth = 0;
+    for (Lane lane : this.lanes) {
+      queueDepth += lane.executor.getQueue().size();
+    }
+    return queueDepth;
+  }
+
+  @ManagedAttribute(description = "Number of commands waiting in the busiest lane")
+  public int getMaxQueueDepth() {
+    int maxQueueDepth = 0;
+    for (Lane lane : this.lanes) {
+      maxQueueDepth = Math.max(maxQueueDepth, lane.executor.getQueue().size());
+    }
+    return maxQueueDepth;
+  }
+
+  @ManagedAttribute(description = "Number of commands run by the lanes")
+  public long getCommandCount() {
+    return this.commands.get();
+  }
+
+  @ManagedAttribute(description = "Number of commands rejected because their lane was full")
+  public long getRejectionCount() {
+    return this.rejections.get();
+  }
+
+  @ManagedAttribute(description = "Average time in milliseconds a command waited in its lane")
+  public double getAverageWaitMillis() {
+    long commands = this.commands.get();
+    return commands == 0 ? 0 : this.totalWaitNanos.get() / 1e6 / commands;
+  }
+
+  @ManagedAttribute(description = "Longest time in milliseconds a command waited in its lane")
+  public double getMaxWaitMillis() {
+    return this.maxWaitNanos.get() / 1e6;
+  }
+
+  private final class Lane {
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Only used by the thread of the lane, and closed once this thread is done.
+     */
+    private EntityManager entityManager;
+
+    private Lane(final int index, final int queueCapacity) {
+      this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(queueCapacity),
+        new ThreadFactoryBuilder().setNameFormat("workflow-lane-" + index).setDaemon(true).build());
+    }
+
+    private Object run(final ProceedingJoinPoint command, final Optional<Long> expectedVersion,
+      final PersistenceActivity persistenceActivity) throws Exception {
+      EntityManager entityManager = this.warmEntityManager();
+      TransactionSynchronizationManager.bindResource(WorkflowLanes.this.entityManagerFactory,
+        new EntityManagerHolder(entityManager));
+      expectedVersion.ifPresent(ExpectedWorkflowVersion::set);
+      PersistenceActivity.set(persistenceActivity);
+      WorkflowLanes.this.currentLane.set(this);
+      try {
+        return command.proceed();
+      } catch (Throwable e) {
+        entityManager.clear();
+        Throwables.propagateIfPossible(e, Exception.class);
+        throw new UndeclaredThrowableException(e);
+      } finally {
+        WorkflowLanes.this.currentLane.remove();
+        ExpectedWorkflowVersion.clear();
+        PersistenceActivity.clear();
+        TransactionSynchronizationManager.unbindResource(
+          WorkflowLanes.this.entityManagerFactory);
+      }
+    }
+
+    private EntityManager warmEntityManager() {
+      if (this.entityManager == null || !this.entityManager.isOpen()) {
+        this.entityManager = WorkflowLanes.this.entityManagerFactory.createEntityManager();
+      } else if (this.entityManager.unwrap(Session.class).getStatistics().getEntityCount()
+        > WorkflowLanes.this.maxWarmEntities) {
+        this.entityManager.clear();
+      }
+      return this.entityManager;
+    }
+
+    private void closePersistenceContext() {
+      if (this.entityManager != null && this.entityManager.isOpen()) {
+        this.entityManager.close();
+      }
+    }
+  }
+
+}
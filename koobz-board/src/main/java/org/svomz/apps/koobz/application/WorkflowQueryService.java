@@ -3,10 +3,15 @@ package org.svomz.apps.koobz.application;
 import com.google.common.base.Preconditions;
 
 import org.springframework.stereotype.Service;
+import org.svomz.apps.koobz.domain.model.ArchivedWorkItem;
+import org.svomz.apps.koobz.domain.model.StageNotInProcessException;
 import org.svomz.apps.koobz.domain.model.Workflow;
 import org.svomz.apps.koobz.domain.model.WorkflowRepository;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import javax.inject.Inject;
 import javax.transaction.Transactional;
@@ -14,18 +19,156 @@ import javax.transaction.Transactional;
 @Service
 public class WorkflowQueryService {
 
+  /**
+   * The largest page of work items which may be asked for.
+   */
+  public static final int MAX_PAGE_SIZE = 500;
+
   private final WorkflowRepository workflowRepository;
+  private final WorkflowCache workflowCache;
+  private final WorkflowReadModel workflowReadModel;
+  private final WorkItemPageRepository workItemPageRepository;
+  private final WorkflowChangeLog workflowChangeLog;
 
   @Inject
-  public WorkflowQueryService(final WorkflowRepository aWorkflowRepository) {
+  public WorkflowQueryService(final WorkflowRepository aWorkflowRepository,
+    final WorkflowCache aWorkflowCache, final WorkflowReadModel aWorkflowReadModel,
+    final WorkItemPageRepository aWorkItemPageRepository,
+    final WorkflowChangeLog aWorkflowChangeLog) {
     this.workflowRepository = aWorkflowRepository;
+    this.workflowCache = Preconditions.checkNotNull(aWorkflowCache);
+    this.workflowReadModel = Preconditions.checkNotNull(aWorkflowReadModel);
+    this.workItemPageRepository = Preconditions.checkNotNull(aWorkItemPageRepository);
+    this.workflowChangeLog = Preconditions.checkNotNull(aWorkflowChangeLog);
+  }
+
+  /**
+   * @return the JSON representation of the board: the workflow with its stages and their work
+   * items. It is read as is from the read model. A workflow which does not have its document yet
+   * gets it from its next command: until then, the document is rendered from the workflow, read
+   * through the cache, and not saved.
+   */
+  @Transactional
+  public VersionedDocument findBoardDocument(final String aBoardId)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(aBoardId);
+
+    Optional<VersionedDocument> document = this.workflowReadModel.findDocument(aBoardId);
+    if (document.isPresent()) {
+      return document.get();
+    }
+
+    Workflow workflow = this.findBoard(aBoardId)
+      .orElseThrow(() -> new WorkflowNotFoundException(aBoardId));
+    return this.workflowReadModel.render(workflow);
+  }
+
+  /**
+   * @return the current version of the board, read without its document.
+   */
+  @Transactional
+  public long findBoardVersion(final String aBoardId) throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(aBoardId);
+
+    OptionalLong version = this.workflowReadModel.findVersion(aBoardId);
+    if (version.isPresent()) {
+      return version.getAsLong();
+    }
+    return this.findBoardDocument(aBoardId).getVersion();
+  }
+
+  /**
+   * @return the board with the first page of the work items of each stage, read without the
+   * document nor the workflow.
+   */
+  @Transactional
+  public BoardOverview findBoardOverview(final String aBoardId, final int aPageSize)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(aBoardId);
+    checkPageSize(aPageSize);
+
+    return this.workItemPageRepository.findOverview(aBoardId, aPageSize)
+      .orElseThrow(() -> new WorkflowNotFoundException(aBoardId));
   }
 
+  /**
+   * @return the work items of the stage ranked after the given rank, or from the first one.
+   */
+  @Transactional
+  public WorkItemPage findWorkItemPage(final String aBoardId, final String aStageId,
+    final OptionalLong after, final int aPageSize)
+    throws WorkflowNotFoundException, StageNotInProcessException {
+    Preconditions.checkNotNull(aBoardId);
+    Preconditions.checkNotNull(aStageId);
+    Preconditions.checkNotNull(after);
+    checkPageSize(aPageSize);
+
+    Optional<WorkItemPage> page = this.workItemPageRepository.findPage(aBoardId, aStageId, after,
+      aPageSize);
+    if (page.isPresent()) {
+      return page.get();
+    }
+    if (!this.workItemPageRepository.exists(aBoardId)) {
+      throw new WorkflowNotFoundException(aBoardId);
+    }
+    throw new StageNotInProcessException();
+  }
+
+  /**
+   * @return the changes made to the board since the given version, read in a single transaction so
+   * that they lead to the version given with them.
+   */
+  @Transactional
+  public WorkflowChangeFeed findChangesSince(final String aBoardId, final long aVersion)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(aBoardId);
+
+    return this.workflowChangeLog.changesSince(aBoardId, aVersion);
+  }
+
+  /**
+   * Subscribes to the changes of the board, from the given version if any.
+   *
+   * @see WorkflowChangeLog#subscribe(String, OptionalLong, WorkflowEventSink)
+   */
+  @Transactional
+  public WorkflowEvents.Subscription subscribeToChanges(final String aBoardId,
+    final OptionalLong since, final WorkflowEventSink sink) throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(aBoardId);
+
+    return this.workflowChangeLog.subscribe(aBoardId, since, sink);
+  }
+
+  /**
+   * @return the workflow with its stages and work items. The returned workflow may be shared with
+   * other readers: it must not be modified.
+   */
   @Transactional
   public Optional<Workflow> findBoard(final String aBoardId) throws WorkflowNotFoundException {
     Preconditions.checkNotNull(aBoardId);
 
-    return Optional.ofNullable(this.boardRepository().findOne(aBoardId));
+    return Optional.ofNullable(this.workflowCache.get(aBoardId,
+      () -> this.boardRepository().findAggregate(aBoardId)));
+  }
+
+  /**
+   * @return the archived work items of the workflow. They are loaded on demand, not with the board.
+   */
+  @Transactional
+  public List<ArchivedWorkItem> findArchivedWorkItems(final String aBoardId)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(aBoardId);
+
+    Workflow workflow = this.boardRepository().findOne(aBoardId);
+    if (workflow == null) {
+      throw new WorkflowNotFoundException(aBoardId);
+    }
+    return new ArrayList<>(workflow.archivedWorkItems());
+  }
+
+  private static void checkPageSize(final int aPageSize) {
+    Preconditions.checkArgument(aPageSize > 0 && aPageSize <= MAX_PAGE_SIZE,
+      "The number of work items of a page must be between 1 and %s", MAX_PAGE_SIZE);
   }
 
   private WorkflowRepository boardRepository() {
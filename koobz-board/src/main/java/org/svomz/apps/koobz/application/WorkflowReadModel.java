@@ -0,0 +1,113 @@
+package org.svomz.apps.koobz.application;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+import javax.inject.Inject;
+
+/**
+ * The query side of the workflows. Each workflow has a {@link WorkflowDocument},
+ * written by the commands in their own transaction and read as is by the queries, without loading
+ * the workflow.
+ */
+@Component
+public class WorkflowReadModel {
+
+  private final WorkflowDocumentRepository documentRepository;
+  private final WorkflowRepository workflowRepository;
+
+  @Inject
+  public WorkflowReadModel(final WorkflowDocumentRepository aDocumentRepository,
+    final WorkflowRepository aWorkflowRepository) {
+    this.documentRepository = Preconditions.checkNotNull(aDocumentRepository);
+    this.workflowRepository = Preconditions.checkNotNull(aWorkflowRepository);
+  }
+
+  /**
+   * @return the JSON document of the workflow, if it has one.
+   */
+  public Optional<VersionedDocument> findDocument(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    return this.documentRepository.findDocument(workflowId);
+  }
+
+  /**
+   * @return the version of the workflow represented by its document, if it has one.
+   */
+  public OptionalLong findVersion(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    return this.documentRepository.findVersion(workflowId);
+  }
+
+  /**
+   * Applies a change made to the workflow to its document. The document is rendered again from the
+   * workflow when it does not exist yet or does not match the workflow anymore.
+   *
+   * The whole document is read, locked, parsed and written back, even for a change of a single
+   * work item: the cost of a command grows with the size of its board. It is measured by the
+   * WorkflowDocumentBenchmark of the koobz-benchmarks module.
+   */
+  public void update(final Workflow workflow, final Consumer<WorkflowDocument> change) {
+    Preconditions.checkNotNull(workflow);
+    Preconditions.checkNotNull(change);
+
+    Optional<String> json = this.documentRepository.findDocumentForUpdate(workflow.getId());
+    if (!json.isPresent()) {
+      this.rebuild(workflow);
+      return;
+    }
+
+    WorkflowDocument document = WorkflowDocument.parse(json.get());
+    try {
+      change.accept(document);
+    } catch (IllegalStateException e) {
+      this.rebuild(workflow);
+      return;
+    }
+    this.documentRepository.save(workflow.getId(), workflow.getVersion(), document.toJson());
+  }
+
+  /**
+   * Renders the whole document of the workflow and saves it.
+   */
+  public VersionedDocument rebuild(final Workflow workflow) {
+    Preconditions.checkNotNull(workflow);
+
+    // the pending changes are written first: the document refers to the workflow row and the
+    // collections of the workflow which are not loaded yet are read from the database
+    this.workflowRepository.flush();
+    VersionedDocument document = this.render(workflow);
+    this.documentRepository.save(workflow.getId(), document.getVersion(), document.getJson());
+    return document;
+  }
+
+  /**
+   * Renders the whole document of the workflow, without saving it: only the commands write the
+   * documents.
+   */
+  public VersionedDocument render(final Workflow workflow) {
+    Preconditions.checkNotNull(workflow);
+
+    return new VersionedDocument(workflow.getVersion(), WorkflowDocument.of(workflow).toJson());
+  }
+
+  /**
+   * Drops the document of a workflow changed without going through the read model. Until it is
+   * rendered again, the queries and the commands of the workflow render it from the workflow.
+   */
+  public void discard(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    this.documentRepository.delete(workflowId);
+  }
+
+}
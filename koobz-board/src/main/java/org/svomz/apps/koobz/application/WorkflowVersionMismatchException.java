@@ -0,0 +1,22 @@
+package org.svomz.apps.koobz.application;
+
+import java.text.MessageFormat;
+
+public class WorkflowVersionMismatchException extends RuntimeException {
+
+  private static final String MESSAGE_TEMPLATE =
+    "Board with id {0} is at version {2} and not at the expected version {1}";
+  private static final String NEW_BOARD_MESSAGE_TEMPLATE =
+    "Board with id {0} is new and not at the expected version {1}";
+
+  public WorkflowVersionMismatchException(final String aBoardId, final long expectedVersion,
+    final long version) {
+    super(MessageFormat.format(MESSAGE_TEMPLATE, aBoardId, Long.toString(expectedVersion),
+      Long.toString(version)));
+  }
+
+  public WorkflowVersionMismatchException(final String aBoardId, final long expectedVersion) {
+    super(MessageFormat.format(NEW_BOARD_MESSAGE_TEMPLATE, aBoardId,
+      Long.toString(expectedVersion)));
+  }
+}
@@ -0,0 +1,122 @@
+package org.svomz.apps.koobz.domain.model;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nullable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * A work item which has been archived. Archived work items are stored apart from the
+ * work items of the board so that loading a board does not load its whole history. They keep the
+ * stage and the rank they had when they were archived so that they can be sent back at their former
+ * place.
+ */
+@Entity
+@Table(name = "work_items_archive",
+  indexes = @Index(name = "idx_work_items_archive_workflow_stage_position",
+    columnList = "workflow_id, stage_id, position, id"))
+public class ArchivedWorkItem {
+
+  @Id
+  private String id;
+
+  @Column(name = "title")
+  private String title;
+
+  @Column(name = "description")
+  private String description;
+
+  @Column(name = "position")
+  private long rank;
+
+  /**
+   * Not a reference to the stage: the stage may be removed from the workflow while the work item is
+   * archived.
+   */
+  @Column(name = "stage_id")
+  private String stageId;
+
+  @ManyToOne
+  @JoinColumn(name = "workflow_id")
+  private Workflow workflow;
+
+  /**
+   * The work item which has been archived, when it has been archived in the current unit of work.
+   */
+  @Transient
+  private WorkItem workItem;
+
+  /**
+   * No-args constructor required by JPA.
+   */
+  private ArchivedWorkItem() {
+  }
+
+  ArchivedWorkItem(final WorkItem workItem, final Workflow workflow) {
+    Preconditions.checkNotNull(workItem);
+
+    this.id = workItem.getId();
+    this.title = workItem.getTitle();
+    this.description = workItem.getDescription();
+    this.rank = workItem.getRank();
+    this.stageId = workItem.getStage().getId();
+    this.workflow = Preconditions.checkNotNull(workflow);
+    this.workItem = workItem;
+  }
+
+  ArchivedWorkItem(final String id, final String title, @Nullable final String description,
+    final long rank, final String stageId, final Workflow workflow) {
+    this.id = Preconditions.checkNotNull(id);
+    this.title = Preconditions.checkNotNull(title);
+    this.description = description;
+    this.rank = rank;
+    this.stageId = Preconditions.checkNotNull(stageId);
+    this.workflow = Preconditions.checkNotNull(workflow);
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public String getTitle() {
+    return this.title;
+  }
+
+  @Nullable
+  public String getDescription() {
+    return this.description;
+  }
+
+  /**
+   * @return the id of the stage the work item was in when it has been archived.
+   */
+  public String getStageId() {
+    return this.stageId;
+  }
+
+  long getRank() {
+    return this.rank;
+  }
+
+  /**
+   * @return the work item which has been archived, ready to be put back in a stage. It is the same
+   * instance if it has been archived in the current unit of work.
+   */
+  WorkItem toWorkItem() {
+    if (this.workItem != null) {
+      return this.workItem;
+    }
+
+    WorkItem workItem = new WorkItem(this.id, this.title, this.description);
+    workItem.setRank(this.rank);
+    return workItem;
+  }
+
+}
@@ -0,0 +1,64 @@
+package org.svomz.apps.koobz.domain.model;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * The ranks of the siblings of a workflow (its stages, or the work items of one of its
+ * stages) ranked from a given rank, all shifted by the same delta to free a gap before them. The
+ * siblings already have their new ranks: the shift tells the repository that a single statement
+ * can write all of them, instead of one per sibling.
+ */
+public final class RankShift {
+
+  public enum Siblings {
+    STAGES,
+    WORK_ITEMS
+  }
+
+  private final Siblings siblings;
+  private final String parentId;
+  private final long fromRank;
+  private final long delta;
+
+  RankShift(final Siblings siblings, final String parentId, final long fromRank,
+    final long delta) {
+    this.siblings = Preconditions.checkNotNull(siblings);
+    this.parentId = Preconditions.checkNotNull(parentId);
+    this.fromRank = fromRank;
+    this.delta = delta;
+  }
+
+  public Siblings getSiblings() {
+    return this.siblings;
+  }
+
+  /**
+   * @return the id of the workflow for its stages, or of the stage for its work items.
+   */
+  public String getParentId() {
+    return this.parentId;
+  }
+
+  /**
+   * @return the lowest rank which has been shifted, as it was before.
+   */
+  public long getFromRank() {
+    return this.fromRank;
+  }
+
+  public long getDelta() {
+    return this.delta;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+      .add("siblings", this.siblings)
+      .add("parentId", this.parentId)
+      .add("fromRank", this.fromRank)
+      .add("delta", this.delta)
+      .toString();
+  }
+
+}
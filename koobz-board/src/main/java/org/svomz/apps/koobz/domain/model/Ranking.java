@@ -0,0 +1,240 @@
+package org.svomz.apps.koobz.domain.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps sibling elements (the stages of a workflow, the work items of a stage) ordered
+ * by a sparse rank. The rank is what is persisted; the position exposed to the users is the index
+ * of an element in this ordered list.
+ *
+ * Ranks are spaced by {@link #GAP} so that moving an element only changes the rank of the moved
+ * element: it takes the middle of the ranks of its new neighbours. When two neighbours have no
+ * free rank left between them, the siblings following the moved element are all shifted by
+ * {@link #GAP}, which a single statement can write: the {@link ShiftListener} is told about it.
+ * This is rare: it takes about twenty moves to the very same place to consume a gap. The siblings
+ * are only all rebalanced when the ranks are about to overflow.
+ */
+final class Ranking<T> {
+
+  static final long GAP = 1L << 20;
+
+  private final List<T> elements;
+  private final List<T> unmodifiableElements;
+  private final ToLongFunction<T> rankOf;
+  private final ObjLongConsumer<T> rankUpdater;
+  private final Comparator<T> byRank;
+  private final ShiftListener shiftListener;
+
+  /**
+   * @param elements    the siblings, in any order. Elements sharing the same rank (legacy data) are
+   *                    ordered by identity and rebalanced.
+   * @param rankOf      reads the persisted rank of an element
+   * @param rankUpdater updates the persisted rank of an element
+   * @param identityOf  the identity of an element, used to order elements sharing the same rank
+   */
+  Ranking(final Collection<T> elements, final ToLongFunction<T> rankOf,
+    final ObjLongConsumer<T> rankUpdater, final Function<T, String> identityOf) {
+    this(elements, rankOf, rankUpdater, identityOf, (fromRank, delta) -> {});
+  }
+
+  /**
+   * @param shiftListener told about the ranks shifted at once, after they have been updated
+   */
+  Ranking(final Collection<T> elements, final ToLongFunction<T> rankOf,
+    final ObjLongConsumer<T> rankUpdater, final Function<T, String> identityOf,
+    final ShiftListener shiftListener) {
+    this.rankOf = Preconditions.checkNotNull(rankOf);
+    this.rankUpdater = Preconditions.checkNotNull(rankUpdater);
+    this.shiftListener = Preconditions.checkNotNull(shiftListener);
+    this.byRank = Comparator.comparingLong(rankOf);
+    this.elements = new ArrayList<>(elements);
+    this.elements.sort(this.byRank.thenComparing(identityOf));
+    this.unmodifiableElements = Collections.unmodifiableList(this.elements);
+
+    if (this.hasDuplicatedRanks()) {
+      this.rebalance();
+    }
+  }
+
+  /**
+   * @return a read-only live view of the elements, ordered by rank.
+   */
+  List<T> elements() {
+    return this.unmodifiableElements;
+  }
+
+  int size() {
+    return this.elements.size();
+  }
+
+  /**
+   * @return the position of the element, or -1 if the element is not part of this ranking.
+   */
+  int indexOf(final T element) {
+    int index = Collections.binarySearch(this.elements, element, this.byRank);
+    if (index < 0 || this.elements.get(index) != element) {
+      return -1;
+    }
+    return index;
+  }
+
+  /**
+   * Puts the element after the last one. Only the rank of the added element is changed.
+   */
+  void append(final T element) {
+    Preconditions.checkNotNull(element);
+
+    if (!this.elements.isEmpty() && this.lastRank() > Long.MAX_VALUE - GAP) {
+      this.rebalance();
+    }
+    this.rankUpdater.accept(element, this.elements.isEmpty() ? GAP : this.lastRank() + GAP);
+    this.elements.add(element);
+  }
+
+  /**
+   * @return the rank {@link #append(Object)} gives to an element appended after the given last
+   * rank, or to the first element when there is no last rank.
+   * @throws IllegalStateException if no rank is left after the last one: the siblings have to be
+   * rebalanced first, which needs all of them.
+   */
+  static long rankAfter(final OptionalLong lastRank) {
+    if (!lastRank.isPresent()) {
+      return GAP;
+    }
+    Preconditions.checkState(lastRank.getAsLong() <= Long.MAX_VALUE - GAP,
+      "No rank is left after %s", lastRank.getAsLong());
+    return lastRank.getAsLong() + GAP;
+  }
+
+  /**
+   * Inserts the element according to the rank it already has. This is used to put back an element
+   * which has been taken out of the ranking, at its former place among its siblings.
+   */
+  void insertByRank(final T element) {
+    Preconditions.checkNotNull(element);
+
+    int index = Collections.binarySearch(this.elements, element, this.byRank);
+    if (index >= 0) {
+      // the rank has been taken in the meantime: the element is put just before the one holding it
+      this.elements.add(index, element);
+      this.assignRankAt(index);
+    } else {
+      this.elements.add(-index - 1, element);
+    }
+  }
+
+  void remove(final T element) {
+    int index = this.indexOf(element);
+    if (index >= 0) {
+      this.elements.remove(index);
+    }
+  }
+
+  /**
+   * Moves the element to the given position. A position greater than the last one puts the element
+   * at the end. Unless the ranks need to be rebalanced, only the rank of the moved element changes.
+   */
+  void moveTo(final T element, final int position) {
+    WorkflowValidationException.check(position >= 0, "The position must not be negative");
+
+    int currentIndex = this.indexOf(element);
+    Preconditions.checkArgument(currentIndex >= 0, "The element is not ranked.");
+
+    int newIndex = Math.min(position, this.elements.size() - 1);
+    if (newIndex == currentIndex) {
+      return;
+    }
+
+    this.elements.remove(currentIndex);
+    this.elements.add(newIndex, element);
+    this.assignRankAt(newIndex);
+  }
+
+  /**
+   * Gives to the element at the given index a rank between the ranks of its neighbours, the
+   * element being already at its place in the list.
+   */
+  private void assignRankAt(final int index) {
+    long previous = index > 0 ? this.rankAt(index - 1) : 0;
+    long next;
+    if (index < this.elements.size() - 1) {
+      next = this.rankAt(index + 1);
+    } else if (previous <= Long.MAX_VALUE - 2 * GAP) {
+      next = previous + 2 * GAP;
+    } else {
+      next = previous;
+    }
+
+    if (next - previous < 2) {
+      if (index == this.elements.size() - 1 || this.lastRank() > Long.MAX_VALUE - GAP) {
+        this.rebalance();
+        return;
+      }
+      this.shiftAfter(index);
+      next = this.rankAt(index + 1);
+    }
+    this.rankUpdater.accept(this.elements.get(index), previous + (next - previous) / 2);
+  }
+
+  /**
+   * Adds {@link #GAP} to the ranks of the elements following the given index, which frees a gap
+   * right after the element at this index. Their order does not change.
+   */
+  private void shiftAfter(final int index) {
+    long fromRank = this.rankAt(index + 1);
+    for (int i = index + 1; i < this.elements.size(); i++) {
+      this.rankUpdater.accept(this.elements.get(i), this.rankAt(i) + GAP);
+    }
+    this.shiftListener.shifted(fromRank, GAP);
+  }
+
+  /**
+   * Spaces again the ranks of all the elements by {@link #GAP}, keeping their order.
+   */
+  private void rebalance() {
+    for (int i = 0; i < this.elements.size(); i++) {
+      this.rankUpdater.accept(this.elements.get(i), (i + 1) * GAP);
+    }
+  }
+
+  private boolean hasDuplicatedRanks() {
+    for (int i = 1; i < this.elements.size(); i++) {
+      if (this.rankAt(i - 1) == this.rankAt(i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private long rankAt(final int index) {
+    return this.rankOf.applyAsLong(this.elements.get(index));
+  }
+
+  private long lastRank() {
+    return this.rankAt(this.elements.size() - 1);
+  }
+
+  /**
+   * Told that the ranks of all the elements ranked from a given rank have been shifted at once.
+   */
+  @FunctionalInterface
+  interface ShiftListener {
+
+    /**
+     * @param fromRank the lowest rank which has been shifted, as it was before
+     * @param delta    what has been added to each shifted rank
+     */
+    void shifted(long fromRank, long delta);
+  }
+
+}
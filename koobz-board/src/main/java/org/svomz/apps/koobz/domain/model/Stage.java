@@ -1,24 +1,28 @@
 package org.svomz.apps.koobz.domain.model;
 
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 import com.google.common.base.Preconditions;
 
 
 @Entity
-@Table(name = "stages")
+@Table(name = "stages",
+  indexes = @Index(name = "idx_stages_workflow_position",
+    columnList = "workflow_id, position, id"))
 public class Stage {
 
   @Id
@@ -28,15 +32,21 @@ public class Stage {
   private String name;
 
   @Column(name = "position")
-  private int order;
+  private long rank;
 
-  @OneToMany(mappedBy = "stage", fetch = FetchType.EAGER)
+  @OneToMany(mappedBy = "stage", fetch = FetchType.LAZY)
   private Set<WorkItem> workItems;
   
   @ManyToOne
   @JoinColumn(name = "workflow_id")
   private Workflow workflow;
 
+  /**
+   * The work items of the stage ordered by rank. Built from {@link #workItems} on first use.
+   */
+  @Transient
+  private Ranking<WorkItem> ranking;
+
   /** Needed by JPA */
   private Stage() {}
 
@@ -48,6 +58,9 @@ public class Stage {
 
   public void setName(String name) {
     this.name = Preconditions.checkNotNull(name);
+    if (this.workflow != null) {
+      this.workflow.changed(WorkflowChange.stageRenamed(this));
+    }
   }
 
   public String getId() {
@@ -59,40 +72,68 @@ public class Stage {
   }
 
   /**
-   * @return the list of work items on the board. This list does not contains archived items.
+   * @return the work items of the stage ordered by priority. This list does not contains archived
+   * items.
+   *
+   * This list is a read-only live view: it is not copied on each call and reflects the changes made
+   * to the stage afterwards.
+   */
+  public List<WorkItem> getWorkItems() {
+    return this.ranking().elements();
+  }
+
+  /**
+   * Performs the given action on each non archived work item of the stage, by priority order.
    */
-  public Set<WorkItem> getWorkItems() {
-    Set<WorkItem>
-      notArchivedWorkItems = this.workItems.stream()
-      .filter(workItem -> !workItem.isArchived())
-      .collect(Collectors.toSet());
+  public void forEachActiveWorkItem(final Consumer<? super WorkItem> action) {
+    Preconditions.checkNotNull(action);
 
-    return Collections.unmodifiableSet(notArchivedWorkItems);
+    List<WorkItem> orderedWorkItems = this.ranking().elements();
+    for (int i = 0; i < orderedWorkItems.size(); i++) {
+      action.accept(orderedWorkItems.get(i));
+    }
   }
 
   Stage addWorkItem(final WorkItem workItem) {
     Preconditions.checkNotNull(workItem, "The given workItem must not be null.");
 
     workItem.setStage(this);
-    workItem.setPriority(this.workItems.size());
+    this.ranking().append(workItem);
     this.workItems.add(workItem);
     return this;
   }
 
-  Stage removeWorkItem(final WorkItem workItem) {
+  /**
+   * Puts back in the stage a work item which has been archived, at the place given by its rank.
+   */
+  Stage sendBackWorkItem(final WorkItem workItem) {
     Preconditions.checkNotNull(workItem, "The given workItem must not be null.");
 
-    this.workItems.remove(workItem);
-    int workItemOrder = workItem.getPriority();
+    workItem.setStage(this);
+    this.ranking().insertByRank(workItem);
+    this.workItems.add(workItem);
+    return this;
+  }
+
+  /**
+   * Puts back a work item of the stage, with its rank. The work items are ordered again on next
+   * use.
+   */
+  Stage restore(final WorkItem workItem) {
+    Preconditions.checkNotNull(workItem, "The given workItem must not be null.");
+
+    workItem.setStage(this);
+    this.workItems.add(workItem);
+    this.ranking = null;
+    return this;
+  }
 
-    //reoder all items after the removed one
-    this.workItems.forEach(item -> {
-      if (item.getPriority() > workItemOrder) {
-        int currentOrder = item.getPriority();
-        item.setPriority(currentOrder - 1);
-      }
-    });
+  Stage removeWorkItem(final WorkItem workItem) {
+    Preconditions.checkNotNull(workItem, "The given workItem must not be null.");
 
+    // the ranks of the remaining work items keep them ordered, none of them has to be updated
+    this.ranking().remove(workItem);
+    this.workItems.remove(workItem);
     return this;
   }
   
@@ -105,48 +146,53 @@ public class Stage {
   
   Stage moveWorkItemToPosition(WorkItem workItem, int position) throws WorkItemNotInStageException {
     Preconditions.checkNotNull(workItem);
-    Preconditions.checkArgument(position >= 0);
+    WorkflowValidationException.check(position >= 0, "The position must not be negative");
     
     if (!this.workItems.contains(workItem)) {
       throw new WorkItemNotInStageException();
     }
     
-    if (position == workItem.getPriority()) {
-      return this;
-    }
-    
-    if (position > this.workItems.size()) {
-      position = this.workItems.size() - 1;
-    }
-    
-    if (position > workItem.getPriority()) {
-      for (WorkItem item : this.workItems) {
-        if (item.getPriority() > workItem.getPriority() && item.getPriority() <= position) {
-          item.setPriority(item.getPriority() - 1);
-        }
-      }
-    } else {
-      for (WorkItem item : this.workItems) {
-        if (item.getPriority() >= position && item.getPriority() < workItem.getPriority()) {
-          item.setPriority(item.getPriority() + 1);
-        }
-      }
-    }
-    
-    workItem.setPriority(position);
+    this.ranking().moveTo(workItem, position);
     return this;
   }
 
-  void setPosition(int order) {
-    this.order = order;
+  /**
+   * @return the priority of the given work item in this stage, or -1 if it is not in this stage.
+   */
+  int priorityOf(final WorkItem workItem) {
+    return this.ranking().indexOf(workItem);
+  }
+
+  void setRank(final long rank) {
+    this.rank = rank;
+  }
+
+  long getRank() {
+    return this.rank;
   }
 
+  /**
+   * @return the position of the stage in its workflow.
+   */
   public int getPosition() {
-    return this.order;
+    return this.workflow == null ? -1 : this.workflow.positionOf(this);
   }
 
   boolean hasWorkItems() {
-    return this.getWorkItems().size() > 0;
+    return this.ranking().size() > 0;
+  }
+
+  private Ranking<WorkItem> ranking() {
+    if (this.ranking == null) {
+      this.ranking = new Ranking<>(this.workItems, WorkItem::getRank, WorkItem::setRank,
+        WorkItem::getId, (fromRank, delta) -> {
+          if (this.workflow != null) {
+            this.workflow.ranksShifted(
+              new RankShift(RankShift.Siblings.WORK_ITEMS, this.id, fromRank, delta));
+          }
+        });
+    }
+    return this.ranking;
   }
 
 }
@@ -4,15 +4,18 @@ import javax.annotation.Nullable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
-import javax.persistence.Transient;
 
 import com.google.common.base.Preconditions;
 
 @Entity
-@Table(name = "work_items")
+@Table(name = "work_items", indexes = {
+  @Index(name = "idx_work_items_stage_position", columnList = "stage_id, position"),
+  @Index(name = "idx_work_items_workflow_stage_position",
+    columnList = "workflow_id, stage_id, position")})
 public class WorkItem {
 
   @Id
@@ -25,7 +28,7 @@ public class WorkItem {
   private String description;
   
   @Column(name = "position")
-  private int priority;
+  private long rank;
 
   @ManyToOne
   @JoinColumn(name = "stage_id")
@@ -35,9 +38,6 @@ public class WorkItem {
   @JoinColumn(name = "workflow_id")
   private Workflow workflow;
 
-  @Transient
-  private boolean archived;
-
   /**
    * No-args constructor required by JPA.
    */
@@ -71,6 +71,7 @@ public class WorkItem {
     WorkItemValidation.checkTitle(title);
 
     this.title = title;
+    this.changed();
     return this;
   }
 
@@ -78,6 +79,23 @@ public class WorkItem {
     WorkItemValidation.checkDescription(description);
 
     this.description = description;
+    this.changed();
+    return this;
+  }
+
+  /**
+   * Changes both the title and the description of the work item, or none of them if one is not
+   * valid.
+   *
+   * @throws WorkflowValidationException if the title or the description is not valid
+   */
+  public WorkItem change(String title, @Nullable String description) {
+    WorkItemValidation.checkTitle(title);
+    WorkItemValidation.checkDescription(description);
+
+    this.title = title;
+    this.description = description;
+    this.changed();
     return this;
   }
 
@@ -86,14 +104,19 @@ public class WorkItem {
     return this;
   }
 
-  WorkItem setPriority(final int priority) {
-    this.priority = priority;
-    return this;
+  void setRank(final long rank) {
+    this.rank = rank;
   }
 
-  @Nullable
+  long getRank() {
+    return this.rank;
+  }
+
+  /**
+   * @return the position of the work item in its stage, or -1 if it is not in a stage anymore.
+   */
   public int getPriority() {
-    return this.priority;
+    return this.stage == null ? -1 : this.stage.priorityOf(this);
   }
 
   WorkItem setWorkflow(final Workflow workflow) {
@@ -101,12 +124,13 @@ public class WorkItem {
     return this;
   }
 
-  void setArchived(boolean archived) {
-    this.archived = archived;
-  }
-
-  boolean isArchived() {
-    return this.archived;
+  /**
+   * The changes made to the work item are changes of its workflow.
+   */
+  private void changed() {
+    if (this.workflow != null) {
+      this.workflow.changed(WorkflowChange.workItemChanged(this));
+    }
   }
 
   private static class WorkItemValidation {
@@ -120,11 +144,11 @@ public class WorkItem {
     private static final String DESCRIPTION_SIZE_ERR_MESG = "The description length must be lower or equal to %1s";
 
     private static void checkTitle(@Nullable final String title) {
-      Preconditions.checkArgument(title != null, TITLE_IS_NULL_ERR_MSG);
+      WorkflowValidationException.check(title != null, TITLE_IS_NULL_ERR_MSG);
 
       int titleLength = title.length();
-      Preconditions.checkArgument(titleLength >= TITLE_MIN_SIZE && titleLength <= TITLE_MAX_SIZE,
-          String.format(TITLE_SIZE_ERR_MSG, TITLE_MIN_SIZE, TITLE_MAX_SIZE));
+      WorkflowValidationException.check(
+          titleLength >= TITLE_MIN_SIZE && titleLength <= TITLE_MAX_SIZE, String.format(TITLE_SIZE_ERR_MSG, TITLE_MIN_SIZE, TITLE_MAX_SIZE));
     }
 
     public static void checkDescription(@Nullable String description) {
@@ -132,7 +156,7 @@ public class WorkItem {
         return;
       }
 
-      Preconditions.checkArgument(description.length() <= 2048,
+      WorkflowValidationException.check(description.length() <= 2048,
         String.format(DESCRIPTION_SIZE_ERR_MESG, DESCRIPTION_MAX_SIZE));
     }
   }
@@ -1,22 +1,34 @@
 package org.svomz.apps.koobz.domain.model;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.annotation.Nullable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.Id;
+import javax.persistence.MapKey;
 import javax.persistence.OneToMany;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 
 /**
  * Description: The board object is the aggregated root to manipulate the board itself and its
@@ -32,13 +44,86 @@ public class Workflow {
   @Column(name = "name")
   private String name;
 
-  @OneToMany(mappedBy = "workflow", cascade = CascadeType.PERSIST, orphanRemoval = true, fetch =
-    FetchType.EAGER)
-  private Set<WorkItem> workItems;
+  /**
+   * Incremented by the changes made to the workflow, its stages or its work items, so that the
+   * readers can tell whether the board changed since they last read it. A new workflow is at
+   * version 1.
+   *
+   * It is also the optimistic lock of the aggregate: any change, even one only made to a stage or
+   * a work item, updates the workflow row and fails if another transaction changed the workflow
+   * since it was loaded. Only the persistence provider increments it, when it writes the workflow:
+   * the changes made to a loaded workflow make a single new version, pending until then.
+   */
+  @Version
+  @Column(name = "version")
+  private long version = 1;
+
+  /**
+   * The version of the workflow when it was created or loaded, or when its current change began.
+   */
+  @Transient
+  private long loadedVersion;
+
+  /**
+   * The version made by the changes since the current change began, 0 if there is none. The
+   * persistence provider writes the workflow with this version even when only its stages or its
+   * work items changed.
+   */
+  @Transient
+  private long pendingVersion;
+
+  /**
+   * The changes made since the current change began.
+   */
+  @Transient
+  private final List<WorkflowChange> changes = new ArrayList<>();
+
+  /**
+   * The ranks shifted at once since the current change began, not written yet.
+   */
+  @Transient
+  private final List<RankShift> rankShifts = new ArrayList<>();
+
+  /**
+   * The stages and work items of the workflow, indexed by id.
+   *
+   * These collections are extra lazy: looking up an element by id while the collection is not
+   * initialized only reads this element, and adding or removing an element does not initialize
+   * the collection either. A command therefore only loads what it touches: one work item, one
+   * stage, or a stage and its work items when their priorities are involved.
+   * {@link WorkflowRepository#findAggregate(String)} initializes them at once to read the board.
+   */
+  @OneToMany(mappedBy = "workflow", cascade = CascadeType.PERSIST, orphanRemoval = true)
+  @MapKey(name = "id")
+  @LazyCollection(LazyCollectionOption.EXTRA)
+  private Map<String, WorkItem> workItems;
 
-  @OneToMany(mappedBy = "workflow", cascade = CascadeType.PERSIST, orphanRemoval = true, fetch =
-    FetchType.EAGER)
-  private Set<Stage> stages;
+  @OneToMany(mappedBy = "workflow", cascade = CascadeType.PERSIST, orphanRemoval = true)
+  @MapKey(name = "id")
+  @LazyCollection(LazyCollectionOption.EXTRA)
+  private Map<String, Stage> stages;
+
+  /**
+   * The archive is only loaded to be listed: archiving a work item or sending one back only reads
+   * this work item.
+   */
+  @OneToMany(mappedBy = "workflow", cascade = CascadeType.PERSIST, orphanRemoval = true)
+  @MapKey(name = "id")
+  @LazyCollection(LazyCollectionOption.EXTRA)
+  private Map<String, ArchivedWorkItem> archivedWorkItems;
+
+  /**
+   * The stages ordered by rank. Built from {@link #stages} on first use, which loads all the
+   * stages but none of their work items.
+   */
+  @Transient
+  private Ranking<Stage> stageRanking;
+
+  @Transient
+  private Set<WorkItem> activeWorkItems;
+
+  @Transient
+  private Set<Stage> activeStages;
 
   /**
    * Needed by JPA
@@ -47,9 +132,11 @@ public class Workflow {
   }
 
   public Workflow(final String workflowId, final String aBoardName) {
-    this.workItems = new HashSet<WorkItem>();
-    this.stages = new HashSet<Stage>();
+    this.workItems = new HashMap<>();
+    this.stages = new HashMap<>();
+    this.archivedWorkItems = new HashMap<>();
     this.setId(workflowId);
+    this.loadedVersion = 0;
     this.setName(aBoardName);
   }
 
@@ -61,10 +148,18 @@ public class Workflow {
     return this.name;
   }
 
+  /**
+   * @return the version of the workflow, including the changes made since its current change began.
+   */
+  public long getVersion() {
+    return Math.max(this.version, this.pendingVersion);
+  }
+
   public void setName(final String name) {
     WorkflowValidation.checkBoardName(name);
 
     this.name = name;
+    this.changed(WorkflowChange.workflowRenamed(name));
   }
 
   /**
@@ -72,15 +167,23 @@ public class Workflow {
    *
    * This list is a unmodifiable Set to prevent direct manipulations (add / remove) of the set. If
    * you want to add or remove work items you must use {@link #removeWorkItemWithId(String)} and
-   * {@link #addWorkItemToStage(String, String, String, String)}.
+   * {@link #addWorkItemToStage(String, String, String, String)}. It is a live view: it is not
+   * copied on each call and reflects the changes made to the workflow afterwards.
    */
   public Set<WorkItem> workItems() {
-    Set<WorkItem>
-      notArchivedWorkItems = this.allWorkItems().stream()
-      .filter(workItem -> !workItem.isArchived())
-      .collect(Collectors.toSet());
+    if (this.activeWorkItems == null) {
+      this.activeWorkItems = new IndexView<>(this.workItems, WorkItem.class, WorkItem::getId);
+    }
+    return this.activeWorkItems;
+  }
 
-    return Collections.unmodifiableSet(notArchivedWorkItems);
+  /**
+   * Performs the given action on each visible work item of the board, in no particular order.
+   */
+  public void forEachActiveWorkItem(final Consumer<? super WorkItem> action) {
+    Preconditions.checkNotNull(action);
+
+    this.workItems.values().forEach(action);
   }
 
   /**
@@ -89,16 +192,16 @@ public class Workflow {
    * {@link #removeStageWithId(String)} and {@link #addStageToWorkflow(String, String)}}.
    */
   public Set<Stage> stages() {
-    return Collections.unmodifiableSet(this.stages);
+    if (this.activeStages == null) {
+      this.activeStages = new IndexView<>(this.stages, Stage.class, Stage::getId);
+    }
+    return this.activeStages;
   }
 
   public Optional<Stage> stageOfId(String stageId) {
     Preconditions.checkNotNull(stageId);
 
-    return this.stages().stream()
-      .filter(stage -> {
-        return stageId.equals(stage.getId());
-      }).findFirst();
+    return Optional.ofNullable(this.stages.get(stageId));
   }
 
   public Stage addStageToWorkflow(final String aStageIdentity, final String aStageTitle) {
@@ -107,8 +210,9 @@ public class Workflow {
 
     Stage stage = new Stage(aStageIdentity, aStageTitle);
     stage.setWorkflow(this);
-    stage.setPosition(this.stages.size());
-    this.stages.add(stage);
+    this.stageRanking().append(stage);
+    this.stages.put(aStageIdentity, stage);
+    this.changed(WorkflowChange.stageAdded(stage));
 
     return stage;
   }
@@ -123,11 +227,16 @@ public class Workflow {
     }
 
     Stage stage = optionalStage.get();
-    if (!stage.getWorkItems().isEmpty()) {
+    if (stage.hasWorkItems()) {
       throw new StageNotEmptyException();
     }
 
-    this.stages.remove(stage);
+    // the ranks of the remaining stages keep them ordered, they do not have to be loaded
+    if (this.stageRanking != null) {
+      this.stageRanking.remove(stage);
+    }
+    this.stages.remove(aStageId);
+    this.changed(WorkflowChange.stageRemoved(aStageId));
     return this;
   }
 
@@ -141,33 +250,30 @@ public class Workflow {
     }
 
     Stage stage = optionalStage.get();
+    WorkflowValidationException.check(newPosition >= 0, "The position must not be negative");
 
-    if (newPosition == stage.getPosition()) {
+    int position = Math.min(newPosition, this.stageRanking().size() - 1);
+    if (position == stage.getPosition()) {
       return this;
     }
 
-    int position = newPosition;
-    if (position >= this.stages.size()) {
-      position = this.stages.size() - 1;
-    }
-
-    if (position > stage.getPosition()) {
-      for (Stage item : this.stages) {
-        if (item.getPosition() > stage.getPosition() && item.getPosition() <= position) {
-          item.setPosition(item.getPosition() - 1);
-        }
-      }
-    } else {
-      for (Stage item : this.stages) {
-        if (item.getPosition() >= newPosition && item.getPosition() < stage.getPosition()) {
-          item.setPosition(item.getPosition() + 1);
-        }
-      }
-    }
+    this.stageRanking().moveTo(stage, position);
+    this.changed(WorkflowChange.stageMoved(aStageId, this.positionOf(stage)));
+    return this;
+  }
 
-    stage.setPosition(position);
+  /**
+   * @return the stages ordered by rank.
+   */
+  List<Stage> orderedStages() {
+    return this.stageRanking().elements();
+  }
 
-    return this;
+  /**
+   * @return the position of the given stage in the workflow, or -1 if it is not in the workflow.
+   */
+  int positionOf(final Stage stage) {
+    return this.stageRanking().indexOf(stage);
   }
 
   public WorkItem addWorkItemToStage(final String aStageId, final String aWorkItemId,
@@ -185,7 +291,8 @@ public class Workflow {
     WorkItem workItem = new WorkItem(aWorkItemId, aWorkItemTitle, aWorkItemDescription);
     stage.addWorkItem(workItem);
     workItem.setWorkflow(this);
-    this.workItems.add(workItem);
+    this.workItems.put(aWorkItemId, workItem);
+    this.changed(WorkflowChange.workItemAdded(aStageId, workItem));
     return workItem;
   }
 
@@ -199,7 +306,8 @@ public class Workflow {
 
     WorkItem workItem = optionalWorkItem.get();
     workItem.getStage().removeWorkItem(workItem);
-    this.workItems.remove(workItem);
+    this.workItems.remove(aWorkItemId);
+    this.changed(WorkflowChange.workItemRemoved(aWorkItemId));
     return this;
 
   }
@@ -231,6 +339,7 @@ public class Workflow {
 
     Stage stage = optionalStage.get();
     stage.addWorkItem(workItem);
+    this.changed(WorkflowChange.workItemMoved(aWorkItemId, aStageId));
     return this;
   }
 
@@ -245,9 +354,14 @@ public class Workflow {
 
     WorkItem workItem = optionalWorkItem.get();
     workItem.getStage().moveWorkItemToPosition(workItem, newPriority);
+    this.changed(WorkflowChange.workItemPriorityChanged(aWorkItemId, workItem.getPriority()));
     return workItem;
   }
 
+  /**
+   * Moves a work item to the archive. It is not part of the board anymore but it keeps its stage
+   * and its priority so that it can be sent back at the same place.
+   */
   public Workflow archiveWorkItemWithId(final String aWorkItemId)
     throws WorkItemNotInProcessException {
     Preconditions.checkNotNull(aWorkItemId);
@@ -258,21 +372,53 @@ public class Workflow {
     }
 
     WorkItem workItem = optionalWorkItem.get();
-    workItem.setArchived(true);
+    ArchivedWorkItem archivedWorkItem = new ArchivedWorkItem(workItem, this);
+    workItem.getStage().removeWorkItem(workItem);
+    this.workItems.remove(aWorkItemId);
+    this.archivedWorkItems.put(aWorkItemId, archivedWorkItem);
+    this.changed(WorkflowChange.workItemArchived(aWorkItemId));
     return this;
   }
 
-  public Workflow sendBackToWorkflowWorkItemWithId(final String workItemId)
-    throws WorkItemNotArchivedException {
+  /**
+   * Puts back an archived work item on the board, in the stage it was archived from. If this stage
+   * has been removed in the meantime, the work item is put in the first stage of the workflow.
+   *
+   * @return the work item which is back on the board
+   * @throws StageNotInProcessException if the workflow does not have any stage anymore.
+   */
+  public WorkItem sendBackToWorkflowWorkItemWithId(final String workItemId)
+    throws WorkItemNotArchivedException, StageNotInProcessException {
     Preconditions.checkNotNull(workItemId);
 
-    Optional<WorkItem> optionalWorkItem = this.archivedWorkItemOfId(workItemId);
-    if (!optionalWorkItem.isPresent()) {
+    ArchivedWorkItem archivedWorkItem = this.archivedWorkItems.get(workItemId);
+    if (archivedWorkItem == null) {
       throw new WorkItemNotArchivedException();
     }
 
-    optionalWorkItem.get().setArchived(false);
-    return this;
+    Stage stage = this.stages.get(archivedWorkItem.getStageId());
+    if (stage == null) {
+      if (this.stageRanking().size() == 0) {
+        throw new StageNotInProcessException();
+      }
+      stage = this.stageRanking().elements().get(0);
+    }
+
+    this.archivedWorkItems.remove(workItemId);
+
+    WorkItem workItem = archivedWorkItem.toWorkItem();
+    workItem.setWorkflow(this);
+    stage.sendBackWorkItem(workItem);
+    this.workItems.put(workItemId, workItem);
+    this.changed(WorkflowChange.workItemSentBack(stage.getId(), workItem, workItem.getPriority()));
+    return workItem;
+  }
+
+  /**
+   * @return the archived work items of the workflow. Calling this method loads the whole archive.
+   */
+  public List<ArchivedWorkItem> archivedWorkItems() {
+    return Collections.unmodifiableList(new ArrayList<>(this.archivedWorkItems.values()));
   }
 
   /**
@@ -290,12 +436,7 @@ public class Workflow {
       throw new StageNotInProcessException();
     }
 
-    Stage stage = optionalStage.get();
-    return stage.getWorkItems()
-      .stream()
-      .sorted((workItem1, workItem2) -> {
-        return workItem1.getPriority() - workItem2.getPriority();
-      }).collect(Collectors.toList());
+    return new ArrayList<>(optionalStage.get().getWorkItems());
   }
 
   /**
@@ -304,10 +445,164 @@ public class Workflow {
   public Optional<WorkItem> workItemOfId(final String aWorkItemId) {
     Preconditions.checkNotNull(aWorkItemId);
 
-    return this.workItems()
-      .stream()
-      .filter(workItem -> aWorkItemId.equals(workItem.getId()))
-      .findFirst();
+    return Optional.ofNullable(this.workItems.get(aWorkItemId));
+  }
+
+  /**
+   * Starts a new change of the workflow: the changes made from now on make the version following
+   * the current one. A workflow read from the database starts its first change when it is loaded;
+   * this has to be called again before changing a workflow kept in memory since its last change
+   * has been written.
+   */
+  public void beginChange() {
+    this.loadedVersion = this.getVersion();
+    this.pendingVersion = 0;
+    this.changes.clear();
+    this.rankShifts.clear();
+  }
+
+  /**
+   * @return the ranks shifted at once since the current change began, in order, which are not
+   * returned again. Writing them is an optimization: the shifted stages and work items have their
+   * new ranks anyway.
+   */
+  public List<RankShift> takeRankShifts() {
+    List<RankShift> taken = new ArrayList<>(this.rankShifts);
+    this.rankShifts.clear();
+    return taken;
+  }
+
+  void ranksShifted(final RankShift rankShift) {
+    this.rankShifts.add(rankShift);
+  }
+
+  /**
+   * @return the changes made to the workflow since its current change began, in order.
+   */
+  public List<WorkflowChange> changes() {
+    return Collections.unmodifiableList(this.changes);
+  }
+
+  /**
+   * Applies the changes which made the given version of the workflow, in the order they were made,
+   * as they were recorded from {@link #changes()}. The workflow is then at this version, as if it
+   * had been loaded: the changes made from now on make the version following this one.
+   *
+   * @throws IllegalStateException if a change cannot be applied to the workflow, which means that it
+   * has been made to another state of the workflow.
+   */
+  public void replay(final long aVersion, final List<WorkflowChange> someChanges) {
+    Preconditions.checkNotNull(someChanges);
+    Preconditions.checkArgument(aVersion > this.getVersion(), "The version %s does not follow %s",
+      aVersion, this.getVersion());
+
+    this.beginChange();
+    for (WorkflowChange change : someChanges) {
+      try {
+        this.apply(change);
+      } catch (StageNotInProcessException | StageNotEmptyException | WorkItemNotInProcessException
+        | WorkItemNotInStageException | WorkItemNotArchivedException | IllegalArgumentException e) {
+        throw new IllegalStateException("The change " + change + " cannot be replayed", e);
+      }
+    }
+    this.restored(aVersion);
+  }
+
+  /**
+   * Records that the workflow, one of its stages or one of its work items changed.
+   */
+  void changed(final WorkflowChange change) {
+    this.pendingVersion = this.loadedVersion + 1;
+
+    int last = this.changes.size() - 1;
+    if (last >= 0 && change.supersedes(this.changes.get(last))) {
+      this.changes.set(last, change);
+    } else {
+      this.changes.add(change);
+    }
+  }
+
+  /**
+   * Puts back a stage of the workflow, with its rank, without recording a change. The stages are
+   * ordered again on next use.
+   */
+  void restore(final Stage stage) {
+    stage.setWorkflow(this);
+    this.stages.put(stage.getId(), stage);
+    this.stageRanking = null;
+  }
+
+  /**
+   * Puts back a work item of the workflow, already put back in its stage, without recording a
+   * change.
+   */
+  void restore(final WorkItem workItem) {
+    workItem.setWorkflow(this);
+    this.workItems.put(workItem.getId(), workItem);
+  }
+
+  void restore(final ArchivedWorkItem archivedWorkItem) {
+    this.archivedWorkItems.put(archivedWorkItem.getId(), archivedWorkItem);
+  }
+
+  /**
+   * Sets the version of the restored workflow: the changes made from now on make the version
+   * following this one.
+   */
+  void restored(final long aVersion) {
+    this.version = aVersion;
+    this.beginChange();
+  }
+
+  private void apply(final WorkflowChange change)
+    throws StageNotInProcessException, StageNotEmptyException, WorkItemNotInProcessException,
+           WorkItemNotInStageException, WorkItemNotArchivedException {
+    switch (change.getType()) {
+      case WORKFLOW_RENAMED:
+        this.setName(change.getName());
+        break;
+      case STAGE_ADDED:
+        this.addStageToWorkflow(change.getStageId(), change.getName());
+        break;
+      case STAGE_RENAMED:
+        this.stageOfId(change.getStageId()).orElseThrow(StageNotInProcessException::new)
+          .setName(change.getName());
+        break;
+      case STAGE_MOVED:
+        this.moveStageWithIdToPosition(change.getStageId(), change.getPosition());
+        break;
+      case STAGE_REMOVED:
+        this.removeStageWithId(change.getStageId());
+        break;
+      case WORK_ITEM_ADDED:
+        this.addWorkItemToStage(change.getStageId(), change.getWorkItemId(), change.getName(),
+          change.getDescription());
+        break;
+      case WORK_ITEM_CHANGED: {
+        WorkItem workItem = this.workItemOfId(change.getWorkItemId())
+          .orElseThrow(WorkItemNotInProcessException::new);
+        workItem.setTitle(change.getName());
+        workItem.setDescription(change.getDescription());
+        break;
+      }
+      case WORK_ITEM_MOVED:
+        this.moveWorkItemWithIdToStageWithId(change.getWorkItemId(), change.getStageId());
+        break;
+      case WORK_ITEM_PRIORITY_CHANGED:
+        this.changePriorityOfWorkItemWithId(change.getWorkItemId(), change.getPosition());
+        break;
+      case WORK_ITEM_REMOVED:
+        this.removeWorkItemWithId(change.getWorkItemId());
+        break;
+      case WORK_ITEM_ARCHIVED:
+        this.archiveWorkItemWithId(change.getWorkItemId());
+        break;
+      case WORK_ITEM_SENT_BACK:
+        this.sendBackToWorkflowWorkItemWithId(change.getWorkItemId());
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown change " + change.getType());
+    }
   }
 
   private void setId(String boardId) {
@@ -315,18 +610,61 @@ public class Workflow {
     this.id = boardId;
   }
 
-  private Optional<WorkItem> archivedWorkItemOfId(final String workItemId) {
-    return this.allWorkItems()
-      .stream()
-      .filter(workItem -> workItem.isArchived() && workItem.getId().equals(workItemId))
-      .findFirst();
+  /**
+   * Drops the ranking of the stages when the workflow is loaded by JPA. It is rebuilt on first use,
+   * once the persistence provider has populated the stages. The changes made from now on make the
+   * version following the loaded one.
+   */
+  @PostLoad
+  private void loaded() {
+    this.stageRanking = null;
+    this.loadedVersion = this.version;
+    this.pendingVersion = 0;
+    this.changes.clear();
+    this.rankShifts.clear();
+  }
+
+  private Ranking<Stage> stageRanking() {
+    if (this.stageRanking == null) {
+      this.stageRanking = new Ranking<>(this.stages.values(), Stage::getRank, Stage::setRank,
+        Stage::getId, (fromRank, delta) -> this.ranksShifted(
+          new RankShift(RankShift.Siblings.STAGES, this.id, fromRank, delta)));
+    }
+    return this.stageRanking;
   }
 
   /**
-   * @return the list of work items even the archived ones.
+   * Read-only view of the values of an index. Looking up an element does not iterate over the
+   * index, which matters when the index is a collection which has not been loaded.
    */
-  private Set<WorkItem> allWorkItems() {
-    return this.workItems;
+  private static class IndexView<T> extends AbstractSet<T> {
+
+    private final Map<String, T> index;
+    private final Class<T> type;
+    private final Function<T, String> identityOf;
+
+    private IndexView(final Map<String, T> index, final Class<T> type,
+      final Function<T, String> identityOf) {
+      this.index = index;
+      this.type = type;
+      this.identityOf = identityOf;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return Iterators.unmodifiableIterator(this.index.values().iterator());
+    }
+
+    @Override
+    public int size() {
+      return this.index.size();
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+      return this.type.isInstance(o)
+        && this.index.get(this.identityOf.apply(this.type.cast(o))) == o;
+    }
   }
 
   private static class WorkflowValidation {
@@ -337,10 +675,10 @@ public class Workflow {
     private final static String NAME_SIZE_ERR_MSG = "The name length must be between %1s and %2s";
 
     private static void checkBoardName(@Nullable final String name) {
-      Preconditions.checkArgument(name != null, NAME_IS_NULL_ERR_MSG);
+      WorkflowValidationException.check(name != null, NAME_IS_NULL_ERR_MSG);
 
       int nameLength = name.length();
-      Preconditions.checkArgument(nameLength >= 1 && nameLength <= 255,
+      WorkflowValidationException.check(nameLength >= 1 && nameLength <= 255,
         String.format(NAME_SIZE_ERR_MSG, NAME_MIN_SIZE, NAME_MAX_SIZE));
     }
 
@@ -0,0 +1,217 @@
+package org.svomz.apps.koobz.domain.model;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * A change made to a workflow, with what it takes to apply it to a copy of the board:
+ * the elements it adds are added after the other ones, the positions it gives are the positions
+ * after the change. Replayed in order on the workflow as it was before, the changes of a version
+ * give the workflow of this version.
+ *
+ * The changes made since {@link Workflow#beginChange()} are kept by the workflow, in order.
+ */
+public final class WorkflowChange {
+
+  public enum Type {
+    WORKFLOW_RENAMED,
+    STAGE_ADDED,
+    STAGE_RENAMED,
+    STAGE_MOVED,
+    STAGE_REMOVED,
+    WORK_ITEM_ADDED,
+    WORK_ITEM_CHANGED,
+    WORK_ITEM_MOVED,
+    WORK_ITEM_PRIORITY_CHANGED,
+    WORK_ITEM_REMOVED,
+    WORK_ITEM_ARCHIVED,
+    WORK_ITEM_SENT_BACK
+  }
+
+  private static final int NO_POSITION = -1;
+
+  private final Type type;
+  private final String stageId;
+  private final String workItemId;
+  private final String name;
+  private final String description;
+  private final int position;
+
+  private WorkflowChange(final Type type, @Nullable final String stageId,
+    @Nullable final String workItemId, @Nullable final String name,
+    @Nullable final String description, final int position) {
+    this.type = type;
+    this.stageId = stageId;
+    this.workItemId = workItemId;
+    this.name = name;
+    this.description = description;
+    this.position = position;
+  }
+
+  /**
+   * @return a change read back from where it has been recorded, to be replayed with
+   * {@link Workflow#replay(long, java.util.List)}.
+   */
+  public static WorkflowChange of(final Type type, @Nullable final String stageId,
+    @Nullable final String workItemId, @Nullable final String name,
+    @Nullable final String description, final int position) {
+    Preconditions.checkNotNull(type);
+
+    return new WorkflowChange(type, stageId, workItemId, name, description,
+      position < 0 ? NO_POSITION : position);
+  }
+
+  static WorkflowChange workflowRenamed(final String name) {
+    return new WorkflowChange(Type.WORKFLOW_RENAMED, null, null, name, null, NO_POSITION);
+  }
+
+  static WorkflowChange stageAdded(final Stage stage) {
+    return new WorkflowChange(Type.STAGE_ADDED, stage.getId(), null, stage.getName(), null,
+      NO_POSITION);
+  }
+
+  static WorkflowChange stageRenamed(final Stage stage) {
+    return new WorkflowChange(Type.STAGE_RENAMED, stage.getId(), null, stage.getName(), null,
+      NO_POSITION);
+  }
+
+  static WorkflowChange stageMoved(final String stageId, final int position) {
+    return new WorkflowChange(Type.STAGE_MOVED, stageId, null, null, null, position);
+  }
+
+  static WorkflowChange stageRemoved(final String stageId) {
+    return new WorkflowChange(Type.STAGE_REMOVED, stageId, null, null, null, NO_POSITION);
+  }
+
+  static WorkflowChange workItemAdded(final String stageId, final WorkItem workItem) {
+    return new WorkflowChange(Type.WORK_ITEM_ADDED, stageId, workItem.getId(),
+      workItem.getTitle(), workItem.getDescription(), NO_POSITION);
+  }
+
+  static WorkflowChange workItemChanged(final WorkItem workItem) {
+    return new WorkflowChange(Type.WORK_ITEM_CHANGED, null, workItem.getId(),
+      workItem.getTitle(), workItem.getDescription(), NO_POSITION);
+  }
+
+  static WorkflowChange workItemMoved(final String workItemId, final String stageId) {
+    return new WorkflowChange(Type.WORK_ITEM_MOVED, stageId, workItemId, null, null,
+      NO_POSITION);
+  }
+
+  static WorkflowChange workItemPriorityChanged(final String workItemId, final int position) {
+    return new WorkflowChange(Type.WORK_ITEM_PRIORITY_CHANGED, null, workItemId, null, null,
+      position);
+  }
+
+  static WorkflowChange workItemRemoved(final String workItemId) {
+    return new WorkflowChange(Type.WORK_ITEM_REMOVED, null, workItemId, null, null,
+      NO_POSITION);
+  }
+
+  static WorkflowChange workItemArchived(final String workItemId) {
+    return new WorkflowChange(Type.WORK_ITEM_ARCHIVED, null, workItemId, null, null,
+      NO_POSITION);
+  }
+
+  static WorkflowChange workItemSentBack(final String stageId, final WorkItem workItem,
+    final int position) {
+    return new WorkflowChange(Type.WORK_ITEM_SENT_BACK, stageId, workItem.getId(),
+      workItem.getTitle(), workItem.getDescription(), position);
+  }
+
+  public Type getType() {
+    return this.type;
+  }
+
+  @Nullable
+  public String getStageId() {
+    return this.stageId;
+  }
+
+  @Nullable
+  public String getWorkItemId() {
+    return this.workItemId;
+  }
+
+  /**
+   * @return the name of the workflow or of the stage, or the title of the work item.
+   */
+  @Nullable
+  public String getName() {
+    return this.name;
+  }
+
+  @Nullable
+  public String getDescription() {
+    return this.description;
+  }
+
+  /**
+   * @return the position of the stage in the workflow or of the work item in its stage after the
+   * change, or -1 if the change does not give one. It is not boxed, so that recording the changes
+   * of a large board does not allocate more than recording the changes of a small one.
+   */
+  public int getPosition() {
+    return this.position;
+  }
+
+  /**
+   * @return whether this change makes the given one, made just before, useless: a rename or a
+   * change of a work item gives the whole new state of what it changes.
+   */
+  boolean supersedes(final WorkflowChange previous) {
+    Preconditions.checkNotNull(previous);
+
+    switch (this.type) {
+      case WORKFLOW_RENAMED:
+      case STAGE_RENAMED:
+      case WORK_ITEM_CHANGED:
+        return previous.type == this.type
+          && Objects.equals(previous.stageId, this.stageId)
+          && Objects.equals(previous.workItemId, this.workItemId);
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof WorkflowChange)) {
+      return false;
+    }
+    WorkflowChange change = (WorkflowChange) other;
+    return this.type == change.type
+      && Objects.equals(this.stageId, change.stageId)
+      && Objects.equals(this.workItemId, change.workItemId)
+      && Objects.equals(this.name, change.name)
+      && Objects.equals(this.description, change.description)
+      && this.position == change.position;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.type, this.stageId, this.workItemId, this.name, this.description,
+      this.position);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+      .omitNullValues()
+      .add("type", this.type)
+      .add("stageId", this.stageId)
+      .add("workItemId", this.workItemId)
+      .add("name", this.name)
+      .add("description", this.description)
+      .add("position", this.position == NO_POSITION ? null : this.position)
+      .toString();
+  }
+
+}
@@ -1,8 +1,42 @@
 package org.svomz.apps.koobz.domain.model;
 
+/**
+ * Where the workflows are stored, with only what the application does with them:
+ * looking one up by id, adding one, and writing the changes made to the loaded ones. The workflows
+ * loaded in a transaction are kept until it ends, and their changes are written when it commits.
+ */
+public interface WorkflowRepository {
 
-import org.svomz.apps.koobz.infrastructure.domain.KanbanRepository;
+  /**
+   * @return the workflow or null if it does not exist
+   */
+  Workflow findOne(String workflowId);
 
-public interface WorkflowRepository extends KanbanRepository<Workflow, String> {
+  /**
+   * Loads a workflow with its stages and their work items, using a fixed number of queries whatever
+   * the size of the board. The archived work items are not loaded.
+   *
+   * @return the workflow or null if it does not exist
+   */
+  Workflow findAggregate(String workflowId);
+
+  boolean exists(String workflowId);
+
+  /**
+   * Adds a new workflow, or writes the changes made to a workflow loaded in the current
+   * transaction.
+   */
+  <S extends Workflow> S save(S workflow);
+
+  /**
+   * Writes the changes made to the workflows loaded in the current transaction.
+   */
+  void flush();
+
+  /**
+   * Writes the ranks the workflow shifted at once since its current change began, with one
+   * statement per shift instead of one per stage or work item shifted.
+   */
+  void writeRankShifts(Workflow workflow);
 
 }
@@ -0,0 +1,262 @@
+package org.svomz.apps.koobz.domain.model;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * The state of a workflow at a version, with the ranks of its stages and work items,
+ * from which the workflow can be restored as it was. Given the changes of the following versions
+ * by {@link Workflow#replay(long, List)}, the restored workflow ends up as the one which made them.
+ */
+public final class WorkflowSnapshot {
+
+  private final String id;
+  private final String name;
+  private final long version;
+  private final List<StageState> stages;
+  private final List<WorkItemState> archivedWorkItems;
+
+  public WorkflowSnapshot(final String anId, final String aName, final long aVersion,
+    final List<StageState> someStages, final List<WorkItemState> someArchivedWorkItems) {
+    this.id = Preconditions.checkNotNull(anId);
+    this.name = Preconditions.checkNotNull(aName);
+    this.version = aVersion;
+    this.stages = ImmutableList.copyOf(someStages);
+    this.archivedWorkItems = ImmutableList.copyOf(someArchivedWorkItems);
+  }
+
+  /**
+   * @return the snapshot of the workflow as of its current version. Its stages, their work items
+   * and its archived work items are all read.
+   */
+  public static WorkflowSnapshot of(final Workflow workflow) {
+    Preconditions.checkNotNull(workflow);
+
+    List<StageState> stages = new ArrayList<>();
+    for (Stage stage : workflow.orderedStages()) {
+      List<WorkItemState> workItems = new ArrayList<>();
+      stage.forEachActiveWorkItem(workItem -> workItems.add(new WorkItemState(workItem.getId(),
+        workItem.getTitle(), workItem.getDescription(), workItem.getRank(), null)));
+      stages.add(new StageState(stage.getId(), stage.getName(), stage.getRank(), workItems));
+    }
+
+    List<WorkItemState> archivedWorkItems = new ArrayList<>();
+    for (ArchivedWorkItem archivedWorkItem : workflow.archivedWorkItems()) {
+      archivedWorkItems.add(new WorkItemState(archivedWorkItem.getId(),
+        archivedWorkItem.getTitle(), archivedWorkItem.getDescription(),
+        archivedWorkItem.getRank(), archivedWorkItem.getStageId()));
+    }
+    // the archive is not ordered, its snapshot is
+    archivedWorkItems.sort(Comparator.comparing(WorkItemState::getId));
+
+    return new WorkflowSnapshot(workflow.getId(), workflow.getName(), workflow.getVersion(),
+      stages, archivedWorkItems);
+  }
+
+  /**
+   * @return a new workflow as it was at the version of the snapshot, without any change of its own.
+   */
+  public Workflow toWorkflow() {
+    Workflow workflow = new Workflow(this.id, this.name);
+    for (StageState stageState : this.stages) {
+      Stage stage = new Stage(stageState.getId(), stageState.getName());
+      stage.setRank(stageState.getRank());
+      workflow.restore(stage);
+      for (WorkItemState workItemState : stageState.getWorkItems()) {
+        WorkItem workItem = new WorkItem(workItemState.getId(), workItemState.getTitle(),
+          workItemState.getDescription());
+        workItem.setRank(workItemState.getRank());
+        stage.restore(workItem);
+        workflow.restore(workItem);
+      }
+    }
+    for (WorkItemState workItemState : this.archivedWorkItems) {
+      workflow.restore(new ArchivedWorkItem(workItemState.getId(), workItemState.getTitle(),
+        workItemState.getDescription(), workItemState.getRank(), workItemState.getStageId(),
+        workflow));
+    }
+    workflow.restored(this.version);
+    return workflow;
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * @return the stages ordered by rank.
+   */
+  public List<StageState> getStages() {
+    return this.stages;
+  }
+
+  /**
+   * @return the archived work items, ordered by id.
+   */
+  public List<WorkItemState> getArchivedWorkItems() {
+    return this.archivedWorkItems;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof WorkflowSnapshot)) {
+      return false;
+    }
+    WorkflowSnapshot snapshot = (WorkflowSnapshot) other;
+    return this.version == snapshot.version
+      && this.id.equals(snapshot.id)
+      && this.name.equals(snapshot.name)
+      && this.stages.equals(snapshot.stages)
+      && this.archivedWorkItems.equals(snapshot.archivedWorkItems);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.id, this.name, this.version, this.stages, this.archivedWorkItems);
+  }
+
+  /**
+   * A stage of the snapshot, with its work items ordered by rank.
+   */
+  public static final class StageState {
+
+    private final String id;
+    private final String name;
+    private final long rank;
+    private final List<WorkItemState> workItems;
+
+    public StageState(final String anId, final String aName, final long aRank,
+      final List<WorkItemState> someWorkItems) {
+      this.id = Preconditions.checkNotNull(anId);
+      this.name = Preconditions.checkNotNull(aName);
+      this.rank = aRank;
+      this.workItems = ImmutableList.copyOf(someWorkItems);
+    }
+
+    public String getId() {
+      return this.id;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public long getRank() {
+      return this.rank;
+    }
+
+    public List<WorkItemState> getWorkItems() {
+      return this.workItems;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof StageState)) {
+        return false;
+      }
+      StageState stage = (StageState) other;
+      return this.rank == stage.rank
+        && this.id.equals(stage.id)
+        && this.name.equals(stage.name)
+        && this.workItems.equals(stage.workItems);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.id, this.name, this.rank, this.workItems);
+    }
+  }
+
+  /**
+   * A work item of a stage of the snapshot, or an archived work item with the id of the stage it
+   * has been archived from.
+   */
+  public static final class WorkItemState {
+
+    private final String id;
+    private final String title;
+    @Nullable
+    private final String description;
+    private final long rank;
+    @Nullable
+    private final String stageId;
+
+    public WorkItemState(final String anId, final String aTitle,
+      @Nullable final String aDescription, final long aRank, @Nullable final String aStageId) {
+      this.id = Preconditions.checkNotNull(anId);
+      this.title = Preconditions.checkNotNull(aTitle);
+      this.description = aDescription;
+      this.rank = aRank;
+      this.stageId = aStageId;
+    }
+
+    public String getId() {
+      return this.id;
+    }
+
+    public String getTitle() {
+      return this.title;
+    }
+
+    @Nullable
+    public String getDescription() {
+      return this.description;
+    }
+
+    public long getRank() {
+      return this.rank;
+    }
+
+    /**
+     * @return the stage an archived work item has been archived from, nothing for the work items of
+     * a stage.
+     */
+    @Nullable
+    public String getStageId() {
+      return this.stageId;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof WorkItemState)) {
+        return false;
+      }
+      WorkItemState workItem = (WorkItemState) other;
+      return this.rank == workItem.rank
+        && this.id.equals(workItem.id)
+        && this.title.equals(workItem.title)
+        && Objects.equals(this.description, workItem.description)
+        && Objects.equals(this.stageId, workItem.stageId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.id, this.title, this.description, this.rank, this.stageId);
+    }
+  }
+
+}
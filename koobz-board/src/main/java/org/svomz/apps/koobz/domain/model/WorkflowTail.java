@@ -0,0 +1,92 @@
+package org.svomz.apps.koobz.domain.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * The end of a workflow, that is the rank of its last stage and the rank of the last
+ * work item of each of its stages. It lets the bulk imports append stages and work items to a
+ * workflow without loading it: they get the ranks and are checked as by
+ * {@link Workflow#addStageToWorkflow(String, String)} and
+ * {@link Workflow#addWorkItemToStage(String, String, String, String)}.
+ */
+public final class WorkflowTail {
+
+  private final Map<String, OptionalLong> lastWorkItemRanks = new HashMap<>();
+  private final Map<String, String> stageIdsByName = new HashMap<>();
+  private OptionalLong lastStageRank = OptionalLong.empty();
+
+  /**
+   * Adds an existing stage of the workflow. The stages are expected by rank, so that a name shared
+   * by several stages refers to the first of them.
+   *
+   * @param lastWorkItemRank the rank of the last non archived work item of the stage, if any
+   */
+  public WorkflowTail withStage(final String stageId, final String name, final long rank,
+    final OptionalLong lastWorkItemRank) {
+    Preconditions.checkNotNull(stageId);
+    Preconditions.checkNotNull(name);
+    Preconditions.checkNotNull(lastWorkItemRank);
+
+    this.lastWorkItemRanks.put(stageId, lastWorkItemRank);
+    this.stageIdsByName.putIfAbsent(name, stageId);
+    if (!this.lastStageRank.isPresent() || rank > this.lastStageRank.getAsLong()) {
+      this.lastStageRank = OptionalLong.of(rank);
+    }
+    return this;
+  }
+
+  /**
+   * @return the id of the first stage having the given name, if any.
+   */
+  public Optional<String> stageIdOfName(final String name) {
+    Preconditions.checkNotNull(name);
+
+    return Optional.ofNullable(this.stageIdsByName.get(name));
+  }
+
+  /**
+   * Appends a new stage after the last one.
+   *
+   * @return the rank of the new stage
+   */
+  public long appendStage(final String stageId, final String name) {
+    Preconditions.checkNotNull(stageId);
+    Preconditions.checkNotNull(name);
+
+    long rank = Ranking.rankAfter(this.lastStageRank);
+    this.withStage(stageId, name, rank, OptionalLong.empty());
+    return rank;
+  }
+
+  /**
+   * Appends a new work item after the last work item of the given stage.
+   *
+   * @return the rank of the new work item
+   * @throws StageNotInProcessException if the stage is not part of the workflow
+   * @throws IllegalArgumentException if the title or the description is not valid
+   */
+  public long appendWorkItem(final String stageId, final String workItemId, final String title,
+    @Nullable final String description) throws StageNotInProcessException {
+    Preconditions.checkNotNull(stageId);
+    Preconditions.checkNotNull(workItemId);
+
+    OptionalLong lastRank = this.lastWorkItemRanks.get(stageId);
+    if (lastRank == null) {
+      throw new StageNotInProcessException();
+    }
+    // the work item is checked as the ones added to a loaded workflow
+    new WorkItem(workItemId, title, description);
+
+    long rank = Ranking.rankAfter(lastRank);
+    this.lastWorkItemRanks.put(stageId, OptionalLong.of(rank));
+    return rank;
+  }
+
+}
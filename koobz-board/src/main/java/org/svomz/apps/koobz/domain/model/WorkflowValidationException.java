@@ -0,0 +1,23 @@
+package org.svomz.apps.koobz.domain.model;
+
+/**
+ * Thrown when a value given to a workflow, one of its stages or one of its work items is not valid:
+ * the workflow has not been changed.
+ */
+@SuppressWarnings("serial")
+public class WorkflowValidationException extends IllegalArgumentException {
+
+  public WorkflowValidationException(final String message) {
+    super(message);
+  }
+
+  /**
+   * @throws WorkflowValidationException with the given message if the value is not valid
+   */
+  static void check(final boolean valid, final String message) {
+    if (!valid) {
+      throw new WorkflowValidationException(message);
+    }
+  }
+
+}
@@ -0,0 +1,36 @@
+package org.svomz.apps.koobz.infrastructure.domain;
+
+import org.svomz.apps.koobz.domain.model.RankShift;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+
+import java.util.Collections;
+
+/**
+ * Stores the workflows as the rows of their stages and work items, through JPA.
+ */
+public interface JpaWorkflowRepository extends KanbanRepository<Workflow, String>,
+  WorkflowRepository {
+
+  @Override
+  default Workflow findAggregate(final String workflowId) {
+    return this.findOneWithAssociations(workflowId, "stages", "stages.workItems", "workItems");
+  }
+
+  @Override
+  default void writeRankShifts(final Workflow workflow) {
+    for (RankShift rankShift : workflow.takeRankShifts()) {
+      if (rankShift.getSiblings() == RankShift.Siblings.STAGES) {
+        this.shiftRanks(Stage.class, workflow.stages(), "workflow", rankShift.getParentId(),
+          "rank", rankShift.getFromRank(), rankShift.getDelta());
+      } else {
+        this.shiftRanks(WorkItem.class, workflow.stageOfId(rankShift.getParentId())
+            .map(Stage::getWorkItems).orElse(Collections.emptyList()), "stage",
+          rankShift.getParentId(), "rank", rankShift.getFromRank(), rankShift.getDelta());
+      }
+    }
+  }
+
+}
@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.NoRepositoryBean;
 
 import java.io.Serializable;
+import java.util.Collection;
 
 /**
  * Created by eric on 09/07/15.
@@ -13,4 +14,32 @@ public interface KanbanRepository<T, ID extends Serializable> extends JpaReposit
 
   T findOrThrowException(ID primaryKey) throws EntityNotFoundException;
 
+  /**
+   * Loads an entity together with the given associations, using one fetch join query per
+   * association whatever the number of associated entities.
+   *
+   * @param primaryKey       the id of the entity
+   * @param associationPaths the associations to initialize, relative to the entity. A path can go
+   *                         through several associations, e.g. "stages.workItems": the parent
+   *                         associations of such a path should be listed before it.
+   * @return the entity or null if it does not exist
+   */
+  T findOneWithAssociations(ID primaryKey, String... associationPaths);
+
+  /**
+   * Adds the delta to the ranks of the siblings ranked from the given rank, with a single
+   * statement, the siblings in memory having their new ranks already: they are not written again
+   * one by one. The siblings in memory whose new rank is not their persisted rank plus the delta,
+   * or which changed otherwise, are left out of the statement, and written one by one.
+   *
+   * @param siblingClass    the entity of the siblings
+   * @param siblings        the siblings in memory, as the parent holds them now
+   * @param parentAttribute the attribute of the siblings referring to their parent
+   * @param parentId        the id of the parent of the siblings
+   * @param rankAttribute   the attribute holding the rank of the siblings
+   * @return the number of siblings shifted by the statement, 0 if none has been run
+   */
+  <S> int shiftRanks(Class<S> siblingClass, Collection<? extends S> siblings,
+    String parentAttribute, Serializable parentId, String rankAttribute, long fromRank, long delta);
+
 }
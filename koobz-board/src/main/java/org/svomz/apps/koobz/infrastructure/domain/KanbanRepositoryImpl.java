@@ -1,11 +1,23 @@
 package org.svomz.apps.koobz.infrastructure.domain;
 
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.data.repository.NoRepositoryBean;
 
+import com.google.common.base.Splitter;
+
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
 
 /**
  * Created by eric on 09/07/15.
@@ -13,8 +25,13 @@ import javax.persistence.EntityManager;
 @NoRepositoryBean
 public class KanbanRepositoryImpl<T, ID extends Serializable> extends SimpleJpaRepository<T, ID> implements KanbanRepository<T, ID> {
 
+  private final Class<T> domainClass;
+  private final EntityManager em;
+
   public KanbanRepositoryImpl(Class<T> domainClass, EntityManager em) {
     super(domainClass, em);
+    this.domainClass = domainClass;
+    this.em = em;
   }
 
   @Override
@@ -25,4 +42,102 @@ public class KanbanRepositoryImpl<T, ID extends Serializable> extends SimpleJpaR
     }
     return entity;
   }
+
+  @Override
+  public T findOneWithAssociations(ID primaryKey, String... associationPaths) {
+    EntityType<T> entityType = this.em.getMetamodel().entity(this.domainClass);
+    String idAttribute = entityType.getId(entityType.getIdType().getJavaType()).getName();
+
+    T entity = null;
+    for (String associationPath : associationPaths) {
+      List<String> associations = Splitter.on('.').splitToList(associationPath);
+
+      // joins the parent associations of the path then fetches the last one
+      StringBuilder query = new StringBuilder("FROM ")
+        .append(entityType.getName()).append(" e0");
+      for (int i = 0; i < associations.size() - 1; i++) {
+        query.append(" JOIN e").append(i).append('.').append(associations.get(i))
+          .append(" e").append(i + 1);
+      }
+      int last = associations.size() - 1;
+      query.append(" LEFT JOIN FETCH e").append(last).append('.').append(associations.get(last))
+        .append(" WHERE e0.").append(idAttribute).append(" = :id");
+
+      List<?> results = this.em.createQuery("SELECT DISTINCT e" + last + " " + query)
+        .setParameter("id", primaryKey)
+        .getResultList();
+      if (last == 0) {
+        if (results.isEmpty()) {
+          return null;
+        }
+        entity = this.domainClass.cast(results.get(0));
+      }
+    }
+
+    return entity != null ? entity : this.findOne(primaryKey);
+  }
+
+  /**
+   * A sibling is shifted when its rank is the only change made to it, and is its persisted rank,
+   * from the given rank, plus the delta. Its persisted state is made its current state by making it
+   * read-only then modifiable again, so that the flush preceding the statement does not write it.
+   * The other siblings in the range of the statement are left out of it by id: they are written by
+   * the flush with the rank they have. The siblings which left the parent are written by the flush
+   * as well, out of the range of the statement.
+   */
+  @Override
+  public <S> int shiftRanks(final Class<S> siblingClass, final Collection<? extends S> siblings,
+    final String parentAttribute, final Serializable parentId, final String rankAttribute,
+    final long fromRank, final long delta) {
+    SessionImplementor session = this.em.unwrap(SessionImplementor.class);
+    EntityPersister persister = session.getFactory().getEntityPersister(siblingClass.getName());
+    int rankIndex = persister.getEntityMetamodel().getPropertyIndex(rankAttribute);
+
+    List<Object> shifted = new ArrayList<>();
+    List<Serializable> excludedIds = new ArrayList<>();
+    for (S sibling : siblings) {
+      EntityEntry entry = session.getPersistenceContext().getEntry(sibling);
+      long rank = (Long) persister.getPropertyValue(sibling, rankIndex);
+      if (entry == null) {
+        // not persisted yet, as far as the session knows
+        if (rank >= fromRank) {
+          excludedIds.add(persister.getIdentifier(sibling, session));
+        }
+        continue;
+      }
+
+      Object[] persistedState = entry.getLoadedState();
+      if (entry.isExistsInDatabase() && persistedState != null
+        && (Long) persistedState[rankIndex] >= fromRank
+        && rank == (Long) persistedState[rankIndex] + delta
+        && Arrays.equals(new int[] {rankIndex}, persister.findDirty(
+          persister.getPropertyValues(sibling), persistedState, sibling, session))) {
+        shifted.add(sibling);
+      } else if (rank >= fromRank) {
+        excludedIds.add(entry.getId());
+      }
+    }
+    if (shifted.isEmpty()) {
+      return 0;
+    }
+
+    Session statefulSession = this.em.unwrap(Session.class);
+    for (Object sibling : shifted) {
+      statefulSession.setReadOnly(sibling, true);
+      statefulSession.setReadOnly(sibling, false);
+    }
+    Query query = this.em.createQuery("UPDATE "
+      + this.em.getMetamodel().entity(siblingClass).getName() + " e"
+      + " SET e." + rankAttribute + " = e." + rankAttribute + " + :delta"
+      + " WHERE e." + parentAttribute + ".id = :parentId AND e." + rankAttribute + " >= :fromRank"
+      + (excludedIds.isEmpty() ? "" : " AND e.id NOT IN (:excludedIds)"))
+      .setParameter("delta", delta)
+      .setParameter("parentId", parentId)
+      .setParameter("fromRank", fromRank);
+    if (!excludedIds.isEmpty()) {
+      query.setParameter("excludedIds", excludedIds);
+    }
+    return query.executeUpdate();
+  }
+
 }
@@ -0,0 +1,79 @@
+package org.svomz.apps.koobz.infrastructure.domain;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.metamodel.source.MetadataImplementor;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+
+/**
+ * Records the entities loaded and the collections initialized by the sessions in the
+ * {@link PersistenceActivity} of the current thread, if any. Hibernate finds it through the
+ * META-INF/services/org.hibernate.integrator.spi.Integrator file, and runs it after the
+ * integrator of JPA, whose listeners are kept.
+ */
+public class PersistenceActivityIntegrator implements Integrator {
+
+  @Override
+  public void integrate(final Configuration configuration,
+    final SessionFactoryImplementor sessionFactory,
+    final SessionFactoryServiceRegistry serviceRegistry) {
+    this.integrate(serviceRegistry);
+  }
+
+  @Override
+  public void integrate(final MetadataImplementor metadata,
+    final SessionFactoryImplementor sessionFactory,
+    final SessionFactoryServiceRegistry serviceRegistry) {
+    this.integrate(serviceRegistry);
+  }
+
+  @Override
+  public void disintegrate(final SessionFactoryImplementor sessionFactory,
+    final SessionFactoryServiceRegistry serviceRegistry) {
+  }
+
+  private void integrate(final SessionFactoryServiceRegistry serviceRegistry) {
+    EventListenerRegistry listeners = serviceRegistry.getService(EventListenerRegistry.class);
+    listeners.appendListeners(EventType.POST_LOAD, new EntityLoadListener());
+    listeners.appendListeners(EventType.INIT_COLLECTION, new CollectionInitializationListener());
+  }
+
+  private static final class EntityLoadListener implements PostLoadEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void onPostLoad(final PostLoadEvent event) {
+      PersistenceActivity activity = PersistenceActivity.current();
+      if (activity != null) {
+        activity.entityLoaded();
+      }
+    }
+  }
+
+  /**
+   * Only called for the collections not initialized yet.
+   */
+  private static final class CollectionInitializationListener
+    implements InitializeCollectionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void onInitializeCollection(final InitializeCollectionEvent event) {
+      PersistenceActivity activity = PersistenceActivity.current();
+      if (activity != null) {
+        activity.collectionInitialized();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,55 @@
+package org.svomz.apps.koobz.infrastructure.domain;
+
+import org.hibernate.BaseSessionEventListener;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+
+/**
+ * Records the flushes run by a session in the {@link PersistenceActivity} of the current thread,
+ * if any; its statements are recorded by the connection pool, with the ones run without Hibernate
+ * (see {@link PersistenceActivityStatementInterceptor}). Hibernate adds it to every session
+ * as it is named by the hibernate.session.events.auto property; it holds no state of its own, so
+ * that a session kept between the requests, as the ones of the workflow lanes are, records each
+ * request in its own activity.
+ */
+public class PersistenceActivitySessionListener extends BaseSessionEventListener {
+
+  private static final long serialVersionUID = 1L;
+
+  @Override
+  public void flushStart() {
+    this.flushStarted();
+  }
+
+  @Override
+  public void flushEnd(final int numberOfEntities, final int numberOfCollections) {
+    this.flushFinished();
+  }
+
+  /**
+   * The automatic flush before a query, which only writes the changes the query could read.
+   */
+  @Override
+  public void partialFlushStart() {
+    this.flushStarted();
+  }
+
+  @Override
+  public void partialFlushEnd(final int numberOfEntities, final int numberOfCollections) {
+    this.flushFinished();
+  }
+
+  private void flushStarted() {
+    PersistenceActivity activity = PersistenceActivity.current();
+    if (activity != null) {
+      activity.flushStarted();
+    }
+  }
+
+  private void flushFinished() {
+    PersistenceActivity activity = PersistenceActivity.current();
+    if (activity != null) {
+      activity.flushFinished();
+    }
+  }
+
+}
@@ -0,0 +1,32 @@
+package org.svomz.apps.koobz.infrastructure.domain;
+
+import org.apache.tomcat.jdbc.pool.interceptor.AbstractCreateStatementInterceptor;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+
+import java.lang.reflect.Method;
+
+/**
+ * Records the statements created or prepared on the connections of the pool in the
+ * {@link PersistenceActivity} of the current thread, if any: the ones of Hibernate as well as the
+ * ones of the JdbcTemplates of the imports and the exports, which Hibernate does not see. The pool
+ * adds it to its connections as it is named by the spring.datasource.jdbc-interceptors property;
+ * it holds no state of its own, so that a connection kept between the requests records each
+ * request in its own activity.
+ */
+public class PersistenceActivityStatementInterceptor extends AbstractCreateStatementInterceptor {
+
+  @Override
+  public Object createStatement(final Object proxy, final Method method, final Object[] args,
+    final Object statement, final long time) {
+    PersistenceActivity activity = PersistenceActivity.current();
+    if (activity != null) {
+      activity.statementPrepared();
+    }
+    return statement;
+  }
+
+  @Override
+  public void closeInvoked() {
+  }
+
+}
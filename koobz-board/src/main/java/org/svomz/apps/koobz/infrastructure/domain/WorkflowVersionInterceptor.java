@@ -0,0 +1,40 @@
+package org.svomz.apps.koobz.infrastructure.domain;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Has Hibernate write the workflows whose version is pending, as if they were dirty, so that it
+ * increments their version even when only their stages or their work items changed: the row of the
+ * workflow is the optimistic lock of the whole aggregate. A workflow whose version is not pending,
+ * or has been written by a previous flush, is left to the dirty checking of Hibernate. Hibernate
+ * uses it for every session as it is named by the hibernate.ejb.interceptor property.
+ */
+public class WorkflowVersionInterceptor extends EmptyInterceptor {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String VERSION = "version";
+  private static final String NAME = "name";
+
+  @Override
+  public int[] findDirty(final Object entity, final Serializable id, final Object[] currentState,
+    final Object[] previousState, final String[] propertyNames, final Type[] types) {
+    if (!(entity instanceof Workflow)) {
+      return null;
+    }
+
+    long writtenVersion = (Long) currentState[Arrays.asList(propertyNames).indexOf(VERSION)];
+    if (((Workflow) entity).getVersion() <= writtenVersion) {
+      return null;
+    }
+    // all the columns of the workflow are written anyway, the name being the only one besides the
+    // version
+    return new int[] {Arrays.asList(propertyNames).indexOf(NAME)};
+  }
+
+}
@@ -0,0 +1,101 @@
+package org.svomz.apps.koobz.infrastructure.eventstore;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.BoardOverview;
+import org.svomz.apps.koobz.application.BoardOverview.StageOverview;
+import org.svomz.apps.koobz.application.WorkItemPage;
+import org.svomz.apps.koobz.application.WorkItemPageRepository;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot.StageState;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot.WorkItemState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Reads the pages of work items from the workflow restored from its events, there being no rows of
+ * the work items to read them from. A page still starts after the rank of the last work item of the
+ * previous page, so that the pages read before and after a change do not overlap.
+ */
+@Repository
+@Profile(EventSourcedWorkflowRepository.PROFILE)
+public class EventSourcedWorkItemPageRepository implements WorkItemPageRepository {
+
+  private final EventSourcedWorkflowRepository workflowRepository;
+
+  @Inject
+  public EventSourcedWorkItemPageRepository(
+    final EventSourcedWorkflowRepository aWorkflowRepository) {
+    this.workflowRepository = Preconditions.checkNotNull(aWorkflowRepository);
+  }
+
+  @Override
+  public Optional<WorkItemPage> findPage(final String workflowId, final String stageId,
+    final OptionalLong after, final int limit) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(stageId);
+    Preconditions.checkNotNull(after);
+
+    Workflow workflow = this.workflowRepository.findOne(workflowId);
+    if (workflow == null) {
+      return Optional.empty();
+    }
+    return WorkflowSnapshot.of(workflow).getStages().stream()
+      .filter(stage -> stage.getId().equals(stageId))
+      .findFirst()
+      .map(stage -> page(stage, after, limit));
+  }
+
+  @Override
+  public Optional<BoardOverview> findOverview(final String workflowId, final int limit) {
+    Preconditions.checkNotNull(workflowId);
+
+    Workflow workflow = this.workflowRepository.findOne(workflowId);
+    if (workflow == null) {
+      return Optional.empty();
+    }
+    WorkflowSnapshot snapshot = WorkflowSnapshot.of(workflow);
+    List<StageOverview> stages = new ArrayList<>(snapshot.getStages().size());
+    for (StageState stage : snapshot.getStages()) {
+      stages.add(new StageOverview(stage.getId(), stage.getName(),
+        page(stage, OptionalLong.empty(), limit)));
+    }
+    return Optional.of(new BoardOverview(workflowId, snapshot.getName(), snapshot.getVersion(),
+      stages));
+  }
+
+  @Override
+  public boolean exists(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    return this.workflowRepository.exists(workflowId);
+  }
+
+  private static WorkItemPage page(final StageState stage, final OptionalLong after,
+    final int limit) {
+    Preconditions.checkArgument(limit > 0);
+
+    List<WorkItemPage.Entry> workItems = new ArrayList<>(limit);
+    for (WorkItemState workItem : stage.getWorkItems()) {
+      if (after.isPresent() && workItem.getRank() <= after.getAsLong()) {
+        continue;
+      }
+      if (workItems.size() == limit) {
+        return new WorkItemPage(workItems,
+          OptionalLong.of(workItems.get(limit - 1).getRank()));
+      }
+      workItems.add(new WorkItemPage.Entry(workItem.getId(), workItem.getTitle(),
+        workItem.getDescription(), workItem.getRank()));
+    }
+    return new WorkItemPage(workItems, OptionalLong.empty());
+  }
+
+}
@@ -0,0 +1,69 @@
+package org.svomz.apps.koobz.infrastructure.eventstore;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ListMultimap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowChangeRepository;
+import org.svomz.apps.koobz.domain.model.WorkflowChange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Gives the changes of the workflows from the events of their streams, which already are the
+ * changes of each version: nothing is written nor removed besides them.
+ *
+ * Selected by the {@value EventSourcedWorkflowRepository#PROFILE} profile, instead of the
+ * workflow_changes table.
+ */
+@Repository
+@Profile(EventSourcedWorkflowRepository.PROFILE)
+public class EventSourcedWorkflowChangeRepository implements WorkflowChangeRepository {
+
+  private final JdbcWorkflowEventStore eventStore;
+
+  @Inject
+  public EventSourcedWorkflowChangeRepository(final JdbcWorkflowEventStore anEventStore) {
+    this.eventStore = Preconditions.checkNotNull(anEventStore);
+  }
+
+  /**
+   * Nothing to do: the changes have been appended to the stream of the workflow.
+   */
+  @Override
+  public void append(final String workflowId, final long version, final List<String> changes) {
+  }
+
+  /**
+   * Nothing to do: the events are never removed.
+   */
+  @Override
+  public void compact(final String workflowId, final long upToVersion) {
+  }
+
+  @Override
+  public List<WorkflowChangeFeed.Entry> findSince(final String workflowId, final long version) {
+    Preconditions.checkNotNull(workflowId);
+
+    ListMultimap<Long, WorkflowChange> changes =
+      this.eventStore.findChangesAfter(workflowId, version);
+    List<WorkflowChangeFeed.Entry> entries = new ArrayList<>(changes.size());
+    for (Map.Entry<Long, WorkflowChange> change : changes.entries()) {
+      entries.add(WorkflowChangeFeed.Entry.of(change.getKey(), change.getValue()));
+    }
+    return entries;
+  }
+
+  @Override
+  public OptionalLong findWorkflowVersion(final String workflowId) {
+    return this.eventStore.findHead(workflowId);
+  }
+
+}
@@ -0,0 +1,69 @@
+package org.svomz.apps.koobz.infrastructure.eventstore;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.WorkflowExportHandler;
+import org.svomz.apps.koobz.application.WorkflowExportRepository;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot.StageState;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot.WorkItemState;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.inject.Inject;
+
+/**
+ * Exports the workflow restored from its events. Unlike the rows read by the JDBC export, the
+ * restored workflow is held in memory as a whole while it is exported.
+ */
+@Repository
+@Profile(EventSourcedWorkflowRepository.PROFILE)
+public class EventSourcedWorkflowExportRepository implements WorkflowExportRepository {
+
+  private final EventSourcedWorkflowRepository workflowRepository;
+
+  @Inject
+  public EventSourcedWorkflowExportRepository(
+    final EventSourcedWorkflowRepository aWorkflowRepository) {
+    this.workflowRepository = Preconditions.checkNotNull(aWorkflowRepository);
+  }
+
+  @Override
+  public boolean read(final String workflowId, final WorkflowExportHandler handler)
+    throws IOException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(handler);
+
+    Workflow workflow = this.workflowRepository.findOne(workflowId);
+    if (workflow == null) {
+      return false;
+    }
+
+    WorkflowSnapshot snapshot = WorkflowSnapshot.of(workflow);
+    handler.workflow(workflowId, snapshot.getName(), snapshot.getVersion());
+    for (StageState stage : snapshot.getStages()) {
+      handler.stage(stage.getId(), stage.getName());
+      for (WorkItemState workItem : stage.getWorkItems()) {
+        handler.workItem(workItem.getId(), workItem.getTitle(), workItem.getDescription());
+      }
+    }
+
+    // in the order of the JDBC export
+    List<WorkItemState> archivedWorkItems = new ArrayList<>(snapshot.getArchivedWorkItems());
+    archivedWorkItems.sort(Comparator.comparing(WorkItemState::getStageId)
+      .thenComparingLong(WorkItemState::getRank)
+      .thenComparing(WorkItemState::getId));
+    for (WorkItemState workItem : archivedWorkItems) {
+      handler.archivedWorkItem(workItem.getId(), workItem.getTitle(), workItem.getDescription(),
+        workItem.getStageId());
+    }
+    return true;
+  }
+
+}
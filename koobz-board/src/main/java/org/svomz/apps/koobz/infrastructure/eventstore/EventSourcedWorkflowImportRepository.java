@@ -0,0 +1,91 @@
+package org.svomz.apps.koobz.infrastructure.eventstore;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.WorkflowImportRepository;
+import org.svomz.apps.koobz.application.WorkflowImportRows;
+import org.svomz.apps.koobz.domain.model.StageNotInProcessException;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot.StageState;
+import org.svomz.apps.koobz.domain.model.WorkflowTail;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Imports the stages and work items by adding them to the workflow restored from its events: the
+ * batch of records makes a version whose changes are appended as those of a command.
+ */
+@Repository
+@Profile(EventSourcedWorkflowRepository.PROFILE)
+public class EventSourcedWorkflowImportRepository implements WorkflowImportRepository {
+
+  private final JdbcWorkflowEventStore eventStore;
+  private final EventSourcedWorkflowRepository workflowRepository;
+
+  @Inject
+  public EventSourcedWorkflowImportRepository(final JdbcWorkflowEventStore anEventStore,
+    final EventSourcedWorkflowRepository aWorkflowRepository) {
+    this.eventStore = Preconditions.checkNotNull(anEventStore);
+    this.workflowRepository = Preconditions.checkNotNull(aWorkflowRepository);
+  }
+
+  @Override
+  public OptionalLong lockWorkflow(final String workflowId) {
+    return this.eventStore.lockHead(workflowId);
+  }
+
+  @Override
+  public WorkflowTail findTail(final String workflowId) {
+    WorkflowTail tail = new WorkflowTail();
+    for (StageState stage : WorkflowSnapshot.of(this.existingWorkflowOfId(workflowId))
+      .getStages()) {
+      List<WorkflowSnapshot.WorkItemState> workItems = stage.getWorkItems();
+      tail.withStage(stage.getId(), stage.getName(), stage.getRank(), workItems.isEmpty()
+        ? OptionalLong.empty()
+        : OptionalLong.of(workItems.get(workItems.size() - 1).getRank()));
+    }
+    return tail;
+  }
+
+  /**
+   * The workflow gives the stages and work items the same ranks as the tail did.
+   */
+  @Override
+  public void insert(final String workflowId, final WorkflowImportRows rows) {
+    Preconditions.checkNotNull(rows);
+
+    Workflow workflow = this.existingWorkflowOfId(workflowId);
+    rows.getStages().forEach(stage -> workflow.addStageToWorkflow(stage.getId(), stage.getName()));
+    for (WorkflowImportRows.WorkItemRow workItem : rows.getWorkItems()) {
+      try {
+        workflow.addWorkItemToStage(workItem.getStageId(), workItem.getId(), workItem.getTitle(),
+          workItem.getDescription());
+      } catch (StageNotInProcessException e) {
+        throw new IllegalStateException("The stage of an imported work item is not in the tail", e);
+      }
+    }
+  }
+
+  @Override
+  public void incrementVersion(final String workflowId) {
+    this.workflowRepository.save(this.existingWorkflowOfId(workflowId));
+  }
+
+  /**
+   * @return the workflow locked by {@link #lockWorkflow(String)}, loaded once per transaction.
+   */
+  private Workflow existingWorkflowOfId(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    Workflow workflow = this.workflowRepository.findOne(workflowId);
+    Preconditions.checkState(workflow != null, "The workflow %s does not exist", workflowId);
+    return workflow;
+  }
+
+}
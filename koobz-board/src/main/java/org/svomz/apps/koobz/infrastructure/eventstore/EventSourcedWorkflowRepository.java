@@ -0,0 +1,295 @@
+package org.svomz.apps.koobz.infrastructure.eventstore;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ListMultimap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowChange;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot;
+import org.svomz.apps.koobz.infrastructure.domain.JpaWorkflowRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+/**
+ * Stores each workflow as the stream of the changes which made its versions, instead of the rows of
+ * its stages and work items. Loading a workflow restores its last snapshot and replays the changes
+ * made since; writing it appends the changes of its new version, a snapshot being taken every
+ * snapshot interval versions so that the changes to replay stay few.
+ *
+ * As the persistence provider does for the entities, the workflows loaded in a transaction are kept
+ * until it ends: loading one again gives the same instance, and their changes are written by
+ * {@link #flush()} or right before the transaction commits. A command therefore writes one update
+ * of the head of the stream, which fails if another transaction appended a version meanwhile, and
+ * one batch of inserts, whatever the number of stages and work items whose rank it changed.
+ *
+ * Selected by the {@value #PROFILE} profile, instead of the JPA repository. The workflows stored
+ * as rows before get their first snapshot from their rows when they are first loaded.
+ */
+@Repository
+@Primary
+@Profile(EventSourcedWorkflowRepository.PROFILE)
+public class EventSourcedWorkflowRepository implements WorkflowRepository {
+
+  public static final String PROFILE = "event-sourcing";
+
+  private final JdbcWorkflowEventStore eventStore;
+  private final JpaWorkflowRepository rowRepository;
+  private final long snapshotInterval;
+
+  /**
+   * @param aRowRepository the JPA repository, which reads the workflows stored as rows
+   */
+  @Inject
+  public EventSourcedWorkflowRepository(final JdbcWorkflowEventStore anEventStore,
+    final JpaWorkflowRepository aRowRepository,
+    @Value("${koobz.event-store.snapshot-interval:100}") final long aSnapshotInterval) {
+    Preconditions.checkArgument(aSnapshotInterval > 0);
+
+    this.eventStore = Preconditions.checkNotNull(anEventStore);
+    this.rowRepository = Preconditions.checkNotNull(aRowRepository);
+    this.snapshotInterval = aSnapshotInterval;
+  }
+
+  /**
+   * @return the workflow restored from its last snapshot and the changes made since, or null if
+   * it does not exist.
+   */
+  @Override
+  public Workflow findOne(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    LoadedWorkflow loaded = this.loaded().get(workflowId);
+    if (loaded != null) {
+      return loaded.workflow;
+    }
+
+    Optional<WorkflowSnapshot> snapshot = this.eventStore.findSnapshot(workflowId);
+    if (!snapshot.isPresent()) {
+      snapshot = this.snapshotOfRows(workflowId);
+      if (!snapshot.isPresent()) {
+        return null;
+      }
+    }
+    Workflow workflow = snapshot.get().toWorkflow();
+    ListMultimap<Long, WorkflowChange> tail = this.eventStore.findChangesAfter(workflowId,
+      snapshot.get().getVersion());
+    for (Long version : tail.keySet()) {
+      workflow.replay(version, tail.get(version));
+    }
+
+    this.track(new LoadedWorkflow(workflow, workflow.getVersion(), snapshot.get().getVersion()));
+    return workflow;
+  }
+
+  /**
+   * The whole workflow is restored by {@link #findOne(String)}, archived work items included.
+   */
+  @Override
+  public Workflow findAggregate(final String workflowId) {
+    return this.findOne(workflowId);
+  }
+
+  @Override
+  public boolean exists(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    return this.eventStore.exists(workflowId);
+  }
+
+  /**
+   * Starts the stream of a new workflow, with its first snapshot, or writes the changes made to a
+   * workflow loaded in the current transaction.
+   */
+  @Override
+  public <S extends Workflow> S save(final S workflow) {
+    Preconditions.checkNotNull(workflow);
+
+    LoadedWorkflow loaded = this.loaded().get(workflow.getId());
+    if (loaded != null) {
+      Preconditions.checkArgument(loaded.workflow == workflow,
+        "Another instance of the workflow %s has been loaded", workflow.getId());
+      this.write(loaded);
+      return workflow;
+    }
+
+    this.eventStore.insertHead(workflow.getId(), workflow.getName(), workflow.getVersion());
+    this.eventStore.append(workflow.getId(), workflow.getVersion(), workflow.changes());
+    this.eventStore.saveSnapshot(WorkflowSnapshot.of(workflow));
+    LoadedWorkflow created = new LoadedWorkflow(workflow, workflow.getVersion(),
+      workflow.getVersion());
+    created.appended = new ArrayList<>(workflow.changes());
+    this.track(created);
+    return workflow;
+  }
+
+  /**
+   * Writes the changes made to the workflows loaded in the current transaction.
+   */
+  @Override
+  public void flush() {
+    for (LoadedWorkflow loaded : this.loaded().values()) {
+      this.write(loaded);
+    }
+  }
+
+  /**
+   * Nothing to do: the ranks are written with the snapshots.
+   */
+  @Override
+  public void writeRankShifts(final Workflow workflow) {
+    workflow.takeRankShifts();
+  }
+
+  /**
+   * Appends the changes of the new version of the workflow, if it has one. The changes made after
+   * a flush to the version it wrote replace the ones it appended.
+   */
+  private void write(final LoadedWorkflow loaded) {
+    Workflow workflow = loaded.workflow;
+    List<WorkflowChange> changes = workflow.changes();
+    long version = workflow.getVersion();
+
+    if (version == loaded.version) {
+      if (changes.equals(loaded.appended)) {
+        return;
+      }
+      this.eventStore.removeUncommitted(workflow.getId(), version);
+      this.eventStore.updateHead(workflow.getId(), workflow.getName(), version, version);
+    } else if (!this.eventStore.updateHead(workflow.getId(), workflow.getName(), version,
+      loaded.version)) {
+      throw new OptimisticLockingFailureException(String.format(
+        "The workflow %s changed since its version %s", workflow.getId(), loaded.version));
+    }
+    this.eventStore.append(workflow.getId(), version, changes);
+    loaded.version = version;
+    loaded.appended = new ArrayList<>(changes);
+
+    if (version - loaded.snapshotVersion >= this.snapshotInterval) {
+      this.eventStore.saveSnapshot(WorkflowSnapshot.of(workflow));
+      loaded.snapshotVersion = version;
+    }
+  }
+
+  /**
+   * Takes the first snapshot of a workflow stored as rows before this repository was selected, from
+   * its rows. Its stream starts from there: its rows are not written anymore.
+   *
+   * The head of the stream is locked first, so that the concurrent first loads of the workflow wait
+   * for the one taking the snapshot and then read it, instead of taking it again.
+   */
+  private Optional<WorkflowSnapshot> snapshotOfRows(final String workflowId) {
+    if (!this.eventStore.lockHead(workflowId).isPresent()) {
+      return Optional.empty();
+    }
+    Optional<WorkflowSnapshot> taken = this.eventStore.findSnapshot(workflowId);
+    if (taken.isPresent()) {
+      return taken;
+    }
+
+    Workflow stored = this.rowRepository.findAggregate(workflowId);
+    if (stored == null) {
+      return Optional.empty();
+    }
+    WorkflowSnapshot snapshot = WorkflowSnapshot.of(stored);
+    if (!this.eventStore.saveFirstSnapshot(snapshot)) {
+      return this.eventStore.findSnapshot(workflowId);
+    }
+    return Optional.of(snapshot);
+  }
+
+  /**
+   * Keeps the workflow until the end of the current transaction, if there is one: outside of a
+   * transaction, the changes of a loaded workflow are not written.
+   */
+  private void track(final LoadedWorkflow loadedWorkflow) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+
+    Map<String, LoadedWorkflow> loaded = this.loaded();
+    if (!TransactionSynchronizationManager.hasResource(this)) {
+      Map<String, LoadedWorkflow> bound = new HashMap<>();
+      loaded = bound;
+      TransactionSynchronizationManager.bindResource(this, bound);
+      TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          // a transaction started meanwhile, with its own connection, loads its own workflows
+          @Override
+          public void suspend() {
+            TransactionSynchronizationManager.unbindResource(EventSourcedWorkflowRepository.this);
+          }
+
+          @Override
+          public void resume() {
+            TransactionSynchronizationManager.bindResource(EventSourcedWorkflowRepository.this,
+              bound);
+          }
+
+          @Override
+          public void beforeCommit(final boolean readOnly) {
+            EventSourcedWorkflowRepository.this.flush();
+          }
+
+          @Override
+          public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(
+              EventSourcedWorkflowRepository.this);
+          }
+        });
+    }
+    loaded.put(loadedWorkflow.workflow.getId(), loadedWorkflow);
+  }
+
+  /**
+   * @return the workflows loaded in the current transaction, by id.
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, LoadedWorkflow> loaded() {
+    Map<String, LoadedWorkflow> loaded =
+      (Map<String, LoadedWorkflow>) TransactionSynchronizationManager.getResource(this);
+    return loaded == null ? Collections.emptyMap() : loaded;
+  }
+
+  /**
+   * A workflow loaded in the current transaction, with where its stream is.
+   */
+  private static final class LoadedWorkflow {
+
+    private final Workflow workflow;
+
+    /**
+     * The last version of the stream, from which the next one follows.
+     */
+    private long version;
+
+    /**
+     * The changes of this version appended in the current transaction, if any.
+     */
+    private List<WorkflowChange> appended = Collections.emptyList();
+
+    private long snapshotVersion;
+
+    private LoadedWorkflow(final Workflow workflow, final long version,
+      final long snapshotVersion) {
+      this.workflow = workflow;
+      this.version = version;
+      this.snapshotVersion = snapshotVersion;
+    }
+  }
+
+}
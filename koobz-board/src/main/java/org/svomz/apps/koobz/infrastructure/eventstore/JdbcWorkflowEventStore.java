@@ -0,0 +1,293 @@
+package org.svomz.apps.koobz.infrastructure.eventstore;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.domain.model.WorkflowChange;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot.StageState;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot.WorkItemState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Stores the stream of each workflow in three tables:
+ * <ul>
+ *   <li>workflows, the head of the stream: its name and the last version appended, which is the
+ *   optimistic lock of the stream and what the other tables refer to;</li>
+ *   <li>workflow_events, the changes of each version, never updated nor removed: the primary key
+ *   (workflow_id, version, ordinal) gives the changes following a version in order;</li>
+ *   <li>workflow_snapshots, the last snapshot of each workflow as JSON, with its version.</li>
+ * </ul>
+ */
+@Repository
+@Profile(EventSourcedWorkflowRepository.PROFILE)
+public class JdbcWorkflowEventStore {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Inject
+  public JdbcWorkflowEventStore(final JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Preconditions.checkNotNull(jdbcTemplate);
+  }
+
+  /**
+   * @return the last snapshot of the workflow, if it has one.
+   */
+  public Optional<WorkflowSnapshot> findSnapshot(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<String> snapshots = this.jdbcTemplate.queryForList(
+      "SELECT snapshot FROM workflow_snapshots WHERE workflow_id = ?", String.class, workflowId);
+    return snapshots.isEmpty() ? Optional.empty() : Optional.of(fromJson(snapshots.get(0)));
+  }
+
+  /**
+   * @return the changes of each version following the given one, by version in order.
+   */
+  public ListMultimap<Long, WorkflowChange> findChangesAfter(final String workflowId,
+    final long version) {
+    Preconditions.checkNotNull(workflowId);
+
+    ListMultimap<Long, WorkflowChange> changes = LinkedListMultimap.create();
+    this.jdbcTemplate.query(
+      "SELECT version, type, stage_id, work_item_id, name, description, position "
+        + "FROM workflow_events WHERE workflow_id = ? AND version > ? ORDER BY version, ordinal",
+      resultSet -> {
+        int position = resultSet.getInt(7);
+        if (resultSet.wasNull()) {
+          position = -1;
+        }
+        changes.put(resultSet.getLong(1), WorkflowChange.of(
+          WorkflowChange.Type.valueOf(resultSet.getString(2)), resultSet.getString(3),
+          resultSet.getString(4), resultSet.getString(5), resultSet.getString(6), position));
+      },
+      workflowId, version);
+    return changes;
+  }
+
+  public boolean exists(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM workflows WHERE id = ?",
+      Integer.class, workflowId) > 0;
+  }
+
+  /**
+   * @return the last version of the workflow, if it exists.
+   */
+  public OptionalLong findHead(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<Long> versions = this.jdbcTemplate.queryForList(
+      "SELECT version FROM workflows WHERE id = ?", Long.class, workflowId);
+    return versions.isEmpty() ? OptionalLong.empty() : OptionalLong.of(versions.get(0));
+  }
+
+  /**
+   * @return the last version of the workflow, if it exists, which stays locked until the end of the
+   * current transaction.
+   */
+  public OptionalLong lockHead(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<Long> versions = this.jdbcTemplate.queryForList(
+      "SELECT version FROM workflows WHERE id = ? FOR UPDATE", Long.class, workflowId);
+    return versions.isEmpty() ? OptionalLong.empty() : OptionalLong.of(versions.get(0));
+  }
+
+  /**
+   * Starts the stream of a new workflow.
+   */
+  public void insertHead(final String workflowId, final String name, final long version) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(name);
+
+    this.jdbcTemplate.update("INSERT INTO workflows (id, name, version) VALUES (?, ?, ?)",
+      workflowId, name, version);
+  }
+
+  /**
+   * Moves the head of the stream to a new version, unless another transaction moved it since the
+   * expected version.
+   *
+   * @return false if the head is not at the expected version anymore
+   */
+  public boolean updateHead(final String workflowId, final String name, final long version,
+    final long expectedVersion) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(name);
+
+    return this.jdbcTemplate.update(
+      "UPDATE workflows SET name = ?, version = ? WHERE id = ? AND version = ?",
+      name, version, workflowId, expectedVersion) == 1;
+  }
+
+  /**
+   * Appends the changes of a version, with a single JDBC batch.
+   */
+  public void append(final String workflowId, final long version,
+    final List<WorkflowChange> changes) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(changes);
+
+    List<Integer> ordinals = new ArrayList<>(changes.size());
+    for (int ordinal = 0; ordinal < changes.size(); ordinal++) {
+      ordinals.add(ordinal);
+    }
+    this.jdbcTemplate.batchUpdate(
+      "INSERT INTO workflow_events "
+        + "(workflow_id, version, ordinal, type, stage_id, work_item_id, name, description, "
+        + "position) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+      ordinals, ordinals.size(), (statement, ordinal) -> {
+        WorkflowChange change = changes.get(ordinal);
+        statement.setString(1, workflowId);
+        statement.setLong(2, version);
+        statement.setInt(3, ordinal);
+        statement.setString(4, change.getType().name());
+        statement.setString(5, change.getStageId());
+        statement.setString(6, change.getWorkItemId());
+        statement.setString(7, change.getName());
+        statement.setString(8, change.getDescription());
+        if (change.getPosition() >= 0) {
+          statement.setInt(9, change.getPosition());
+        } else {
+          statement.setNull(9, Types.INTEGER);
+        }
+      });
+  }
+
+  /**
+   * Removes the changes of a version appended in the current transaction, so that they are appended
+   * again with the changes made since.
+   */
+  public void removeUncommitted(final String workflowId, final long version) {
+    Preconditions.checkNotNull(workflowId);
+
+    this.jdbcTemplate.update("DELETE FROM workflow_events WHERE workflow_id = ? AND version = ?",
+      workflowId, version);
+  }
+
+  /**
+   * Replaces the last snapshot of the workflow.
+   */
+  public void saveSnapshot(final WorkflowSnapshot snapshot) {
+    Preconditions.checkNotNull(snapshot);
+
+    String json = toJson(snapshot);
+    int updated = this.jdbcTemplate.update(
+      "UPDATE workflow_snapshots SET version = ?, snapshot = ? WHERE workflow_id = ?",
+      snapshot.getVersion(), json, snapshot.getId());
+    if (updated == 0) {
+      this.jdbcTemplate.update(
+        "INSERT INTO workflow_snapshots (workflow_id, version, snapshot) VALUES (?, ?, ?)",
+        snapshot.getId(), snapshot.getVersion(), json);
+    }
+  }
+
+  /**
+   * Saves the first snapshot of the workflow, unless another one has been saved meanwhile.
+   *
+   * @return false if the workflow already had a snapshot
+   */
+  public boolean saveFirstSnapshot(final WorkflowSnapshot snapshot) {
+    Preconditions.checkNotNull(snapshot);
+
+    try {
+      return this.jdbcTemplate.update(
+        "INSERT INTO workflow_snapshots (workflow_id, version, snapshot) "
+          + "SELECT id, ?, ? FROM workflows WHERE id = ? AND NOT EXISTS "
+          + "(SELECT 1 FROM workflow_snapshots WHERE workflow_id = ?)",
+        snapshot.getVersion(), toJson(snapshot), snapshot.getId(), snapshot.getId()) == 1;
+    } catch (DuplicateKeyException e) {
+      // inserted by a transaction which did not lock the head of the stream
+      return false;
+    }
+  }
+
+  static String toJson(final WorkflowSnapshot snapshot) {
+    ObjectNode node = MAPPER.createObjectNode();
+    node.put("id", snapshot.getId());
+    node.put("name", snapshot.getName());
+    node.put("version", snapshot.getVersion());
+    ArrayNode stages = node.putArray("stages");
+    for (StageState stage : snapshot.getStages()) {
+      ObjectNode stageNode = stages.addObject();
+      stageNode.put("id", stage.getId());
+      stageNode.put("name", stage.getName());
+      stageNode.put("rank", stage.getRank());
+      ArrayNode workItems = stageNode.putArray("workItems");
+      stage.getWorkItems().forEach(workItem -> putWorkItem(workItems.addObject(), workItem));
+    }
+    ArrayNode archivedWorkItems = node.putArray("archivedWorkItems");
+    snapshot.getArchivedWorkItems()
+      .forEach(workItem -> putWorkItem(archivedWorkItems.addObject(), workItem));
+    try {
+      return MAPPER.writeValueAsString(node);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static WorkflowSnapshot fromJson(final String json) {
+    JsonNode node;
+    try {
+      node = MAPPER.readTree(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    List<StageState> stages = new ArrayList<>();
+    for (JsonNode stageNode : node.get("stages")) {
+      List<WorkItemState> workItems = new ArrayList<>();
+      stageNode.get("workItems").forEach(workItemNode -> workItems.add(workItem(workItemNode)));
+      stages.add(new StageState(stageNode.get("id").asText(), stageNode.get("name").asText(),
+        stageNode.get("rank").asLong(), workItems));
+    }
+    List<WorkItemState> archivedWorkItems = new ArrayList<>();
+    node.get("archivedWorkItems")
+      .forEach(workItemNode -> archivedWorkItems.add(workItem(workItemNode)));
+    return new WorkflowSnapshot(node.get("id").asText(), node.get("name").asText(),
+      node.get("version").asLong(), stages, archivedWorkItems);
+  }
+
+  private static void putWorkItem(final ObjectNode node, final WorkItemState workItem) {
+    node.put("id", workItem.getId());
+    node.put("title", workItem.getTitle());
+    if (workItem.getDescription() != null) {
+      node.put("description", workItem.getDescription());
+    }
+    node.put("rank", workItem.getRank());
+    if (workItem.getStageId() != null) {
+      node.put("stageId", workItem.getStageId());
+    }
+  }
+
+  private static WorkItemState workItem(final JsonNode node) {
+    return new WorkItemState(node.get("id").asText(), node.get("title").asText(),
+      node.has("description") ? node.get("description").asText() : null,
+      node.get("rank").asLong(), node.has("stageId") ? node.get("stageId").asText() : null);
+  }
+
+}
@@ -0,0 +1,160 @@
+package org.svomz.apps.koobz.infrastructure.exports;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.WorkflowExportHandler;
+import org.svomz.apps.koobz.application.WorkflowExportRepository;
+import org.svomz.apps.koobz.infrastructure.eventstore.EventSourcedWorkflowRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+/**
+ * Reads the rows of the exported workflows through forward-only, read-only result sets fetched a
+ * few rows at a time, each row being handed over before the next one is fetched. MySQL only
+ * honours a fetch size through a server side cursor, which is a setting of the whole connection
+ * (useCursorFetch): its result sets are streamed one row at a time instead, which is a setting of
+ * the statements of the export only.
+ *
+ * The queries go through the JDBC connection of the current transaction, and see the same snapshot
+ * of the workflow.
+ */
+@Repository
+@Profile("!" + EventSourcedWorkflowRepository.PROFILE)
+public class JdbcWorkflowExportRepository implements WorkflowExportRepository {
+
+  /**
+   * The archived work items of a workflow, by stage and rank, read in this order from
+   * idx_work_items_archive_workflow_stage_position.
+   */
+  public static final String ARCHIVE_QUERY = "SELECT id, title, description, stage_id "
+    + "FROM work_items_archive WHERE workflow_id = ? ORDER BY stage_id, position, id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Inject
+  public JdbcWorkflowExportRepository(final DataSource dataSource,
+    @Value("${koobz.export.fetch-size:1000}") final int fetchSize) {
+    Preconditions.checkNotNull(dataSource);
+    Preconditions.checkArgument(fetchSize > 0);
+
+    // a template of its own: the fetch size is not the one of the other queries
+    this.jdbcTemplate = new ExportJdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(fetchSize);
+  }
+
+  @Override
+  public boolean read(final String workflowId, final WorkflowExportHandler handler)
+    throws IOException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(handler);
+
+    try {
+      AtomicBoolean found = new AtomicBoolean();
+      this.jdbcTemplate.query("SELECT name, version FROM workflows WHERE id = ?",
+        rethrowing(resultSet -> {
+          found.set(true);
+          handler.workflow(workflowId, resultSet.getString(1), resultSet.getLong(2));
+        }),
+        workflowId);
+      if (!found.get()) {
+        return false;
+      }
+
+      StageTracker stages = new StageTracker();
+      this.jdbcTemplate.query(
+        "SELECT s.id, s.name, w.id, w.title, w.description FROM stages s "
+          + "LEFT JOIN work_items w ON w.stage_id = s.id WHERE s.workflow_id = ? "
+          + "ORDER BY s.position, s.id, w.position, w.id",
+        rethrowing(resultSet -> {
+          String stageId = resultSet.getString(1);
+          if (stages.isNew(stageId)) {
+            handler.stage(stageId, resultSet.getString(2));
+          }
+          String workItemId = resultSet.getString(3);
+          if (workItemId != null) {
+            handler.workItem(workItemId, resultSet.getString(4), resultSet.getString(5));
+          }
+        }),
+        workflowId);
+
+      this.jdbcTemplate.query(ARCHIVE_QUERY,
+        rethrowing(resultSet -> handler.archivedWorkItem(resultSet.getString(1),
+          resultSet.getString(2), resultSet.getString(3), resultSet.getString(4))),
+        workflowId);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return true;
+  }
+
+  /**
+   * Streams the result sets of MySQL, which reads a result set whole unless its fetch size is
+   * Integer.MIN_VALUE. The connection then runs no other statement until the result set is closed:
+   * the rows are handed over without querying the database.
+   */
+  private static final class ExportJdbcTemplate extends JdbcTemplate {
+
+    private static final String MYSQL = "MySQL";
+
+    private ExportJdbcTemplate(final DataSource dataSource) {
+      super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(final Statement statement) throws SQLException {
+      super.applyStatementSettings(statement);
+      if (MYSQL.equals(statement.getConnection().getMetaData().getDatabaseProductName())) {
+        statement.setFetchSize(Integer.MIN_VALUE);
+      }
+    }
+  }
+
+  /**
+   * A row callback which may fail to write the row: the failure goes through JdbcTemplate
+   * unchanged, and is thrown again once out of it.
+   */
+  private static RowCallbackHandler rethrowing(final RowWriter rowWriter) {
+    return resultSet -> {
+      try {
+        rowWriter.write(resultSet);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+  }
+
+  @FunctionalInterface
+  private interface RowWriter {
+    void write(ResultSet resultSet) throws SQLException, IOException;
+  }
+
+  /**
+   * The rows of a stage follow each other: a stage starts when the stage id changes.
+   */
+  private static final class StageTracker {
+
+    private String currentStageId;
+
+    private boolean isNew(final String stageId) {
+      if (stageId.equals(this.currentStageId)) {
+        return false;
+      }
+      this.currentStageId = stageId;
+      return true;
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+package org.svomz.apps.koobz.infrastructure.imports;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.WorkflowImportRepository;
+import org.svomz.apps.koobz.application.WorkflowImportRows;
+import org.svomz.apps.koobz.domain.model.WorkflowTail;
+import org.svomz.apps.koobz.infrastructure.eventstore.EventSourcedWorkflowRepository;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Writes the imported rows through the JDBC connection of the current JPA transaction. The rows of
+ * a batch are sent with one JDBC batch per table.
+ */
+@Repository
+@Profile("!" + EventSourcedWorkflowRepository.PROFILE)
+public class JdbcWorkflowImportRepository implements WorkflowImportRepository {
+
+  /**
+   * The stages of a workflow by rank, with the highest rank of the work items of each of them: the
+   * stages are read in this order from idx_stages_workflow_position, the highest rank from the last
+   * entry of the range of the stage in idx_work_items_stage_position.
+   */
+  public static final String TAIL_QUERY = "SELECT s.id, s.name, s.position, "
+    + "(SELECT MAX(w.position) FROM work_items w WHERE w.stage_id = s.id) "
+    + "FROM stages s WHERE s.workflow_id = ? ORDER BY s.position, s.id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Inject
+  public JdbcWorkflowImportRepository(final JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Preconditions.checkNotNull(jdbcTemplate);
+  }
+
+  @Override
+  public OptionalLong lockWorkflow(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<Long> versions = this.jdbcTemplate.queryForList(
+      "SELECT version FROM workflows WHERE id = ? FOR UPDATE", Long.class, workflowId);
+    return versions.isEmpty() ? OptionalLong.empty() : OptionalLong.of(versions.get(0));
+  }
+
+  @Override
+  public WorkflowTail findTail(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    WorkflowTail tail = new WorkflowTail();
+    this.jdbcTemplate.query(TAIL_QUERY,
+      resultSet -> {
+        long lastWorkItemRank = resultSet.getLong(4);
+        tail.withStage(resultSet.getString(1), resultSet.getString(2), resultSet.getLong(3),
+          resultSet.wasNull() ? OptionalLong.empty() : OptionalLong.of(lastWorkItemRank));
+      },
+      workflowId);
+    return tail;
+  }
+
+  @Override
+  public void insert(final String workflowId, final WorkflowImportRows rows) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(rows);
+
+    this.jdbcTemplate.batchUpdate(
+      "INSERT INTO stages (id, name, position, workflow_id) VALUES (?, ?, ?, ?)",
+      rows.getStages(), rows.getStages().size(), (statement, stage) -> {
+        statement.setString(1, stage.getId());
+        statement.setString(2, stage.getName());
+        statement.setLong(3, stage.getRank());
+        statement.setString(4, workflowId);
+      });
+    this.jdbcTemplate.batchUpdate(
+      "INSERT INTO work_items (id, title, description, position, stage_id, workflow_id) "
+        + "VALUES (?, ?, ?, ?, ?, ?)",
+      rows.getWorkItems(), rows.getWorkItems().size(), (statement, workItem) -> {
+        statement.setString(1, workItem.getId());
+        statement.setString(2, workItem.getTitle());
+        statement.setString(3, workItem.getDescription());
+        statement.setLong(4, workItem.getRank());
+        statement.setString(5, workItem.getStageId());
+        statement.setString(6, workflowId);
+      });
+  }
+
+  @Override
+  public void incrementVersion(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    this.jdbcTemplate.update("UPDATE workflows SET version = version + 1 WHERE id = ?",
+      workflowId);
+  }
+
+}
@@ -0,0 +1,110 @@
+package org.svomz.apps.koobz.infrastructure.readmodel;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.BoardOverview;
+import org.svomz.apps.koobz.application.BoardOverview.StageOverview;
+import org.svomz.apps.koobz.application.WorkItemPage;
+import org.svomz.apps.koobz.application.WorkItemPageRepository;
+import org.svomz.apps.koobz.infrastructure.eventstore.EventSourcedWorkflowRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Reads the pages of work items with the index of the work items on (stage_id, position): a page
+ * is the range of the index following the rank of the last work item of the previous page. One more
+ * work item than asked for is read to know whether there is a next page.
+ *
+ * The ranks of the work items of a stage are distinct, so that a rank tells where a page starts.
+ */
+@Repository
+@Profile("!" + EventSourcedWorkflowRepository.PROFILE)
+public class JdbcWorkItemPageRepository implements WorkItemPageRepository {
+
+  /**
+   * The stages of a workflow by rank, read in this order from idx_stages_workflow_position.
+   */
+  public static final String STAGES_QUERY =
+    "SELECT id, name FROM stages WHERE workflow_id = ? ORDER BY position, id";
+
+  /**
+   * The work items of a stage ranked after a rank, by rank, as many as asked for: one range of
+   * idx_work_items_stage_position, read in its order.
+   */
+  public static final String PAGE_QUERY = "SELECT id, title, description, position FROM work_items "
+    + "WHERE stage_id = ? AND position > ? ORDER BY position LIMIT ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Inject
+  public JdbcWorkItemPageRepository(final JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Preconditions.checkNotNull(jdbcTemplate);
+  }
+
+  @Override
+  public Optional<WorkItemPage> findPage(final String workflowId, final String stageId,
+    final OptionalLong after, final int limit) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(stageId);
+    Preconditions.checkNotNull(after);
+
+    Integer stages = this.jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM stages WHERE id = ? AND workflow_id = ?", Integer.class,
+      stageId, workflowId);
+    if (stages == 0) {
+      return Optional.empty();
+    }
+    return Optional.of(this.page(stageId, after, limit));
+  }
+
+  @Override
+  public Optional<BoardOverview> findOverview(final String workflowId, final int limit) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<BoardOverview> workflows = this.jdbcTemplate.query(
+      "SELECT name, version FROM workflows WHERE id = ?",
+      (resultSet, row) -> new BoardOverview(workflowId, resultSet.getString(1),
+        resultSet.getLong(2), this.stages(workflowId, limit)),
+      workflowId);
+    return workflows.isEmpty() ? Optional.empty() : Optional.of(workflows.get(0));
+  }
+
+  @Override
+  public boolean exists(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM workflows WHERE id = ?",
+      Integer.class, workflowId) > 0;
+  }
+
+  private List<StageOverview> stages(final String workflowId, final int limit) {
+    return this.jdbcTemplate.query(STAGES_QUERY,
+      (resultSet, row) -> new StageOverview(resultSet.getString(1), resultSet.getString(2),
+        this.page(resultSet.getString(1), OptionalLong.empty(), limit)),
+      workflowId);
+  }
+
+  private WorkItemPage page(final String stageId, final OptionalLong after, final int limit) {
+    Preconditions.checkArgument(limit > 0);
+
+    // the ranks are positive: the first page starts after the lowest rank there may be
+    List<WorkItemPage.Entry> workItems = this.jdbcTemplate.query(PAGE_QUERY,
+      (resultSet, row) -> new WorkItemPage.Entry(resultSet.getString(1), resultSet.getString(2),
+        resultSet.getString(3), resultSet.getLong(4)),
+      stageId, after.orElse(Long.MIN_VALUE), limit + 1);
+
+    if (workItems.size() <= limit) {
+      return new WorkItemPage(workItems, OptionalLong.empty());
+    }
+    List<WorkItemPage.Entry> page = workItems.subList(0, limit);
+    return new WorkItemPage(page, OptionalLong.of(page.get(limit - 1).getRank()));
+  }
+
+}
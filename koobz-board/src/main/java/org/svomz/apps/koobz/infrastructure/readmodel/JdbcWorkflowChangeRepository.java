@@ -0,0 +1,92 @@
+package org.svomz.apps.koobz.infrastructure.readmodel;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowChangeRepository;
+import org.svomz.apps.koobz.infrastructure.eventstore.EventSourcedWorkflowRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Stores the changes of the workflows in the workflow_changes table, whose primary key
+ * (workflow_id, version, ordinal) gives the changes following a version of a workflow in order,
+ * and the ones to remove when it is compacted.
+ *
+ * Not selected by the {@value EventSourcedWorkflowRepository#PROFILE} profile, whose events
+ * already are the changes.
+ */
+@Repository
+@Profile("!" + EventSourcedWorkflowRepository.PROFILE)
+public class JdbcWorkflowChangeRepository implements WorkflowChangeRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Inject
+  public JdbcWorkflowChangeRepository(final JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Preconditions.checkNotNull(jdbcTemplate);
+  }
+
+  @Override
+  public void append(final String workflowId, final long version, final List<String> changes) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(changes);
+
+    this.jdbcTemplate.batchUpdate(
+      "INSERT INTO workflow_changes (workflow_id, version, ordinal, entry) VALUES (?, ?, ?, ?)",
+      new BatchPreparedStatementSetter() {
+        @Override
+        public void setValues(final PreparedStatement statement, final int ordinal)
+          throws SQLException {
+          statement.setString(1, workflowId);
+          statement.setLong(2, version);
+          statement.setInt(3, ordinal);
+          statement.setString(4, changes.get(ordinal));
+        }
+
+        @Override
+        public int getBatchSize() {
+          return changes.size();
+        }
+      });
+  }
+
+  @Override
+  public void compact(final String workflowId, final long upToVersion) {
+    Preconditions.checkNotNull(workflowId);
+
+    this.jdbcTemplate.update("DELETE FROM workflow_changes WHERE workflow_id = ? AND version <= ?",
+      workflowId, upToVersion);
+  }
+
+  @Override
+  public List<WorkflowChangeFeed.Entry> findSince(final String workflowId, final long version) {
+    Preconditions.checkNotNull(workflowId);
+
+    return this.jdbcTemplate.query(
+      "SELECT version, entry FROM workflow_changes WHERE workflow_id = ? AND version > ?"
+        + " ORDER BY version, ordinal",
+      (resultSet, row) -> new WorkflowChangeFeed.Entry(resultSet.getLong(1),
+        resultSet.getString(2)),
+      workflowId, version);
+  }
+
+  @Override
+  public OptionalLong findWorkflowVersion(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<Long> versions = this.jdbcTemplate.queryForList(
+      "SELECT version FROM workflows WHERE id = ?", Long.class, workflowId);
+    return versions.isEmpty() ? OptionalLong.empty() : OptionalLong.of(versions.get(0));
+  }
+
+}
@@ -0,0 +1,82 @@
+package org.svomz.apps.koobz.infrastructure.readmodel;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.svomz.apps.koobz.application.VersionedDocument;
+import org.svomz.apps.koobz.application.WorkflowDocumentRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+/**
+ * Stores the workflow documents in the workflow_views table. It goes through the JDBC connection of
+ * the current JPA transaction, so that a document is committed with the workflow it represents.
+ */
+@Repository
+public class JdbcWorkflowDocumentRepository implements WorkflowDocumentRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Inject
+  public JdbcWorkflowDocumentRepository(final JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Preconditions.checkNotNull(jdbcTemplate);
+  }
+
+  @Override
+  public Optional<VersionedDocument> findDocument(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<VersionedDocument> documents = this.jdbcTemplate.query(
+      "SELECT version, document FROM workflow_views WHERE workflow_id = ?",
+      (resultSet, row) -> new VersionedDocument(resultSet.getLong(1), resultSet.getString(2)),
+      workflowId);
+    return documents.isEmpty() ? Optional.empty() : Optional.of(documents.get(0));
+  }
+
+  @Override
+  public OptionalLong findVersion(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<Long> versions = this.jdbcTemplate.queryForList(
+      "SELECT version FROM workflow_views WHERE workflow_id = ?", Long.class, workflowId);
+    return versions.isEmpty() ? OptionalLong.empty() : OptionalLong.of(versions.get(0));
+  }
+
+  @Override
+  public Optional<String> findDocumentForUpdate(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    List<String> documents = this.jdbcTemplate.queryForList(
+      "SELECT document FROM workflow_views WHERE workflow_id = ? FOR UPDATE", String.class,
+      workflowId);
+    return documents.isEmpty() ? Optional.empty() : Optional.of(documents.get(0));
+  }
+
+  @Override
+  public void save(final String workflowId, final long version, final String document) {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(document);
+
+    int updated = this.jdbcTemplate.update(
+      "UPDATE workflow_views SET version = ?, document = ? WHERE workflow_id = ?",
+      version, document, workflowId);
+    if (updated == 0) {
+      this.jdbcTemplate.update(
+        "INSERT INTO workflow_views (workflow_id, version, document) VALUES (?, ?, ?)",
+        workflowId, version, document);
+    }
+  }
+
+  @Override
+  public void delete(final String workflowId) {
+    Preconditions.checkNotNull(workflowId);
+
+    this.jdbcTemplate.update("DELETE FROM workflow_views WHERE workflow_id = ?", workflowId);
+  }
+
+}
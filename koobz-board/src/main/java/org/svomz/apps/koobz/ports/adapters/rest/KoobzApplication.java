@@ -16,10 +16,17 @@ import org.svomz.apps.koobz.infrastructure.domain.KanbanRepositoryFactoryBean;
 @EnableAutoConfiguration
 @ComponentScan(basePackages = {
   "org.svomz.apps.koobz.application",
+  "org.svomz.apps.koobz.infrastructure.readmodel",
+  "org.svomz.apps.koobz.infrastructure.imports",
+  "org.svomz.apps.koobz.infrastructure.exports",
+  "org.svomz.apps.koobz.infrastructure.eventstore",
   "org.svomz.apps.koobz.ports.adapters.rest"
 })
 @EnableTransactionManagement
-@EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class, basePackages = "org.svomz.apps.koobz.domain.model")
+@EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class, basePackages = {
+  "org.svomz.apps.koobz.domain.model",
+  "org.svomz.apps.koobz.infrastructure.domain"
+})
 @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
 public class KoobzApplication {
 
@@ -1,15 +1,28 @@
 package org.svomz.apps.koobz.ports.adapters.rest;
 
 import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.media.sse.SseFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.ports.adapters.rest.exceptions.ConcurrentChangeMapper;
 import org.svomz.apps.koobz.ports.adapters.rest.exceptions.WorkflowNotFoundMapper;
 import org.svomz.apps.koobz.ports.adapters.rest.exceptions.EntityNotFoundMapper;
 import org.svomz.apps.koobz.ports.adapters.rest.exceptions.IllegalArgumentMapper;
+import org.svomz.apps.koobz.ports.adapters.rest.exceptions.OptimisticLockMapper;
+import org.svomz.apps.koobz.ports.adapters.rest.exceptions.RejectedCommandMapper;
 import org.svomz.apps.koobz.ports.adapters.rest.exceptions.StageNotEmptyMapper;
 import org.svomz.apps.koobz.ports.adapters.rest.exceptions.StageNotInProcessMapper;
 import org.svomz.apps.koobz.ports.adapters.rest.exceptions.WorkItemNotArchivedMapper;
 import org.svomz.apps.koobz.ports.adapters.rest.exceptions.WorkItemNotInProcessMapper;
+import org.svomz.apps.koobz.ports.adapters.rest.exceptions.WorkflowVersionMismatchMapper;
+import org.svomz.apps.koobz.ports.adapters.rest.filters.IfMatchFilter;
+import org.svomz.apps.koobz.ports.adapters.rest.metrics.RequestMetricsListener;
+import org.svomz.apps.koobz.ports.adapters.rest.resources.MetricsResource;
+import org.svomz.apps.koobz.ports.adapters.rest.resources.WorkflowChangeResource;
+import org.svomz.apps.koobz.ports.adapters.rest.resources.WorkflowCommandResource;
+import org.svomz.apps.koobz.ports.adapters.rest.resources.WorkflowEventResource;
+import org.svomz.apps.koobz.ports.adapters.rest.resources.WorkflowExportResource;
+import org.svomz.apps.koobz.ports.adapters.rest.resources.WorkflowImportResource;
 import org.svomz.apps.koobz.ports.adapters.rest.resources.WorkflowResource;
 import org.svomz.apps.koobz.ports.adapters.rest.resources.StageResource;
 import org.svomz.apps.koobz.ports.adapters.rest.resources.WorkItemResource;
@@ -24,7 +37,14 @@ public class KoobzResourceConfig extends ResourceConfig {
     this.register(WorkflowResource.class);
     this.register(StageResource.class);
     this.register(WorkItemResource.class);
+    this.register(WorkflowCommandResource.class);
+    this.register(WorkflowImportResource.class);
+    this.register(WorkflowExportResource.class);
+    this.register(WorkflowChangeResource.class);
+    this.register(WorkflowEventResource.class);
+    this.register(MetricsResource.class);
     this.register(JacksonFeature.class);
+    this.register(SseFeature.class);
     this.register(EntityNotFoundMapper.class);
     this.register(IllegalArgumentMapper.class);
     this.register(StageNotEmptyMapper.class);
@@ -32,6 +52,12 @@ public class KoobzResourceConfig extends ResourceConfig {
     this.register(WorkItemNotInProcessMapper.class);
     this.register(WorkflowNotFoundMapper.class);
     this.register(WorkItemNotArchivedMapper.class);
+    this.register(ConcurrentChangeMapper.class);
+    this.register(OptimisticLockMapper.class);
+    this.register(WorkflowVersionMismatchMapper.class);
+    this.register(RejectedCommandMapper.class);
+    this.register(IfMatchFilter.class);
+    this.register(RequestMetricsListener.class);
   }
 
 }
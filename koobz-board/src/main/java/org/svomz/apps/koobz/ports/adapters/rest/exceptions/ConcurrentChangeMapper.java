@@ -0,0 +1,23 @@
+package org.svomz.apps.koobz.ports.adapters.rest.exceptions;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.svomz.apps.koobz.ports.adapters.rest.models.ErrorModel;
+
+@Provider
+public class ConcurrentChangeMapper implements ExceptionMapper<OptimisticLockingFailureException> {
+
+  static final String MESSAGE = "The board kept being changed concurrently, try again";
+
+  @Override
+  public Response toResponse(OptimisticLockingFailureException exception) {
+    return Response.status(Status.CONFLICT).entity(new ErrorModel(MESSAGE))
+        .type(MediaType.APPLICATION_JSON).build();
+  }
+
+}
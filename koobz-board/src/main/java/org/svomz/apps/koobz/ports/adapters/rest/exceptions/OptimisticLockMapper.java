@@ -0,0 +1,25 @@
+package org.svomz.apps.koobz.ports.adapters.rest.exceptions;
+
+import javax.persistence.OptimisticLockException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.svomz.apps.koobz.ports.adapters.rest.models.ErrorModel;
+
+/**
+ * The optimistic lock failures of the persistence provider which are not translated by Spring, as
+ * the ones of a flush run outside of a repository, are concurrent changes as well.
+ */
+@Provider
+public class OptimisticLockMapper implements ExceptionMapper<OptimisticLockException> {
+
+  @Override
+  public Response toResponse(OptimisticLockException exception) {
+    return Response.status(Status.CONFLICT).entity(new ErrorModel(ConcurrentChangeMapper.MESSAGE))
+        .type(MediaType.APPLICATION_JSON).build();
+  }
+
+}
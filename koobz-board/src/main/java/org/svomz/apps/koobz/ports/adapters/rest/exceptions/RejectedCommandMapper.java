@@ -0,0 +1,24 @@
+package org.svomz.apps.koobz.ports.adapters.rest.exceptions;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.svomz.apps.koobz.ports.adapters.rest.models.ErrorModel;
+
+@Provider
+public class RejectedCommandMapper implements ExceptionMapper<RejectedExecutionException> {
+
+  private static final String MESSAGE = "Too many changes are waiting for this board, try again";
+
+  @Override
+  public Response toResponse(RejectedExecutionException exception) {
+    return Response.status(Status.SERVICE_UNAVAILABLE).entity(new ErrorModel(MESSAGE))
+        .type(MediaType.APPLICATION_JSON).build();
+  }
+
+}
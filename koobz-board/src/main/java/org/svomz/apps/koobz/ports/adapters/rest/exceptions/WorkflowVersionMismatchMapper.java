@@ -0,0 +1,22 @@
+package org.svomz.apps.koobz.ports.adapters.rest.exceptions;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.svomz.apps.koobz.application.WorkflowVersionMismatchException;
+import org.svomz.apps.koobz.ports.adapters.rest.models.ErrorModel;
+
+@Provider
+public class WorkflowVersionMismatchMapper
+  implements ExceptionMapper<WorkflowVersionMismatchException> {
+
+  @Override
+  public Response toResponse(WorkflowVersionMismatchException exception) {
+    return Response.status(Status.PRECONDITION_FAILED).entity(new ErrorModel(exception.getMessage()))
+        .type(MediaType.APPLICATION_JSON).build();
+  }
+
+}
@@ -0,0 +1,61 @@
+package org.svomz.apps.koobz.ports.adapters.rest.filters;
+
+import com.google.common.base.Preconditions;
+
+import org.svomz.apps.koobz.application.ExpectedWorkflowVersion;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Applies the If-Match header of the requests changing a board. The ETag given by the
+ * client is the version of the board it read: the change is rejected if the board is not at this
+ * version anymore.
+ *
+ * The version is handed over to the commands of the application through
+ * {@link ExpectedWorkflowVersion}, for the thread processing the request.
+ */
+@Provider
+public class IfMatchFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+  private static final String ANY = "*";
+
+  @Override
+  public void filter(final ContainerRequestContext requestContext) {
+    ExpectedWorkflowVersion.clear();
+
+    String ifMatch = requestContext.getHeaderString(HttpHeaders.IF_MATCH);
+    if (ifMatch == null || ANY.equals(ifMatch.trim()) || isSafe(requestContext.getMethod())) {
+      return;
+    }
+    ExpectedWorkflowVersion.set(versionOf(ifMatch));
+  }
+
+  @Override
+  public void filter(final ContainerRequestContext requestContext,
+    final ContainerResponseContext responseContext) {
+    ExpectedWorkflowVersion.clear();
+  }
+
+  private static boolean isSafe(final String method) {
+    return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)
+      || HttpMethod.OPTIONS.equals(method);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the header is not a single ETag of a board version.
+   */
+  private static long versionOf(final String ifMatch) {
+    EntityTag entityTag = EntityTag.valueOf(ifMatch.trim());
+    long version = Long.parseLong(entityTag.getValue());
+    Preconditions.checkArgument(version > 0, "%s is not a board version", ifMatch);
+    return version;
+  }
+
+}
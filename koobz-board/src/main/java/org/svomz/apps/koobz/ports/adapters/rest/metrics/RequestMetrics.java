@@ -0,0 +1,250 @@
+package org.svomz.apps.koobz.ports.adapters.rest.metrics;
+
+import com.google.common.base.Preconditions;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The metrics of the requests served by the REST API, by resource method: the
+ * requests in flight, the latencies, the errors by the exception mapper which answered them, and
+ * what the persistence did for them: the SQL statements, the entities loaded, the collections
+ * initialized and the flushes. They are written in the text format of Prometheus by
+ * {@link #scrape()}.
+ *
+ * The latencies and the statements are recorded without locking in the HdrHistogram histograms of
+ * each resource method, which add up since the start as the counts and the sums do. They are
+ * scraped as the cumulative buckets of Prometheus histograms, so that a scrape takes nothing away
+ * from the next ones: several Prometheus servers may scrape the same service, and the quantiles
+ * over any time window are computed from the buckets by the server.
+ */
+@Component
+public class RequestMetrics {
+
+  /**
+   * The mapper label of the errors which no exception mapper answered.
+   */
+  public static final String UNMAPPED = "unmapped";
+
+  /** The upper bounds of the buckets of the latencies, in seconds. */
+  private static final double[] LATENCY_BUCKETS =
+    {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+  /** The upper bounds of the buckets of the statements. */
+  private static final double[] STATEMENT_BUCKETS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500};
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  /**
+   * The number of requests a resource method serves before the statements it usually prepares are
+   * known.
+   */
+  private static final long USUAL_STATEMENTS_REQUESTS = 100;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final ConcurrentMap<String, ResourceMethodMetrics> resourceMethods =
+    new ConcurrentHashMap<>();
+
+  public void requestStarted() {
+    this.inFlight.incrementAndGet();
+  }
+
+  public void requestFinished() {
+    this.inFlight.decrementAndGet();
+  }
+
+  /**
+   * @return the metrics of the resource method answering the given HTTP method on the given path
+   * template, for instance /workflows/{workflowId}.
+   */
+  public ResourceMethodMetrics ofResourceMethod(final String httpMethod, final String path) {
+    Preconditions.checkNotNull(httpMethod);
+    Preconditions.checkNotNull(path);
+
+    return this.resourceMethods.computeIfAbsent(httpMethod + " " + path,
+      key -> new ResourceMethodMetrics(httpMethod, path));
+  }
+
+  /**
+   * @return the metrics in the text format of Prometheus, the resource methods sorted by path and
+   * HTTP method.
+   */
+  public String scrape() {
+    Map<String, ResourceMethodMetrics> sorted = new TreeMap<>();
+    this.resourceMethods.values().forEach(metrics ->
+      sorted.put(metrics.path + " " + metrics.httpMethod, metrics));
+
+    StringBuilder text = new StringBuilder();
+    header(text, "koobz_http_requests_in_flight", "gauge", "The requests being served.");
+    text.append("koobz_http_requests_in_flight ").append(this.inFlight.get()).append('\n');
+
+    header(text, "koobz_http_resource_requests_in_flight", "gauge",
+      "The requests being served by each resource method.");
+    sorted.values().forEach(metrics -> text.append("koobz_http_resource_requests_in_flight")
+      .append(metrics.labels).append('}').append(' ').append(metrics.inFlight.get()).append('\n'));
+
+    histogram(text, sorted, "koobz_http_request_duration_seconds",
+      "The latency of the requests of each resource method.", LATENCY_BUCKETS,
+      TimeUnit.SECONDS.toMicros(1), metrics -> metrics.latencies, metrics ->
+        String.valueOf(metrics.nanos.sum() / (double) TimeUnit.SECONDS.toNanos(1)));
+
+    header(text, "koobz_http_request_errors_total", "counter",
+      "The requests of each resource method which failed, by the exception mapper which answered "
+        + "them, " + UNMAPPED + " if none did.");
+    sorted.values().forEach(metrics -> new TreeMap<>(metrics.errors).forEach((mapper, errors) ->
+      text.append("koobz_http_request_errors_total").append(metrics.labels)
+        .append(",mapper=\"").append(escape(mapper)).append("\"} ").append(errors.sum())
+        .append('\n')));
+
+    histogram(text, sorted, "koobz_http_request_statements",
+      "The SQL statements prepared by the requests of each resource method.", STATEMENT_BUCKETS, 1,
+      metrics -> metrics.statements, metrics -> String.valueOf(metrics.statementCount.sum()));
+
+    counter(text, sorted, "koobz_http_request_entities_loaded_total",
+      "The entities loaded by the requests of each resource method.", metrics ->
+        String.valueOf(metrics.entitiesLoaded.sum()));
+    counter(text, sorted, "koobz_http_request_collections_initialized_total",
+      "The collections initialized by the requests of each resource method.", metrics ->
+        String.valueOf(metrics.collectionsInitialized.sum()));
+    counter(text, sorted, "koobz_http_request_flushes_total",
+      "The flushes of the persistence context run by the requests of each resource method.",
+      metrics -> String.valueOf(metrics.flushes.sum()));
+    counter(text, sorted, "koobz_http_request_flush_seconds_total",
+      "The time the requests of each resource method spent flushing the persistence context.",
+      metrics -> String.valueOf(metrics.flushNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1)));
+
+    return text.toString();
+  }
+
+  /**
+   * Writes a histogram of each resource method, whose values were recorded in the given number of
+   * units per unit of the buckets, for instance in microseconds for buckets in seconds.
+   */
+  private static void histogram(final StringBuilder text,
+    final Map<String, ResourceMethodMetrics> sorted, final String name, final String help,
+    final double[] buckets, final long recordedPerUnit,
+    final Function<ResourceMethodMetrics, Histogram> histogram,
+    final Function<ResourceMethodMetrics, String> sum) {
+    header(text, name, "histogram", help);
+    sorted.values().forEach(metrics -> {
+      // a copy, so that the buckets and the count are the ones of the same requests
+      Histogram snapshot = histogram.apply(metrics).copy();
+      for (double bucket : buckets) {
+        text.append(name).append("_bucket").append(metrics.labels).append(",le=\"")
+          .append(bucket == Math.rint(bucket) ? Long.toString((long) bucket)
+            : Double.toString(bucket))
+          .append("\"} ")
+          .append(snapshot.getCountBetweenValues(0, Math.round(bucket * recordedPerUnit)))
+          .append('\n');
+      }
+      text.append(name).append("_bucket").append(metrics.labels).append(",le=\"+Inf\"} ")
+        .append(snapshot.getTotalCount()).append('\n');
+      text.append(name).append("_sum").append(metrics.labels).append("} ")
+        .append(sum.apply(metrics)).append('\n');
+      text.append(name).append("_count").append(metrics.labels).append("} ")
+        .append(snapshot.getTotalCount()).append('\n');
+    });
+  }
+
+  private static void counter(final StringBuilder text,
+    final Map<String, ResourceMethodMetrics> sorted, final String name, final String help,
+    final Function<ResourceMethodMetrics, String> value) {
+    header(text, name, "counter", help);
+    sorted.values().forEach(metrics -> text.append(name).append(metrics.labels).append("} ")
+      .append(value.apply(metrics)).append('\n'));
+  }
+
+  private static void header(final StringBuilder text, final String name, final String type,
+    final String help) {
+    text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static String escape(final String labelValue) {
+    return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  /**
+   * The metrics of the requests of a resource method.
+   */
+  public static final class ResourceMethodMetrics {
+
+    private final String httpMethod;
+    private final String path;
+
+    /**
+     * The labels of the metrics, without the closing brace, so that others can be added.
+     */
+    private final String labels;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** In microseconds. */
+    private final Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final LongAdder nanos = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private final Histogram statements = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final LongAdder statementCount = new LongAdder();
+    private final LongAdder entitiesLoaded = new LongAdder();
+    private final LongAdder collectionsInitialized = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+
+    private ResourceMethodMetrics(final String httpMethod, final String path) {
+      this.httpMethod = httpMethod;
+      this.path = path;
+      this.labels = "{method=\"" + escape(httpMethod) + "\",path=\"" + escape(path) + "\"";
+    }
+
+    public void started() {
+      this.inFlight.incrementAndGet();
+    }
+
+    /**
+     * Records a request served in the given time, answered by the given exception mapper, if any.
+     */
+    public void finished(final long latencyNanos, final String exceptionMapper) {
+      this.inFlight.decrementAndGet();
+      this.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+      this.nanos.add(latencyNanos);
+      if (exceptionMapper != null) {
+        this.errors.computeIfAbsent(exceptionMapper, mapper -> new LongAdder()).increment();
+      }
+    }
+
+    /**
+     * Records what the persistence did for a request.
+     */
+    public void persisted(final PersistenceActivity activity) {
+      Preconditions.checkNotNull(activity);
+
+      this.statements.recordValue(activity.getStatements());
+      this.statementCount.add(activity.getStatements());
+      this.entitiesLoaded.add(activity.getEntitiesLoaded());
+      this.collectionsInitialized.add(activity.getCollectionsInitialized());
+      this.flushes.add(activity.getFlushes());
+      this.flushNanos.add(activity.getFlushNanos());
+    }
+
+    /**
+     * @return the number of statements the requests of the resource method usually prepare: the
+     * 99th percentile of the ones recorded since the start, -1 until enough requests were recorded
+     * to tell.
+     */
+    public long usualStatements() {
+      return this.statements.getTotalCount() < USUAL_STATEMENTS_REQUESTS ? -1
+        : this.statements.getValueAtPercentile(99);
+    }
+
+  }
+
+}
@@ -0,0 +1,201 @@
+package org.svomz.apps.koobz.ports.adapters.rest.metrics;
+
+import com.google.common.base.Preconditions;
+
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+import org.svomz.apps.koobz.ports.adapters.rest.metrics.RequestMetrics.ResourceMethodMetrics;
+import org.svomz.apps.koobz.ports.adapters.rest.resources.MetricsResource;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Records the {@link RequestMetrics} of each request from the events Jersey sends
+ * while serving it: the request is in flight from its start to the end of its response, and its
+ * resource method is known once it is matched. The requests which match no resource method are
+ * recorded under the unmatched path; the ones of the {@link MetricsResource} are not recorded.
+ *
+ * The {@link PersistenceActivity} of the request is started with it. What the persistence did
+ * is recorded with the other metrics, logged when the request prepared a lot more statements than
+ * the requests of its resource method usually do, which is how an N+1 select shows, and written in
+ * the {@value #PERSISTENCE_HEADER} header of the response when the debug header is enabled.
+ */
+@Component
+@Provider
+public class RequestMetricsListener implements ApplicationEventListener {
+
+  public static final String PERSISTENCE_HEADER = "X-Koobz-Persistence";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequestMetricsListener.class);
+
+  private static final String UNMATCHED = "unmatched";
+
+  private final RequestMetrics requestMetrics;
+  private final boolean persistenceHeader;
+  private final double unusualStatementsFactor;
+
+  /** The metrics of each resource method, so that its path is only built once. */
+  private final ConcurrentMap<ResourceMethod, ResourceMethodMetrics> resourceMethods =
+    new ConcurrentHashMap<>();
+
+  @Inject
+  public RequestMetricsListener(final RequestMetrics requestMetrics,
+    @Value("${koobz.persistence-activity.debug-header:false}") final boolean persistenceHeader,
+    @Value("${koobz.persistence-activity.unusual-statements-factor:2}")
+    final double unusualStatementsFactor) {
+    Preconditions.checkNotNull(requestMetrics);
+    Preconditions.checkArgument(unusualStatementsFactor >= 1);
+
+    this.requestMetrics = requestMetrics;
+    this.persistenceHeader = persistenceHeader;
+    this.unusualStatementsFactor = unusualStatementsFactor;
+  }
+
+  @Override
+  public void onEvent(final ApplicationEvent event) {
+  }
+
+  @Override
+  public RequestEventListener onRequest(final RequestEvent requestEvent) {
+    this.requestMetrics.requestStarted();
+    return new RequestMetricsRecorder(System.nanoTime(), PersistenceActivity.start());
+  }
+
+  private ResourceMethodMetrics metricsOf(final ResourceMethod resourceMethod) {
+    return this.resourceMethods.computeIfAbsent(resourceMethod, method ->
+      this.requestMetrics.ofResourceMethod(method.getHttpMethod(), pathOf(method)));
+  }
+
+  /**
+   * @return the path template of the resource method, from the root resource.
+   */
+  private static String pathOf(final ResourceMethod resourceMethod) {
+    Deque<String> segments = new ArrayDeque<>();
+    for (Resource resource = resourceMethod.getParent(); resource != null;
+      resource = resource.getParent()) {
+      if (resource.getPath() != null) {
+        segments.push(resource.getPath());
+      }
+    }
+
+    String path = ("/" + String.join("/", segments)).replaceAll("/+", "/");
+    return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+  }
+
+  private static String describe(final PersistenceActivity activity) {
+    return String.format("statements=%d; entities=%d; collections=%d; flushes=%d; flush-ms=%.3f",
+      activity.getStatements(), activity.getEntitiesLoaded(),
+      activity.getCollectionsInitialized(), activity.getFlushes(),
+      activity.getFlushNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  private static boolean isMetricsResource(final ResourceMethod resourceMethod) {
+    return ClassUtils.getUserClass(resourceMethod.getInvocable().getHandler().getHandlerClass())
+      == MetricsResource.class;
+  }
+
+  /**
+   * Records the metrics of a request. Jersey sends the events of a request one at a time.
+   */
+  private final class RequestMetricsRecorder implements RequestEventListener {
+
+    private final long start;
+    private final PersistenceActivity persistenceActivity;
+    private boolean recorded = true;
+    private ResourceMethodMetrics resourceMethodMetrics;
+    private String exceptionMapper;
+
+    private RequestMetricsRecorder(final long start,
+      final PersistenceActivity persistenceActivity) {
+      this.start = start;
+      this.persistenceActivity = persistenceActivity;
+    }
+
+    @Override
+    public void onEvent(final RequestEvent event) {
+      switch (event.getType()) {
+        case REQUEST_MATCHED:
+          ResourceMethod resourceMethod = event.getUriInfo().getMatchedResourceMethod();
+          if (resourceMethod == null) {
+            break;
+          }
+          if (isMetricsResource(resourceMethod)) {
+            this.recorded = false;
+            break;
+          }
+          this.resourceMethodMetrics = RequestMetricsListener.this.metricsOf(resourceMethod);
+          this.resourceMethodMetrics.started();
+          break;
+
+        case ON_EXCEPTION:
+          // replaced by the mapper of the exception, if one is found
+          if (this.exceptionMapper == null) {
+            this.exceptionMapper = RequestMetrics.UNMAPPED;
+          }
+          break;
+
+        case EXCEPTION_MAPPER_FOUND:
+          this.exceptionMapper =
+            ClassUtils.getUserClass(event.getExceptionMapper().getClass()).getSimpleName();
+          break;
+
+        case RESP_FILTERS_START:
+          if (RequestMetricsListener.this.persistenceHeader) {
+            event.getContainerResponse().getHeaders()
+              .putSingle(PERSISTENCE_HEADER, describe(this.persistenceActivity));
+          }
+          break;
+
+        case FINISHED:
+          RequestMetricsListener.this.requestMetrics.requestFinished();
+          // an asynchronous response finishes on another thread than the one it started on
+          if (PersistenceActivity.current() == this.persistenceActivity) {
+            PersistenceActivity.clear();
+          }
+          if (!this.recorded) {
+            break;
+          }
+          if (this.resourceMethodMetrics == null) {
+            this.resourceMethodMetrics = RequestMetricsListener.this.requestMetrics
+              .ofResourceMethod(event.getContainerRequest().getMethod(), UNMATCHED);
+            this.resourceMethodMetrics.started();
+          }
+          this.resourceMethodMetrics.finished(System.nanoTime() - this.start,
+            this.exceptionMapper);
+          // compared to the previous requests only, before being recorded with them
+          long usualStatements = this.resourceMethodMetrics.usualStatements();
+          this.resourceMethodMetrics.persisted(this.persistenceActivity);
+          if (usualStatements >= 0 && this.persistenceActivity.getStatements()
+            > Math.max(usualStatements, 1) * RequestMetricsListener.this.unusualStatementsFactor) {
+            LOGGER.warn("{} {} prepared more SQL statements than the usual {} of its requests: {}",
+              event.getContainerRequest().getMethod(),
+              event.getContainerRequest().getRequestUri().getRawPath(),
+              usualStatements, describe(this.persistenceActivity));
+          }
+          break;
+
+        default:
+          break;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,38 @@
+package org.svomz.apps.koobz.ports.adapters.rest.models;
+
+
+import org.svomz.apps.koobz.domain.model.ArchivedWorkItem;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+public class ArchivedWorkItemViewModel {
+
+  private final ArchivedWorkItem archivedWorkItem;
+
+  public ArchivedWorkItemViewModel(final ArchivedWorkItem archivedWorkItem) {
+    Preconditions.checkNotNull(archivedWorkItem);
+
+    this.archivedWorkItem = archivedWorkItem;
+  }
+
+  @JsonProperty("id")
+  public String getId() {
+    return this.archivedWorkItem.getId();
+  }
+
+  @JsonProperty("title")
+  public String getTitle() {
+    return this.archivedWorkItem.getTitle();
+  }
+
+  @JsonProperty("description")
+  public String getDescription() {
+    return this.archivedWorkItem.getDescription();
+  }
+
+  @JsonProperty("stageId")
+  public String getStageId() {
+    return this.archivedWorkItem.getStageId();
+  }
+}
@@ -0,0 +1,79 @@
+package org.svomz.apps.koobz.ports.adapters.rest.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.google.common.base.Preconditions;
+
+import org.svomz.apps.koobz.application.BoardOverview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a board whose stages only have the first page of their work items: each stage is
+ * given with the rank its next page starts after, as a {@link WorkItemPageViewModel}.
+ */
+public class BoardOverviewViewModel {
+
+  private final BoardOverview board;
+
+  public BoardOverviewViewModel(final BoardOverview board) {
+    Preconditions.checkNotNull(board);
+
+    this.board = board;
+  }
+
+  @JsonProperty("id")
+  public String getId() {
+    return this.board.getId();
+  }
+
+  @JsonProperty("name")
+  public String getName() {
+    return this.board.getName();
+  }
+
+  @JsonProperty("stages")
+  public List<StageOverviewViewModel> getStages() {
+    List<BoardOverview.StageOverview> stages = this.board.getStages();
+    List<StageOverviewViewModel> viewModels = new ArrayList<>(stages.size());
+    for (int order = 0; order < stages.size(); order++) {
+      viewModels.add(new StageOverviewViewModel(stages.get(order), order));
+    }
+    return viewModels;
+  }
+
+  public static class StageOverviewViewModel {
+
+    private final BoardOverview.StageOverview stage;
+    private final int order;
+
+    public StageOverviewViewModel(final BoardOverview.StageOverview stage, final int order) {
+      Preconditions.checkNotNull(stage);
+
+      this.stage = stage;
+      this.order = order;
+    }
+
+    @JsonProperty("id")
+    public String getId() {
+      return this.stage.getId();
+    }
+
+    @JsonProperty("name")
+    public String getName() {
+      return this.stage.getName();
+    }
+
+    @JsonProperty("order")
+    public int getOrder() {
+      return this.order;
+    }
+
+    @JsonUnwrapped
+    public WorkItemPageViewModel getFirstPage() {
+      return new WorkItemPageViewModel(this.stage.getFirstPage());
+    }
+  }
+
+}
@@ -3,11 +3,11 @@ package org.svomz.apps.koobz.ports.adapters.rest.models;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonView;
+import com.google.common.collect.Collections2;
 
 import org.svomz.apps.koobz.domain.model.Stage;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 
 /**
  * Created by eric on 12/12/15.
@@ -37,13 +37,7 @@ public class StageViewModel {
 
   @JsonProperty("workItems")
   @JsonView(WorkflowViewModel.FullView.class)
-  public List<WorkItemViewModel> getWorkItems() {
-    List<WorkItemViewModel> models = new ArrayList<>();
-
-    this.stage.getWorkItems().forEach(workItem -> {
-      models.add(new WorkItemViewModel(workItem));
-    });
-
-    return models;
+  public Collection<WorkItemViewModel> getWorkItems() {
+    return Collections2.transform(this.stage.getWorkItems(), WorkItemViewModel::new);
   }
 }
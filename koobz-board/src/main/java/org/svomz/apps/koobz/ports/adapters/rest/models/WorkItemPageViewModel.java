@@ -0,0 +1,66 @@
+package org.svomz.apps.koobz.ports.adapters.rest.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import org.svomz.apps.koobz.application.WorkItemPage;
+
+import java.util.List;
+
+/**
+ * Represents a page of the work items of a stage. The next page is asked for with the rank given
+ * as next, which is null on the last page.
+ */
+public class WorkItemPageViewModel {
+
+  private final WorkItemPage page;
+
+  public WorkItemPageViewModel(final WorkItemPage page) {
+    Preconditions.checkNotNull(page);
+
+    this.page = page;
+  }
+
+  @JsonProperty("workItems")
+  public List<EntryViewModel> getWorkItems() {
+    return Lists.transform(this.page.getWorkItems(), EntryViewModel::new);
+  }
+
+  @JsonProperty("next")
+  public Long getNext() {
+    return this.page.getNext().isPresent() ? this.page.getNext().getAsLong() : null;
+  }
+
+  public static class EntryViewModel {
+
+    private final WorkItemPage.Entry entry;
+
+    public EntryViewModel(final WorkItemPage.Entry entry) {
+      Preconditions.checkNotNull(entry);
+
+      this.entry = entry;
+    }
+
+    @JsonProperty("id")
+    public String getId() {
+      return this.entry.getId();
+    }
+
+    @JsonProperty("title")
+    public String getTitle() {
+      return this.entry.getTitle();
+    }
+
+    @JsonProperty("description")
+    public String getDescription() {
+      return this.entry.getDescription();
+    }
+
+    @JsonProperty("rank")
+    public long getRank() {
+      return this.entry.getRank();
+    }
+  }
+
+}
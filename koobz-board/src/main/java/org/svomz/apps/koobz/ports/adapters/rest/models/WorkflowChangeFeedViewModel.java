@@ -0,0 +1,45 @@
+package org.svomz.apps.koobz.ports.adapters.rest.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.google.common.base.Preconditions;
+
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+
+/**
+ * Represents the changes made to a workflow since a version: {"version": ..., "changes": [...]},
+ * the changes being written as stored. When they are not all known anymore, it is
+ * {"resync": true, "version": ...} instead.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"resync", "version", "changes"})
+public class WorkflowChangeFeedViewModel {
+
+  private final WorkflowChangeFeed feed;
+
+  public WorkflowChangeFeedViewModel(final WorkflowChangeFeed feed) {
+    Preconditions.checkNotNull(feed);
+
+    this.feed = feed;
+  }
+
+  @JsonProperty("resync")
+  public Boolean getResync() {
+    return this.feed.isResyncRequired() ? Boolean.TRUE : null;
+  }
+
+  @JsonProperty("version")
+  public long getVersion() {
+    return this.feed.getVersion();
+  }
+
+  @JsonProperty("changes")
+  @JsonRawValue
+  public String getChanges() {
+    return this.feed.isResyncRequired()
+      ? null : "[" + String.join(",", this.feed.getChanges()) + "]";
+  }
+
+}
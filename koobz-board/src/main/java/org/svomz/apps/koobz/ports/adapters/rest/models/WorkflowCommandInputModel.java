@@ -0,0 +1,97 @@
+package org.svomz.apps.koobz.ports.adapters.rest.models;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One operation of a batch sent to /workflows/{workflowId}/commands. The type of the
+ * operation tells which of the other properties it needs: they are named as in the input models of
+ * the matching single requests.
+ */
+public class WorkflowCommandInputModel {
+
+  @NotNull
+  private final String type;
+
+  private final String stageId;
+
+  private final String workItemId;
+
+  @Size(min = 1, max = 255)
+  private final String name;
+
+  @Size(min = 1, max = 255)
+  private final String title;
+
+  @Size(max = 2048)
+  private final String description;
+
+  private final String to;
+
+  @Min(0)
+  private final Integer newPosition;
+
+  @JsonCreator
+  public WorkflowCommandInputModel(@JsonProperty("type") final String type,
+    @Nullable @JsonProperty("stageId") final String stageId,
+    @Nullable @JsonProperty("workItemId") final String workItemId,
+    @Nullable @JsonProperty("name") final String name,
+    @Nullable @JsonProperty("title") final String title,
+    @Nullable @JsonProperty("description") final String description,
+    @Nullable @JsonProperty("to") final String to,
+    @Nullable @JsonProperty("newPosition") final Integer newPosition) {
+    this.type = type;
+    this.stageId = stageId;
+    this.workItemId = workItemId;
+    this.name = name;
+    this.title = title;
+    this.description = description;
+    this.to = to;
+    this.newPosition = newPosition;
+  }
+
+  public String getType() {
+    return this.type;
+  }
+
+  @Nullable
+  public String getStageId() {
+    return this.stageId;
+  }
+
+  @Nullable
+  public String getWorkItemId() {
+    return this.workItemId;
+  }
+
+  @Nullable
+  public String getName() {
+    return this.name;
+  }
+
+  @Nullable
+  public String getTitle() {
+    return this.title;
+  }
+
+  @Nullable
+  public String getDescription() {
+    return this.description;
+  }
+
+  @Nullable
+  public String getTo() {
+    return this.to;
+  }
+
+  @Nullable
+  public Integer getNewPosition() {
+    return this.newPosition;
+  }
+
+}
@@ -0,0 +1,45 @@
+package org.svomz.apps.koobz.ports.adapters.rest.models;
+
+import javax.annotation.Nullable;
+
+import org.svomz.apps.koobz.application.WorkflowCommandResult;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WorkflowCommandResultViewModel {
+
+  private static final String APPLIED = "applied";
+  private static final String REJECTED = "rejected";
+
+  private final WorkflowCommandResult result;
+
+  public WorkflowCommandResultViewModel(final WorkflowCommandResult result) {
+    Preconditions.checkNotNull(result);
+
+    this.result = result;
+  }
+
+  @JsonProperty("status")
+  public String getStatus() {
+    return this.result.isApplied() ? APPLIED : REJECTED;
+  }
+
+  /**
+   * @return the id of the stage or work item added by the operation.
+   */
+  @Nullable
+  @JsonProperty("id")
+  public String getId() {
+    return this.result.getCreatedId().orElse(null);
+  }
+
+  @Nullable
+  @JsonProperty("error")
+  public String getError() {
+    return this.result.getRejection().orElse(null);
+  }
+
+}
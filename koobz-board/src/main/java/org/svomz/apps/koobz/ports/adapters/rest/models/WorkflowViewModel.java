@@ -1,13 +1,13 @@
 package org.svomz.apps.koobz.ports.adapters.rest.models;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 
 import org.svomz.apps.koobz.domain.model.Workflow;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Collections2;
 
 /**
  * Represents how a {@link Workflow} should be JSONified.
@@ -36,14 +36,8 @@ public class WorkflowViewModel {
   
   @JsonProperty("stages")
   @JsonView(FullView.class)
-  public List<StageViewModel> getStages() {
-    ArrayList<StageViewModel> models = new ArrayList<>();
-
-    this.workflow.stages().forEach(stage -> {
-      models.add(new StageViewModel(stage));
-    });
-
-    return models;
+  public Collection<StageViewModel> getStages() {
+    return Collections2.transform(this.workflow.stages(), StageViewModel::new);
   }
   
   /**
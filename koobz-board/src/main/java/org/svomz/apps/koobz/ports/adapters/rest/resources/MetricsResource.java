@@ -0,0 +1,65 @@
+package org.svomz.apps.koobz.ports.adapters.rest.resources;
+
+import com.google.common.base.Preconditions;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.ports.adapters.rest.metrics.RequestMetrics;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Exposes the {@link RequestMetrics} in the text format of Prometheus. They are only
+ * served to the clients of the same host, such as a local Prometheus agent, unless
+ * koobz.metrics.local-only is false: the other ones get a 404.
+ */
+@Component
+@Path("/metrics")
+public class MetricsResource {
+
+  public static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final RequestMetrics requestMetrics;
+  private final boolean localOnly;
+
+  @Inject
+  public MetricsResource(final RequestMetrics requestMetrics,
+    @Value("${koobz.metrics.local-only:true}") final boolean localOnly) {
+    Preconditions.checkNotNull(requestMetrics);
+
+    this.requestMetrics = requestMetrics;
+    this.localOnly = localOnly;
+  }
+
+  @GET
+  @Produces(PROMETHEUS_TEXT)
+  public Response getMetrics(@Context final HttpServletRequest request) {
+    if (this.localOnly && !isLoopback(request.getRemoteAddr())) {
+      return Response.status(Status.NOT_FOUND).build();
+    }
+
+    return Response.status(Status.OK)
+      .entity(this.requestMetrics.scrape())
+      .build();
+  }
+
+  private static boolean isLoopback(final String address) {
+    try {
+      // the remote address is an IP address: it is not looked up
+      return InetAddress.getByName(address).isLoopbackAddress();
+    } catch (UnknownHostException e) {
+      return false;
+    }
+  }
+
+}
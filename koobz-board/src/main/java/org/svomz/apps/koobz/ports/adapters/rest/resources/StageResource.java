@@ -5,36 +5,52 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
 
 import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.application.WorkItemPage;
 import org.svomz.apps.koobz.application.WorkflowApplicationService;
 import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
 import org.svomz.apps.koobz.ports.adapters.rest.models.StageInputModel;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkItemPageViewModel;
 import org.svomz.apps.koobz.domain.model.Stage;
 import org.svomz.apps.koobz.domain.model.StageNotEmptyException;
 import org.svomz.apps.koobz.domain.model.StageNotInProcessException;
 
 import com.google.common.base.Preconditions;
 
+import java.util.OptionalLong;
+
 @Component
 @Path("/workflows/{workflowId}/stages")
 public class StageResource {
 
   private final WorkflowApplicationService workflowApplicationService;
+
+  private final WorkflowQueryService workflowQueryService;
   
   @Inject
-  public StageResource(final WorkflowApplicationService workflowApplicationService) {
+  public StageResource(final WorkflowApplicationService workflowApplicationService,
+    final WorkflowQueryService workflowQueryService) {
     Preconditions.checkNotNull(workflowApplicationService);
+    Preconditions.checkNotNull(workflowQueryService);
 
     this.workflowApplicationService = workflowApplicationService;
+    this.workflowQueryService = workflowQueryService;
   }
 
   @POST
@@ -52,6 +68,34 @@ public class StageResource {
     return Response.status(Status.CREATED).entity(stage).build();
   }
 
+  /**
+   * Lists the work items of the stage a page at a time, by rank: the next page is asked for with
+   * the rank given as next in the page, and linked from the page.
+   */
+  @GET
+  @Path("{stageId}/workitems")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getWorkItems(@NotNull @PathParam("workflowId") final String workflowId,
+      @NotNull @PathParam("stageId") final String stageId,
+      @QueryParam("after") final Long after,
+      @DefaultValue("50") @QueryParam("limit") final int limit,
+      @Context final UriInfo uriInfo)
+    throws StageNotInProcessException, WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(stageId);
+
+    WorkItemPage page = this.workflowQueryService.findWorkItemPage(workflowId, stageId,
+      after == null ? OptionalLong.empty() : OptionalLong.of(after), limit);
+
+    ResponseBuilder response = Response.status(Status.OK).entity(new WorkItemPageViewModel(page));
+    if (page.getNext().isPresent()) {
+      response.link(uriInfo.getRequestUriBuilder()
+        .replaceQueryParam("after", page.getNext().getAsLong())
+        .build(), "next");
+    }
+    return response.build();
+  }
+
   @PUT
   @Path("{stageId}")
   @Consumes(MediaType.APPLICATION_JSON)
@@ -1,10 +1,14 @@
 package org.svomz.apps.koobz.ports.adapters.rest.resources;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -17,7 +21,9 @@ import javax.ws.rs.core.Response.Status;
 import org.springframework.stereotype.Component;
 import org.svomz.apps.koobz.application.WorkflowApplicationService;
 import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
 import org.svomz.apps.koobz.domain.model.WorkItemNotArchivedException;
+import org.svomz.apps.koobz.ports.adapters.rest.models.ArchivedWorkItemViewModel;
 import org.svomz.apps.koobz.ports.adapters.rest.models.WorkItemArchivingInputModel;
 import org.svomz.apps.koobz.ports.adapters.rest.models.WorkItemInputModel;
 import org.svomz.apps.koobz.ports.adapters.rest.models.WorkItemMoveInputModel;
@@ -36,10 +42,14 @@ public class WorkItemResource {
 
   private final WorkflowApplicationService workflowApplicationService;
 
+  private final WorkflowQueryService workflowQueryService;
+
   @Inject
   public WorkItemResource(
-    final WorkflowApplicationService workflowApplicationService) {
+    final WorkflowApplicationService workflowApplicationService,
+    final WorkflowQueryService workflowQueryService) {
     this.workflowApplicationService = workflowApplicationService;
+    this.workflowQueryService = workflowQueryService;
   }
 
   @POST
@@ -117,12 +127,30 @@ public class WorkItemResource {
       .build();
   }
 
+  @GET
+  @Path("archived")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response archived(@PathParam("workflowId") final String workflowId)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+
+    List<ArchivedWorkItemViewModel> models = new ArrayList<>();
+    this.workflowQueryService.findArchivedWorkItems(workflowId).forEach(archivedWorkItem -> {
+      models.add(new ArchivedWorkItemViewModel(archivedWorkItem));
+    });
+
+    return Response.status(Status.OK)
+      .entity(models)
+      .build();
+  }
+
   @POST
   @Path("{id}/archiving")
   @Consumes(MediaType.APPLICATION_JSON)
   public Response archiving(@PathParam("workflowId") final String workflowId, @PathParam("id") final String workItemId,
     @NotNull @Valid final WorkItemArchivingInputModel input)
-    throws WorkItemNotInProcessException, WorkflowNotFoundException, WorkItemNotArchivedException {
+    throws WorkItemNotInProcessException, WorkflowNotFoundException, WorkItemNotArchivedException,
+           StageNotInProcessException {
 
     if (input.isArchived()) {
       this.workflowApplicationService.archiveWorkItem(workflowId, workItemId);
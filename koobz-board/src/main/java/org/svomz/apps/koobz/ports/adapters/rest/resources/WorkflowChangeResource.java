@@ -0,0 +1,57 @@
+package org.svomz.apps.koobz.ports.adapters.rest.resources;
+
+import javax.inject.Inject;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowChangeFeedViewModel;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Gives the changes made to a board since the version a reader has, its ETag, so that
+ * it applies them to its copy of the board instead of reading the board again:
+ * {"version": ..., "changes": [{"version": ..., "type": ..., ...}, ...]}.
+ *
+ * When some of these changes are not kept anymore, the response is a 410 Gone
+ * {"resync": true, "version": ...}: the reader has to read the whole board again.
+ */
+@Component
+@Path("/workflows/{workflowId}/changes")
+public class WorkflowChangeResource {
+
+  private final WorkflowQueryService workflowQueryService;
+
+  @Inject
+  public WorkflowChangeResource(final WorkflowQueryService workflowQueryService) {
+    Preconditions.checkNotNull(workflowQueryService);
+
+    this.workflowQueryService = workflowQueryService;
+  }
+
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getChanges(@NotNull @PathParam("workflowId") final String workflowId,
+    @QueryParam("since") final Long since) throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkArgument(since != null && since >= 0,
+      "The version the changes are asked since must be given");
+
+    WorkflowChangeFeed feed = this.workflowQueryService.findChangesSince(workflowId, since);
+    return Response.status(feed.isResyncRequired() ? Status.GONE : Status.OK)
+      .entity(new WorkflowChangeFeedViewModel(feed))
+      .build();
+  }
+
+}
@@ -0,0 +1,116 @@
+package org.svomz.apps.koobz.ports.adapters.rest.resources;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowCommand;
+import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowCommandInputModel;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowCommandResultViewModel;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Applies a batch of operations to a board in a single request and a single
+ * transaction. The operations are applied in order, and the response gives the result of each of
+ * them in the same order.
+ */
+@Component
+@Path("/workflows/{workflowId}/commands")
+public class WorkflowCommandResource {
+
+  private static final int MAX_OPERATIONS = 1000;
+
+  private final WorkflowApplicationService workflowApplicationService;
+
+  @Inject
+  public WorkflowCommandResource(final WorkflowApplicationService workflowApplicationService) {
+    Preconditions.checkNotNull(workflowApplicationService);
+
+    this.workflowApplicationService = workflowApplicationService;
+  }
+
+  @POST
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response apply(@NotNull @PathParam("workflowId") final String workflowId,
+    @NotNull @Size(max = MAX_OPERATIONS) @Valid final List<WorkflowCommandInputModel> operations)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(operations);
+
+    List<WorkflowCommand> commands = operations.stream()
+      .map(WorkflowCommandResource::commandOf)
+      .collect(Collectors.toList());
+    List<WorkflowCommandResultViewModel> results = this.workflowApplicationService
+      .applyCommands(workflowId, commands).stream()
+      .map(WorkflowCommandResultViewModel::new)
+      .collect(Collectors.toList());
+
+    return Response.status(Status.OK).entity(results).build();
+  }
+
+  /**
+   * @throws IllegalArgumentException if the type of the operation is unknown or if a property it
+   * needs is missing.
+   */
+  private static WorkflowCommand commandOf(final WorkflowCommandInputModel operation) {
+    switch (operation.getType()) {
+      case "renameWorkflow":
+        return WorkflowCommand.renameWorkflow(required(operation.getName(), "name"));
+      case "addStage":
+        return WorkflowCommand.addStage(required(operation.getName(), "name"));
+      case "renameStage":
+        return WorkflowCommand.renameStage(required(operation.getStageId(), "stageId"),
+          required(operation.getName(), "name"));
+      case "removeStage":
+        return WorkflowCommand.removeStage(required(operation.getStageId(), "stageId"));
+      case "addWorkItem":
+        return WorkflowCommand.addWorkItem(required(operation.getStageId(), "stageId"),
+          required(operation.getTitle(), "title"), descriptionOf(operation));
+      case "changeWorkItem":
+        return WorkflowCommand.changeWorkItem(required(operation.getWorkItemId(), "workItemId"),
+          required(operation.getTitle(), "title"), descriptionOf(operation));
+      case "removeWorkItem":
+        return WorkflowCommand.removeWorkItem(required(operation.getWorkItemId(), "workItemId"));
+      case "moveWorkItem":
+        return WorkflowCommand.moveWorkItem(required(operation.getWorkItemId(), "workItemId"),
+          required(operation.getTo(), "to"));
+      case "changeWorkItemPriority":
+        return WorkflowCommand.changeWorkItemPriority(
+          required(operation.getWorkItemId(), "workItemId"),
+          required(operation.getNewPosition(), "newPosition"));
+      case "archiveWorkItem":
+        return WorkflowCommand.archiveWorkItem(required(operation.getWorkItemId(), "workItemId"));
+      case "sendBackWorkItem":
+        return WorkflowCommand.sendBackWorkItem(required(operation.getWorkItemId(), "workItemId"));
+      default:
+        throw new IllegalArgumentException("Unknown operation " + operation.getType());
+    }
+  }
+
+  private static <T> T required(final T value, final String property) {
+    Preconditions.checkArgument(value != null, "The operation needs a %s", property);
+    return value;
+  }
+
+  private static String descriptionOf(final WorkflowCommandInputModel operation) {
+    return operation.getDescription() == null ? "" : operation.getDescription();
+  }
+
+}
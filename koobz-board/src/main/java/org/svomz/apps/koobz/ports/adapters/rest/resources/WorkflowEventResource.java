@@ -0,0 +1,106 @@
+package org.svomz.apps.koobz.ports.adapters.rest.resources;
+
+import java.io.IOException;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.glassfish.jersey.media.sse.SseFeature;
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowEventSink;
+import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowChangeFeedViewModel;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Pushes the changes of a board as server-sent events, instead of having its readers
+ * poll it. Each committed version is a "changes" event whose id is the version and whose data is
+ * the same as the one of {@link WorkflowChangeResource}. A "resync" event tells that the board has
+ * to be read again.
+ *
+ * The reader gives the version it has, its ETag, as since: the changes made after it are sent
+ * first. When the connection is lost, or dropped because the reader is too slow, the reader
+ * reconnects with the id of the last event it received as Last-Event-ID and gets what it missed.
+ */
+@Component
+@Path("/workflows/{workflowId}/events")
+public class WorkflowEventResource {
+
+  private final WorkflowQueryService workflowQueryService;
+
+  @Inject
+  public WorkflowEventResource(final WorkflowQueryService workflowQueryService) {
+    Preconditions.checkNotNull(workflowQueryService);
+
+    this.workflowQueryService = workflowQueryService;
+  }
+
+  @GET
+  @Produces(SseFeature.SERVER_SENT_EVENTS)
+  public EventOutput getEvents(@NotNull @PathParam("workflowId") final String workflowId,
+    @QueryParam("since") final Long since,
+    @HeaderParam(SseFeature.LAST_EVENT_ID_HEADER) final String lastEventId)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+
+    OptionalLong version = OptionalLong.empty();
+    if (lastEventId != null) {
+      version = OptionalLong.of(Long.parseLong(lastEventId.trim()));
+    } else if (since != null) {
+      version = OptionalLong.of(since);
+    }
+    Preconditions.checkArgument(!version.isPresent() || version.getAsLong() >= 0,
+      "The version the events are asked since must be positive");
+
+    EventOutput output = new EventOutput();
+    this.workflowQueryService.subscribeToChanges(workflowId, version, new EventOutputSink(output));
+    return output;
+  }
+
+  private static final class EventOutputSink implements WorkflowEventSink {
+
+    private final EventOutput output;
+
+    private EventOutputSink(final EventOutput output) {
+      this.output = output;
+    }
+
+    @Override
+    public void send(final WorkflowChangeFeed feed) throws IOException {
+      this.output.write(new OutboundEvent.Builder()
+        .id(Long.toString(feed.getVersion()))
+        .name(feed.isResyncRequired() ? "resync" : "changes")
+        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+        .data(WorkflowChangeFeedViewModel.class, new WorkflowChangeFeedViewModel(feed))
+        .build());
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+      this.output.write(new OutboundEvent.Builder().comment("").build());
+    }
+
+    @Override
+    public void close() {
+      try {
+        this.output.close();
+      } catch (IOException e) {
+        // the connection is gone already
+      }
+    }
+  }
+
+}
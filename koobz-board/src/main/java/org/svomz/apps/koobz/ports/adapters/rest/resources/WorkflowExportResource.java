@@ -0,0 +1,65 @@
+package org.svomz.apps.koobz.ports.adapters.rest.resources;
+
+import javax.inject.Inject;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.application.WorkflowExportService;
+import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Exports a whole board, archived work items included. The export is written to the
+ * response while it is read from the database, so that exporting a large board does not need more
+ * memory than exporting a small one.
+ */
+@Component
+@Path("/workflows/{workflowId}/export")
+public class WorkflowExportResource {
+
+  private final WorkflowExportService workflowExportService;
+
+  private final WorkflowQueryService workflowQueryService;
+
+  @Inject
+  public WorkflowExportResource(final WorkflowExportService workflowExportService,
+    final WorkflowQueryService workflowQueryService) {
+    Preconditions.checkNotNull(workflowExportService);
+    Preconditions.checkNotNull(workflowQueryService);
+
+    this.workflowExportService = workflowExportService;
+    this.workflowQueryService = workflowQueryService;
+  }
+
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response export(@NotNull @PathParam("workflowId") final String workflowId)
+    throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+
+    // the status is sent with the first bytes of the export: a missing board is told beforehand
+    this.workflowQueryService.findBoardVersion(workflowId);
+
+    StreamingOutput export = output -> {
+      try {
+        this.workflowExportService.export(workflowId, output);
+      } catch (WorkflowNotFoundException e) {
+        // removed meanwhile, nothing has been written yet
+        throw new NotFoundException(e.getMessage(), e);
+      }
+    };
+    return Response.status(Status.OK).entity(export).build();
+  }
+
+}
@@ -0,0 +1,152 @@
+package org.svomz.apps.koobz.ports.adapters.rest.resources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.application.ExpectedWorkflowVersion;
+import org.svomz.apps.koobz.application.WorkflowImportListener;
+import org.svomz.apps.koobz.application.WorkflowImportProgress;
+import org.svomz.apps.koobz.application.WorkflowImportService;
+import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.application.WorkflowVersionMismatchException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.base.Preconditions;
+
+/**
+ * Imports stages and work items into a board from a JSON array or from newline
+ * delimited JSON, one record per line. The records are imported while they are uploaded, and the
+ * response reports the import as it goes, as newline delimited JSON:
+ * {"line": ..., "error": ...} for each rejected record and
+ * {"imported": ..., "rejected": ..., "version": ...} each time a batch of records is committed.
+ * A failure stopping the import is reported by a last {"error": ...} line.
+ */
+@Component
+@Path("/workflows/{workflowId}/import")
+public class WorkflowImportResource {
+
+  public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory()
+    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  private final WorkflowImportService workflowImportService;
+
+  private final WorkflowQueryService workflowQueryService;
+
+  @Inject
+  public WorkflowImportResource(final WorkflowImportService workflowImportService,
+    final WorkflowQueryService workflowQueryService) {
+    Preconditions.checkNotNull(workflowImportService);
+    Preconditions.checkNotNull(workflowQueryService);
+
+    this.workflowImportService = workflowImportService;
+    this.workflowQueryService = workflowQueryService;
+  }
+
+  @POST
+  @Consumes({APPLICATION_NDJSON, MediaType.APPLICATION_JSON})
+  @Produces(APPLICATION_NDJSON)
+  public Response importRecords(@NotNull @PathParam("workflowId") final String workflowId,
+    final InputStream input) throws WorkflowNotFoundException {
+    Preconditions.checkNotNull(workflowId);
+    Preconditions.checkNotNull(input);
+
+    // the status is sent with the first line of the report: a missing board, or one which is not
+    // at the version given by If-Match, is told beforehand
+    long version = this.workflowQueryService.findBoardVersion(workflowId);
+    Optional<Long> expectedVersion = ExpectedWorkflowVersion.get();
+    if (expectedVersion.isPresent() && expectedVersion.get() != version) {
+      throw new WorkflowVersionMismatchException(workflowId, expectedVersion.get(), version);
+    }
+
+    // the report is written once the request has been filtered: the expected version is handed
+    // over to the import, which checks it again when writing its first batch
+    StreamingOutput report = output -> {
+      try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+        generator.setRootValueSeparator(null);
+        expectedVersion.ifPresent(ExpectedWorkflowVersion::set);
+        try {
+          this.workflowImportService.importRecords(workflowId, input,
+            new ReportingListener(generator));
+        } catch (WorkflowNotFoundException | RuntimeException e) {
+          writeLine(generator, line -> line.writeStringField("error",
+            e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+        } finally {
+          ExpectedWorkflowVersion.clear();
+        }
+      }
+    };
+    return Response.status(Status.OK).entity(report).build();
+  }
+
+  private static void writeLine(final JsonGenerator generator, final LineWriter lineWriter)
+    throws IOException {
+    generator.writeStartObject();
+    lineWriter.write(generator);
+    generator.writeEndObject();
+    generator.writeRaw('\n');
+    generator.flush();
+  }
+
+  @FunctionalInterface
+  private interface LineWriter {
+    void write(JsonGenerator generator) throws IOException;
+  }
+
+  /**
+   * Writes a line of the report for each rejected record and each committed batch, and sends it
+   * right away.
+   */
+  private static class ReportingListener implements WorkflowImportListener {
+
+    private final JsonGenerator generator;
+
+    private ReportingListener(final JsonGenerator generator) {
+      this.generator = generator;
+    }
+
+    @Override
+    public void rejected(final long line, final String reason) {
+      this.write(generator -> {
+        generator.writeNumberField("line", line);
+        generator.writeStringField("error", reason);
+      });
+    }
+
+    @Override
+    public void committed(final WorkflowImportProgress progress) {
+      this.write(generator -> {
+        generator.writeNumberField("imported", progress.getImportedCount());
+        generator.writeNumberField("rejected", progress.getRejectedCount());
+        generator.writeNumberField("version", progress.getVersion());
+      });
+    }
+
+    private void write(final LineWriter lineWriter) {
+      try {
+        writeLine(this.generator, lineWriter);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+}
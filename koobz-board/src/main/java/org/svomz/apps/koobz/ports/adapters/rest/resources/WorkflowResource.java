@@ -1,26 +1,34 @@
 package org.svomz.apps.koobz.ports.adapters.rest.resources;
 
-import java.util.Optional;
-
 import javax.inject.Inject;
-import javax.transaction.Transactional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 
 import org.springframework.stereotype.Component;
+import org.svomz.apps.koobz.application.BoardOverview;
 import org.svomz.apps.koobz.application.WorkflowQueryService;
 import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.VersionedDocument;
 import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.ports.adapters.rest.models.BoardOverviewViewModel;
 import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowInputModel;
 import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowViewModel;
 import org.svomz.apps.koobz.domain.model.Workflow;
@@ -47,27 +55,46 @@ public class WorkflowResource {
     this.workflowQueryService = workflowQueryService;
   }
 
+  /**
+   * The board is served from its read model document, which has the same representation as the
+   * {@link WorkflowViewModel.FullView} of the workflow. Its ETag is the version of the workflow: a
+   * request giving the current version in If-None-Match gets a 304 after reading the version only.
+   *
+   * With a limit, each stage only has its first limit work items, and the rank after which its
+   * next page starts: the next pages are read from the work items of the stage.
+   */
   @GET
   @Path("{workflowId}")
   @Produces(MediaType.APPLICATION_JSON)
-  @JsonView(WorkflowViewModel.FullView.class)
-  public Response getWorkflow(@NotNull @PathParam("workflowId") final String workflowId)
+  public Response getWorkflow(@NotNull @PathParam("workflowId") final String workflowId,
+    @QueryParam("limit") final Integer limit,
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch, @Context final Request request)
     throws WorkflowNotFoundException {
     Preconditions.checkNotNull(workflowId);
 
-    Optional<Workflow> optionalWorkflow = this.workflowQueryService.findBoard(workflowId);
+    if (ifNoneMatch != null) {
+      EntityTag currentTag = entityTagOf(this.workflowQueryService.findBoardVersion(workflowId));
+      ResponseBuilder notModified = request.evaluatePreconditions(currentTag);
+      if (notModified != null) {
+        return notModified.tag(currentTag).cacheControl(revalidated()).build();
+      }
+    }
 
-    Response response;
-    if (optionalWorkflow.isPresent()) {
-      response = Response.status(Status.OK)
-        .entity(new WorkflowViewModel(optionalWorkflow.get()))
-        .build();
-    } else {
-      response = Response.status(Status.NOT_FOUND)
+    if (limit != null) {
+      BoardOverview overview = this.workflowQueryService.findBoardOverview(workflowId, limit);
+      return Response.status(Status.OK)
+        .entity(new BoardOverviewViewModel(overview))
+        .tag(entityTagOf(overview.getVersion()))
+        .cacheControl(revalidated())
         .build();
     }
 
-    return response;
+    VersionedDocument document = this.workflowQueryService.findBoardDocument(workflowId);
+    return Response.status(Status.OK)
+      .entity(document.getJson())
+      .tag(entityTagOf(document.getVersion()))
+      .cacheControl(revalidated())
+      .build();
   }
 
   @POST
@@ -88,7 +115,6 @@ public class WorkflowResource {
   @Consumes(MediaType.APPLICATION_JSON)
   @Produces(MediaType.APPLICATION_JSON)
   @JsonView(WorkflowViewModel.SimpleView.class)
-  @Transactional
   public Response updateBoard(@PathParam("workflowId") final String workflowId,
       @NotNull @Valid final WorkflowInputModel workflowInputModel)
     throws WorkflowNotFoundException {
@@ -100,4 +126,19 @@ public class WorkflowResource {
       .build();
   }
 
+  private static EntityTag entityTagOf(final long version) {
+    return new EntityTag(Long.toString(version));
+  }
+
+  /**
+   * The clients may keep the board but have to check with its ETag that it did not change before
+   * using it.
+   */
+  private static CacheControl revalidated() {
+    CacheControl cacheControl = new CacheControl();
+    cacheControl.setNoCache(true);
+    cacheControl.setNoTransform(false);
+    return cacheControl;
+  }
+
 }
@@ -0,0 +1,36 @@
+-- Tables which are not mapped to an entity, for the in memory databases whose other tables are
+-- generated by Hibernate: the ones of the integration tests and of koobz-load-tests
+CREATE TABLE IF NOT EXISTS workflow_views (
+    workflow_id VARCHAR(36) NOT NULL,
+    version BIGINT NOT NULL,
+    document MEDIUMTEXT NOT NULL,
+    PRIMARY KEY(workflow_id)
+);
+
+CREATE TABLE IF NOT EXISTS workflow_changes (
+    workflow_id VARCHAR(36) NOT NULL,
+    version BIGINT NOT NULL,
+    ordinal INTEGER NOT NULL,
+    entry TEXT NOT NULL,
+    PRIMARY KEY(workflow_id, version, ordinal)
+);
+
+CREATE TABLE IF NOT EXISTS workflow_events (
+    workflow_id VARCHAR(36) NOT NULL,
+    version BIGINT NOT NULL,
+    ordinal INTEGER NOT NULL,
+    type VARCHAR(32) NOT NULL,
+    stage_id VARCHAR(36),
+    work_item_id VARCHAR(36),
+    name VARCHAR(255),
+    description TEXT,
+    position INTEGER,
+    PRIMARY KEY(workflow_id, version, ordinal)
+);
+
+CREATE TABLE IF NOT EXISTS workflow_snapshots (
+    workflow_id VARCHAR(36) NOT NULL,
+    version BIGINT NOT NULL,
+    snapshot MEDIUMTEXT NOT NULL,
+    PRIMARY KEY(workflow_id)
+);
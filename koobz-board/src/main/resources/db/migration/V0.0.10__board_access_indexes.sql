@@ -0,0 +1,15 @@
+/**
+ * The board is read by workflow: its stages ordered by rank, its work items stage by stage ordered
+ * by rank, and its archive grouped by stage for the exports. Each of these is one range of an index
+ * starting with workflow_id, which replaces the index of the foreign key to the workflows: MySQL
+ * drops the index it created for the foreign key once another one can be used instead.
+ *
+ * The work items of a single stage keep being read from idx_work_items_stage_position.
+ */
+
+CREATE INDEX idx_stages_workflow_position ON stages (workflow_id, position, id);
+
+CREATE INDEX idx_work_items_workflow_stage_position ON work_items (workflow_id, stage_id, position);
+
+CREATE INDEX idx_work_items_archive_workflow_stage_position
+    ON work_items_archive (workflow_id, stage_id, position, id);
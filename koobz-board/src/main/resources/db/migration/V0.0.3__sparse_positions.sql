@@ -0,0 +1,12 @@
+/**
+ * Positions of stages and work items become sparse ranks, spaced by 2^20, so that moving
+ * an element only updates its own row.
+ */
+
+ALTER TABLE stages MODIFY position BIGINT NOT NULL;
+
+UPDATE stages SET position = (position + 1) * 1048576;
+
+ALTER TABLE work_items MODIFY position BIGINT NOT NULL;
+
+UPDATE work_items SET position = (position + 1) * 1048576;
@@ -0,0 +1,15 @@
+/**
+ * Archived work items are moved to their own table so that they are not loaded with the board.
+ * stage_id is not a foreign key: a stage can be removed while some of its work items are archived.
+ */
+
+CREATE TABLE work_items_archive (
+    id VARCHAR(36) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    position BIGINT NOT NULL,
+    workflow_id VARCHAR(36) NOT NULL,
+    stage_id VARCHAR(36) NOT NULL,
+    PRIMARY KEY(id),
+    CONSTRAINT fk_work_items_archive_workflows FOREIGN KEY(workflow_id) REFERENCES workflows(id)
+)ENGINE=INNODB;
@@ -0,0 +1,12 @@
+/**
+ * Read model: the JSON document served for each workflow, written by the commands in the same
+ * transaction as the workflow. Workflows created before this migration get their document with
+ * their first command: until then, their reads render it from the workflow without saving it.
+ */
+
+CREATE TABLE workflow_views (
+    workflow_id VARCHAR(36) NOT NULL,
+    document MEDIUMTEXT NOT NULL,
+    PRIMARY KEY(workflow_id),
+    CONSTRAINT fk_workflow_views_workflows FOREIGN KEY(workflow_id) REFERENCES workflows(id)
+)ENGINE=INNODB;
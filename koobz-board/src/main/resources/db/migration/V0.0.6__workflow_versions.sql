@@ -0,0 +1,8 @@
+/**
+ * Version of each workflow, incremented by every change made to the board. The read model keeps
+ * the version of the workflow its document represents: it is used as the ETag of the board.
+ */
+
+ALTER TABLE workflows ADD COLUMN version BIGINT NOT NULL DEFAULT 1;
+
+ALTER TABLE workflow_views ADD COLUMN version BIGINT NOT NULL DEFAULT 1;
@@ -0,0 +1,8 @@
+/**
+ * The work items of a stage are read by rank, a page at a time: the rank following the last one
+ * read is found in the index. It starts with stage_id, so it replaces the index of the foreign key
+ * to the stages: MySQL drops the index it created for the foreign key once another one can be used
+ * instead.
+ */
+
+CREATE INDEX idx_work_items_stage_position ON work_items (stage_id, position);
@@ -0,0 +1,14 @@
+/**
+ * Change feed: the changes which made the last versions of each workflow, written by the commands
+ * in the same transaction as the workflow. The changes of a version are ordered by their ordinal,
+ * the older versions are removed as new ones are written.
+ */
+
+CREATE TABLE workflow_changes (
+    workflow_id VARCHAR(36) NOT NULL,
+    version BIGINT NOT NULL,
+    ordinal INTEGER NOT NULL,
+    entry TEXT NOT NULL,
+    PRIMARY KEY(workflow_id, version, ordinal),
+    CONSTRAINT fk_workflow_changes_workflows FOREIGN KEY(workflow_id) REFERENCES workflows(id)
+)ENGINE=INNODB;
@@ -0,0 +1,28 @@
+/**
+ * Event store, used by the event-sourcing profile instead of the rows of the stages and work items:
+ * the changes which made each version of each workflow, never updated nor removed, and the last
+ * snapshot of each workflow from which its next changes are replayed. The workflows row remains the
+ * head of the stream, holding its last version.
+ */
+
+CREATE TABLE workflow_events (
+    workflow_id VARCHAR(36) NOT NULL,
+    version BIGINT NOT NULL,
+    ordinal INTEGER NOT NULL,
+    type VARCHAR(32) NOT NULL,
+    stage_id VARCHAR(36),
+    work_item_id VARCHAR(36),
+    name VARCHAR(255),
+    description TEXT,
+    position INTEGER,
+    PRIMARY KEY(workflow_id, version, ordinal),
+    CONSTRAINT fk_workflow_events_workflows FOREIGN KEY(workflow_id) REFERENCES workflows(id)
+)ENGINE=INNODB;
+
+CREATE TABLE workflow_snapshots (
+    workflow_id VARCHAR(36) NOT NULL,
+    version BIGINT NOT NULL,
+    snapshot MEDIUMTEXT NOT NULL,
+    PRIMARY KEY(workflow_id),
+    CONSTRAINT fk_workflow_snapshots_workflows FOREIGN KEY(workflow_id) REFERENCES workflows(id)
+)ENGINE=INNODB;
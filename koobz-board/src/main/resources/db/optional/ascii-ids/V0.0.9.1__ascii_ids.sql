@@ -0,0 +1,45 @@
+/**
+ * Optional: stores the identities as fixed length ASCII strings compared byte per byte, instead of
+ * strings of the default character set compared with its collation. The keys of every index on an
+ * identity shrink to 36 bytes, and comparing them does not go through the collation anymore.
+ *
+ * Not in the default location: it rebuilds every table, which takes the time of copying them. Add
+ * classpath:db/optional/ascii-ids to flyway.locations to apply it, with flyway.out-of-order=true
+ * if the later migrations have already been applied. The foreign key checks are disabled while the
+ * tables on both sides of a foreign key change.
+ */
+
+SET FOREIGN_KEY_CHECKS = 0;
+
+ALTER TABLE workflows
+    MODIFY id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE stages
+    MODIFY id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+    MODIFY workflow_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE work_items
+    MODIFY id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+    MODIFY workflow_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+    MODIFY stage_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE work_items_archive
+    MODIFY id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+    MODIFY workflow_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+    MODIFY stage_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE workflow_views
+    MODIFY workflow_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE workflow_changes
+    MODIFY workflow_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE workflow_events
+    MODIFY workflow_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+    MODIFY stage_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin,
+    MODIFY work_item_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin;
+
+ALTER TABLE workflow_snapshots
+    MODIFY workflow_id CHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,114 @@
+package org.svomz.apps.koobz.applications;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.svomz.apps.koobz.application.ConflictRetryAspect;
+import org.svomz.apps.koobz.application.RetryOnConflict;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ConflictRetryAspectUnitTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final ConflictRetryAspect conflictRetryAspect = new ConflictRetryAspect(MAX_ATTEMPTS, 0, 0);
+
+  @After
+  public void tearDown() {
+    TransactionSynchronizationManager.setActualTransactionActive(false);
+  }
+
+  @Test
+  public void itShouldRunAgainACommandWhichConflicted() {
+    ConflictingCommand command = this.retried(new ConflictingCommand(2));
+
+    assertThat(command.run()).isEqualTo("done");
+    assertThat(command.attempts()).isEqualTo(3);
+    assertThat(this.conflictRetryAspect.getConflictCount()).isEqualTo(2);
+    assertThat(this.conflictRetryAspect.getRetryCount()).isEqualTo(2);
+    assertThat(this.conflictRetryAspect.getFailureCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void itShouldGiveUpAfterTheLastAttempt() {
+    ConflictingCommand command = this.retried(new ConflictingCommand(Integer.MAX_VALUE));
+
+    try {
+      command.run();
+      fail("The command always conflicts");
+    } catch (OptimisticLockingFailureException e) {
+      assertThat(command.attempts()).isEqualTo(MAX_ATTEMPTS);
+      assertThat(this.conflictRetryAspect.getFailureCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void itShouldNotRunAgainACommandWhichFailedForAnotherReason() {
+    ConflictingCommand command = this.retried(
+      new ConflictingCommand(Integer.MAX_VALUE, IllegalStateException::new));
+
+    try {
+      command.run();
+      fail("The command always fails");
+    } catch (IllegalStateException e) {
+      assertThat(command.attempts()).isEqualTo(1);
+      assertThat(this.conflictRetryAspect.getConflictCount()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void itShouldNotRunAgainACommandCalledWithinATransaction() {
+    ConflictingCommand command = this.retried(new ConflictingCommand(1));
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    try {
+      command.run();
+      fail("The transaction of the caller can not be run again");
+    } catch (OptimisticLockingFailureException e) {
+      assertThat(command.attempts()).isEqualTo(1);
+    }
+  }
+
+  private ConflictingCommand retried(final ConflictingCommand command) {
+    AspectJProxyFactory proxyFactory = new AspectJProxyFactory(command);
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAspect(this.conflictRetryAspect);
+    return proxyFactory.getProxy();
+  }
+
+  public static class ConflictingCommand {
+
+    private final int failures;
+    private final Supplier<RuntimeException> failure;
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    ConflictingCommand(final int conflicts) {
+      this(conflicts, () -> new OptimisticLockingFailureException("conflict"));
+    }
+
+    ConflictingCommand(final int failures, final Supplier<RuntimeException> failure) {
+      this.failures = failures;
+      this.failure = failure;
+    }
+
+    @RetryOnConflict
+    public String run() {
+      if (this.attempts.incrementAndGet() <= this.failures) {
+        throw this.failure.get();
+      }
+      return "done";
+    }
+
+    public int attempts() {
+      return this.attempts.get();
+    }
+  }
+
+}
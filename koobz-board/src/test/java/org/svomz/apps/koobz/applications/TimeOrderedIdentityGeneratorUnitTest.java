@@ -0,0 +1,71 @@
+package org.svomz.apps.koobz.applications;
+
+import org.junit.Test;
+import org.svomz.apps.koobz.application.TimeOrderedIdentityGenerator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeOrderedIdentityGeneratorUnitTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  @Test
+  public void itShouldGenerateVersion7UuidsStartingWithTheTime() {
+    TimeOrderedIdentityGenerator generator = new TimeOrderedIdentityGenerator(() -> NOW);
+
+    UUID uuid = UUID.fromString(generator.nextIdentity());
+
+    assertThat(uuid.version()).isEqualTo(7);
+    assertThat(uuid.variant()).isEqualTo(2);
+    assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(NOW);
+  }
+
+  @Test
+  public void theIdentitiesOfAThreadShouldBeOrderedAsStrings() {
+    AtomicLong clock = new AtomicLong(NOW);
+    TimeOrderedIdentityGenerator generator = new TimeOrderedIdentityGenerator(clock::get);
+
+    // more identities in the same millisecond than the counter holds, then the clock going back
+    List<String> identities = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      identities.add(generator.nextIdentity());
+    }
+    clock.set(NOW - 1000);
+    identities.add(generator.nextIdentity());
+    clock.set(NOW + 1000);
+    identities.add(generator.nextIdentity());
+
+    assertThat(identities).isSorted();
+    assertThat(new HashSet<>(identities)).hasSize(identities.size());
+  }
+
+  @Test
+  public void theIdentitiesOfManyThreadsShouldBeUnique() throws InterruptedException {
+    TimeOrderedIdentityGenerator generator = new TimeOrderedIdentityGenerator();
+    Set<String> identities = ConcurrentHashMap.newKeySet();
+
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      threads.add(new Thread(() -> {
+        for (int j = 0; j < 10000; j++) {
+          identities.add(generator.nextIdentity());
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(identities).hasSize(40000);
+  }
+
+}
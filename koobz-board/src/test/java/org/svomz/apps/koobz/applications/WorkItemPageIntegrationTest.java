@@ -0,0 +1,139 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.svomz.apps.koobz.application.BoardOverview;
+import org.svomz.apps.koobz.application.WorkItemPage;
+import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.StageNotInProcessException;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.infrastructure.domain.KanbanRepositoryFactoryBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Checks against an in memory database that reading the work items of a stage a page at a time
+ * gives them all, once each and in the order of the stage.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = WorkItemPageIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+public class WorkItemPageIntegrationTest {
+
+  @Autowired
+  private WorkflowApplicationService workflowApplicationService;
+
+  @Autowired
+  private WorkflowQueryService workflowQueryService;
+
+  private String workflowId;
+  private String toDoId;
+  private String doneId;
+  private List<String> toDo;
+
+  @Before
+  public void setUp() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    this.workflowId = workflow.getId();
+    this.toDoId = this.workflowApplicationService.addStageToWorkflow(this.workflowId, "To do")
+      .getId();
+    this.doneId = this.workflowApplicationService.addStageToWorkflow(this.workflowId, "Done")
+      .getId();
+
+    this.toDo = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      this.toDo.add(this.workflowApplicationService.addWorkItemToWorkflow(this.workflowId,
+        this.toDoId, "Work item " + i, "").getId());
+    }
+    // a work item ranked between two others
+    this.workflowApplicationService.changeWorkItemPriority(this.workflowId, this.toDo.get(6), 2);
+    this.toDo.add(2, this.toDo.remove(6));
+  }
+
+  @Test
+  public void readingTheStageAPageAtATimeShouldGiveAllItsWorkItemsInOrder() throws Exception {
+    List<String> read = new ArrayList<>();
+    List<Integer> pageSizes = new ArrayList<>();
+    OptionalLong after = OptionalLong.empty();
+    do {
+      WorkItemPage page = this.workflowQueryService.findWorkItemPage(this.workflowId,
+        this.toDoId, after, 3);
+      page.getWorkItems().forEach(workItem -> read.add(workItem.getId()));
+      pageSizes.add(page.getWorkItems().size());
+      after = page.getNext();
+    } while (after.isPresent());
+
+    assertThat(read).isEqualTo(this.toDo);
+    assertThat(pageSizes).containsExactly(3, 3, 1);
+  }
+
+  @Test
+  public void theLastPageShouldNotHaveANextPage() throws Exception {
+    WorkItemPage page = this.workflowQueryService.findWorkItemPage(this.workflowId, this.toDoId,
+      OptionalLong.empty(), 7);
+
+    assertThat(page.getWorkItems()).hasSize(7);
+    assertThat(page.getNext().isPresent()).isFalse();
+  }
+
+  @Test
+  public void theOverviewShouldOnlyHaveTheFirstPageOfEachStage() throws Exception {
+    BoardOverview overview = this.workflowQueryService.findBoardOverview(this.workflowId, 2);
+
+    assertThat(overview.getName()).isEqualTo("A workflow");
+    assertThat(overview.getVersion())
+      .isEqualTo(this.workflowQueryService.findBoardVersion(this.workflowId));
+    assertThat(overview.getStages()).extracting("id").containsExactly(this.toDoId, this.doneId);
+
+    WorkItemPage toDoPage = overview.getStages().get(0).getFirstPage();
+    assertThat(toDoPage.getWorkItems()).extracting("id")
+      .containsExactly(this.toDo.get(0), this.toDo.get(1));
+    assertThat(toDoPage.getNext().getAsLong())
+      .isEqualTo(toDoPage.getWorkItems().get(1).getRank());
+
+    WorkItemPage donePage = overview.getStages().get(1).getFirstPage();
+    assertThat(donePage.getWorkItems()).isEmpty();
+    assertThat(donePage.getNext().isPresent()).isFalse();
+  }
+
+  @Test(expected = StageNotInProcessException.class)
+  public void itShouldNotReadTheStageOfAnotherWorkflow() throws Exception {
+    Workflow other = this.workflowApplicationService.createWorkflow("Another workflow");
+    Stage stage = this.workflowApplicationService.addStageToWorkflow(other.getId(), "To do");
+
+    this.workflowQueryService.findWorkItemPage(this.workflowId, stage.getId(),
+      OptionalLong.empty(), 3);
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @ComponentScan(basePackages = {
+    "org.svomz.apps.koobz.application",
+    "org.svomz.apps.koobz.infrastructure.readmodel",
+    "org.svomz.apps.koobz.infrastructure.imports",
+    "org.svomz.apps.koobz.infrastructure.exports"
+  })
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
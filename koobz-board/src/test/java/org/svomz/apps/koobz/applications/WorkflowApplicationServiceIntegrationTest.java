@@ -0,0 +1,352 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowCommand;
+import org.svomz.apps.koobz.application.WorkflowCommandResult;
+import org.svomz.apps.koobz.application.WorkflowDocument;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.infrastructure.domain.KanbanRepositoryFactoryBean;
+
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Checks against an in memory database that a command only reads what it changes: running it on
+ * a board with many stages costs the same statements and loads the same entities as on a board
+ * with a few stages, the stages having the same number of work items.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = WorkflowApplicationServiceIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+public class WorkflowApplicationServiceIntegrationTest {
+
+  private static final int WORK_ITEMS_PER_STAGE = 10;
+
+  @Autowired
+  private WorkflowApplicationService workflowApplicationService;
+
+  @Autowired
+  private WorkflowQueryService workflowQueryService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Board smallBoard;
+  private Board largeBoard;
+
+  @Before
+  public void setUp() throws Exception {
+    this.smallBoard = this.createBoard(2);
+    this.largeBoard = this.createBoard(20);
+  }
+
+  @Test
+  public void changingTheInformationOfAWorkItemShouldOnlyLoadThisWorkItem() throws Exception {
+    Cost onSmallBoard = this.cost(() -> this.workflowApplicationService.changeWorkItemInformation(
+      this.smallBoard.id, this.smallBoard.workItemIds.get(0), "New title", "New description"));
+    Cost onLargeBoard = this.cost(() -> this.workflowApplicationService.changeWorkItemInformation(
+      this.largeBoard.id, this.largeBoard.workItemIds.get(0), "New title", "New description"));
+
+    assertThat(onLargeBoard).isEqualTo(onSmallBoard);
+    // the workflow, the work item and its stage
+    assertThat(onLargeBoard.entities).isLessThanOrEqualTo(3);
+    assertThat(this.workItemOfId(this.largeBoard, this.largeBoard.workItemIds.get(0)).getTitle())
+      .isEqualTo("New title");
+  }
+
+  @Test
+  public void movingAWorkItemToAnotherStageShouldOnlyLoadBothStages() throws Exception {
+    Cost onSmallBoard = this.cost(() -> this.workflowApplicationService.moveWorkItemToStage(
+      this.smallBoard.id, this.smallBoard.workItemIds.get(0), this.smallBoard.stageIds.get(1)));
+    Cost onLargeBoard = this.cost(() -> this.workflowApplicationService.moveWorkItemToStage(
+      this.largeBoard.id, this.largeBoard.workItemIds.get(0), this.largeBoard.stageIds.get(1)));
+
+    assertThat(onLargeBoard).isEqualTo(onSmallBoard);
+    WorkItem workItem = this.workItemOfId(this.largeBoard, this.largeBoard.workItemIds.get(0));
+    assertThat(workItem.getStage().getId()).isEqualTo(this.largeBoard.stageIds.get(1));
+    assertThat(workItem.getPriority()).isEqualTo(WORK_ITEMS_PER_STAGE);
+  }
+
+  @Test
+  public void changingThePriorityOfAWorkItemShouldOnlyLoadItsStage() throws Exception {
+    Cost onSmallBoard = this.cost(() -> this.workflowApplicationService.changeWorkItemPriority(
+      this.smallBoard.id, this.smallBoard.workItemIds.get(0), 5));
+    Cost onLargeBoard = this.cost(() -> this.workflowApplicationService.changeWorkItemPriority(
+      this.largeBoard.id, this.largeBoard.workItemIds.get(0), 5));
+
+    assertThat(onLargeBoard).isEqualTo(onSmallBoard);
+    assertThat(this.workItemOfId(this.largeBoard, this.largeBoard.workItemIds.get(0)).getPriority())
+      .isEqualTo(5);
+  }
+
+  @Test
+  public void archivingAndSendingBackAWorkItemShouldNotLoadTheArchive() throws Exception {
+    // some work items are already archived
+    for (int i = 1; i < 5; i++) {
+      this.workflowApplicationService.archiveWorkItem(this.smallBoard.id,
+        this.smallBoard.workItemIds.get(i));
+      this.workflowApplicationService.archiveWorkItem(this.largeBoard.id,
+        this.largeBoard.workItemIds.get(i));
+    }
+
+    Cost onSmallBoard = this.cost(() -> {
+      this.workflowApplicationService.archiveWorkItem(this.smallBoard.id,
+        this.smallBoard.workItemIds.get(0));
+      this.workflowApplicationService.sendWorkItemBackToWorkflow(this.smallBoard.id,
+        this.smallBoard.workItemIds.get(0));
+    });
+    Cost onLargeBoard = this.cost(() -> {
+      this.workflowApplicationService.archiveWorkItem(this.largeBoard.id,
+        this.largeBoard.workItemIds.get(0));
+      this.workflowApplicationService.sendWorkItemBackToWorkflow(this.largeBoard.id,
+        this.largeBoard.workItemIds.get(0));
+    });
+
+    assertThat(onLargeBoard).isEqualTo(onSmallBoard);
+    assertThat(this.workItemOfId(this.largeBoard, this.largeBoard.workItemIds.get(0)).getPriority())
+      .isEqualTo(0);
+    assertThat(this.workflowQueryService.findArchivedWorkItems(this.largeBoard.id)).hasSize(4);
+  }
+
+  @Test
+  public void removingAWorkItemShouldDeleteItWithoutLoadingTheBoard() throws Exception {
+    Cost onSmallBoard = this.cost(() -> this.workflowApplicationService.removeWorkItemFromWorkflow(
+      this.smallBoard.id, this.smallBoard.workItemIds.get(0)));
+    Cost onLargeBoard = this.cost(() -> this.workflowApplicationService.removeWorkItemFromWorkflow(
+      this.largeBoard.id, this.largeBoard.workItemIds.get(0)));
+
+    assertThat(onLargeBoard).isEqualTo(onSmallBoard);
+    Workflow workflow = this.workflowQueryService.findBoard(this.largeBoard.id).get();
+    assertThat(workflow.workItems()).hasSize(20 * WORK_ITEMS_PER_STAGE - 1);
+    assertThat(workflow.workItemOfId(this.largeBoard.workItemIds.get(0)).isPresent()).isFalse();
+  }
+
+  @Test
+  public void removingAnEmptyStageShouldOnlyLoadThisStage() throws Exception {
+    String smallStageId = this.workflowApplicationService
+      .addStageToWorkflow(this.smallBoard.id, "Empty").getId();
+    String largeStageId = this.workflowApplicationService
+      .addStageToWorkflow(this.largeBoard.id, "Empty").getId();
+
+    Cost onSmallBoard = this.cost(() -> this.workflowApplicationService
+      .removeStageFromWorkflow(this.smallBoard.id, smallStageId));
+    Cost onLargeBoard = this.cost(() -> this.workflowApplicationService
+      .removeStageFromWorkflow(this.largeBoard.id, largeStageId));
+
+    assertThat(onLargeBoard).isEqualTo(onSmallBoard);
+    Workflow workflow = this.workflowQueryService.findBoard(this.largeBoard.id).get();
+    assertThat(workflow.stages()).hasSize(20);
+    assertThat(workflow.stageOfId(largeStageId).isPresent()).isFalse();
+  }
+
+  @Test
+  public void aCommittedCommandShouldEvictTheCachedBoard() throws Exception {
+    this.workflowQueryService.findBoard(this.smallBoard.id);
+    Cost cachedRead = this.cost(() -> this.workflowQueryService.findBoard(this.smallBoard.id));
+    assertThat(cachedRead.statements).isEqualTo(0);
+
+    this.workflowApplicationService.changeWorkflowName(this.smallBoard.id, "New name");
+
+    assertThat(this.workflowQueryService.findBoard(this.smallBoard.id).get().getName())
+      .isEqualTo("New name");
+  }
+
+  @Test
+  public void theBoardDocumentShouldFollowTheCommandsAndBeReadWithoutLoadingTheWorkflow()
+    throws Exception {
+    this.workflowApplicationService.changeWorkItemPriority(this.largeBoard.id,
+      this.largeBoard.workItemIds.get(3), 0);
+    this.workflowApplicationService.moveWorkItemToStage(this.largeBoard.id,
+      this.largeBoard.workItemIds.get(1), this.largeBoard.stageIds.get(2));
+    this.workflowApplicationService.archiveWorkItem(this.largeBoard.id,
+      this.largeBoard.workItemIds.get(2));
+    this.workflowApplicationService.changeStageName(this.largeBoard.id,
+      this.largeBoard.stageIds.get(0), "Backlog");
+
+    Cost read = this.cost(() -> this.workflowQueryService.findBoardDocument(this.largeBoard.id));
+
+    // the document is read with plain JDBC: Hibernate does not run any statement
+    assertThat(read.statements).isEqualTo(0);
+    assertThat(read.entities).isEqualTo(0);
+    String renderedBoard = this.workflowQueryService.findBoard(this.largeBoard.id)
+      .map(workflow -> WorkflowDocument.of(workflow).toJson()).get();
+    assertThat(this.workflowQueryService.findBoardDocument(this.largeBoard.id).getJson())
+      .isEqualTo(renderedBoard);
+  }
+
+  @Test
+  public void aBatchOfCommandsShouldMakeASingleVersionAndKeepTheDocumentInSync()
+    throws Exception {
+    long version = this.workflowQueryService.findBoardVersion(this.smallBoard.id);
+    List<String> workItemIds = this.smallBoard.workItemIds;
+
+    List<WorkflowCommandResult> results = this.workflowApplicationService.applyCommands(
+      this.smallBoard.id, Arrays.asList(
+        WorkflowCommand.addStage("Done"),
+        WorkflowCommand.changeWorkItem(workItemIds.get(0), "New title", "New description"),
+        WorkflowCommand.moveWorkItem(workItemIds.get(0), this.smallBoard.stageIds.get(1)),
+        WorkflowCommand.changeWorkItemPriority(workItemIds.get(5), 0),
+        WorkflowCommand.archiveWorkItem(workItemIds.get(3)),
+        WorkflowCommand.sendBackWorkItem(workItemIds.get(3)),
+        WorkflowCommand.removeStage(this.smallBoard.stageIds.get(0)),
+        WorkflowCommand.renameStage(this.smallBoard.stageIds.get(0), "Backlog")
+      ));
+
+    assertThat(results).extracting(WorkflowCommandResult::isApplied)
+      .containsExactly(true, true, true, true, true, true, false, true);
+    Workflow workflow = this.workflowQueryService.findBoard(this.smallBoard.id).get();
+    assertThat(workflow.getVersion()).isEqualTo(version + 1);
+    assertThat(workflow.stages()).hasSize(3);
+    assertThat(this.workflowQueryService.findBoardDocument(this.smallBoard.id).getJson())
+      .isEqualTo(WorkflowDocument.of(workflow).toJson());
+  }
+
+  @Test
+  public void aBatchOfCommandsShouldCostLessThanTheSameCommandsSentOneByOne() throws Exception {
+    List<WorkflowCommand> commands = new ArrayList<>();
+    for (int i = 0; i < WORK_ITEMS_PER_STAGE; i++) {
+      commands.add(WorkflowCommand.changeWorkItemPriority(this.largeBoard.workItemIds.get(i), 0));
+    }
+
+    Cost oneByOne = this.cost(() -> {
+      for (int i = 0; i < WORK_ITEMS_PER_STAGE; i++) {
+        this.workflowApplicationService.changeWorkItemPriority(this.smallBoard.id,
+          this.smallBoard.workItemIds.get(i), 0);
+      }
+    });
+    Cost batch = this.cost(() -> this.workflowApplicationService.applyCommands(
+      this.largeBoard.id, commands));
+
+    assertThat(batch.statements).isLessThan(oneByOne.statements);
+    assertThat(this.workflowQueryService.findBoard(this.largeBoard.id).get()
+      .workItemsInStage(this.largeBoard.stageIds.get(0)))
+      .extracting(WorkItem::getId)
+      .containsExactlyElementsOf(Lists.reverse(this.largeBoard.workItemIds.subList(0,
+        WORK_ITEMS_PER_STAGE)));
+  }
+
+  @Test
+  public void eachCommandShouldMakeANewBoardVersion() throws Exception {
+    long version = this.workflowQueryService.findBoardVersion(this.smallBoard.id);
+
+    this.workflowApplicationService.changeWorkItemInformation(this.smallBoard.id,
+      this.smallBoard.workItemIds.get(0), "New title", "New description");
+    this.workflowApplicationService.changeWorkItemPriority(this.smallBoard.id,
+      this.smallBoard.workItemIds.get(0), 3);
+
+    assertThat(this.workflowQueryService.findBoardVersion(this.smallBoard.id))
+      .isEqualTo(version + 2);
+    assertThat(this.workflowQueryService.findBoardDocument(this.smallBoard.id).getVersion())
+      .isEqualTo(version + 2);
+    assertThat(this.workflowQueryService.findBoard(this.smallBoard.id).get().getVersion())
+      .isEqualTo(version + 2);
+  }
+
+  private Board createBoard(final int stages) throws Exception {
+    Board board = new Board(this.workflowApplicationService.createWorkflow("A board").getId());
+    for (int i = 0; i < stages; i++) {
+      Stage stage = this.workflowApplicationService.addStageToWorkflow(board.id, "Stage " + i);
+      board.stageIds.add(stage.getId());
+      for (int j = 0; j < WORK_ITEMS_PER_STAGE; j++) {
+        WorkItem workItem = this.workflowApplicationService
+          .addWorkItemToWorkflow(board.id, stage.getId(), "Work item " + j, "");
+        board.workItemIds.add(workItem.getId());
+      }
+    }
+    return board;
+  }
+
+  private WorkItem workItemOfId(final Board board, final String workItemId) throws Exception {
+    return this.workflowQueryService.findBoard(board.id).get().workItemOfId(workItemId).get();
+  }
+
+  private Cost cost(final Command command) throws Exception {
+    Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    command.run();
+    return new Cost(statistics.getPrepareStatementCount(), statistics.getEntityLoadCount());
+  }
+
+  @FunctionalInterface
+  private interface Command {
+    void run() throws Exception;
+  }
+
+  private static class Board {
+
+    private final String id;
+    private final List<String> stageIds = new ArrayList<>();
+    private final List<String> workItemIds = new ArrayList<>();
+
+    private Board(final String id) {
+      this.id = id;
+    }
+  }
+
+  private static class Cost {
+
+    private final long statements;
+    private final long entities;
+
+    private Cost(final long statements, final long entities) {
+      this.statements = statements;
+      this.entities = entities;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof Cost
+        && ((Cost) o).statements == this.statements && ((Cost) o).entities == this.entities;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(this.statements) * 31 + Long.hashCode(this.entities);
+    }
+
+    @Override
+    public String toString() {
+      return this.statements + " statements, " + this.entities + " entities loaded";
+    }
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @ComponentScan(basePackages = {
+    "org.svomz.apps.koobz.application",
+    "org.svomz.apps.koobz.infrastructure.readmodel",
+    "org.svomz.apps.koobz.infrastructure.imports",
+    "org.svomz.apps.koobz.infrastructure.exports"
+  })
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
@@ -1,11 +1,18 @@
 package org.svomz.apps.koobz.applications;
 
+import com.google.common.base.Strings;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.svomz.apps.koobz.application.WorkflowIdentityService;
 import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowCache;
+import org.svomz.apps.koobz.application.WorkflowCommand;
+import org.svomz.apps.koobz.application.WorkflowCommandResult;
 import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.application.WorkflowChangeLog;
+import org.svomz.apps.koobz.application.WorkflowReadModel;
 import org.svomz.apps.koobz.domain.model.Workflow;
 import org.svomz.apps.koobz.domain.model.WorkflowRepository;
 import org.svomz.apps.koobz.domain.model.Stage;
@@ -16,10 +23,16 @@ import org.svomz.apps.koobz.domain.model.WorkItemNotArchivedException;
 import org.svomz.apps.koobz.domain.model.WorkItemNotInProcessException;
 import org.svomz.apps.koobz.domain.model.WorkItemNotInStageException;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(Suite.class)
@@ -35,7 +48,8 @@ import static org.mockito.Mockito.when;
   WorkflowApplicationServiceUnitTest.RemoveStageFromWorkflow.class,
   WorkflowApplicationServiceUnitTest.ChangeWorkItemInformation.class,
   WorkflowApplicationServiceUnitTest.RemoveWorkItemFromBoard.class,
-  WorkflowApplicationServiceUnitTest.SendWorkItemBackToWorkflow.class
+  WorkflowApplicationServiceUnitTest.SendWorkItemBackToWorkflow.class,
+  WorkflowApplicationServiceUnitTest.ApplyCommands.class
 })
 public class WorkflowApplicationServiceUnitTest {
 
@@ -48,7 +62,8 @@ public class WorkflowApplicationServiceUnitTest {
       when(workflowIdentityService.nextBoardIdentity()).thenReturn(UUID.randomUUID().toString());
 
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       String aBoardName = "A name";
       Workflow workflow = workflowApplicationService.createWorkflow(aBoardName);
@@ -80,7 +95,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       workflowApplicationService.changeWorkflowName(workflowId, newBoardName);
 
@@ -110,7 +126,8 @@ public class WorkflowApplicationServiceUnitTest {
 
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       Stage stage = workflowApplicationService.addStageToWorkflow(workflowId, title);
 
@@ -132,7 +149,8 @@ public class WorkflowApplicationServiceUnitTest {
 
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       // When I create a new stage on workflow with id "35a45cd4-f81f-11e5-9ce9-5e5517507c66"
       // And with "to do" as title
@@ -169,7 +187,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       String newStageName = "To do";
       workflowApplicationService.changeStageName(workflowId, aStageId, newStageName);
@@ -201,7 +220,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       String newStageName = "To do";
       workflowApplicationService.removeStageFromWorkflow(workflowId, aStageId);
@@ -239,7 +259,8 @@ public class WorkflowApplicationServiceUnitTest {
 
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       WorkItem workItem = workflowApplicationService.addWorkItemToWorkflow(
         workflowId,
@@ -267,7 +288,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       // When user adds a Work Item with title "Drink coffee" to the stage with id "ac329010-f837-11e5-9ce9-5e5517507c66"
       String aWorkItemTitle = "Drink coffee";
@@ -305,7 +327,8 @@ public class WorkflowApplicationServiceUnitTest {
       when(workflowIdentityService.nextWorkItemIdentity()).thenReturn(UUID.randomUUID().toString());
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       WorkItem workItem = workflowApplicationService.addWorkItemToWorkflow(
         workflowId,
@@ -349,7 +372,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       workflowApplicationService
         .changeWorkItemInformation(workflowId, workItemId, newWorkItemName, newWorkItemDescription);
@@ -387,7 +411,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       workflowApplicationService.removeWorkItemFromWorkflow(workflowId, workItemId);
 
@@ -428,7 +453,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       workflowApplicationService.moveWorkItemToStage(workflowId, aWorkItemId, stageBId);
 
@@ -469,7 +495,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
       workflowApplicationService.moveWorkItemToStage(workflowId, aWorkItemId, stageCId);
 
       // Then it should fail
@@ -506,7 +533,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
       workflowApplicationService.moveWorkItemToStage(workflowId, unknownWorkItem, stageBId);
 
       // Then it should fail
@@ -548,7 +576,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       workflowApplicationService.changeWorkItemPriority(workflow.getId(), workItemA.getId(), 2);
 
@@ -590,7 +619,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
 
       workflowApplicationService.changeWorkItemPriority(workflow.getId(), unknownWorkItemId, 2);
 
@@ -632,7 +662,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
       workflowApplicationService.archiveWorkItem(workflowId, workItemAId);
 
       // Then work item A should not be in the list of work items any more
@@ -670,7 +701,8 @@ public class WorkflowApplicationServiceUnitTest {
       WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
       WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
         workflowRepository,
-        workflowIdentityService);
+        workflowIdentityService, mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
       workflowApplicationService.sendWorkItemBackToWorkflow(workflowId, workItemAId);
 
       // Then work item A should not be in the list of work items any more
@@ -678,4 +710,75 @@ public class WorkflowApplicationServiceUnitTest {
     }
 
   }
+  public static class ApplyCommands {
+
+    @Test
+    public void itShouldApplyTheCommandsInOrderAndReportTheRejectedOnes() throws Exception {
+      // Given a workflow with a stage having two work items
+      String workflowId = UUID.randomUUID().toString();
+      Workflow workflow = new Workflow(workflowId, "A workflow");
+      Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "To do");
+      WorkItem first = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+        "First", "");
+      WorkItem second = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+        "Second", "");
+
+      WorkflowRepository workflowRepository = mock(WorkflowRepository.class);
+      when(workflowRepository.findOne(workflowId)).thenReturn(workflow);
+      WorkflowIdentityService workflowIdentityService = mock(WorkflowIdentityService.class);
+      when(workflowIdentityService.nextStageIdentity()).thenReturn("done");
+      WorkflowReadModel workflowReadModel = mock(WorkflowReadModel.class);
+      WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
+        workflowRepository, workflowIdentityService, mock(WorkflowCache.class), workflowReadModel,
+        mock(WorkflowChangeLog.class));
+
+      // When I add a stage, move a work item to a stage which does not exist, move it to the new
+      // stage and put the remaining one at the top
+      List<WorkflowCommandResult> results = workflowApplicationService.applyCommands(workflowId,
+        Arrays.asList(
+          WorkflowCommand.addStage("Done"),
+          WorkflowCommand.moveWorkItem(first.getId(), "unknown"),
+          WorkflowCommand.moveWorkItem(first.getId(), "done"),
+          WorkflowCommand.changeWorkItemPriority(second.getId(), 0)
+        ));
+
+      // Then all the commands but the second one are applied, and the document is patched once
+      assertThat(results).extracting(WorkflowCommandResult::isApplied)
+        .containsExactly(true, false, true, true);
+      assertThat(results.get(0).getCreatedId()).contains("done");
+      assertThat(results.get(1).getRejection()).contains("StageNotInProcessException");
+      assertThat(workflow.workItemsInStage("done")).containsExactly(first);
+      assertThat(workflow.workItemsInStage(stage.getId())).containsExactly(second);
+      verify(workflowReadModel, times(1)).update(eq(workflow), any());
+    }
+
+    @Test
+    public void itShouldRejectAChangeOfAWorkItemWithoutChangingIt() throws Exception {
+      // Given a workflow with a work item
+      String workflowId = UUID.randomUUID().toString();
+      Workflow workflow = new Workflow(workflowId, "A workflow");
+      Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "To do");
+      WorkItem workItem = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+        "A title", "A description");
+
+      WorkflowRepository workflowRepository = mock(WorkflowRepository.class);
+      when(workflowRepository.findOne(workflowId)).thenReturn(workflow);
+      WorkflowApplicationService workflowApplicationService = new WorkflowApplicationService(
+        workflowRepository, mock(WorkflowIdentityService.class), mock(WorkflowCache.class),
+        mock(WorkflowReadModel.class), mock(WorkflowChangeLog.class));
+
+      // When I change its title along with a description which is too long
+      List<WorkflowCommandResult> results = workflowApplicationService.applyCommands(workflowId,
+        Arrays.asList(WorkflowCommand.changeWorkItem(workItem.getId(), "A new title",
+          Strings.repeat("a", 2049))));
+
+      // Then the change is rejected and neither the title nor the description changed
+      assertThat(results.get(0).isApplied()).isFalse();
+      assertThat(results.get(0).getRejection()).isPresent();
+      assertThat(workItem.getTitle()).isEqualTo("A title");
+      assertThat(workItem.getDescription()).isEqualTo("A description");
+    }
+
+  }
+
 }
@@ -0,0 +1,119 @@
+package org.svomz.apps.koobz.applications;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.svomz.apps.koobz.application.WorkflowCache;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.StageNotInProcessException;
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WorkflowCacheUnitTest {
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void itShouldOnlyLoadAWorkflowOnce() {
+    WorkflowCache workflowCache = new WorkflowCache(100);
+    Workflow workflow = new Workflow("workflow", "A workflow");
+    AtomicInteger loads = new AtomicInteger();
+
+    Workflow first = workflowCache.get("workflow", () -> {
+      loads.incrementAndGet();
+      return workflow;
+    });
+    Workflow second = workflowCache.get("workflow", () -> {
+      loads.incrementAndGet();
+      return workflow;
+    });
+
+    assertThat(first).isSameAs(workflow);
+    assertThat(second).isSameAs(workflow);
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(workflowCache.getHitCount()).isEqualTo(1);
+    assertThat(workflowCache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void itShouldNotCacheMissingWorkflows() {
+    WorkflowCache workflowCache = new WorkflowCache(100);
+
+    assertThat(workflowCache.get("workflow", () -> null)).isNull();
+    assertThat(workflowCache.getSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void itShouldLoadAgainAnInvalidatedWorkflow() {
+    WorkflowCache workflowCache = new WorkflowCache(100);
+    workflowCache.get("workflow", () -> new Workflow("workflow", "A workflow"));
+
+    workflowCache.invalidate("workflow");
+    Workflow workflow = workflowCache.get("workflow", () -> new Workflow("workflow", "New name"));
+
+    assertThat(workflow.getName()).isEqualTo("New name");
+  }
+
+  @Test
+  public void itShouldNotCacheAWorkflowInvalidatedWhileItIsLoaded() {
+    WorkflowCache workflowCache = new WorkflowCache(100);
+
+    workflowCache.get("workflow", () -> {
+      // a command changing the workflow commits while it is read
+      workflowCache.invalidate("workflow");
+      return new Workflow("workflow", "A workflow");
+    });
+
+    assertThat(workflowCache.getSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void itShouldInvalidateAWorkflowOnlyOnceTheTransactionCommits() {
+    WorkflowCache workflowCache = new WorkflowCache(100);
+    workflowCache.get("workflow", () -> new Workflow("workflow", "A workflow"));
+    TransactionSynchronizationManager.initSynchronization();
+
+    workflowCache.invalidateOnCommit("workflow");
+    assertThat(workflowCache.getSize()).isEqualTo(1);
+
+    for (TransactionSynchronization synchronization :
+      TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCommit();
+    }
+    assertThat(workflowCache.getSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void itShouldEvictWorkflowsAccordingToTheirNumberOfWorkItems()
+    throws StageNotInProcessException {
+    WorkflowCache workflowCache = new WorkflowCache(100);
+    Workflow largeWorkflow = this.workflowWithWorkItems("large", 150);
+
+    workflowCache.get("small", () -> new Workflow("small", "A small workflow"));
+    workflowCache.get("large", () -> largeWorkflow);
+
+    assertThat(workflowCache.getEvictionCount()).isGreaterThan(0);
+    assertThat(workflowCache.getSize()).isEqualTo(1);
+  }
+
+  private Workflow workflowWithWorkItems(final String workflowId, final int workItems)
+    throws StageNotInProcessException {
+    Workflow workflow = new Workflow(workflowId, "A large workflow");
+    Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "Stage");
+    for (int i = 0; i < workItems; i++) {
+      workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(), "Work item", "");
+    }
+    return workflow;
+  }
+
+}
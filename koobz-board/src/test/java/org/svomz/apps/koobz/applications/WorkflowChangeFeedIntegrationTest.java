@@ -0,0 +1,189 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowCommand;
+import org.svomz.apps.koobz.application.WorkflowEventSink;
+import org.svomz.apps.koobz.application.WorkflowEvents;
+import org.svomz.apps.koobz.application.WorkflowImportListener;
+import org.svomz.apps.koobz.application.WorkflowImportProgress;
+import org.svomz.apps.koobz.application.WorkflowImportService;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.infrastructure.domain.KanbanRepositoryFactoryBean;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks against an in memory database that the commands leave the changes they made in the change
+ * feed of the workflow and push them to its subscribers, and that the versions whose changes are
+ * not kept require a resync.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = WorkflowChangeFeedIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+@TestPropertySource(properties = "koobz.changes.window=3")
+public class WorkflowChangeFeedIntegrationTest {
+
+  @Autowired
+  private WorkflowApplicationService workflowApplicationService;
+
+  @Autowired
+  private WorkflowQueryService workflowQueryService;
+
+  @Autowired
+  private WorkflowImportService workflowImportService;
+
+  @Test
+  public void theCommandsShouldLeaveTheirChangesInTheFeed() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    Stage toDo = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    Stage done = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "Done");
+    long version = this.workflowQueryService.findBoardVersion(workflow.getId());
+
+    WorkItem workItem = this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(),
+      toDo.getId(), "A work item", "");
+    this.workflowApplicationService.applyCommands(workflow.getId(), Arrays.asList(
+      WorkflowCommand.changeWorkItem(workItem.getId(), "A new title", "A description"),
+      WorkflowCommand.moveWorkItem(workItem.getId(), done.getId())));
+
+    WorkflowChangeFeed feed = this.workflowQueryService.findChangesSince(workflow.getId(),
+      version);
+
+    assertThat(feed.isResyncRequired()).isFalse();
+    assertThat(feed.getVersion()).isEqualTo(version + 2);
+    List<JsonNode> changes = parse(feed.getChanges());
+    assertThat(changes).extracting(change -> change.get("type").asText())
+      .containsExactly("workItemAdded", "workItemChanged", "workItemMoved");
+    assertThat(changes).extracting(change -> change.get("version").asLong())
+      .containsExactly(version + 1, version + 2, version + 2);
+    assertThat(changes.get(1).get("name").asText()).isEqualTo("A new title");
+    assertThat(changes.get(2).get("stageId").asText()).isEqualTo(done.getId());
+  }
+
+  @Test
+  public void theVersionsOutOfTheWindowShouldRequireAResync() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    for (int i = 0; i < 5; i++) {
+      this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "Stage " + i);
+    }
+    long version = this.workflowQueryService.findBoardVersion(workflow.getId());
+
+    assertThat(this.workflowQueryService.findChangesSince(workflow.getId(), version - 3)
+      .getChanges()).hasSize(3);
+    assertThat(this.workflowQueryService.findChangesSince(workflow.getId(), version - 4)
+      .isResyncRequired()).isTrue();
+  }
+
+  @Test
+  public void anImportShouldRequireAResync() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    long version = this.workflowQueryService.findBoardVersion(workflow.getId());
+
+    this.workflowImportService.importRecords(workflow.getId(), new ByteArrayInputStream(
+        "{\"type\": \"stage\", \"name\": \"Done\"}".getBytes(StandardCharsets.UTF_8)),
+      new WorkflowImportListener() {
+        @Override
+        public void rejected(final long line, final String reason) {
+        }
+
+        @Override
+        public void committed(final WorkflowImportProgress progress) {
+        }
+      });
+
+    WorkflowChangeFeed feed = this.workflowQueryService.findChangesSince(workflow.getId(),
+      version);
+    assertThat(feed.isResyncRequired()).isTrue();
+    assertThat(feed.getVersion()).isGreaterThan(version);
+  }
+
+  @Test
+  public void aSubscriberShouldCatchUpThenGetTheCommittedChanges() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    long version = this.workflowQueryService.findBoardVersion(workflow.getId());
+    this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+
+    BlockingQueue<WorkflowChangeFeed> received = new LinkedBlockingQueue<>();
+    WorkflowEvents.Subscription subscription = this.workflowQueryService.subscribeToChanges(
+      workflow.getId(), OptionalLong.of(version), new WorkflowEventSink() {
+        @Override
+        public void send(final WorkflowChangeFeed feed) {
+          received.add(feed);
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+        }
+      });
+    try {
+      this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "Done");
+
+      WorkflowChangeFeed catchUp = received.poll(5, TimeUnit.SECONDS);
+      assertThat(catchUp.getVersion()).isEqualTo(version + 1);
+      assertThat(parse(catchUp.getChanges()).get(0).get("name").asText()).isEqualTo("To do");
+      WorkflowChangeFeed committed = received.poll(5, TimeUnit.SECONDS);
+      assertThat(committed.getVersion()).isEqualTo(version + 2);
+      assertThat(parse(committed.getChanges()).get(0).get("name").asText()).isEqualTo("Done");
+    } finally {
+      subscription.cancel();
+    }
+  }
+
+  private static List<JsonNode> parse(final List<String> changes) throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    List<JsonNode> nodes = new ArrayList<>(changes.size());
+    for (String change : changes) {
+      nodes.add(mapper.readTree(change));
+    }
+    return nodes;
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @ComponentScan(basePackages = {
+    "org.svomz.apps.koobz.application",
+    "org.svomz.apps.koobz.infrastructure.readmodel",
+    "org.svomz.apps.koobz.infrastructure.imports",
+    "org.svomz.apps.koobz.infrastructure.exports"
+  })
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
@@ -0,0 +1,134 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowChangeLog;
+import org.svomz.apps.koobz.application.WorkflowChangeRepository;
+import org.svomz.apps.koobz.application.WorkflowEvents;
+import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+public class WorkflowChangeLogUnitTest {
+
+  @Test
+  public void itShouldGiveTheChangesMadeSinceAVersion() throws Exception {
+    InMemoryChangeRepository repository = new InMemoryChangeRepository();
+    WorkflowChangeLog changeLog = new WorkflowChangeLog(repository, mock(WorkflowEvents.class), 10);
+    Workflow workflow = new Workflow("workflow", "A workflow");
+
+    workflow.beginChange();
+    Stage stage = workflow.addStageToWorkflow("stage", "To do");
+    changeLog.record(repository.saved(workflow));
+    workflow.beginChange();
+    workflow.addWorkItemToStage(stage.getId(), "workItem", "A work item", null);
+    stage.setName("Doing");
+    changeLog.record(repository.saved(workflow));
+
+    WorkflowChangeFeed feed = changeLog.changesSince("workflow", 2);
+
+    assertThat(feed.isResyncRequired()).isFalse();
+    assertThat(feed.getVersion()).isEqualTo(3);
+    assertThat(feed.getChanges()).containsExactly(
+      "{\"version\":3,\"type\":\"workItemAdded\",\"stageId\":\"stage\","
+        + "\"workItemId\":\"workItem\",\"name\":\"A work item\"}",
+      "{\"version\":3,\"type\":\"stageRenamed\",\"stageId\":\"stage\",\"name\":\"Doing\"}");
+    assertThat(changeLog.changesSince("workflow", 1).getChanges()).hasSize(3);
+    assertThat(changeLog.changesSince("workflow", 3).getChanges()).isEmpty();
+  }
+
+  @Test
+  public void itShouldRequireAResyncOnceTheChangesHaveBeenCompacted() throws Exception {
+    InMemoryChangeRepository repository = new InMemoryChangeRepository();
+    WorkflowChangeLog changeLog = new WorkflowChangeLog(repository, mock(WorkflowEvents.class), 2);
+    Workflow workflow = new Workflow("workflow", "A workflow");
+    for (int i = 0; i < 4; i++) {
+      workflow.beginChange();
+      workflow.addStageToWorkflow(UUID.randomUUID().toString(), "Stage " + i);
+      changeLog.record(repository.saved(workflow));
+    }
+
+    // the versions 4 and 5 are kept
+    assertThat(changeLog.changesSince("workflow", 3).getChanges()).hasSize(2);
+    WorkflowChangeFeed feed = changeLog.changesSince("workflow", 2);
+    assertThat(feed.isResyncRequired()).isTrue();
+    assertThat(feed.getVersion()).isEqualTo(5);
+    assertThat(feed.getChanges()).isEmpty();
+  }
+
+  @Test
+  public void itShouldRequireAResyncForVersionsMadeWithoutChanges() throws Exception {
+    InMemoryChangeRepository repository = new InMemoryChangeRepository();
+    WorkflowChangeLog changeLog = new WorkflowChangeLog(repository, mock(WorkflowEvents.class), 10);
+    Workflow workflow = new Workflow("workflow", "A workflow");
+    workflow.beginChange();
+    workflow.setName("Renamed");
+    changeLog.record(repository.saved(workflow));
+
+    // an import makes the version 3 without recording its changes
+    repository.versions.put("workflow", 3L);
+
+    assertThat(changeLog.changesSince("workflow", 1).isResyncRequired()).isTrue();
+    assertThat(changeLog.changesSince("workflow", 2).isResyncRequired()).isTrue();
+    assertThat(changeLog.changesSince("workflow", 3).isResyncRequired()).isFalse();
+  }
+
+  @Test
+  public void itShouldRequireAResyncForAVersionToCome() throws Exception {
+    InMemoryChangeRepository repository = new InMemoryChangeRepository();
+    WorkflowChangeLog changeLog = new WorkflowChangeLog(repository, mock(WorkflowEvents.class), 10);
+    repository.saved(new Workflow("workflow", "A workflow"));
+
+    assertThat(changeLog.changesSince("workflow", 2).isResyncRequired()).isTrue();
+  }
+
+  @Test(expected = WorkflowNotFoundException.class)
+  public void itShouldThrowWorkflowNotFoundExceptionIfTheWorkflowDoesNotExist() throws Exception {
+    new WorkflowChangeLog(new InMemoryChangeRepository(), mock(WorkflowEvents.class), 10).changesSince("workflow", 1);
+  }
+
+  private static class InMemoryChangeRepository implements WorkflowChangeRepository {
+
+    private final Map<String, Long> versions = new HashMap<>();
+    private final List<WorkflowChangeFeed.Entry> entries = new ArrayList<>();
+
+    private Workflow saved(final Workflow workflow) {
+      this.versions.put(workflow.getId(), workflow.getVersion());
+      return workflow;
+    }
+
+    @Override
+    public void append(final String workflowId, final long version, final List<String> changes) {
+      changes.forEach(change -> this.entries.add(new WorkflowChangeFeed.Entry(version, change)));
+    }
+
+    @Override
+    public void compact(final String workflowId, final long upToVersion) {
+      this.entries.removeIf(entry -> entry.getVersion() <= upToVersion);
+    }
+
+    @Override
+    public List<WorkflowChangeFeed.Entry> findSince(final String workflowId, final long version) {
+      List<WorkflowChangeFeed.Entry> since = new ArrayList<>();
+      this.entries.stream().filter(entry -> entry.getVersion() > version).forEach(since::add);
+      return since;
+    }
+
+    @Override
+    public OptionalLong findWorkflowVersion(final String workflowId) {
+      Long version = this.versions.get(workflowId);
+      return version == null ? OptionalLong.empty() : OptionalLong.of(version);
+    }
+  }
+
+}
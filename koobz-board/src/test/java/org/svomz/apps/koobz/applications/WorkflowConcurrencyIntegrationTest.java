@@ -0,0 +1,293 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.svomz.apps.koobz.application.ConflictRetryAspect;
+import org.svomz.apps.koobz.application.ExpectedWorkflowVersion;
+import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowDocument;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.application.WorkflowVersionMismatchException;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+import org.svomz.apps.koobz.infrastructure.domain.KanbanRepositoryFactoryBean;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowInputModel;
+import org.svomz.apps.koobz.ports.adapters.rest.resources.WorkflowResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+import javax.ws.rs.core.Response;
+
+/**
+ * Checks against an in memory database that concurrent commands on the same board do not lose
+ * any change: a command based on a stale workflow fails to commit and is run again, and the
+ * commands of a board run in its lane reuse the workflow it keeps in memory.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = WorkflowConcurrencyIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+@TestPropertySource(properties = "koobz.conflict-retry.max-attempts=100")
+public class WorkflowConcurrencyIntegrationTest {
+
+  private static final int WORK_ITEMS = 8;
+  private static final int THREADS = 4;
+  private static final int COMMANDS_PER_THREAD = 10;
+
+  @Autowired
+  private WorkflowApplicationService workflowApplicationService;
+
+  @Autowired
+  private WorkflowQueryService workflowQueryService;
+
+  @Autowired
+  private WorkflowRepository workflowRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private ConflictRetryAspect conflictRetryAspect;
+
+  @Autowired
+  private WorkflowResource workflowResource;
+
+  private String workflowId;
+  private String stageId;
+  private final List<String> workItemIds = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    this.workflowId = this.workflowApplicationService.createWorkflow("A board").getId();
+    this.stageId = this.workflowApplicationService.addStageToWorkflow(this.workflowId, "To do")
+      .getId();
+    for (int i = 0; i < WORK_ITEMS; i++) {
+      this.workItemIds.add(this.workflowApplicationService
+        .addWorkItemToWorkflow(this.workflowId, this.stageId, "Work item " + i, "").getId());
+    }
+  }
+
+  @After
+  public void tearDown() {
+    ExpectedWorkflowVersion.clear();
+  }
+
+  @Test
+  public void aChangeMadeToAStaleWorkflowShouldNotBeCommitted() throws Exception {
+    ExecutorService otherUser = Executors.newSingleThreadExecutor();
+    try {
+      new TransactionTemplate(this.transactionManager).execute(status -> {
+        Workflow workflow = this.workflowRepository.findOne(this.workflowId);
+        workflow.setName("Mine");
+        this.await(otherUser.submit(() -> {
+          this.workflowApplicationService.changeWorkflowName(this.workflowId, "Theirs");
+          return null;
+        }));
+        return null;
+      });
+      fail("The workflow has been changed since it has been loaded");
+    } catch (OptimisticLockingFailureException e) {
+      assertThat(this.workflowQueryService.findBoard(this.workflowId).get().getName())
+        .isEqualTo("Theirs");
+    } finally {
+      otherUser.shutdown();
+    }
+  }
+
+  @Test
+  public void aChangeMadeOnlyToAWorkItemOfAStaleWorkflowShouldNotBeCommitted() throws Exception {
+    ExecutorService otherUser = Executors.newSingleThreadExecutor();
+    try {
+      new TransactionTemplate(this.transactionManager).execute(status -> {
+        try {
+          this.workflowRepository.findAggregate(this.workflowId)
+            .changePriorityOfWorkItemWithId(this.workItemIds.get(0), WORK_ITEMS - 1);
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+        this.await(otherUser.submit(() -> {
+          this.workflowApplicationService.changeWorkflowName(this.workflowId, "Theirs");
+          return null;
+        }));
+        return null;
+      });
+      fail("The workflow has been changed since it has been loaded");
+    } catch (OptimisticLockingFailureException e) {
+      assertThat(this.workflowQueryService.findBoard(this.workflowId).get()
+        .workItemsInStage(this.stageId).get(0).getId()).isEqualTo(this.workItemIds.get(0));
+    } finally {
+      otherUser.shutdown();
+    }
+  }
+
+  @Test
+  public void concurrentCommandsOnABoardShouldAllBeApplied() throws Exception {
+    long version = this.workflowQueryService.findBoardVersion(this.workflowId);
+    ExecutorService users = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> commands = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      commands.add(users.submit(() -> {
+        start.await();
+        for (int j = 0; j < COMMANDS_PER_THREAD; j++) {
+          String workItemId = this.workItemIds.get(ThreadLocalRandom.current().nextInt(WORK_ITEMS));
+          this.workflowApplicationService.changeWorkItemPriority(this.workflowId, workItemId,
+            ThreadLocalRandom.current().nextInt(WORK_ITEMS));
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    try {
+      for (Future<?> command : commands) {
+        command.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      users.shutdown();
+    }
+
+    Workflow workflow = this.workflowQueryService.findBoard(this.workflowId).get();
+    assertThat(workflow.getVersion()).isEqualTo(version + THREADS * COMMANDS_PER_THREAD);
+    List<String> orderedWorkItemIds = workflow.workItemsInStage(this.stageId).stream()
+      .map(WorkItem::getId)
+      .collect(Collectors.toList());
+    assertThat(orderedWorkItemIds).containsOnlyElementsOf(this.workItemIds).hasSize(WORK_ITEMS);
+    assertThat(this.workflowQueryService.findBoardDocument(this.workflowId).getJson())
+      .isEqualTo(WorkflowDocument.of(workflow).toJson());
+  }
+
+  @Test
+  public void aCommandShouldReuseTheWorkflowKeptInMemoryByItsLane() throws Exception {
+    Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    this.workflowApplicationService.changeWorkflowName(this.workflowId, "Renamed");
+
+    assertThat(statistics.getEntityLoadCount()).isEqualTo(0);
+    assertThat(this.workflowQueryService.findBoard(this.workflowId).get().getName())
+      .isEqualTo("Renamed");
+  }
+
+  @Test
+  public void aWorkflowChangedOutsideOfItsLaneShouldBeReadAgain() throws Exception {
+    long version = this.workflowQueryService.findBoardVersion(this.workflowId);
+    long conflicts = this.conflictRetryAspect.getConflictCount();
+    new TransactionTemplate(this.transactionManager).execute(status -> {
+      this.workflowRepository.findOne(this.workflowId).setName("Changed elsewhere");
+      return null;
+    });
+
+    this.workflowApplicationService.changeWorkItemInformation(this.workflowId,
+      this.workItemIds.get(0), "New title", "New description");
+
+    Workflow workflow = this.workflowQueryService.findBoard(this.workflowId).get();
+    assertThat(workflow.getName()).isEqualTo("Changed elsewhere");
+    assertThat(workflow.workItemOfId(this.workItemIds.get(0)).get().getTitle())
+      .isEqualTo("New title");
+    assertThat(workflow.getVersion()).isEqualTo(version + 2);
+    assertThat(this.conflictRetryAspect.getConflictCount()).isEqualTo(conflicts + 1);
+  }
+
+  @Test
+  public void aRenameOfAWorkflowChangedOutsideOfItsLaneShouldBeRetried() throws Exception {
+    long retries = this.conflictRetryAspect.getRetryCount();
+    new TransactionTemplate(this.transactionManager).execute(status -> {
+      this.workflowRepository.findOne(this.workflowId).setName("Changed elsewhere");
+      return null;
+    });
+
+    Response response = this.workflowResource.updateBoard(this.workflowId,
+      new WorkflowInputModel("Renamed"));
+
+    assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+    assertThat(this.workflowQueryService.findBoard(this.workflowId).get().getName())
+      .isEqualTo("Renamed");
+    assertThat(this.conflictRetryAspect.getRetryCount()).isEqualTo(retries + 1);
+  }
+
+  @Test
+  public void aCommandShouldBeRejectedWhenTheBoardIsNotAtTheExpectedVersion() throws Exception {
+    long version = this.workflowQueryService.findBoardVersion(this.workflowId);
+    this.workflowApplicationService.changeWorkflowName(this.workflowId, "Changed by someone");
+
+    ExpectedWorkflowVersion.set(version);
+    try {
+      this.workflowApplicationService.changeWorkflowName(this.workflowId, "Mine");
+      fail("The board is not at the expected version anymore");
+    } catch (WorkflowVersionMismatchException e) {
+      assertThat(this.workflowQueryService.findBoard(this.workflowId).get().getName())
+        .isEqualTo("Changed by someone");
+    }
+  }
+
+  @Test
+  public void aCommandShouldBeAppliedWhenTheBoardIsAtTheExpectedVersion() throws Exception {
+    ExpectedWorkflowVersion.set(this.workflowQueryService.findBoardVersion(this.workflowId));
+
+    this.workflowApplicationService.changeWorkflowName(this.workflowId, "Mine");
+
+    assertThat(this.workflowQueryService.findBoard(this.workflowId).get().getName())
+      .isEqualTo("Mine");
+  }
+
+  private void await(final Future<?> future) {
+    try {
+      future.get(1, TimeUnit.MINUTES);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  @ComponentScan(basePackages = {"org.svomz.apps.koobz.application",
+    "org.svomz.apps.koobz.infrastructure.readmodel",
+    "org.svomz.apps.koobz.infrastructure.imports",
+    "org.svomz.apps.koobz.infrastructure.exports"})
+  static class Config {
+
+    @Bean
+    public WorkflowResource workflowResource(final WorkflowApplicationService applicationService,
+      final WorkflowQueryService queryService) {
+      return new WorkflowResource(null, applicationService, queryService);
+    }
+  }
+
+}
@@ -0,0 +1,107 @@
+package org.svomz.apps.koobz.applications;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.svomz.apps.koobz.application.WorkflowDocument;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that patching a document the way the commands do gives the same document as rendering
+ * the changed workflow again.
+ */
+public class WorkflowDocumentUnitTest {
+
+  private Workflow workflow;
+  private WorkflowDocument document;
+  private Stage todo;
+  private Stage done;
+
+  @Before
+  public void setUp() throws Exception {
+    this.workflow = new Workflow("workflow", "A workflow");
+    this.todo = this.workflow.addStageToWorkflow("todo", "To do");
+    this.done = this.workflow.addStageToWorkflow("done", "Done");
+    for (int i = 0; i < 4; i++) {
+      this.workflow.addWorkItemToStage("todo", "item" + i, "Work item " + i, "Description " + i);
+    }
+    this.document = WorkflowDocument.parse(WorkflowDocument.of(this.workflow).toJson());
+  }
+
+  @Test
+  public void itShouldRenderTheStagesAndWorkItemsInOrder() {
+    assertThat(this.document.toJson()).isEqualTo("{\"id\":\"workflow\",\"name\":\"A workflow\","
+      + "\"stages\":[{\"id\":\"todo\",\"name\":\"To do\",\"order\":0,\"workItems\":["
+      + "{\"id\":\"item0\",\"title\":\"Work item 0\",\"order\":0,\"description\":\"Description 0\"},"
+      + "{\"id\":\"item1\",\"title\":\"Work item 1\",\"order\":1,\"description\":\"Description 1\"},"
+      + "{\"id\":\"item2\",\"title\":\"Work item 2\",\"order\":2,\"description\":\"Description 2\"},"
+      + "{\"id\":\"item3\",\"title\":\"Work item 3\",\"order\":3,\"description\":\"Description 3\"}]},"
+      + "{\"id\":\"done\",\"name\":\"Done\",\"order\":1,\"workItems\":[]}]}");
+    assertThat(this.document.getWorkflowId()).isEqualTo("workflow");
+  }
+
+  @Test
+  public void itShouldPatchTheWorkflowAndItsStages() throws Exception {
+    this.workflow.setName("New name");
+    this.document.rename("New name");
+    this.todo.setName("Backlog");
+    this.document.renameStage("todo", "Backlog");
+    Stage review = this.workflow.addStageToWorkflow("review", "Review");
+    this.document.addStage(review);
+    this.workflow.removeStageWithId("done");
+    this.document.removeStage("done");
+
+    this.assertThatDocumentMatchesWorkflow();
+  }
+
+  @Test
+  public void itShouldPatchTheWorkItems() throws Exception {
+    WorkItem added = this.workflow.addWorkItemToStage("done", "item4", "Work item 4", "");
+    this.document.addWorkItem("done", added);
+
+    WorkItem changed = this.workflow.workItemOfId("item1").get();
+    changed.setTitle("New title");
+    changed.setDescription("New description");
+    this.document.updateWorkItem(changed);
+
+    this.workflow.moveWorkItemWithIdToStageWithId("item0", "done");
+    this.document.moveWorkItemToStage("item0", "done");
+
+    WorkItem moved = this.workflow.changePriorityOfWorkItemWithId("item3", 0);
+    this.document.moveWorkItem("item3", moved.getPriority());
+
+    this.workflow.removeWorkItemWithId("item4");
+    this.document.removeWorkItem("item4");
+
+    this.assertThatDocumentMatchesWorkflow();
+  }
+
+  @Test
+  public void itShouldPatchTheArchivedWorkItems() throws Exception {
+    this.workflow.archiveWorkItemWithId("item1");
+    this.document.removeWorkItem("item1");
+    this.assertThatDocumentMatchesWorkflow();
+
+    WorkItem sentBack = this.workflow.sendBackToWorkflowWorkItemWithId("item1");
+    this.document.insertWorkItem("todo", sentBack, sentBack.getPriority());
+    this.assertThatDocumentMatchesWorkflow();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void itShouldRefuseToPatchAWorkItemItDoesNotContain() {
+    this.document.removeWorkItem("unknown");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void itShouldRefuseToPatchAStageItDoesNotContain() {
+    this.document.renameStage("unknown", "A name");
+  }
+
+  private void assertThatDocumentMatchesWorkflow() {
+    assertThat(this.document.toJson()).isEqualTo(WorkflowDocument.of(this.workflow).toJson());
+  }
+
+}
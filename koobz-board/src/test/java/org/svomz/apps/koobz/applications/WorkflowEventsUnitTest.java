@@ -0,0 +1,203 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowEventSink;
+import org.svomz.apps.koobz.application.WorkflowEvents;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class WorkflowEventsUnitTest {
+
+  private final WorkflowEvents workflowEvents = new WorkflowEvents(4, 2, 3600);
+
+  @After
+  public void tearDown() throws InterruptedException {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    this.workflowEvents.shutdown();
+  }
+
+  @Test
+  public void itShouldSendTheChangesAfterTheCatchUpSkippingTheVersionsAlreadySent()
+    throws Exception {
+    RecordingSink sink = new RecordingSink(3);
+    WorkflowEvents.Subscription subscription = this.workflowEvents.subscribe("workflow", sink);
+
+    // published while the subscriber catches up
+    this.workflowEvents.publish("workflow", feed(3));
+    this.workflowEvents.publish("workflow", feed(4));
+    subscription.start(3, Optional.of(feed(3)));
+    this.workflowEvents.publish("workflow", feed(5));
+    this.workflowEvents.publish("other", feed(6));
+
+    assertThat(sink.await()).isTrue();
+    assertThat(sink.versions()).containsExactly(3L, 4L, 5L);
+  }
+
+  @Test
+  public void itShouldDropASubscriberReadingTooSlowly() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    BlockingSink slowSink = new BlockingSink(release);
+    RecordingSink sink = new RecordingSink(6);
+    this.workflowEvents.subscribe("workflow", slowSink).start(0, Optional.empty());
+    this.workflowEvents.subscribe("workflow", sink).start(0, Optional.empty());
+
+    // the first change is being written, the next ones fill the buffer of the slow subscriber while
+    // the other subscriber keeps up
+    for (int version = 1; version <= 6; version++) {
+      this.workflowEvents.publish("workflow", feed(version));
+      if (version == 1) {
+        assertThat(slowSink.sending.await(5, TimeUnit.SECONDS)).isTrue();
+      }
+      assertThat(sink.awaitCount(version)).isTrue();
+    }
+    assertThat(this.workflowEvents.getSubscriberCount()).isEqualTo(1);
+    // closed by its writer once done with it, not while it is still sending
+    assertThat(slowSink.closing.getCount()).isEqualTo(1);
+    release.countDown();
+
+    assertThat(slowSink.closing.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(slowSink.closingThread).startsWith("workflow-events-");
+    assertThat(this.workflowEvents.getDroppedCount()).isEqualTo(1);
+    assertThat(this.workflowEvents.getSubscriberCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void itShouldRemoveASubscriberWhichIsGone() throws Exception {
+    RecordingSink sink = new RecordingSink(1);
+    sink.gone = true;
+    this.workflowEvents.subscribe("workflow", sink).start(0, Optional.empty());
+
+    this.workflowEvents.publish("workflow", feed(1));
+
+    assertThat(sink.closing.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(this.workflowEvents.getSubscriberCount()).isEqualTo(0);
+    assertThat(this.workflowEvents.getWorkflowCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void itShouldCloseTheSinkOfASubscriptionEndedBeforeItStarted() throws Exception {
+    RecordingSink sink = new RecordingSink(1);
+
+    this.workflowEvents.subscribe("workflow", sink).cancel();
+
+    assertThat(sink.closing.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(this.workflowEvents.getSubscriberCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void itShouldPublishTheChangesOnlyOnceTheTransactionCommits() throws Exception {
+    RecordingSink sink = new RecordingSink(1);
+    this.workflowEvents.subscribe("workflow", sink).start(0, Optional.empty());
+    TransactionSynchronizationManager.initSynchronization();
+
+    this.workflowEvents.publishOnCommit("workflow", feed(1));
+    assertThat(this.workflowEvents.getPublishedCount()).isEqualTo(0);
+
+    for (TransactionSynchronization synchronization :
+      TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCommit();
+    }
+    assertThat(sink.await()).isTrue();
+    assertThat(sink.versions()).containsExactly(1L);
+  }
+
+  private static WorkflowChangeFeed feed(final long version) {
+    return WorkflowChangeFeed.of(version,
+      Collections.singletonList("{\"version\":" + version + "}"));
+  }
+
+  private static class RecordingSink implements WorkflowEventSink {
+
+    private final List<WorkflowChangeFeed> feeds = new CopyOnWriteArrayList<>();
+    private final CountDownLatch received;
+    private final CountDownLatch closing = new CountDownLatch(1);
+    private volatile boolean gone;
+
+    private RecordingSink(final int expected) {
+      this.received = new CountDownLatch(expected);
+    }
+
+    @Override
+    public void send(final WorkflowChangeFeed feed) throws IOException {
+      if (this.gone) {
+        throw new IOException("Gone");
+      }
+      this.feeds.add(feed);
+      this.received.countDown();
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+    }
+
+    @Override
+    public void close() {
+      this.closing.countDown();
+    }
+
+    private boolean await() throws InterruptedException {
+      return this.received.await(5, TimeUnit.SECONDS);
+    }
+
+    private boolean awaitCount(final int count) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (this.feeds.size() < count && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      return this.feeds.size() >= count;
+    }
+
+    private List<Long> versions() {
+      List<Long> versions = new CopyOnWriteArrayList<>();
+      this.feeds.forEach(feed -> versions.add(feed.getVersion()));
+      return versions;
+    }
+  }
+
+  private static class BlockingSink implements WorkflowEventSink {
+
+    private final CountDownLatch release;
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch closing = new CountDownLatch(1);
+    private volatile String closingThread;
+
+    private BlockingSink(final CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public void send(final WorkflowChangeFeed feed) throws IOException {
+      this.sending.countDown();
+      try {
+        this.release.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+    }
+
+    @Override
+    public void close() {
+      this.closingThread = Thread.currentThread().getName();
+      this.closing.countDown();
+    }
+  }
+
+}
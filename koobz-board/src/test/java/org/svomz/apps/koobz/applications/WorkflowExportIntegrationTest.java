@@ -0,0 +1,92 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowExportService;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.infrastructure.domain.KanbanRepositoryFactoryBean;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Checks against the database that the export of a board gives the board as it is.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = WorkflowExportIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+public class WorkflowExportIntegrationTest {
+
+  @Autowired
+  private WorkflowApplicationService workflowApplicationService;
+
+  @Autowired
+  private WorkflowExportService workflowExportService;
+
+  @Autowired
+  private WorkflowQueryService workflowQueryService;
+
+  @Test
+  public void theExportShouldGiveTheBoardAsItIs() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    Stage toDo = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "Done");
+    WorkItem first = this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(),
+      toDo.getId(), "First", "");
+    WorkItem second = this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(),
+      toDo.getId(), "Second", "");
+    WorkItem third = this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(),
+      toDo.getId(), "Third", "");
+    this.workflowApplicationService.changeWorkItemPriority(workflow.getId(), third.getId(), 0);
+    this.workflowApplicationService.archiveWorkItem(workflow.getId(), second.getId());
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    this.workflowExportService.export(workflow.getId(), output);
+    JsonNode export = new ObjectMapper().readTree(output.toByteArray());
+
+    assertThat(export.get("name").asText()).isEqualTo("A workflow");
+    assertThat(export.get("version").asLong()).isEqualTo(
+      this.workflowQueryService.findBoardVersion(workflow.getId()));
+    assertThat(export.get("stages").findValuesAsText("name")).containsExactly("To do", "Done");
+    assertThat(export.get("stages").get(0).get("workItems").findValuesAsText("id"))
+      .containsExactly(third.getId(), first.getId());
+    assertThat(export.get("stages").get(1).get("workItems").size()).isEqualTo(0);
+    assertThat(export.get("archivedWorkItems").findValuesAsText("id"))
+      .containsExactly(second.getId());
+    assertThat(export.get("archivedWorkItems").get(0).get("stageId").asText())
+      .isEqualTo(toDo.getId());
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @ComponentScan(basePackages = {
+    "org.svomz.apps.koobz.application",
+    "org.svomz.apps.koobz.infrastructure.readmodel",
+    "org.svomz.apps.koobz.infrastructure.imports",
+    "org.svomz.apps.koobz.infrastructure.exports"
+  })
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
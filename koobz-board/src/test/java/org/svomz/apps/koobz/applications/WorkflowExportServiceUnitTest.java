@@ -0,0 +1,62 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.svomz.apps.koobz.application.WorkflowExportService;
+import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class WorkflowExportServiceUnitTest {
+
+  @Test
+  public void itShouldWriteTheRowsAsASingleDocument() throws Exception {
+    WorkflowExportService exportService = new WorkflowExportService((workflowId, handler) -> {
+      handler.workflow(workflowId, "A workflow", 3);
+      handler.stage("s1", "To do");
+      handler.workItem("w1", "First", "The first one");
+      handler.workItem("w2", "Second", null);
+      handler.stage("s2", "Done");
+      handler.archivedWorkItem("w3", "Third", "", "s2");
+      return true;
+    });
+
+    assertThat(this.export(exportService, "b1")).isEqualTo("{\"id\":\"b1\","
+      + "\"name\":\"A workflow\",\"version\":3,\"stages\":["
+      + "{\"id\":\"s1\",\"name\":\"To do\",\"workItems\":["
+      + "{\"id\":\"w1\",\"title\":\"First\",\"description\":\"The first one\"},"
+      + "{\"id\":\"w2\",\"title\":\"Second\",\"description\":null}]},"
+      + "{\"id\":\"s2\",\"name\":\"Done\",\"workItems\":[]}],"
+      + "\"archivedWorkItems\":["
+      + "{\"id\":\"w3\",\"title\":\"Third\",\"description\":\"\",\"stageId\":\"s2\"}]}");
+  }
+
+  @Test
+  public void itShouldWriteAnEmptyWorkflow() throws Exception {
+    WorkflowExportService exportService = new WorkflowExportService((workflowId, handler) -> {
+      handler.workflow(workflowId, "A workflow", 1);
+      return true;
+    });
+
+    assertThat(this.export(exportService, "b1")).isEqualTo("{\"id\":\"b1\","
+      + "\"name\":\"A workflow\",\"version\":1,\"stages\":[],\"archivedWorkItems\":[]}");
+  }
+
+  @Test(expected = WorkflowNotFoundException.class)
+  public void itShouldThrowWorkflowNotFoundExceptionIfTheWorkflowDoesNotExist() throws Exception {
+    WorkflowExportService exportService = new WorkflowExportService(
+      (workflowId, handler) -> false);
+
+    this.export(exportService, "b1");
+  }
+
+  private String export(final WorkflowExportService exportService, final String workflowId)
+    throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    exportService.export(workflowId, output);
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,348 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.svomz.apps.koobz.application.ExpectedWorkflowVersion;
+import org.svomz.apps.koobz.application.VersionedDocument;
+import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowDocument;
+import org.svomz.apps.koobz.application.WorkflowEventSink;
+import org.svomz.apps.koobz.application.WorkflowEvents;
+import org.svomz.apps.koobz.application.WorkflowImportListener;
+import org.svomz.apps.koobz.application.WorkflowImportProgress;
+import org.svomz.apps.koobz.application.WorkflowImportService;
+import org.svomz.apps.koobz.application.WorkflowNotFoundException;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.application.WorkflowVersionMismatchException;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.infrastructure.domain.KanbanRepositoryFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Checks against an in memory database that the imported stages and work items are appended to
+ * the workflow as if they had been added one at a time, batch after batch.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = WorkflowImportIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+@TestPropertySource(properties = "koobz.import.batch-size=2")
+public class WorkflowImportIntegrationTest {
+
+  @Autowired
+  private WorkflowApplicationService workflowApplicationService;
+
+  @Autowired
+  private WorkflowQueryService workflowQueryService;
+
+  @Autowired
+  private WorkflowImportService workflowImportService;
+
+  @Autowired
+  private WorkflowEvents workflowEvents;
+
+  @Test
+  public void theImportedRecordsShouldBeAppendedAsIfAddedOneAtATime() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    Stage toDo = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    WorkItem first = this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(),
+      toDo.getId(), "First", "");
+    long versionBefore = this.workflowQueryService.findBoardVersion(workflow.getId());
+
+    RecordingListener listener = new RecordingListener();
+    WorkflowImportProgress progress = this.workflowImportService.importRecords(workflow.getId(),
+      input(
+        "{\"type\": \"stage\", \"name\": \"Done\"}",
+        "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"Second\"}",
+        "{\"type\": \"workItem\", \"stage\": \"Done\", \"title\": \"Third\"}",
+        "{\"type\": \"workItem\", \"stage\": \"Doing\", \"title\": \"Lost\"}",
+        "{\"type\": \"workItem\", \"stageId\": \"" + toDo.getId() + "\", \"title\": \"Fourth\"}",
+        "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"\"}",
+        "not a record"),
+      listener);
+
+    // 7 records in batches of 2, the last one importing nothing
+    assertThat(progress.getImportedCount()).isEqualTo(4);
+    assertThat(progress.getRejectedCount()).isEqualTo(3);
+    assertThat(progress.getVersion()).isEqualTo(versionBefore + 3);
+    assertThat(listener.rejectedLines).containsExactly(4L, 6L, 7L);
+    assertThat(listener.committed).extracting(WorkflowImportProgress::getImportedCount)
+      .containsExactly(2L, 3L, 4L, 4L);
+
+    Workflow imported = this.workflowQueryService.findBoard(workflow.getId()).get();
+    assertThat(imported.getVersion()).isEqualTo(progress.getVersion());
+    assertThat(stagesOf(imported)).extracting(Stage::getName).containsExactly("To do", "Done");
+    assertThat(titlesOf(stagesOf(imported).get(0)))
+      .containsExactly("First", "Second", "Fourth");
+    assertThat(titlesOf(stagesOf(imported).get(1))).containsExactly("Third");
+
+    VersionedDocument document = this.workflowQueryService.findBoardDocument(workflow.getId());
+    assertThat(document.getVersion()).isEqualTo(progress.getVersion());
+    assertThat(document.getJson()).isEqualTo(WorkflowDocument.of(imported).toJson());
+
+    // the commands of the workflow go on from the imported version
+    this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(), toDo.getId(), "Fifth",
+      "");
+    this.workflowApplicationService.changeWorkItemPriority(workflow.getId(), first.getId(), 3);
+    Workflow changed = this.workflowQueryService.findBoard(workflow.getId()).get();
+    assertThat(titlesOf(stagesOf(changed).get(0)))
+      .containsExactly("Second", "Fourth", "Fifth", "First");
+    assertThat(changed.getVersion()).isEqualTo(progress.getVersion() + 2);
+  }
+
+  @Test
+  public void aCommandBasedOnTheImportedVersionShouldBeApplied() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    Stage toDo = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+
+    // the lane of the workflow keeps the workflow it read for the command above
+    WorkflowImportProgress progress = this.workflowImportService.importRecords(workflow.getId(),
+      input("{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"First\"}"),
+      new RecordingListener());
+
+    ExpectedWorkflowVersion.set(progress.getVersion());
+    try {
+      this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(), toDo.getId(),
+        "Second", "");
+    } finally {
+      ExpectedWorkflowVersion.clear();
+    }
+    assertThat(this.workflowQueryService.findBoardVersion(workflow.getId()))
+      .isEqualTo(progress.getVersion() + 1);
+  }
+
+  @Test
+  public void anImportBasedOnAnOutdatedVersionShouldImportNothing() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    long versionBefore = this.workflowQueryService.findBoardVersion(workflow.getId());
+    this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+
+    RecordingListener listener = new RecordingListener();
+    ExpectedWorkflowVersion.set(versionBefore);
+    try {
+      this.workflowImportService.importRecords(workflow.getId(),
+        input("{\"type\": \"stage\", \"name\": \"Done\"}"), listener);
+      fail("The import should have been rejected");
+    } catch (WorkflowVersionMismatchException e) {
+      assertThat(listener.committed).isEmpty();
+    } finally {
+      ExpectedWorkflowVersion.clear();
+    }
+    Workflow imported = this.workflowQueryService.findBoard(workflow.getId()).get();
+    assertThat(stagesOf(imported)).extracting(Stage::getName).containsExactly("To do");
+  }
+
+  @Test
+  public void onlyTheFirstBatchShouldBeBasedOnTheExpectedVersion() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    long versionBefore = this.workflowQueryService.findBoardVersion(workflow.getId());
+
+    ExpectedWorkflowVersion.set(versionBefore);
+    try {
+      WorkflowImportProgress progress = this.workflowImportService.importRecords(workflow.getId(),
+        input("{\"type\": \"stage\", \"name\": \"To do\"}",
+          "{\"type\": \"stage\", \"name\": \"Doing\"}",
+          "{\"type\": \"stage\", \"name\": \"Done\"}"),
+        new RecordingListener());
+
+      assertThat(progress.getImportedCount()).isEqualTo(3);
+      assertThat(progress.getVersion()).isEqualTo(versionBefore + 2);
+      // the version expected by the thread is left as it was
+      assertThat(ExpectedWorkflowVersion.get()).contains(versionBefore);
+    } finally {
+      ExpectedWorkflowVersion.clear();
+    }
+  }
+
+  @Test
+  public void theSubscribersShouldReadTheBoardAgainBeforeTheNextChanges() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    Stage toDo = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    RecordingSink sink = new RecordingSink(2);
+    WorkflowEvents.Subscription subscription = this.workflowEvents.subscribe(workflow.getId(),
+      sink);
+    subscription.start(this.workflowQueryService.findBoardVersion(workflow.getId()),
+      Optional.empty());
+    try {
+      WorkflowImportProgress progress = this.workflowImportService.importRecords(workflow.getId(),
+        input("{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"First\"}",
+          "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"Second\"}",
+          "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"Third\"}"),
+        new RecordingListener());
+      this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(), toDo.getId(),
+        "Fourth", "");
+
+      assertThat(sink.received.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(sink.feeds).extracting(WorkflowChangeFeed::getVersion)
+        .containsExactly(progress.getVersion(), progress.getVersion() + 1);
+      assertThat(sink.feeds).extracting(WorkflowChangeFeed::isResyncRequired)
+        .containsExactly(true, false);
+    } finally {
+      subscription.cancel();
+    }
+  }
+
+  @Test
+  public void theBatchesCommittedBeforeAFailureShouldBePublished() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    RecordingSink sink = new RecordingSink(1);
+    WorkflowEvents.Subscription subscription = this.workflowEvents.subscribe(workflow.getId(),
+      sink);
+    subscription.start(this.workflowQueryService.findBoardVersion(workflow.getId()),
+      Optional.empty());
+    RecordingListener listener = new RecordingListener();
+    try {
+      // the input breaks once the first batch has been read
+      InputStream input = new SequenceInputStream(
+        input("{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"First\"}",
+          "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"Second\"}\n"),
+        new InputStream() {
+          @Override
+          public int read() throws IOException {
+            throw new IOException("Connection reset");
+          }
+        });
+      try {
+        this.workflowImportService.importRecords(workflow.getId(), input, listener);
+        fail("The import should have failed");
+      } catch (IOException e) {
+        assertThat(e).hasMessage("Connection reset");
+      }
+
+      assertThat(listener.committed).extracting(WorkflowImportProgress::getImportedCount)
+        .containsExactly(2L);
+      long version = listener.committed.get(0).getVersion();
+      Workflow imported = this.workflowQueryService.findBoard(workflow.getId()).get();
+      assertThat(titlesOf(stagesOf(imported).get(0))).containsExactly("First", "Second");
+      VersionedDocument document = this.workflowQueryService.findBoardDocument(workflow.getId());
+      assertThat(document.getVersion()).isEqualTo(version);
+      assertThat(document.getJson()).isEqualTo(WorkflowDocument.of(imported).toJson());
+
+      assertThat(sink.received.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(sink.feeds).extracting(WorkflowChangeFeed::getVersion).containsExactly(version);
+      assertThat(sink.feeds).extracting(WorkflowChangeFeed::isResyncRequired)
+        .containsExactly(true);
+    } finally {
+      subscription.cancel();
+    }
+  }
+
+  @Test
+  public void anArrayOfRecordsShouldBeImportedAsWell() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+
+    WorkflowImportProgress progress = this.workflowImportService.importRecords(workflow.getId(),
+      input("[{\"type\": \"stage\", \"name\": \"To do\"},",
+        "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"First\"}]"),
+      new RecordingListener());
+
+    assertThat(progress.getImportedCount()).isEqualTo(2);
+    Workflow imported = this.workflowQueryService.findBoard(workflow.getId()).get();
+    assertThat(titlesOf(stagesOf(imported).get(0))).containsExactly("First");
+  }
+
+  @Test(expected = WorkflowNotFoundException.class)
+  public void importingIntoAMissingWorkflowShouldFail() throws Exception {
+    this.workflowImportService.importRecords(UUID.randomUUID().toString(),
+      input("{\"type\": \"stage\", \"name\": \"To do\"}"), new RecordingListener());
+  }
+
+  private static List<Stage> stagesOf(final Workflow workflow) {
+    return workflow.stages().stream().sorted(Comparator.comparingInt(Stage::getPosition))
+      .collect(Collectors.toList());
+  }
+
+  private static List<String> titlesOf(final Stage stage) {
+    return stage.getWorkItems().stream().map(WorkItem::getTitle).collect(Collectors.toList());
+  }
+
+  private static InputStream input(final String... lines) {
+    return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static class RecordingSink implements WorkflowEventSink {
+
+    private final List<WorkflowChangeFeed> feeds = new CopyOnWriteArrayList<>();
+    private final CountDownLatch received;
+
+    private RecordingSink(final int expected) {
+      this.received = new CountDownLatch(expected);
+    }
+
+    @Override
+    public void send(final WorkflowChangeFeed feed) {
+      this.feeds.add(feed);
+      this.received.countDown();
+    }
+
+    @Override
+    public void heartbeat() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static class RecordingListener implements WorkflowImportListener {
+
+    private final List<Long> rejectedLines = new ArrayList<>();
+    private final List<WorkflowImportProgress> committed = new ArrayList<>();
+
+    @Override
+    public void rejected(final long line, final String reason) {
+      this.rejectedLines.add(line);
+    }
+
+    @Override
+    public void committed(final WorkflowImportProgress progress) {
+      this.committed.add(progress);
+    }
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @ComponentScan(basePackages = {
+    "org.svomz.apps.koobz.application",
+    "org.svomz.apps.koobz.infrastructure.readmodel",
+    "org.svomz.apps.koobz.infrastructure.imports",
+    "org.svomz.apps.koobz.infrastructure.exports"
+  })
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
@@ -0,0 +1,96 @@
+package org.svomz.apps.koobz.applications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.svomz.apps.koobz.application.WorkflowImportReader;
+import org.svomz.apps.koobz.application.WorkflowImportRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WorkflowImportReaderUnitTest {
+
+  @Test
+  public void itShouldReadNewlineDelimitedRecords() throws IOException {
+    List<WorkflowImportRecord> records = read(
+      "{\"type\": \"stage\", \"name\": \"To do\"}\n"
+        + "\n"
+        + "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"A\", \"description\": \"a\"}\n"
+        + "{\"type\": \"workItem\", \"stageId\": \"s1\", \"title\": \"B\", \"extra\": 1}");
+
+    assertThat(records).extracting(WorkflowImportRecord::getLine).containsExactly(1L, 3L, 4L);
+    assertThat(records).extracting(WorkflowImportRecord::getType).containsExactly(
+      WorkflowImportRecord.Type.STAGE, WorkflowImportRecord.Type.WORK_ITEM,
+      WorkflowImportRecord.Type.WORK_ITEM);
+    assertThat(records).extracting(WorkflowImportRecord::getName).containsExactly("To do", "A", "B");
+    assertThat(records.get(1).getStageName()).isEqualTo("To do");
+    assertThat(records.get(1).getDescription()).isEqualTo("a");
+    assertThat(records.get(2).getStageId()).isEqualTo("s1");
+  }
+
+  @Test
+  public void itShouldReadTheRecordsOfAnArray() throws IOException {
+    List<WorkflowImportRecord> records = read(
+      "\n[\n"
+        + "  {\"type\": \"stage\", \"name\": \"To do\"},\n"
+        + "  {\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"A\"}\n"
+        + "]");
+
+    assertThat(records).extracting(WorkflowImportRecord::getLine).containsExactly(3L, 4L);
+    assertThat(records).extracting(WorkflowImportRecord::getName).containsExactly("To do", "A");
+  }
+
+  @Test
+  public void itShouldGoOnReadingTheLinesAfterAnInvalidOne() throws IOException {
+    List<WorkflowImportRecord> records = read(
+      "{\"type\": \"stage\", \"name\": \"To do\"\n"
+        + "{\"type\": \"task\"}\n"
+        + "{\"type\": \"workItem\", \"title\": \"A\"}\n"
+        + "{\"type\": \"stage\", \"name\": [\"Done\"]}\n"
+        + "{\"type\": \"stage\", \"name\": \"Done\"}");
+
+    assertThat(records).hasSize(5);
+    for (WorkflowImportRecord invalid : records.subList(0, 4)) {
+      assertThat(invalid.getError()).isPresent();
+    }
+    assertThat(records.get(4).getError()).isEmpty();
+    assertThat(records.get(4).getName()).isEqualTo("Done");
+  }
+
+  @Test
+  public void itShouldStopReadingAnArrayAtASyntaxError() throws IOException {
+    List<WorkflowImportRecord> records = read(
+      "[{\"type\": \"stage\", \"name\": \"To do\"},\n"
+        + "{\"type\": \"stage\", \"name\": },\n"
+        + "{\"type\": \"stage\", \"name\": \"Done\"}]");
+
+    assertThat(records).hasSize(2);
+    assertThat(records.get(0).getError()).isEmpty();
+    assertThat(records.get(1).getError()).isPresent();
+    assertThat(records.get(1).getLine()).isEqualTo(2L);
+  }
+
+  @Test
+  public void itShouldReadNothingFromAnEmptyInput() throws IOException {
+    assertThat(read("")).isEmpty();
+    assertThat(read(" \n ")).isEmpty();
+    assertThat(read("[]")).isEmpty();
+  }
+
+  private static List<WorkflowImportRecord> read(final String input) throws IOException {
+    List<WorkflowImportRecord> records = new ArrayList<>();
+    try (WorkflowImportReader reader = new WorkflowImportReader(
+      new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))) {
+      WorkflowImportRecord record;
+      while ((record = reader.next()) != null) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+}
@@ -0,0 +1,240 @@
+package org.svomz.apps.koobz.applications;
+
+import org.hibernate.Session;
+import org.hibernate.stat.SessionStatistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.svomz.apps.koobz.application.ConflictRetryAspect;
+import org.svomz.apps.koobz.application.InWorkflowLane;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+import org.svomz.apps.koobz.application.RetryOnConflict;
+import org.svomz.apps.koobz.application.WorkflowLanes;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WorkflowLanesUnitTest {
+
+  private EntityManagerFactory entityManagerFactory;
+  private WorkflowLanes workflowLanes;
+  private WorkflowCommands workflowCommands;
+  private ExecutorService callers;
+
+  @Before
+  public void setUp() {
+    this.entityManagerFactory = mock(EntityManagerFactory.class);
+    EntityManager entityManager = mock(EntityManager.class);
+    Session session = mock(Session.class);
+    when(this.entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+    when(entityManager.isOpen()).thenReturn(true);
+    when(entityManager.unwrap(Session.class)).thenReturn(session);
+    when(session.getStatistics()).thenReturn(mock(SessionStatistics.class));
+
+    this.workflowLanes = new WorkflowLanes(this.entityManagerFactory, 2, 100, 100);
+    this.workflowCommands = this.runIn(this.workflowLanes);
+    this.callers = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    this.callers.shutdownNow();
+    this.workflowLanes.shutdown();
+  }
+
+  @Test
+  public void itShouldRunTheCommandsOfAWorkflowOneAtATime() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    Future<?>[] commands = new Future<?>[20];
+    for (int i = 0; i < commands.length; i++) {
+      commands[i] = this.callers.submit(() -> this.workflowCommands.run("workflow", () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(1);
+        running.decrementAndGet();
+        return null;
+      }));
+    }
+    for (Future<?> command : commands) {
+      command.get(10, TimeUnit.SECONDS);
+    }
+
+    assertThat(maxRunning.get()).isEqualTo(1);
+    assertThat(this.workflowLanes.getCommandCount()).isEqualTo(commands.length);
+  }
+
+  @Test
+  public void itShouldRunTheCommandsOfWorkflowsOfDifferentLanesInParallel() throws Exception {
+    String workflowId = "workflow";
+    String otherWorkflowId = this.workflowOfAnotherLaneThan(workflowId);
+    CountDownLatch otherCommandRan = new CountDownLatch(1);
+
+    Future<String> command = this.callers.submit(() -> this.workflowCommands.run(workflowId,
+      () -> otherCommandRan.await(10, TimeUnit.SECONDS) ? "done" : "timed out"));
+    this.workflowCommands.run(otherWorkflowId, () -> {
+      otherCommandRan.countDown();
+      return null;
+    });
+
+    assertThat(command.get(10, TimeUnit.SECONDS)).isEqualTo("done");
+  }
+
+  @Test
+  public void itShouldRunACommandInTheThreadOfTheLaneOfItsWorkflow() throws Exception {
+    String thread = this.workflowCommands.run("workflow", () -> Thread.currentThread().getName());
+
+    assertThat(thread).isEqualTo("workflow-lane-" + this.workflowLanes.laneOf("workflow"));
+  }
+
+  @Test
+  public void itShouldRunACommandWithThePersistenceContextOfItsLane() throws Exception {
+    Object entityManagerHolder = this.workflowCommands.run("workflow",
+      () -> TransactionSynchronizationManager.getResource(this.entityManagerFactory));
+
+    assertThat(entityManagerHolder).isInstanceOf(EntityManagerHolder.class);
+    assertThat(TransactionSynchronizationManager.hasResource(this.entityManagerFactory)).isFalse();
+  }
+
+  @Test
+  public void itShouldRecordTheCommandInThePersistenceActivityOfItsCaller() throws Exception {
+    PersistenceActivity activity = PersistenceActivity.start();
+    try {
+      this.workflowCommands.run("workflow", () -> {
+        PersistenceActivity.current().statementPrepared();
+        return null;
+      });
+
+      assertThat(activity.getStatements()).isEqualTo(1);
+      assertThat(this.workflowCommands.run("workflow", PersistenceActivity::current))
+        .isSameAs(activity);
+    } finally {
+      PersistenceActivity.clear();
+    }
+    assertThat(this.workflowCommands.run("workflow", PersistenceActivity::current)).isNull();
+  }
+
+  @Test
+  public void itShouldGiveTheFailureOfTheCommandToTheCaller() throws Exception {
+    try {
+      this.workflowCommands.run("workflow", () -> {
+        throw new IllegalStateException("failed");
+      });
+      fail("The command failed");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("failed");
+    }
+  }
+
+  @Test
+  public void itShouldRunACommandCalledByAnotherOneInTheSameThread() throws Exception {
+    String thread = this.workflowCommands.run("workflow",
+      () -> this.workflowCommands.run(this.workflowOfAnotherLaneThan("workflow"),
+        () -> Thread.currentThread().getName()));
+
+    assertThat(thread).isEqualTo("workflow-lane-" + this.workflowLanes.laneOf("workflow"));
+  }
+
+  @Test
+  public void itShouldRejectACommandWhenTheLaneOfItsWorkflowIsFull() throws Exception {
+    WorkflowLanes smallLanes = new WorkflowLanes(this.entityManagerFactory, 1, 1, 100);
+    WorkflowCommands workflowCommands = this.runIn(smallLanes);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      this.callers.submit(() -> workflowCommands.run("workflow", () -> {
+        running.countDown();
+        return release.await(10, TimeUnit.SECONDS);
+      }));
+      running.await(10, TimeUnit.SECONDS);
+      this.callers.submit(() -> workflowCommands.run("workflow", () -> null));
+      while (smallLanes.getQueueDepth() == 0) {
+        Thread.sleep(1);
+      }
+
+      workflowCommands.run("workflow", () -> null);
+      fail("The lane is full");
+    } catch (RejectedExecutionException e) {
+      assertThat(smallLanes.getRejectionCount()).isEqualTo(1);
+    } finally {
+      release.countDown();
+      smallLanes.shutdown();
+    }
+  }
+
+  @Test
+  public void itShouldSubmitAgainToTheLaneACommandWhichConflicted() throws Exception {
+    AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new RetriedWorkflowCommands());
+    proxyFactory.setProxyTargetClass(true);
+    // added in the order the application context gives them
+    Stream.of(this.workflowLanes, new ConflictRetryAspect(3, 0, 0))
+      .sorted(AnnotationAwareOrderComparator.INSTANCE)
+      .forEach(proxyFactory::addAspect);
+    RetriedWorkflowCommands workflowCommands = proxyFactory.getProxy();
+    AtomicInteger attempts = new AtomicInteger();
+
+    String thread = workflowCommands.run("workflow", () -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new OptimisticLockingFailureException("conflict");
+      }
+      return Thread.currentThread().getName();
+    });
+
+    // each attempt waits for its turn in the lane: the lane is free while the command backs off
+    assertThat(thread).isEqualTo("workflow-lane-" + this.workflowLanes.laneOf("workflow"));
+    assertThat(attempts.get()).isEqualTo(2);
+    assertThat(this.workflowLanes.getCommandCount()).isEqualTo(2);
+  }
+
+  private WorkflowCommands runIn(final WorkflowLanes workflowLanes) {
+    AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new WorkflowCommands());
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAspect(workflowLanes);
+    return proxyFactory.getProxy();
+  }
+
+  private String workflowOfAnotherLaneThan(final String workflowId) {
+    for (int i = 0; ; i++) {
+      if (this.workflowLanes.laneOf("workflow-" + i) != this.workflowLanes.laneOf(workflowId)) {
+        return "workflow-" + i;
+      }
+    }
+  }
+
+  public static class RetriedWorkflowCommands {
+
+    @InWorkflowLane
+    @RetryOnConflict
+    public <T> T run(final String workflowId, final Callable<T> command) throws Exception {
+      return command.call();
+    }
+  }
+
+  public static class WorkflowCommands {
+
+    @InWorkflowLane
+    public <T> T run(final String workflowId, final Callable<T> command) throws Exception {
+      return command.call();
+    }
+  }
+
+}
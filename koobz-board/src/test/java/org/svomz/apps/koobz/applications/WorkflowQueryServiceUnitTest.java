@@ -1,15 +1,28 @@
 package org.svomz.apps.koobz.applications;
 
 import org.junit.Test;
+import org.svomz.apps.koobz.application.VersionedDocument;
+import org.svomz.apps.koobz.application.WorkItemPageRepository;
+import org.svomz.apps.koobz.application.WorkflowCache;
+import org.svomz.apps.koobz.application.WorkflowChangeLog;
+import org.svomz.apps.koobz.application.WorkflowDocumentRepository;
 import org.svomz.apps.koobz.application.WorkflowNotFoundException;
 import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.application.WorkflowReadModel;
+import org.svomz.apps.koobz.domain.model.StageNotInProcessException;
 import org.svomz.apps.koobz.domain.model.Workflow;
 import org.svomz.apps.koobz.domain.model.WorkflowRepository;
 
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class WorkflowQueryServiceUnitTest {
@@ -22,9 +35,10 @@ public class WorkflowQueryServiceUnitTest {
     String aBoardName = "A name";
 
     WorkflowRepository workflowRepository = mock(WorkflowRepository.class);
-    WorkflowQueryService workflowService = new WorkflowQueryService(workflowRepository);
+    WorkflowQueryService workflowService = new WorkflowQueryService(workflowRepository, new WorkflowCache(100),
+      mock(WorkflowReadModel.class), mock(WorkItemPageRepository.class), mock(WorkflowChangeLog.class));
 
-    when(workflowRepository.findOne(workflowId)).thenReturn(new Workflow(workflowId, aBoardName));
+    when(workflowRepository.findAggregate(workflowId)).thenReturn(new Workflow(workflowId, aBoardName));
 
     // When a user makes a query to retrive workflow with id "35a45cd4-f81f-11e5-9ce9-5e5517507c66"
     Optional<Workflow> optionalBoard = workflowService.findBoard(workflowId);
@@ -44,14 +58,70 @@ public class WorkflowQueryServiceUnitTest {
     throws WorkflowNotFoundException {
     // Given the workflow with id "35a45cd4-f81f-11e5-9ce9-5e5517507c66" does not exist
     WorkflowRepository workflowRepository = mock(WorkflowRepository.class);
-    when(workflowRepository.findOne("35a45cd4-f81f-11e5-9ce9-5e5517507c66"))
+    when(workflowRepository.findAggregate("35a45cd4-f81f-11e5-9ce9-5e5517507c66"))
       .thenReturn(null);
 
     // When I query the for this id
-    WorkflowQueryService workflowService = new WorkflowQueryService(workflowRepository);
+    WorkflowQueryService workflowService = new WorkflowQueryService(workflowRepository, new WorkflowCache(100),
+      mock(WorkflowReadModel.class), mock(WorkItemPageRepository.class), mock(WorkflowChangeLog.class));
     workflowService.findBoard("35a45cd4-f81f-11e5-9ce9-5e5517507c66");
 
     //then I get a BoardNotFoundException
   }
 
+  @Test
+  public void itShouldRenderTheDocumentOfAWorkflowWhichHasNoneWithoutSavingIt() throws Exception {
+    WorkflowRepository workflowRepository = mock(WorkflowRepository.class);
+    when(workflowRepository.findAggregate("b1")).thenReturn(new Workflow("b1", "A name"));
+    WorkflowDocumentRepository documentRepository = mock(WorkflowDocumentRepository.class);
+    when(documentRepository.findDocument("b1")).thenReturn(Optional.empty());
+    WorkflowQueryService workflowService = new WorkflowQueryService(workflowRepository,
+      new WorkflowCache(100), new WorkflowReadModel(documentRepository, workflowRepository),
+      mock(WorkItemPageRepository.class), mock(WorkflowChangeLog.class));
+
+    VersionedDocument document = workflowService.findBoardDocument("b1");
+    workflowService.findBoardDocument("b1");
+
+    assertThat(document.getVersion()).isEqualTo(1);
+    assertThat(document.getJson()).contains("\"A name\"");
+    verify(documentRepository, never()).save(anyString(), anyLong(), anyString());
+    verify(workflowRepository, times(1)).findAggregate("b1");
+  }
+
+  @Test(expected = StageNotInProcessException.class)
+  public void itShouldThrowStageNotInProcessExceptionIfTheStageIsNotInTheWorkflow()
+    throws Exception {
+    WorkItemPageRepository workItemPageRepository = mock(WorkItemPageRepository.class);
+    when(workItemPageRepository.findPage("b1", "s1", OptionalLong.empty(), 10))
+      .thenReturn(Optional.empty());
+    when(workItemPageRepository.exists("b1")).thenReturn(true);
+
+    WorkflowQueryService workflowService = new WorkflowQueryService(
+      mock(WorkflowRepository.class), new WorkflowCache(100), mock(WorkflowReadModel.class),
+      workItemPageRepository, mock(WorkflowChangeLog.class));
+    workflowService.findWorkItemPage("b1", "s1", OptionalLong.empty(), 10);
+  }
+
+  @Test(expected = WorkflowNotFoundException.class)
+  public void itShouldThrowWorkflowNotFoundExceptionWhenPagingTheStageOfAMissingWorkflow()
+    throws Exception {
+    WorkItemPageRepository workItemPageRepository = mock(WorkItemPageRepository.class);
+    when(workItemPageRepository.findPage("b1", "s1", OptionalLong.empty(), 10))
+      .thenReturn(Optional.empty());
+    when(workItemPageRepository.exists("b1")).thenReturn(false);
+
+    WorkflowQueryService workflowService = new WorkflowQueryService(
+      mock(WorkflowRepository.class), new WorkflowCache(100), mock(WorkflowReadModel.class),
+      workItemPageRepository, mock(WorkflowChangeLog.class));
+    workflowService.findWorkItemPage("b1", "s1", OptionalLong.empty(), 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void itShouldRejectAPageLargerThanTheLargestOne() throws Exception {
+    WorkflowQueryService workflowService = new WorkflowQueryService(
+      mock(WorkflowRepository.class), new WorkflowCache(100), mock(WorkflowReadModel.class),
+      mock(WorkItemPageRepository.class), mock(WorkflowChangeLog.class));
+    workflowService.findBoardOverview("b1", WorkflowQueryService.MAX_PAGE_SIZE + 1);
+  }
+
 }
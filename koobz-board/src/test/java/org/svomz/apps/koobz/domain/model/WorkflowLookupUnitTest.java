@@ -0,0 +1,82 @@
+package org.svomz.apps.koobz.domain.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the indexed lookups of {@link Workflow} against the work items the board was given, on a
+ * board holding thousands of work items. Their speed is measured by the WorkflowBenchmark of the
+ * koobz-benchmarks module.
+ */
+public class WorkflowLookupUnitTest {
+
+  private static final int STAGES = 5;
+  private static final int WORK_ITEMS_PER_STAGE = 1000;
+
+  private Workflow workflow;
+  private List<String> stageIds;
+  private Map<String, WorkItem> visibleWorkItems;
+  private List<String> archivedWorkItemIds;
+
+  @Before
+  public void setUp() throws StageNotInProcessException, WorkItemNotInProcessException {
+    // Given a board with 5 stages of 1000 work items each, one item out of ten being archived
+    this.workflow = new Workflow(UUID.randomUUID().toString(), "A big workflow");
+    this.stageIds = new ArrayList<>();
+    this.visibleWorkItems = new HashMap<>();
+    this.archivedWorkItemIds = new ArrayList<>();
+
+    for (int i = 0; i < STAGES; i++) {
+      String stageId = UUID.randomUUID().toString();
+      this.workflow.addStageToWorkflow(stageId, "Stage " + i);
+      this.stageIds.add(stageId);
+
+      for (int j = 0; j < WORK_ITEMS_PER_STAGE; j++) {
+        String workItemId = UUID.randomUUID().toString();
+        WorkItem workItem = this.workflow.addWorkItemToStage(stageId, workItemId, "Work item " + j,
+          "A description");
+        if (j % 10 == 0) {
+          this.workflow.archiveWorkItemWithId(workItemId);
+          this.archivedWorkItemIds.add(workItemId);
+        } else {
+          this.visibleWorkItems.put(workItemId, workItem);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void indexedLookupsShouldFindTheElementsAddedToTheBoard() {
+    for (Map.Entry<String, WorkItem> added : this.visibleWorkItems.entrySet()) {
+      assertThat(this.workflow.workItemOfId(added.getKey()).get()).isSameAs(added.getValue());
+    }
+    for (String stageId : this.stageIds) {
+      assertThat(this.workflow.stageOfId(stageId).get().getId()).isEqualTo(stageId);
+    }
+  }
+
+  @Test
+  public void indexedLookupsShouldNotFindTheArchivedOrUnknownWorkItems() {
+    for (String workItemId : this.archivedWorkItemIds) {
+      assertThat(this.workflow.workItemOfId(workItemId).isPresent()).isFalse();
+    }
+    assertThat(this.workflow.workItemOfId(UUID.randomUUID().toString()).isPresent()).isFalse();
+    assertThat(this.workflow.stageOfId(UUID.randomUUID().toString()).isPresent()).isFalse();
+  }
+
+  @Test
+  public void theVisibleWorkItemsShouldBeTheOnesAddedAndNotArchived() {
+    assertThat(this.workflow.workItems())
+      .containsOnlyElementsOf(this.visibleWorkItems.values())
+      .hasSize(this.visibleWorkItems.size());
+  }
+
+}
@@ -0,0 +1,91 @@
+package org.svomz.apps.koobz.domain.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class WorkflowSnapshotUnitTest {
+
+  @Test
+  public void itShouldRestoreTheWorkflowAsItWas() throws Exception {
+    Workflow workflow = new Workflow(UUID.randomUUID().toString(), "A workflow");
+    Stage toDo = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "To do");
+    Stage done = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "Done");
+    WorkItem first = workflow.addWorkItemToStage(toDo.getId(), UUID.randomUUID().toString(),
+      "First", "A description");
+    workflow.addWorkItemToStage(toDo.getId(), UUID.randomUUID().toString(), "Second", null);
+    workflow.addWorkItemToStage(done.getId(), UUID.randomUUID().toString(), "Third", "");
+    workflow.changePriorityOfWorkItemWithId(first.getId(), 1);
+    workflow.archiveWorkItemWithId(first.getId());
+    WorkflowSnapshot snapshot = WorkflowSnapshot.of(workflow);
+
+    Workflow restored = snapshot.toWorkflow();
+
+    assertThat(WorkflowSnapshot.of(restored)).isEqualTo(snapshot);
+    assertThat(restored.getVersion()).isEqualTo(workflow.getVersion());
+    assertThat(restored.changes()).isEmpty();
+    assertThat(restored.stageOfId(done.getId()).get().getPosition()).isEqualTo(1);
+    assertThat(restored.archivedWorkItems()).extracting(ArchivedWorkItem::getStageId)
+      .containsExactly(toDo.getId());
+  }
+
+  @Test
+  public void theReplayedChangesShouldGiveTheWorkflowWhichMadeThem() throws Exception {
+    // Given the snapshot of a workflow, and the changes of each version made to it afterwards
+    Workflow workflow = new Workflow(UUID.randomUUID().toString(), "A workflow");
+    Stage toDo = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "To do");
+    WorkflowSnapshot snapshot = WorkflowSnapshot.of(workflow);
+    Map<Long, List<WorkflowChange>> versions = new LinkedHashMap<>();
+
+    workflow.beginChange();
+    Stage done = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "Done");
+    List<String> workItemIds = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      String workItemId = UUID.randomUUID().toString();
+      workflow.addWorkItemToStage(toDo.getId(), workItemId, "Work item " + i, null);
+      workItemIds.add(workItemId);
+    }
+    versions.put(workflow.getVersion(), new ArrayList<>(workflow.changes()));
+
+    workflow.beginChange();
+    workflow.changePriorityOfWorkItemWithId(workItemIds.get(4), 0);
+    workflow.workItemOfId(workItemIds.get(1)).get().setTitle("A new title");
+    workflow.moveWorkItemWithIdToStageWithId(workItemIds.get(2), done.getId());
+    workflow.archiveWorkItemWithId(workItemIds.get(3));
+    versions.put(workflow.getVersion(), new ArrayList<>(workflow.changes()));
+
+    workflow.beginChange();
+    workflow.moveStageWithIdToPosition(done.getId(), 0);
+    workflow.stageOfId(toDo.getId()).get().setName("Doing");
+    workflow.sendBackToWorkflowWorkItemWithId(workItemIds.get(3));
+    workflow.removeWorkItemWithId(workItemIds.get(0));
+    workflow.setName("A new name");
+    versions.put(workflow.getVersion(), new ArrayList<>(workflow.changes()));
+
+    // When the changes are replayed on the workflow restored from the snapshot
+    Workflow restored = snapshot.toWorkflow();
+    versions.forEach(restored::replay);
+
+    // Then it is the same workflow, ranks included
+    assertThat(WorkflowSnapshot.of(restored)).isEqualTo(WorkflowSnapshot.of(workflow));
+    assertThat(restored.changes()).isEmpty();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void itShouldNotReplayAChangeMadeToAnotherStateOfTheWorkflow() {
+    Workflow workflow = new Workflow(UUID.randomUUID().toString(), "A workflow");
+    workflow.beginChange();
+
+    workflow.replay(workflow.getVersion() + 1, Collections.singletonList(
+      WorkflowChange.of(WorkflowChange.Type.WORK_ITEM_REMOVED, null, UUID.randomUUID().toString(),
+        null, null, -1)));
+  }
+
+}
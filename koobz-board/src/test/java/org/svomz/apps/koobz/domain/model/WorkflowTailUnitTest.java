@@ -0,0 +1,86 @@
+package org.svomz.apps.koobz.domain.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import java.util.OptionalLong;
+import java.util.UUID;
+
+public class WorkflowTailUnitTest {
+
+  @Test
+  public void itShouldRankTheAppendedWorkItemsAsTheWorkflowDoes()
+    throws StageNotInProcessException {
+    // Given a workflow having a stage with two work items, and the tail of this workflow
+    Workflow workflow = new Workflow(UUID.randomUUID().toString(), "A workflow");
+    Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "To do");
+    workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(), "First", "");
+    WorkItem last = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+      "Second", "");
+    WorkflowTail tail = new WorkflowTail()
+      .withStage(stage.getId(), stage.getName(), stage.getRank(), OptionalLong.of(last.getRank()));
+
+    // When a work item is appended to the tail and to the workflow
+    long rank = tail.appendWorkItem(stage.getId(), UUID.randomUUID().toString(), "Third", "");
+    WorkItem added = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+      "Third", "");
+
+    // Then both get the same rank
+    assertThat(rank).isEqualTo(added.getRank());
+  }
+
+  @Test
+  public void itShouldRankTheAppendedStagesAsTheWorkflowDoes() {
+    Workflow workflow = new Workflow(UUID.randomUUID().toString(), "A workflow");
+    Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "To do");
+    WorkflowTail tail = new WorkflowTail()
+      .withStage(stage.getId(), stage.getName(), stage.getRank(), OptionalLong.empty());
+
+    long rank = tail.appendStage(UUID.randomUUID().toString(), "Done");
+    Stage added = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "Done");
+
+    assertThat(rank).isEqualTo(added.getRank());
+  }
+
+  @Test
+  public void itShouldPutTheFirstWorkItemOfAnAppendedStageAtTheFirstRank()
+    throws StageNotInProcessException {
+    WorkflowTail tail = new WorkflowTail();
+    String stageId = UUID.randomUUID().toString();
+    tail.appendStage(stageId, "To do");
+
+    long first = tail.appendWorkItem(stageId, UUID.randomUUID().toString(), "First", null);
+    long second = tail.appendWorkItem(stageId, UUID.randomUUID().toString(), "Second", null);
+
+    assertThat(first).isEqualTo(Ranking.GAP);
+    assertThat(second).isEqualTo(2 * Ranking.GAP);
+  }
+
+  @Test
+  public void itShouldFindTheFirstStageHavingAName() {
+    String firstId = UUID.randomUUID().toString();
+    WorkflowTail tail = new WorkflowTail()
+      .withStage(firstId, "To do", Ranking.GAP, OptionalLong.empty());
+    tail.appendStage(UUID.randomUUID().toString(), "To do");
+
+    assertThat(tail.stageIdOfName("To do")).contains(firstId);
+    assertThat(tail.stageIdOfName("Done")).isEmpty();
+  }
+
+  @Test(expected = StageNotInProcessException.class)
+  public void itShouldRejectAWorkItemOfAnUnknownStage() throws StageNotInProcessException {
+    new WorkflowTail().appendWorkItem(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+      "A work item", null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void itShouldCheckTheWorkItemsAsTheWorkflowDoes() throws StageNotInProcessException {
+    WorkflowTail tail = new WorkflowTail();
+    String stageId = UUID.randomUUID().toString();
+    tail.appendStage(stageId, "To do");
+
+    tail.appendWorkItem(stageId, UUID.randomUUID().toString(), "", null);
+  }
+
+}
@@ -5,6 +5,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
@@ -12,7 +16,11 @@ import static org.assertj.core.api.Assertions.*;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
   WorkflowUnitTest.ArchivingFeatures.class,
-  WorkflowUnitTest.DefaultFeatures.class
+  WorkflowUnitTest.DefaultFeatures.class,
+  WorkflowUnitTest.RankingFeatures.class,
+  WorkflowUnitTest.VersionFeatures.class,
+  WorkflowUnitTest.ChangeFeatures.class,
+  WorkflowUnitTest.ActiveWorkItemsFeatures.class
 })
 public class WorkflowUnitTest {
 
@@ -86,7 +94,7 @@ public class WorkflowUnitTest {
     }
 
     @Test
-    public void itShouldConsiderArchivedWorkItemsWhenReordering()
+    public void itShouldSendBackWorkItemsAtTheirFormerPriority()
       throws WorkItemNotInProcessException, WorkItemNotInStageException,
              WorkItemNotArchivedException, StageNotInProcessException {
       // Given a board with a stage having one work item archived and two work item non archived
@@ -128,19 +136,71 @@ public class WorkflowUnitTest {
 
       workflow.archiveWorkItemWithId(aWorkItemId);
 
-      // When I put the work item at the first priority
+      // When I put the second work item at the first priority
       workflow.changePriorityOfWorkItemWithId(aSecondWorkItemId, 0);
-      // And I send back to board the first work item
+      // Then the archived work item is not considered
+      assertThat(secondWorkItem.getPriority()).isEqualTo(0);
+      assertThat(thirdWorkItem.getPriority()).isEqualTo(1);
+
+      // When I send back to board the first work item
       workflow.sendBackToWorkflowWorkItemWithId(aWorkItemId);
 
-      // Then the the first work item has priority 1
-      assertThat(firstWorkItem.getPriority()).isEqualTo(1);
-      // And the second work item has priority 0
-      assertThat(secondWorkItem.getPriority()).isEqualTo(0);
+      // Then the the first work item gets back its priority 0
+      assertThat(firstWorkItem.getPriority()).isEqualTo(0);
+      // And the second work item has priority 1
+      assertThat(secondWorkItem.getPriority()).isEqualTo(1);
       // And the third work item has priority 2
       assertThat(thirdWorkItem.getPriority()).isEqualTo(2);
     }
 
+
+    @Test
+    public void itShouldKeepArchivedWorkItemsApartFromTheBoard()
+      throws WorkItemNotInProcessException, StageNotInProcessException, StageNotEmptyException {
+      // Given a board with a stage having one work item
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "A workflow");
+      String aStageIdentity = UUID.randomUUID().toString();
+      workflow.addStageToWorkflow(aStageIdentity, "To do");
+      String aWorkItemId = UUID.randomUUID().toString();
+      workflow.addWorkItemToStage(aStageIdentity, aWorkItemId, "A work item", "A description");
+
+      // When I archive the work item
+      workflow.archiveWorkItemWithId(aWorkItemId);
+
+      // Then it is listed in the archive
+      assertThat(workflow.archivedWorkItems()).hasSize(1);
+      ArchivedWorkItem archivedWorkItem = workflow.archivedWorkItems().get(0);
+      assertThat(archivedWorkItem.getId()).isEqualTo(aWorkItemId);
+      assertThat(archivedWorkItem.getStageId()).isEqualTo(aStageIdentity);
+      // And it is not on the board anymore
+      assertThat(workflow.workItems()).isEmpty();
+      assertThat(workflow.workItemOfId(aWorkItemId).isPresent()).isFalse();
+      // And its stage can be removed
+      workflow.removeStageWithId(aStageIdentity);
+    }
+
+    @Test
+    public void itShouldSendBackWorkItemsToTheFirstStageIfTheirStageHasBeenRemoved()
+      throws WorkItemNotInProcessException, WorkItemNotArchivedException, StageNotInProcessException,
+             StageNotEmptyException {
+      // Given a board with two stages, the second one having an archived work item
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "A workflow");
+      String firstStageId = UUID.randomUUID().toString();
+      workflow.addStageToWorkflow(firstStageId, "To do");
+      String secondStageId = UUID.randomUUID().toString();
+      workflow.addStageToWorkflow(secondStageId, "Done");
+      String aWorkItemId = UUID.randomUUID().toString();
+      workflow.addWorkItemToStage(secondStageId, aWorkItemId, "A work item", "A description");
+      workflow.archiveWorkItemWithId(aWorkItemId);
+
+      // When I remove the second stage and send back the work item
+      workflow.removeStageWithId(secondStageId);
+      workflow.sendBackToWorkflowWorkItemWithId(aWorkItemId);
+
+      // Then the work item is in the first stage
+      assertThat(workflow.workItemOfId(aWorkItemId).get().getStage().getId()).isEqualTo(firstStageId);
+      assertThat(workflow.archivedWorkItems()).isEmpty();
+    }
   }
 
 
@@ -569,4 +629,395 @@ public class WorkflowUnitTest {
       Assert.assertEquals(0, workItemB.getPriority());
     }
   }
+
+  public static class RankingFeatures {
+
+    @Test
+    public void movingAWorkItemShouldOnlyChangeItsOwnRank()
+      throws StageNotInProcessException, WorkItemNotInProcessException, WorkItemNotInStageException {
+      // Given a stage with 2000 work items
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      String aStageIdentity = UUID.randomUUID().toString();
+      workflow.addStageToWorkflow(aStageIdentity, "backlog");
+
+      List<WorkItem> workItems = new ArrayList<>();
+      for (int i = 0; i < 2000; i++) {
+        workItems.add(workflow.addWorkItemToStage(aStageIdentity, UUID.randomUUID().toString(),
+          "Work item " + i, "A description"));
+      }
+      Map<WorkItem, Long> ranks = new HashMap<>();
+      workItems.forEach(workItem -> ranks.put(workItem, workItem.getRank()));
+
+      // When I put the last work item at the top of the stage
+      WorkItem last = workItems.get(1999);
+      workflow.changePriorityOfWorkItemWithId(last.getId(), 0);
+
+      // Then only its rank has changed
+      workItems.forEach(workItem -> {
+        if (workItem != last) {
+          assertThat(workItem.getRank()).isEqualTo(ranks.get(workItem));
+        }
+      });
+      assertThat(last.getRank()).isNotEqualTo(ranks.get(last));
+
+      // And the positions are shifted as before
+      assertThat(last.getPriority()).isEqualTo(0);
+      assertThat(workItems.get(0).getPriority()).isEqualTo(1);
+      assertThat(workItems.get(1998).getPriority()).isEqualTo(1999);
+    }
+
+    @Test
+    public void itShouldRebalanceRanksWhenThereIsNoGapLeft()
+      throws StageNotInProcessException, WorkItemNotInProcessException, WorkItemNotInStageException {
+      // Given a stage with 10 work items
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      String aStageIdentity = UUID.randomUUID().toString();
+      workflow.addStageToWorkflow(aStageIdentity, "backlog");
+
+      List<WorkItem> expectedOrder = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        expectedOrder.add(workflow.addWorkItemToStage(aStageIdentity, UUID.randomUUID().toString(),
+          "Work item " + i, "A description"));
+      }
+
+      // When I move 100 times the last work item to the second position, consuming the gap
+      // between the first and the second work items
+      for (int i = 0; i < 100; i++) {
+        WorkItem last = expectedOrder.remove(9);
+        expectedOrder.add(1, last);
+        workflow.changePriorityOfWorkItemWithId(last.getId(), 1);
+      }
+
+      // Then the work items are still in the expected order
+      assertThat(workflow.workItemsInStage(aStageIdentity)).containsExactlyElementsOf(expectedOrder);
+      for (int i = 0; i < 10; i++) {
+        assertThat(expectedOrder.get(i).getPriority()).isEqualTo(i);
+      }
+    }
+
+    @Test
+    public void theWorkItemsFollowingAnExhaustedGapShouldBeShiftedAtOnce()
+      throws StageNotInProcessException, WorkItemNotInProcessException, WorkItemNotInStageException {
+      // Given a stage with 10 work items, the gap between the first two being consumed by 20 moves
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      String aStageIdentity = UUID.randomUUID().toString();
+      workflow.addStageToWorkflow(aStageIdentity, "backlog");
+
+      List<WorkItem> expectedOrder = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        expectedOrder.add(workflow.addWorkItemToStage(aStageIdentity, UUID.randomUUID().toString(),
+          "Work item " + i, "A description"));
+      }
+      for (int i = 0; i < 20; i++) {
+        WorkItem last = expectedOrder.remove(9);
+        expectedOrder.add(1, last);
+        workflow.changePriorityOfWorkItemWithId(last.getId(), 1);
+      }
+      assertThat(workflow.takeRankShifts()).isEmpty();
+      Map<WorkItem, Long> ranks = new HashMap<>();
+      expectedOrder.forEach(workItem -> ranks.put(workItem, workItem.getRank()));
+
+      // When I move one more work item to the second position
+      WorkItem moved = expectedOrder.remove(9);
+      expectedOrder.add(1, moved);
+      workflow.changePriorityOfWorkItemWithId(moved.getId(), 1);
+
+      // Then the work items after it are shifted by a gap, the one before it keeps its rank
+      List<RankShift> rankShifts = workflow.takeRankShifts();
+      assertThat(rankShifts).hasSize(1);
+      assertThat(rankShifts.get(0).getSiblings()).isEqualTo(RankShift.Siblings.WORK_ITEMS);
+      assertThat(rankShifts.get(0).getParentId()).isEqualTo(aStageIdentity);
+      assertThat(rankShifts.get(0).getFromRank()).isEqualTo(ranks.get(expectedOrder.get(2)));
+      assertThat(rankShifts.get(0).getDelta()).isEqualTo(Ranking.GAP);
+      assertThat(expectedOrder.get(0).getRank()).isEqualTo(ranks.get(expectedOrder.get(0)));
+      for (int i = 2; i < 10; i++) {
+        assertThat(expectedOrder.get(i).getRank())
+          .isEqualTo(ranks.get(expectedOrder.get(i)) + Ranking.GAP);
+      }
+      assertThat(workflow.workItemsInStage(aStageIdentity)).containsExactlyElementsOf(expectedOrder);
+      assertThat(workflow.takeRankShifts()).isEmpty();
+    }
+
+    @Test
+    public void removingAWorkItemShouldNotChangeTheRankOfTheOthers()
+      throws StageNotInProcessException, WorkItemNotInProcessException {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      String aStageIdentity = UUID.randomUUID().toString();
+      workflow.addStageToWorkflow(aStageIdentity, "backlog");
+
+      String firstWorkItemId = UUID.randomUUID().toString();
+      workflow.addWorkItemToStage(aStageIdentity, firstWorkItemId, "Work item A", "A description");
+      WorkItem second = workflow.addWorkItemToStage(aStageIdentity, UUID.randomUUID().toString(),
+        "Work item B", "A description");
+      long secondRank = second.getRank();
+
+      workflow.removeWorkItemWithId(firstWorkItemId);
+
+      assertThat(second.getRank()).isEqualTo(secondRank);
+      assertThat(second.getPriority()).isEqualTo(0);
+    }
+
+    @Test
+    public void movingAStageShouldOnlyChangeItsOwnRank() throws StageNotInProcessException {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      Stage todo = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "todo");
+      Stage wip = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "wip");
+      Stage done = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "done");
+      long todoRank = todo.getRank();
+      long wipRank = wip.getRank();
+
+      workflow.moveStageWithIdToPosition(done.getId(), 0);
+
+      assertThat(todo.getRank()).isEqualTo(todoRank);
+      assertThat(wip.getRank()).isEqualTo(wipRank);
+      assertThat(done.getPosition()).isEqualTo(0);
+      assertThat(todo.getPosition()).isEqualTo(1);
+      assertThat(wip.getPosition()).isEqualTo(2);
+    }
+  }
+  public static class VersionFeatures {
+
+    @Test
+    public void aNewWorkflowShouldBeAtVersionOne() {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+
+      assertThat(workflow.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void everyChangeShouldIncrementTheVersion() throws Exception {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      long version = workflow.getVersion();
+
+      workflow.beginChange();
+      workflow.setName("doing");
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "backlog");
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      stage.setName("next");
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      Stage otherStage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "done");
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workflow.moveStageWithIdToPosition(otherStage.getId(), 0);
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      WorkItem workItem = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+        "A work item", "A description");
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workItem.setTitle("A new title");
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workItem.setDescription("A new description");
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workflow.changePriorityOfWorkItemWithId(workItem.getId(), 0);
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workflow.moveWorkItemWithIdToStageWithId(workItem.getId(), otherStage.getId());
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workflow.archiveWorkItemWithId(workItem.getId());
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workflow.sendBackToWorkflowWorkItemWithId(workItem.getId());
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workflow.removeWorkItemWithId(workItem.getId());
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+
+      workflow.beginChange();
+      workflow.removeStageWithId(stage.getId());
+      assertThat(workflow.getVersion()).isEqualTo(++version);
+    }
+
+    @Test
+    public void theChangesMadeTogetherShouldMakeASingleVersion() throws Exception {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      workflow.beginChange();
+
+      Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "backlog");
+      workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(), "A work item",
+        "A description");
+      stage.setName("next");
+
+      assertThat(workflow.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void movingAStageWhereItAlreadyIsShouldNotIncrementTheVersion() throws Exception {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      Stage todo = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "todo");
+      Stage done = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "done");
+      long version = workflow.getVersion();
+
+      workflow.beginChange();
+      workflow.moveStageWithIdToPosition(todo.getId(), 0);
+      // past the end the last stage stays where it is
+      workflow.moveStageWithIdToPosition(done.getId(), 5);
+
+      assertThat(workflow.getVersion()).isEqualTo(version);
+      assertThat(workflow.changes()).isEmpty();
+      assertThat(todo.getPosition()).isEqualTo(0);
+      assertThat(done.getPosition()).isEqualTo(1);
+    }
+
+    @Test
+    public void aRejectedChangeShouldNotIncrementTheVersion() {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      workflow.beginChange();
+
+      try {
+        workflow.removeWorkItemWithId(UUID.randomUUID().toString());
+        fail("The work item does not exist");
+      } catch (WorkItemNotInProcessException e) {
+        assertThat(workflow.getVersion()).isEqualTo(1);
+      }
+    }
+  }
+
+  public static class ChangeFeatures {
+
+    @Test
+    public void everyChangeShouldBeRecordedWithWhatItTakesToApplyIt() throws Exception {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      workflow.beginChange();
+      Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "backlog");
+      Stage otherStage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "done");
+      WorkItem first = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+        "First", "A description");
+      WorkItem second = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+        "Second", null);
+
+      workflow.beginChange();
+      workflow.moveStageWithIdToPosition(otherStage.getId(), 0);
+      workflow.changePriorityOfWorkItemWithId(second.getId(), 0);
+      workflow.moveWorkItemWithIdToStageWithId(first.getId(), otherStage.getId());
+      workflow.archiveWorkItemWithId(second.getId());
+      workflow.sendBackToWorkflowWorkItemWithId(second.getId());
+      workflow.removeWorkItemWithId(first.getId());
+
+      assertThat(workflow.changes()).containsExactly(
+        WorkflowChange.stageMoved(otherStage.getId(), 0),
+        WorkflowChange.workItemPriorityChanged(second.getId(), 0),
+        WorkflowChange.workItemMoved(first.getId(), otherStage.getId()),
+        WorkflowChange.workItemArchived(second.getId()),
+        WorkflowChange.workItemSentBack(stage.getId(), second, 0),
+        WorkflowChange.workItemRemoved(first.getId())
+      );
+      assertThat(workflow.changes().get(4).getName()).isEqualTo("Second");
+    }
+
+    @Test
+    public void aNewChangeShouldForgetTheChangesOfThePreviousOne() throws Exception {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      workflow.beginChange();
+      Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "backlog");
+
+      assertThat(workflow.changes()).containsExactly(WorkflowChange.stageAdded(stage));
+
+      workflow.beginChange();
+      assertThat(workflow.changes()).isEmpty();
+    }
+
+    @Test
+    public void successiveEditsOfTheSameThingShouldMakeASingleChange() throws Exception {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      workflow.beginChange();
+      Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "backlog");
+      WorkItem workItem = workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+        "A work item", "A description");
+
+      workflow.beginChange();
+      workItem.setTitle("A new title");
+      workItem.setDescription("A new description");
+      stage.setName("next");
+      stage.setName("later");
+      workflow.setName("doing");
+
+      assertThat(workflow.changes()).containsExactly(
+        WorkflowChange.workItemChanged(workItem),
+        WorkflowChange.stageRenamed(stage),
+        WorkflowChange.workflowRenamed("doing")
+      );
+      assertThat(workflow.changes().get(0).getName()).isEqualTo("A new title");
+      assertThat(workflow.changes().get(0).getDescription()).isEqualTo("A new description");
+      assertThat(workflow.changes().get(1).getName()).isEqualTo("later");
+    }
+  }
+
+  public static class ActiveWorkItemsFeatures {
+
+    @Test
+    public void theActiveWorkItemsShouldBeVisitedWithoutTheArchivedOnes() throws Exception {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      Stage todo = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "todo");
+      Stage done = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "done");
+      WorkItem a = workflow.addWorkItemToStage(todo.getId(), UUID.randomUUID().toString(), "a", "");
+      WorkItem b = workflow.addWorkItemToStage(todo.getId(), UUID.randomUUID().toString(), "b", "");
+      WorkItem c = workflow.addWorkItemToStage(todo.getId(), UUID.randomUUID().toString(), "c", "");
+      WorkItem d = workflow.addWorkItemToStage(done.getId(), UUID.randomUUID().toString(), "d", "");
+      workflow.archiveWorkItemWithId(b.getId());
+
+      assertThat(activeTitlesOf(todo)).containsExactly("a", "c");
+      assertThat(activeTitlesOf(done)).containsExactly("d");
+      assertThat(todo.getWorkItems()).containsExactly(a, c);
+      List<WorkItem> visited = new ArrayList<>();
+      workflow.forEachActiveWorkItem(visited::add);
+      assertThat(visited).containsOnly(a, c, d).hasSize(3);
+      assertThat(workflow.workItems()).containsOnly(a, c, d).hasSize(3);
+    }
+
+    @Test
+    public void theActiveWorkItemsShouldFollowTheCommands() throws Exception {
+      Workflow workflow = new Workflow(UUID.randomUUID().toString(), "todo");
+      Stage todo = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "todo");
+      Stage done = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "done");
+      WorkItem a = workflow.addWorkItemToStage(todo.getId(), UUID.randomUUID().toString(), "a", "");
+      WorkItem b = workflow.addWorkItemToStage(todo.getId(), UUID.randomUUID().toString(), "b", "");
+      WorkItem c = workflow.addWorkItemToStage(todo.getId(), UUID.randomUUID().toString(), "c", "");
+      workflow.addWorkItemToStage(done.getId(), UUID.randomUUID().toString(), "d", "");
+      workflow.archiveWorkItemWithId(b.getId());
+
+      workflow.changePriorityOfWorkItemWithId(c.getId(), 0);
+      assertThat(activeTitlesOf(todo)).containsExactly("c", "a");
+
+      workflow.moveWorkItemWithIdToStageWithId(a.getId(), done.getId());
+      assertThat(activeTitlesOf(todo)).containsExactly("c");
+      assertThat(activeTitlesOf(done)).containsExactly("d", "a");
+
+      // the work item sent back takes its rank again, after the one moved before it
+      workflow.sendBackToWorkflowWorkItemWithId(b.getId());
+      assertThat(activeTitlesOf(todo)).containsExactly("c", "b");
+
+      workflow.archiveWorkItemWithId(c.getId());
+      assertThat(activeTitlesOf(todo)).containsExactly("b");
+      List<String> visited = new ArrayList<>();
+      workflow.forEachActiveWorkItem(workItem -> visited.add(workItem.getTitle()));
+      assertThat(visited).containsOnly("a", "b", "d").hasSize(3);
+    }
+
+    private static List<String> activeTitlesOf(final Stage stage) {
+      List<String> titles = new ArrayList<>();
+      stage.forEachActiveWorkItem(workItem -> titles.add(workItem.getTitle()));
+      return titles;
+    }
+  }
+
 }
@@ -0,0 +1,185 @@
+package org.svomz.apps.koobz.infrastructure.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.svomz.apps.koobz.application.BoardOverview;
+import org.svomz.apps.koobz.application.WorkItemPage;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+import org.svomz.apps.koobz.domain.model.WorkflowTail;
+import org.svomz.apps.koobz.infrastructure.exports.JdbcWorkflowExportRepository;
+import org.svomz.apps.koobz.infrastructure.imports.JdbcWorkflowImportRepository;
+import org.svomz.apps.koobz.infrastructure.readmodel.JdbcWorkItemPageRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Checks against an in memory database that the stages and the work items of a board are read
+ * through the composite indexes starting with their workflow or their stage, by asking the database
+ * for the plans of the queries the JDBC repositories run.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = BoardQueryPlanIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+public class BoardQueryPlanIntegrationTest {
+
+  /**
+   * The work items of a stage are one range of either index starting with (stage_id, position) or
+   * with (workflow_id, stage_id, position): the stage ids being unique, both select the same rows.
+   */
+  private static final Pattern RANGE_OF_STAGE_BY_RANK = Pattern.compile(
+    "(?s).*/\\* PUBLIC\\.IDX_WORK_ITEMS_(WORKFLOW_)?STAGE_POSITION: [^*]*STAGE_ID = "
+      + "(\\?\\d|S\\.ID).*");
+
+  private static final int STAGES = 3;
+  private static final int WORK_ITEMS_PER_STAGE = 10;
+
+  @Autowired
+  private WorkflowRepository workflowRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private String workflowId;
+  private List<String> stageIds;
+
+  @Before
+  public void setUp() {
+    // Given a board whose second stage has been moved first, and whose work items have been
+    // reordered, so that neither the ranks nor the ids follow the order of insertion
+    this.workflowId = this.inTransaction(() -> this.workflowRepository
+      .save(new Workflow(UUID.randomUUID().toString(), "A board")).getId());
+
+    this.stageIds = this.inTransaction(() -> {
+      Workflow workflow = this.workflowRepository.findAggregate(this.workflowId);
+      List<String> stageIds = new ArrayList<>();
+      for (int i = 0; i < STAGES; i++) {
+        Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "Stage " + i);
+        for (int j = 0; j < WORK_ITEMS_PER_STAGE; j++) {
+          workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+            "Work item " + j, "");
+        }
+        WorkItem last = stage.getWorkItems().get(WORK_ITEMS_PER_STAGE - 1);
+        workflow.changePriorityOfWorkItemWithId(last.getId(), 0);
+        stageIds.add(stage.getId());
+      }
+      workflow.moveStageWithIdToPosition(stageIds.get(1), 0);
+      return stageIds;
+    });
+  }
+
+  @Test
+  public void itShouldReadTheStagesOfAWorkflowByRank() {
+    BoardOverview overview = this.workItemPageRepository().findOverview(this.workflowId, 4).get();
+
+    assertThat(overview.getStages().stream().map(BoardOverview.StageOverview::getId)
+      .collect(Collectors.toList()))
+      .containsExactly(this.stageIds.get(1), this.stageIds.get(0), this.stageIds.get(2));
+    assertThat(this.explain(JdbcWorkItemPageRepository.STAGES_QUERY, this.workflowId))
+      .contains("IDX_STAGES_WORKFLOW_POSITION: WORKFLOW_ID = ?");
+  }
+
+  @Test
+  public void itShouldReadTheWorkItemsOfAStageAPageAtATime() {
+    String stageId = this.stageIds.get(0);
+    List<String> expected = this.inTransaction(() -> this.workflowRepository
+      .findAggregate(this.workflowId).stageOfId(stageId).get().getWorkItems().stream()
+      .map(WorkItem::getId).collect(Collectors.toList()));
+
+    WorkItemPage firstPage = this.workItemPageRepository()
+      .findPage(this.workflowId, stageId, OptionalLong.empty(), 4).get();
+    WorkItemPage secondPage = this.workItemPageRepository()
+      .findPage(this.workflowId, stageId, firstPage.getNext(), 4).get();
+
+    assertThat(idsOf(firstPage)).containsExactlyElementsOf(expected.subList(0, 4));
+    assertThat(idsOf(secondPage)).containsExactlyElementsOf(expected.subList(4, 8));
+    assertThat(this.explain(JdbcWorkItemPageRepository.PAGE_QUERY, stageId,
+      firstPage.getNext().getAsLong(), 5))
+      .matches(RANGE_OF_STAGE_BY_RANK);
+  }
+
+  @Test
+  public void itShouldReadTheTailOfAWorkflowFromTheIndexes() throws Exception {
+    String stageId = this.stageIds.get(2);
+    Long maxRank = this.jdbcTemplate.queryForObject(
+      "SELECT MAX(position) FROM work_items WHERE stage_id = ?", Long.class, stageId);
+
+    WorkflowTail tail = new JdbcWorkflowImportRepository(this.jdbcTemplate)
+      .findTail(this.workflowId);
+
+    assertThat(tail.stageIdOfName("Stage 2")).contains(stageId);
+    assertThat(tail.appendWorkItem(stageId, UUID.randomUUID().toString(), "Work item", ""))
+      .isGreaterThan(maxRank);
+    assertThat(this.explain(JdbcWorkflowImportRepository.TAIL_QUERY, this.workflowId))
+      .contains("IDX_STAGES_WORKFLOW_POSITION: WORKFLOW_ID = ?")
+      .matches(RANGE_OF_STAGE_BY_RANK);
+  }
+
+  @Test
+  public void theArchiveOfAWorkflowShouldBeReadFromItsIndex() {
+    assertThat(this.explain(JdbcWorkflowExportRepository.ARCHIVE_QUERY, this.workflowId))
+      .contains("IDX_WORK_ITEMS_ARCHIVE_WORKFLOW_STAGE_POSITION: WORKFLOW_ID = ?");
+  }
+
+  private JdbcWorkItemPageRepository workItemPageRepository() {
+    return new JdbcWorkItemPageRepository(this.jdbcTemplate);
+  }
+
+  private static List<String> idsOf(final WorkItemPage page) {
+    return page.getWorkItems().stream().map(WorkItemPage.Entry::getId)
+      .collect(Collectors.toList());
+  }
+
+  private String explain(final String query, final Object... arguments) {
+    return this.jdbcTemplate.queryForObject("EXPLAIN " + query, String.class, arguments);
+  }
+
+  private <T> T inTransaction(final TransactionalWork<T> work) {
+    return new TransactionTemplate(this.transactionManager).execute(status -> {
+      try {
+        return work.execute();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  @FunctionalInterface
+  private interface TransactionalWork<T> {
+    T execute() throws Exception;
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
@@ -0,0 +1,151 @@
+package org.svomz.apps.koobz.infrastructure.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+
+import java.util.UUID;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Checks against an in memory database that the statements, the entity loads, the collection
+ * initializations and the flushes of the sessions are recorded in the persistence activity of the
+ * current thread, as the statistics of Hibernate count them, and that the statements run without
+ * Hibernate are recorded too.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = PersistenceActivityIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+public class PersistenceActivityIntegrationTest {
+
+  @Autowired
+  private WorkflowRepository workflowRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @After
+  public void tearDown() {
+    PersistenceActivity.clear();
+  }
+
+  @Test
+  public void itShouldRecordWhatThePersistenceDidForTheCurrentThread() {
+    String boardId = this.createBoard(3, 10);
+    Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    PersistenceActivity activity = PersistenceActivity.start();
+    this.inTransaction(() -> {
+      Workflow workflow = this.workflowRepository.findAggregate(boardId);
+      for (Stage stage : workflow.stages()) {
+        stage.forEachActiveWorkItem(workItem -> workItem.getPriority());
+      }
+      workflow.setName("A new name");
+      return null;
+    });
+
+    assertThat(activity.getStatements()).isEqualTo(statistics.getPrepareStatementCount())
+      .isGreaterThan(0);
+    assertThat(activity.getEntitiesLoaded()).isEqualTo(statistics.getEntityLoadCount())
+      .isGreaterThan(30);
+    assertThat(activity.getCollectionsInitialized())
+      .isEqualTo(statistics.getCollectionFetchCount());
+    assertThat(activity.getFlushes()).isGreaterThanOrEqualTo(1);
+    assertThat(activity.getFlushNanos()).isGreaterThan(0);
+  }
+
+  @Test
+  public void itShouldRecordTheStatementsRunWithoutHibernate() {
+    String boardId = this.createBoard(2, 1);
+    PersistenceActivity activity = PersistenceActivity.start();
+
+    Long stages = this.jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM stages WHERE workflow_id = ?", Long.class, boardId);
+    this.jdbcTemplate.update("UPDATE workflows SET name = ? WHERE id = ?", "A new name", boardId);
+
+    assertThat(stages).isEqualTo(2);
+    assertThat(activity.getStatements()).isEqualTo(2);
+    assertThat(activity.getEntitiesLoaded()).isEqualTo(0);
+  }
+
+  @Test
+  public void itShouldRecordNothingWithoutAnActivity() {
+    String boardId = this.createBoard(1, 1);
+    PersistenceActivity activity = PersistenceActivity.start();
+    PersistenceActivity.clear();
+
+    this.inTransaction(() -> this.workflowRepository.findAggregate(boardId));
+
+    assertThat(activity.getStatements()).isEqualTo(0);
+    assertThat(activity.getEntitiesLoaded()).isEqualTo(0);
+  }
+
+  private String createBoard(final int stages, final int workItemsPerStage) {
+    String boardId = this.inTransaction(() -> this.workflowRepository
+      .save(new Workflow(UUID.randomUUID().toString(), "A board")).getId());
+
+    return this.inTransaction(() -> {
+      Workflow workflow = this.workflowRepository.findAggregate(boardId);
+      for (int i = 0; i < stages; i++) {
+        Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "Stage " + i);
+        for (int j = 0; j < workItemsPerStage; j++) {
+          workflow.addWorkItemToStage(stage.getId(), UUID.randomUUID().toString(),
+            "Work item " + j, "");
+        }
+      }
+      return workflow.getId();
+    });
+  }
+
+  private <T> T inTransaction(final TransactionalWork<T> work) {
+    return new TransactionTemplate(this.transactionManager).execute(status -> {
+      try {
+        return work.execute();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  @FunctionalInterface
+  private interface TransactionalWork<T> {
+    T execute() throws Exception;
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
@@ -0,0 +1,218 @@
+package org.svomz.apps.koobz.infrastructure.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Checks against an in memory database that loading a workflow aggregate takes the same number of
+ * statements whatever the number of stages and work items of the board.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = WorkflowRepositoryIntegrationTest.Config.class)
+@ActiveProfiles("integration")
+public class WorkflowRepositoryIntegrationTest {
+
+  /**
+   * One query for the workflow and its stages, one for the work items of the stages and one for
+   * the work items of the workflow.
+   */
+  private static final long AGGREGATE_STATEMENTS = 3;
+
+  @Autowired
+  private WorkflowRepository workflowRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  public void itShouldLoadTheAggregateWithAFixedNumberOfStatements() {
+    String smallBoardId = this.createBoard(2, 5);
+    String largeBoardId = this.createBoard(10, 50);
+
+    assertThat(this.statementsToReadBoard(smallBoardId)).isEqualTo(AGGREGATE_STATEMENTS);
+    assertThat(this.statementsToReadBoard(largeBoardId)).isEqualTo(AGGREGATE_STATEMENTS);
+  }
+
+  @Test
+  public void itShouldReturnNullIfTheWorkflowDoesNotExist() {
+    Workflow workflow = this.inTransaction(() ->
+      this.workflowRepository.findAggregate(UUID.randomUUID().toString()));
+
+    assertThat(workflow).isNull();
+  }
+
+  @Test
+  public void itShouldLoadAWorkflowWithoutStages() {
+    String boardId = this.createBoard(0, 0);
+
+    Workflow workflow = this.inTransaction(() -> {
+      Workflow found = this.workflowRepository.findAggregate(boardId);
+      assertThat(found.stages()).isEmpty();
+      assertThat(found.workItems()).isEmpty();
+      return found;
+    });
+
+    assertThat(workflow.getId()).isEqualTo(boardId);
+  }
+
+  @Test
+  public void theRanksShiftedAtOnceShouldBeWrittenWithASingleStatement() {
+    // Given a stage of 800 work items, the gap between the first two being consumed by 20 moves
+    String boardId = this.createBoard(1, 1000);
+    List<String> expectedOrder = this.consumeTheGapAfterTheFirstWorkItem(boardId);
+    Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    // When one more work item is moved to the second position, shifting the 798 following ones
+    long statements = this.inTransaction(() -> {
+      Workflow workflow = this.workflowRepository.findAggregate(boardId);
+      workflow.beginChange();
+      String movedId = expectedOrder.remove(expectedOrder.size() - 1);
+      expectedOrder.add(1, movedId);
+      statistics.clear();
+
+      workflow.changePriorityOfWorkItemWithId(movedId, 1);
+      this.workflowRepository.writeRankShifts(workflow);
+      this.workflowRepository.flush();
+      return statistics.getPrepareStatementCount();
+    });
+
+    // Then the shift, the moved work item and the version of the workflow are written
+    assertThat(statements).isEqualTo(3);
+    List<String> order = this.inTransaction(() -> this.workflowRepository.findAggregate(boardId)
+      .stages().iterator().next().getWorkItems().stream().map(WorkItem::getId).collect(Collectors.toList()));
+    assertThat(order).containsExactlyElementsOf(expectedOrder);
+  }
+
+  @Test
+  public void aShiftedWorkItemChangedOtherwiseShouldKeepItsChange() {
+    // Given a stage of 800 work items, the gap between the first two being consumed by 20 moves
+    String boardId = this.createBoard(1, 1000);
+    List<String> expectedOrder = this.consumeTheGapAfterTheFirstWorkItem(boardId);
+
+    // When a work item is renamed then shifted by the move of another one to the second position
+    String renamedId = expectedOrder.get(5);
+    this.inTransaction(() -> {
+      Workflow workflow = this.workflowRepository.findAggregate(boardId);
+      workflow.beginChange();
+      workflow.workItemOfId(renamedId).get().change("Renamed", "");
+      String movedId = expectedOrder.remove(expectedOrder.size() - 1);
+      expectedOrder.add(1, movedId);
+
+      workflow.changePriorityOfWorkItemWithId(movedId, 1);
+      this.workflowRepository.writeRankShifts(workflow);
+      return null;
+    });
+
+    // Then it is written with its new title and its shifted rank
+    Workflow workflow = this.inTransaction(() -> this.workflowRepository.findAggregate(boardId));
+    assertThat(workflow.workItemOfId(renamedId).get().getTitle()).isEqualTo("Renamed");
+    assertThat(workflow.stages().iterator().next().getWorkItems().stream().map(WorkItem::getId)
+      .collect(Collectors.toList())).containsExactlyElementsOf(expectedOrder);
+  }
+
+  /**
+   * @return the work items of the only stage of the board, in order, once the last ones have been
+   * moved to the second position until the gap after the first one is consumed.
+   */
+  private List<String> consumeTheGapAfterTheFirstWorkItem(final String boardId) {
+    return this.inTransaction(() -> {
+      Workflow workflow = this.workflowRepository.findAggregate(boardId);
+      Stage stage = workflow.stages().iterator().next();
+      for (int i = 0; i < 20; i++) {
+        workflow.changePriorityOfWorkItemWithId(
+          stage.getWorkItems().get(stage.getWorkItems().size() - 1).getId(), 1);
+      }
+      return stage.getWorkItems().stream().map(WorkItem::getId).collect(Collectors.toList());
+    });
+  }
+
+  private String createBoard(final int stages, final int workItemsPerStage) {
+    String boardId = this.inTransaction(() -> this.workflowRepository
+      .save(new Workflow(UUID.randomUUID().toString(), "A board")).getId());
+
+    // the commands are run on the loaded aggregate, as the application service does
+    return this.inTransaction(() -> {
+      Workflow workflow = this.workflowRepository.findAggregate(boardId);
+      for (int i = 0; i < stages; i++) {
+        Stage stage = workflow.addStageToWorkflow(UUID.randomUUID().toString(), "Stage " + i);
+        for (int j = 0; j < workItemsPerStage; j++) {
+          String workItemId = UUID.randomUUID().toString();
+          workflow.addWorkItemToStage(stage.getId(), workItemId, "Work item " + j, "");
+          if (j % 5 == 0) {
+            workflow.archiveWorkItemWithId(workItemId);
+          }
+        }
+      }
+      return workflow.getId();
+    });
+  }
+
+  private long statementsToReadBoard(final String boardId) {
+    Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    return this.inTransaction(() -> {
+      statistics.clear();
+
+      Workflow workflow = this.workflowRepository.findAggregate(boardId);
+      workflow.forEachActiveWorkItem(workItem -> workItem.getStage().getName());
+      for (Stage stage : workflow.stages()) {
+        stage.forEachActiveWorkItem(workItem -> workItem.getPriority());
+        stage.getPosition();
+      }
+
+      return statistics.getPrepareStatementCount();
+    });
+  }
+
+  private <T> T inTransaction(final TransactionalWork<T> work) {
+    return new TransactionTemplate(this.transactionManager).execute(status -> {
+      try {
+        return work.execute();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  @FunctionalInterface
+  private interface TransactionalWork<T> {
+    T execute() throws Exception;
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
@@ -0,0 +1,255 @@
+package org.svomz.apps.koobz.infrastructure.eventstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.svomz.apps.koobz.application.BoardOverview;
+import org.svomz.apps.koobz.application.WorkflowApplicationService;
+import org.svomz.apps.koobz.application.WorkflowChangeFeed;
+import org.svomz.apps.koobz.application.WorkflowChangeLog;
+import org.svomz.apps.koobz.application.WorkflowExportService;
+import org.svomz.apps.koobz.application.WorkflowImportListener;
+import org.svomz.apps.koobz.application.WorkflowImportProgress;
+import org.svomz.apps.koobz.application.WorkflowImportService;
+import org.svomz.apps.koobz.application.WorkflowQueryService;
+import org.svomz.apps.koobz.domain.model.Stage;
+import org.svomz.apps.koobz.domain.model.WorkItem;
+import org.svomz.apps.koobz.domain.model.Workflow;
+import org.svomz.apps.koobz.domain.model.WorkflowRepository;
+import org.svomz.apps.koobz.domain.model.WorkflowSnapshot;
+import org.svomz.apps.koobz.infrastructure.domain.KanbanRepositoryFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Checks against an in memory database that, with the event-sourcing profile, the workflows are
+ * stored as events and snapshots instead of rows, and that the application works the same.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = EventSourcedWorkflowRepositoryIntegrationTest.Config.class)
+@ActiveProfiles({"integration", EventSourcedWorkflowRepository.PROFILE})
+@TestPropertySource(properties = "koobz.event-store.snapshot-interval=3")
+public class EventSourcedWorkflowRepositoryIntegrationTest {
+
+  @Autowired
+  private WorkflowApplicationService workflowApplicationService;
+
+  @Autowired
+  private WorkflowQueryService workflowQueryService;
+
+  @Autowired
+  private WorkflowImportService workflowImportService;
+
+  @Autowired
+  private WorkflowExportService workflowExportService;
+
+  @Autowired
+  private WorkflowChangeLog workflowChangeLog;
+
+  @Autowired
+  private WorkflowRepository workflowRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  public void theCommandsShouldBeAppendedAsEventsAndReplayed() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    Stage toDo = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    Stage done = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "Done");
+    WorkItem first = this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(),
+      toDo.getId(), "First", "");
+    WorkItem second = this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(),
+      toDo.getId(), "Second", "");
+    this.workflowApplicationService.changeWorkItemPriority(workflow.getId(), second.getId(), 0);
+    this.workflowApplicationService.moveWorkItemToStage(workflow.getId(), first.getId(),
+      done.getId());
+    this.workflowApplicationService.archiveWorkItem(workflow.getId(), first.getId());
+
+    Workflow board = this.workflowQueryService.findBoard(workflow.getId()).get();
+    WorkflowSnapshot snapshot = WorkflowSnapshot.of(board);
+    assertThat(snapshot.getVersion()).isEqualTo(8);
+    assertThat(snapshot.getStages()).extracting(WorkflowSnapshot.StageState::getName)
+      .containsExactly("To do", "Done");
+    assertThat(snapshot.getStages().get(0).getWorkItems())
+      .extracting(WorkflowSnapshot.WorkItemState::getTitle).containsExactly("Second");
+    assertThat(snapshot.getArchivedWorkItems())
+      .extracting(WorkflowSnapshot.WorkItemState::getStageId).containsExactly(done.getId());
+
+    // nothing but the head of the stream is written as rows
+    assertThat(this.count("SELECT COUNT(*) FROM stages WHERE workflow_id = ?", workflow))
+      .isEqualTo(0);
+    assertThat(this.count("SELECT version FROM workflows WHERE id = ?", workflow)).isEqualTo(8);
+  }
+
+  @Test
+  public void aCommandShouldAppendTheChangesOfASingleVersion() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    Stage toDo = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    for (int i = 0; i < 10; i++) {
+      this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(), toDo.getId(),
+        "Work item " + i, "");
+    }
+    long events = this.count("SELECT COUNT(*) FROM workflow_events WHERE workflow_id = ?",
+      workflow);
+
+    WorkItem moved = this.workflowQueryService.findBoard(workflow.getId()).get()
+      .stageOfId(toDo.getId()).get().getWorkItems().get(9);
+    this.workflowApplicationService.changeWorkItemPriority(workflow.getId(), moved.getId(), 0);
+
+    assertThat(this.count("SELECT COUNT(*) FROM workflow_events WHERE workflow_id = ?", workflow))
+      .isEqualTo(events + 1);
+    assertThat(this.count("SELECT MAX(version) FROM workflow_events WHERE workflow_id = ?",
+      workflow)).isEqualTo(13);
+  }
+
+  @Test
+  public void aSnapshotShouldBeTakenEverySnapshotIntervalVersions() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    assertThat(this.snapshotVersionOf(workflow)).isEqualTo(1);
+
+    for (int i = 0; i < 7; i++) {
+      this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "Stage " + i);
+    }
+
+    assertThat(this.snapshotVersionOf(workflow)).isEqualTo(7);
+    Workflow board = this.workflowQueryService.findBoard(workflow.getId()).get();
+    assertThat(board.getVersion()).isEqualTo(8);
+    assertThat(board.stages()).hasSize(7);
+  }
+
+  @Test(expected = OptimisticLockingFailureException.class)
+  public void aChangeMadeToAnOlderVersionShouldConflict() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+
+    new TransactionTemplate(this.transactionManager).execute(status -> {
+      this.workflowRepository.findOne(workflow.getId())
+        .addStageToWorkflow(UUID.randomUUID().toString(), "To do");
+
+      TransactionTemplate concurrent = new TransactionTemplate(this.transactionManager);
+      concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+      concurrent.execute(concurrentStatus -> this.workflowRepository.findOne(workflow.getId())
+        .addStageToWorkflow(UUID.randomUUID().toString(), "Done"));
+      return null;
+    });
+  }
+
+  @Test
+  public void thePagesTheImportsAndTheExportsShouldReadTheEvents() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+
+    WorkflowImportProgress progress = this.workflowImportService.importRecords(workflow.getId(),
+      new ByteArrayInputStream(("{\"type\": \"stage\", \"name\": \"Done\"}\n"
+        + "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"First\"}\n"
+        + "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"Second\"}\n"
+        + "{\"type\": \"workItem\", \"stage\": \"Done\", \"title\": \"Third\"}")
+        .getBytes(StandardCharsets.UTF_8)),
+      new WorkflowImportListener() {
+        @Override
+        public void rejected(final long line, final String reason) {
+        }
+
+        @Override
+        public void committed(final WorkflowImportProgress progress) {
+        }
+      });
+    assertThat(progress.getImportedCount()).isEqualTo(4);
+
+    BoardOverview overview = this.workflowQueryService.findBoardOverview(workflow.getId(), 1);
+    assertThat(overview.getVersion()).isEqualTo(progress.getVersion());
+    assertThat(overview.getStages()).extracting(BoardOverview.StageOverview::getName)
+      .containsExactly("To do", "Done");
+    BoardOverview.StageOverview toDo = overview.getStages().get(0);
+    assertThat(toDo.getFirstPage().getWorkItems().get(0).getTitle()).isEqualTo("First");
+    assertThat(this.workflowQueryService.findWorkItemPage(workflow.getId(), toDo.getId(),
+      toDo.getFirstPage().getNext(), 1).getWorkItems().get(0).getTitle()).isEqualTo("Second");
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    this.workflowExportService.export(workflow.getId(), output);
+    assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8))
+      .contains("\"To do\"", "\"First\"", "\"Second\"", "\"Done\"", "\"Third\"");
+  }
+
+  @Test
+  public void theChangeFeedShouldBeReadFromTheEvents() throws Exception {
+    Workflow workflow = this.workflowApplicationService.createWorkflow("A workflow");
+    Stage toDo = this.workflowApplicationService.addStageToWorkflow(workflow.getId(), "To do");
+    this.workflowApplicationService.addWorkItemToWorkflow(workflow.getId(), toDo.getId(),
+      "First", "");
+
+    WorkflowChangeFeed feed = this.workflowChangeLog.changesSince(workflow.getId(), 1);
+
+    assertThat(feed.isResyncRequired()).isFalse();
+    assertThat(feed.getVersion()).isEqualTo(3);
+    assertThat(feed.getChanges()).hasSize(2);
+    assertThat(feed.getChanges().get(1)).contains("\"type\":\"workItemAdded\"", "\"First\"");
+    assertThat(this.count("SELECT COUNT(*) FROM workflow_changes WHERE workflow_id = ?", workflow))
+      .isEqualTo(0);
+  }
+
+  @Test
+  public void theFirstSnapshotOfAWorkflowStoredAsRowsShouldBeTakenOnce() throws Exception {
+    String workflowId = UUID.randomUUID().toString();
+    this.jdbcTemplate.update("INSERT INTO workflows (id, name, version) VALUES (?, ?, ?)",
+      workflowId, "Stored as rows", 4);
+
+    Workflow loaded = new TransactionTemplate(this.transactionManager)
+      .execute(status -> this.workflowRepository.findOne(workflowId));
+    Workflow loadedAgain = new TransactionTemplate(this.transactionManager)
+      .execute(status -> this.workflowRepository.findOne(workflowId));
+
+    assertThat(loaded.getVersion()).isEqualTo(4);
+    assertThat(loadedAgain.getName()).isEqualTo("Stored as rows");
+    assertThat(this.jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM workflow_snapshots WHERE workflow_id = ?", Long.class, workflowId))
+      .isEqualTo(1);
+  }
+
+  private long snapshotVersionOf(final Workflow workflow) {
+    return this.count("SELECT version FROM workflow_snapshots WHERE workflow_id = ?", workflow);
+  }
+
+  private long count(final String query, final Workflow workflow) {
+    return this.jdbcTemplate.queryForObject(query, Long.class, workflow.getId());
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  @ComponentScan(basePackages = {
+    "org.svomz.apps.koobz.application",
+    "org.svomz.apps.koobz.infrastructure.readmodel",
+    "org.svomz.apps.koobz.infrastructure.imports",
+    "org.svomz.apps.koobz.infrastructure.exports",
+    "org.svomz.apps.koobz.infrastructure.eventstore"
+  })
+  @EnableJpaRepositories(repositoryFactoryBeanClass = KanbanRepositoryFactoryBean.class,
+    basePackages = {"org.svomz.apps.koobz.domain.model",
+    "org.svomz.apps.koobz.infrastructure.domain"})
+  @EntityScan(basePackages = "org.svomz.apps.koobz.domain.model")
+  static class Config {
+  }
+
+}
@@ -0,0 +1,70 @@
+package org.svomz.apps.koobz.infrastructure.exports;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.svomz.apps.koobz.application.WorkflowExportHandler;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import javax.sql.DataSource;
+
+/**
+ * Checks the fetch settings of the statements of the export, which are not the ones of the other
+ * queries of the connection.
+ */
+public class JdbcWorkflowExportRepositoryUnitTest {
+
+  private static final int FETCH_SIZE = 1000;
+
+  private DataSource dataSource;
+  private DatabaseMetaData metaData;
+  private PreparedStatement statement;
+
+  @Before
+  public void setUp() throws Exception {
+    this.dataSource = mock(DataSource.class);
+    Connection connection = mock(Connection.class);
+    this.metaData = mock(DatabaseMetaData.class);
+    this.statement = mock(PreparedStatement.class);
+    when(this.dataSource.getConnection()).thenReturn(connection);
+    when(connection.getMetaData()).thenReturn(this.metaData);
+    when(connection.prepareStatement(anyString())).thenReturn(this.statement);
+    when(this.statement.getConnection()).thenReturn(connection);
+    when(this.statement.executeQuery()).thenReturn(mock(ResultSet.class));
+  }
+
+  @Test
+  public void itShouldStreamTheRowsWithMySql() throws Exception {
+    when(this.metaData.getDatabaseProductName()).thenReturn("MySQL");
+
+    assertThat(this.read()).isFalse();
+
+    verify(this.statement).setFetchSize(Integer.MIN_VALUE);
+  }
+
+  @Test
+  public void itShouldFetchTheRowsByTheFetchSizeWithOtherDatabases() throws Exception {
+    when(this.metaData.getDatabaseProductName()).thenReturn("H2");
+
+    assertThat(this.read()).isFalse();
+
+    verify(this.statement).setFetchSize(FETCH_SIZE);
+    verify(this.statement, never()).setFetchSize(Integer.MIN_VALUE);
+  }
+
+  private boolean read() throws Exception {
+    return new JdbcWorkflowExportRepository(this.dataSource, FETCH_SIZE)
+      .read("b1", mock(WorkflowExportHandler.class));
+  }
+
+}
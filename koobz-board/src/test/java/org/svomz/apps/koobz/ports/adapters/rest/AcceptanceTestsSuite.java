@@ -10,7 +10,13 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
   WorkflowResourceAcceptanceTest.class,
   StageResourceAcceptanceTest.class,
-  WorkItemResourceAcceptanceTest.class
+  WorkItemResourceAcceptanceTest.class,
+  WorkflowCommandResourceAcceptanceTest.class,
+  WorkflowImportResourceAcceptanceTest.class,
+  WorkflowExportResourceAcceptanceTest.class,
+  WorkflowChangeResourceAcceptanceTest.class,
+  WorkflowEventResourceAcceptanceTest.class,
+  MetricsResourceAcceptanceTest.class
 })
 public class AcceptanceTestsSuite {
 
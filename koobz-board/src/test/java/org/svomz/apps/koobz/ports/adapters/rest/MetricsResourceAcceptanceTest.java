@@ -0,0 +1,52 @@
+package org.svomz.apps.koobz.ports.adapters.rest;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+import org.junit.Test;
+
+import com.jayway.restassured.http.ContentType;
+
+public class MetricsResourceAcceptanceTest extends AbstractAcceptanceTest {
+
+  /**
+   * As an operator
+   * Given boards are read and changed, some of the changes failing
+   * When I read the metrics
+   * Then I get the latencies of each resource method, its errors by exception mapper and the SQL
+   * statements of its requests
+   */
+  @Test
+  public void testGetMetrics() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    this.createStage(boardId, "To do");
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId + "/stages/unknown/workitems")
+    .then()
+      .statusCode(400);
+
+    String stages = "method=\"POST\",path=\"/workflows/{workflowId}/stages\"";
+    String workItems = "method=\"GET\",path=\"/workflows/{workflowId}/stages/{stageId}/workitems\"";
+    given()
+    .when()
+      .get("/metrics")
+    .then()
+      .statusCode(200)
+      .contentType(containsString("text/plain"))
+      .body(allOf(
+        containsString("koobz_http_requests_in_flight "),
+        containsString("koobz_http_request_duration_seconds_bucket{" + stages + ",le=\"+Inf\"} "),
+        containsString("koobz_http_request_duration_seconds_count{" + stages + "} "),
+        not(containsString("koobz_http_request_duration_seconds_count{" + stages + "} 0\n")),
+        containsString("koobz_http_request_errors_total{" + workItems
+          + ",mapper=\"StageNotInProcessMapper\"} "),
+        containsString("koobz_http_request_statements_count{" + stages + "} "),
+        not(containsString("koobz_http_request_statements_sum{" + stages + "} 0\n")),
+        containsString("koobz_http_request_entities_loaded_total{" + stages + "} ")));
+  }
+
+}
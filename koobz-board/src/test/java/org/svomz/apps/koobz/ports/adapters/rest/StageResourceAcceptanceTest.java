@@ -1,7 +1,10 @@
 package org.svomz.apps.koobz.ports.adapters.rest;
 
 import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
@@ -174,4 +177,42 @@ public class StageResourceAcceptanceTest extends AbstractAcceptanceTest {
       .statusCode(400);
   }
 
+  /**
+   * As an api user
+   * Given a stage exists with three work items
+   * When I list its work items two at a time
+   * Then I receive the first two with the rank to start the next page after, then the last one
+   */
+  @Test
+  public void testListWorkItemsOfStageByPage() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    String stageId = this.createStage(boardId, "To do").get("id");
+    this.createWorkItem(boardId, stageId, "First", StringUtils.EMPTY);
+    this.createWorkItem(boardId, stageId, "Second", StringUtils.EMPTY);
+    this.createWorkItem(boardId, stageId, "Third", StringUtils.EMPTY);
+
+    JsonPath firstPage = given()
+      .accept(ContentType.JSON)
+      .queryParam("limit", 2)
+    .when()
+      .get("/workflows/" + boardId + "/stages/" + stageId + "/workitems")
+    .then()
+      .statusCode(200)
+      .header("Link", containsString("rel=\"next\""))
+      .body("workItems.title", contains("First", "Second"))
+      .body("next", not(nullValue()))
+      .extract().jsonPath();
+
+    given()
+      .accept(ContentType.JSON)
+      .queryParam("limit", 2)
+      .queryParam("after", firstPage.getLong("next"))
+    .when()
+      .get("/workflows/" + boardId + "/stages/" + stageId + "/workitems")
+    .then()
+      .statusCode(200)
+      .body("workItems.title", contains("Third"))
+      .body("next", nullValue());
+  }
+
 }
@@ -0,0 +1,124 @@
+package org.svomz.apps.koobz.ports.adapters.rest;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.Test;
+
+import com.jayway.restassured.http.ContentType;
+
+import java.nio.charset.StandardCharsets;
+
+public class WorkflowChangeResourceAcceptanceTest extends AbstractAcceptanceTest {
+
+  /**
+   * As an api user
+   * Given I have a board at the version of its ETag
+   * When it changes and I ask for the changes since this version
+   * Then I receive only these changes, with the version they lead to
+   */
+  @Test
+  public void testGetChangesSinceVersion() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    String stageId = this.createStage(boardId, "To do").get("id");
+    long version = this.versionOf(boardId);
+
+    String workItemId = this.createWorkItem(boardId, stageId, "First", "").get("id");
+    this.createStage(boardId, "Done");
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId + "/changes?since=" + version)
+    .then()
+      .statusCode(200)
+      .body("version", equalTo((int) version + 2))
+      .body("changes.type", contains("workItemAdded", "stageAdded"))
+      .body("changes[0].workItemId", equalTo(workItemId))
+      .body("changes[0].stageId", equalTo(stageId))
+      .body("changes[1].name", equalTo("Done"));
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId + "/changes?since=" + (version + 2))
+    .then()
+      .statusCode(200)
+      .body("changes", empty());
+  }
+
+  /**
+   * As an api user
+   * Given I have a board at the version of its ETag
+   * When it changes by an import and I ask for the changes since this version
+   * Then I receive a 410 telling me to read the board again
+   */
+  @Test
+  public void testGetChangesRequiringAResync() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    long version = this.versionOf(boardId);
+
+    given()
+      .contentType("application/x-ndjson")
+      .body("{\"type\": \"stage\", \"name\": \"Done\"}\n".getBytes(StandardCharsets.UTF_8))
+    .when()
+      .post("/workflows/" + boardId + "/import")
+    .then()
+      .statusCode(200);
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId + "/changes?since=" + version)
+    .then()
+      .statusCode(410)
+      .body("resync", equalTo(true))
+      .body("version", equalTo((int) this.versionOf(boardId)));
+  }
+
+  /**
+   * As an api user
+   * When I ask for the changes without giving the version I have
+   * Then I receive a 400
+   */
+  @Test
+  public void testGetChangesWithoutVersion() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId + "/changes")
+    .then()
+      .statusCode(400);
+  }
+
+  /**
+   * As an api user
+   * When I ask for the changes of a board which does not exist
+   * Then I receive a 404
+   */
+  @Test
+  public void testGetChangesOfNonExistingBoard() {
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + Integer.MAX_VALUE + "/changes?since=1")
+    .then()
+      .statusCode(404);
+  }
+
+  private long versionOf(final String boardId) {
+    String etag = given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId)
+    .then()
+      .statusCode(200)
+      .extract().header("ETag");
+    return Long.parseLong(etag.replace("\"", ""));
+  }
+
+}
@@ -0,0 +1,81 @@
+package org.svomz.apps.koobz.ports.adapters.rest;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.isA;
+
+import org.junit.Test;
+
+import com.jayway.restassured.http.ContentType;
+
+public class WorkflowCommandResourceAcceptanceTest extends AbstractAcceptanceTest {
+
+  /**
+   * As an api user
+   * Given a board exists with a stage having two work items
+   * When I send a batch of operations to the board
+   * Then I receive the result of each operation, in order
+   */
+  @Test
+  public void testApplyCommands() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    String stageId = this.createStage(boardId, "To do").get("id");
+    String firstId = this.createWorkItem(boardId, stageId, "First", "").get("id");
+    String secondId = this.createWorkItem(boardId, stageId, "Second", "").get("id");
+
+    given()
+      .contentType(ContentType.JSON)
+      .accept(ContentType.JSON)
+      .body("["
+        + "{\"type\": \"addStage\", \"name\": \"Done\"},"
+        + "{\"type\": \"changeWorkItemPriority\", \"workItemId\": \"" + secondId + "\", \"newPosition\": 0},"
+        + "{\"type\": \"archiveWorkItem\", \"workItemId\": \"" + firstId + "\"},"
+        + "{\"type\": \"removeStage\", \"stageId\": \"" + stageId + "\"}"
+        + "]")
+    .when()
+      .post("/workflows/" + boardId + "/commands")
+    .then()
+      .statusCode(200)
+      .body("status", contains("applied", "applied", "applied", "rejected"))
+      .body("[0].id", isA(String.class))
+      .body("[3].error", equalTo("StageNotEmptyException"));
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId)
+    .then()
+      .statusCode(200)
+      .body("stages", hasSize(2))
+      .body("stages[0].workItems.id", contains(secondId));
+  }
+
+  /**
+   * As an api user
+   * When I send an operation of an unknown type
+   * Then I receive 400 and no operation is applied
+   */
+  @Test
+  public void testApplyUnknownCommand() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+
+    given()
+      .contentType(ContentType.JSON)
+      .accept(ContentType.JSON)
+      .body("[{\"type\": \"addStage\", \"name\": \"Done\"}, {\"type\": \"paint\"}]")
+    .when()
+      .post("/workflows/" + boardId + "/commands")
+    .then()
+      .statusCode(400);
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId)
+    .then()
+      .body("stages", hasSize(0));
+  }
+
+}
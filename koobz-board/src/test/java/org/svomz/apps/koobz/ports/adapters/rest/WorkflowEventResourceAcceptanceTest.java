@@ -0,0 +1,132 @@
+package org.svomz.apps.koobz.ports.adapters.rest;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.http.ContentType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+public class WorkflowEventResourceAcceptanceTest extends AbstractAcceptanceTest {
+
+  /**
+   * As an api user
+   * Given I listen to the events of a board from the version I have
+   * When the board changes
+   * Then I receive the changes as an event whose id is the new version
+   */
+  @Test
+  public void testReceiveChangesAsTheyAreMade() throws IOException {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    long version = this.versionOf(boardId);
+
+    HttpURLConnection connection = this.openEvents(boardId + "/events?since=" + version, null);
+    try (BufferedReader events = reader(connection)) {
+      this.createStage(boardId, "To do");
+
+      assertThat(nextEvent(events)).contains(
+        "id:" + (version + 1),
+        "event:changes",
+        "\"type\":\"stageAdded\"",
+        "\"name\":\"To do\"");
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * As an api user
+   * Given I lost the connection to the events of a board
+   * When I reconnect with the id of the last event I received
+   * Then I first receive the changes I missed
+   */
+  @Test
+  public void testReceiveMissedChangesOnReconnection() throws IOException {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    long version = this.versionOf(boardId);
+    this.createStage(boardId, "To do");
+    this.createStage(boardId, "Done");
+
+    HttpURLConnection connection = this.openEvents(boardId + "/events",
+      Long.toString(version));
+    try (BufferedReader events = reader(connection)) {
+      String event = nextEvent(events);
+
+      assertThat(event).contains("id:" + (version + 2), "event:changes", "To do", "Done");
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * As an api user
+   * When I listen to the events of a board which does not exist
+   * Then I receive a 404
+   */
+  @Test
+  public void testEventsOfNonExistingBoard() {
+    given()
+      .accept("text/event-stream")
+    .when()
+      .get("/workflows/" + Integer.MAX_VALUE + "/events")
+    .then()
+      .statusCode(404);
+  }
+
+  private HttpURLConnection openEvents(final String path, final String lastEventId)
+    throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(
+      RestAssured.baseURI + ":" + RestAssured.port + "/workflows/" + path).openConnection();
+    connection.setRequestProperty("Accept", "text/event-stream");
+    if (lastEventId != null) {
+      connection.setRequestProperty("Last-Event-ID", lastEventId);
+    }
+    connection.setReadTimeout(10000);
+    // subscribed once the response starts
+    assertThat(connection.getResponseCode()).isEqualTo(200);
+    assertThat(connection.getContentType()).startsWith("text/event-stream");
+    return connection;
+  }
+
+  private static BufferedReader reader(final HttpURLConnection connection) throws IOException {
+    return new BufferedReader(
+      new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return the lines of the next event, without the spaces following the field names.
+   */
+  private static String nextEvent(final BufferedReader events) throws IOException {
+    StringBuilder event = new StringBuilder();
+    String line;
+    while ((line = events.readLine()) != null) {
+      if (line.isEmpty() && event.length() > 0) {
+        return event.toString();
+      }
+      if (!line.isEmpty() && !line.startsWith(":")) {
+        event.append(line.replaceFirst(": ?", ":")).append('\n');
+      }
+    }
+    return event.toString();
+  }
+
+  private long versionOf(final String boardId) {
+    String etag = given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId)
+    .then()
+      .statusCode(200)
+      .extract().header("ETag");
+    return Long.parseLong(etag.replace("\"", ""));
+  }
+
+}
@@ -0,0 +1,66 @@
+package org.svomz.apps.koobz.ports.adapters.rest;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.Test;
+
+import com.jayway.restassured.http.ContentType;
+
+public class WorkflowExportResourceAcceptanceTest extends AbstractAcceptanceTest {
+
+  /**
+   * As an api user
+   * Given a board exists with stages, work items and an archived work item
+   * When I export the board
+   * Then I receive the stages with their work items in order, and the archived work item
+   */
+  @Test
+  public void testExportBoard() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    String stageId = this.createStage(boardId, "To do").get("id");
+    this.createStage(boardId, "Done");
+    String firstId = this.createWorkItem(boardId, stageId, "First", "").get("id");
+    String secondId = this.createWorkItem(boardId, stageId, "Second", "").get("id");
+
+    given()
+      .contentType(ContentType.JSON)
+      .body("{\"archived\": true}")
+    .when()
+      .post("/workflows/" + boardId + "/workitems/" + secondId + "/archiving")
+    .then()
+      .statusCode(200);
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId + "/export")
+    .then()
+      .statusCode(200)
+      .contentType(ContentType.JSON)
+      .body("name", equalTo("Test 1"))
+      .body("stages.name", contains("To do", "Done"))
+      .body("stages[0].workItems.id", contains(firstId))
+      .body("stages[1].workItems", empty())
+      .body("archivedWorkItems.id", contains(secondId))
+      .body("archivedWorkItems[0].stageId", equalTo(stageId));
+  }
+
+  /**
+   * As an api user
+   * When I export a board which does not exist
+   * Then I receive a 404
+   */
+  @Test
+  public void testExportNonExistingBoard() {
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + Integer.MAX_VALUE + "/export")
+    .then()
+      .statusCode(404);
+  }
+
+}
@@ -0,0 +1,104 @@
+package org.svomz.apps.koobz.ports.adapters.rest;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.Test;
+
+import com.jayway.restassured.http.ContentType;
+
+import java.nio.charset.StandardCharsets;
+
+public class WorkflowImportResourceAcceptanceTest extends AbstractAcceptanceTest {
+
+  /**
+   * As an api user
+   * Given a board exists with a stage having a work item
+   * When I import stages and work items as newline delimited JSON
+   * Then they are appended to the board and I am told about the rejected lines
+   */
+  @Test
+  public void testImportNewlineDelimitedRecords() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    String stageId = this.createStage(boardId, "To do").get("id");
+    String firstId = this.createWorkItem(boardId, stageId, "First", "").get("id");
+
+    given()
+      .contentType("application/x-ndjson")
+      // not a content type rest-assured knows how to encode a string as
+      .body(("{\"type\": \"stage\", \"name\": \"Done\"}\n"
+        + "{\"type\": \"workItem\", \"stage\": \"To do\", \"title\": \"Second\"}\n"
+        + "{\"type\": \"workItem\", \"stage\": \"Doing\", \"title\": \"Lost\"}\n"
+        + "{\"type\": \"workItem\", \"stageId\": \"" + stageId + "\", \"title\": \"Third\"}\n")
+        .getBytes(StandardCharsets.UTF_8))
+    .when()
+      .post("/workflows/" + boardId + "/import")
+    .then()
+      .statusCode(200)
+      .body(containsString("{\"line\":3,\"error\":\"StageNotInProcessException\"}"))
+      .body(containsString("{\"imported\":3,\"rejected\":1,"));
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId)
+    .then()
+      .statusCode(200)
+      .body("stages.name", contains("To do", "Done"))
+      .body("stages[0].workItems.title", contains("First", "Second", "Third"))
+      .body("stages[0].workItems[0].id", equalTo(firstId));
+  }
+
+  /**
+   * As an api user
+   * When I import records giving the ETag of the board I have
+   * Then the import is rejected if someone changed the board meanwhile
+   */
+  @Test
+  public void testImportIntoAnOutdatedBoard() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    String etag = given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId)
+    .then()
+      .extract().header("ETag");
+    this.createStage(boardId, "To do");
+
+    given()
+      .contentType(ContentType.JSON)
+      .header("If-Match", etag)
+      .body("[{\"type\": \"stage\", \"name\": \"Done\"}]")
+    .when()
+      .post("/workflows/" + boardId + "/import")
+    .then()
+      .statusCode(412);
+
+    given()
+      .accept(ContentType.JSON)
+    .when()
+      .get("/workflows/" + boardId)
+    .then()
+      .statusCode(200)
+      .body("stages.name", contains("To do"));
+  }
+
+  /**
+   * As an api user
+   * When I import records into a board which does not exist
+   * Then I receive a 404
+   */
+  @Test
+  public void testImportIntoNonExistingBoard() {
+    given()
+      .contentType(ContentType.JSON)
+      .body("[{\"type\": \"stage\", \"name\": \"Done\"}]")
+    .when()
+      .post("/workflows/" + Integer.MAX_VALUE + "/import")
+    .then()
+      .statusCode(404);
+  }
+
+}
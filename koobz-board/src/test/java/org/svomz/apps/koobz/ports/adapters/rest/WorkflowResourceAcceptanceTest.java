@@ -1,6 +1,7 @@
 package org.svomz.apps.koobz.ports.adapters.rest;
 
 import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.isA;
@@ -28,6 +29,100 @@ public class WorkflowResourceAcceptanceTest extends AbstractAcceptanceTest {
       .post(this.workflowsUrl());
   }
   
+  /**
+   * As an api user
+   * When I GET a board I already have, giving its ETag
+   * Then I am told that it did not change, until it changes
+   */
+  @Test
+  public void shouldAnswerNotModifiedWhenTheBoardDidNotChange() {
+    String boardId = this.createWorkflow(new WorkflowInputModel("Test1")).get("id");
+    String etag = given()
+      .accept(ContentType.JSON)
+    .when()
+      .get(this.workflowsUrl() + "/" + boardId)
+    .then()
+      .statusCode(200)
+      .header("ETag", not(nullValue()))
+      .extract().header("ETag");
+
+    given()
+      .accept(ContentType.JSON)
+      .header("If-None-Match", etag)
+    .when()
+      .get(this.workflowsUrl() + "/" + boardId)
+    .then()
+      .statusCode(304)
+      .header("ETag", equalTo(etag));
+
+    given()
+      .contentType(ContentType.JSON)
+      .body(new WorkflowInputModel("Test2"))
+    .when()
+      .put(this.workflowsUrl() + "/" + boardId);
+
+    given()
+      .accept(ContentType.JSON)
+      .header("If-None-Match", etag)
+    .when()
+      .get(this.workflowsUrl() + "/" + boardId)
+    .then()
+      .statusCode(200)
+      .header("ETag", not(equalTo(etag)))
+      .body("name", equalTo("Test2"));
+  }
+
+  /**
+   * As an api user
+   * When I change a board giving the ETag of the board I have
+   * Then my change is rejected if someone changed the board meanwhile
+   */
+  @Test
+  public void shouldRejectAChangeMadeToAnOutdatedBoard() {
+    String boardId = this.createWorkflow(new WorkflowInputModel("Test1")).get("id");
+    String etag = given()
+      .accept(ContentType.JSON)
+    .when()
+      .get(this.workflowsUrl() + "/" + boardId)
+    .then()
+      .extract().header("ETag");
+
+    given()
+      .contentType(ContentType.JSON)
+      .header("If-Match", etag)
+      .body(new WorkflowInputModel("Test2"))
+    .when()
+      .put(this.workflowsUrl() + "/" + boardId)
+    .then()
+      .statusCode(200);
+
+    given()
+      .contentType(ContentType.JSON)
+      .header("If-Match", etag)
+      .body(new WorkflowInputModel("Test3"))
+    .when()
+      .put(this.workflowsUrl() + "/" + boardId)
+    .then()
+      .statusCode(412);
+  }
+
+  /**
+   * As an api user
+   * When I create a board giving an ETag
+   * Then my request is rejected as the new board cannot be at the version I have
+   */
+  @Test
+  public void shouldRejectACreationExpectingAVersion() {
+    given()
+      .contentType(ContentType.JSON)
+      .header("If-Match", "\"1\"")
+      .body(new WorkflowInputModel("Test1"))
+    .when()
+      .post(this.workflowsUrl())
+    .then()
+      .statusCode(412);
+  }
+
   /**
    * As an api user
    * When I GET /boards
@@ -121,6 +216,37 @@ public class WorkflowResourceAcceptanceTest extends AbstractAcceptanceTest {
    * When I want to create an invalid board
    * Then I receice a 400
    */
+  /**
+   * As an api user
+   * Given a board exists with a stage having three work items and an empty stage
+   * When I get the board with a limit of two work items
+   * Then I receive each stage with its first two work items, and where its next page starts
+   */
+  @Test
+  public void testGetBoardWithFirstPageOfEachStage() {
+    String boardId = this.createWorkflow("Test 1").get("id");
+    String toDoId = this.createStage(boardId, "To do").get("id");
+    this.createStage(boardId, "Done");
+    this.createWorkItem(boardId, toDoId, "First", StringUtils.EMPTY);
+    this.createWorkItem(boardId, toDoId, "Second", StringUtils.EMPTY);
+    this.createWorkItem(boardId, toDoId, "Third", StringUtils.EMPTY);
+
+    given()
+      .accept(ContentType.JSON)
+      .queryParam("limit", 2)
+    .when()
+      .get(this.workflowsUrl() + "/" + boardId)
+    .then()
+      .statusCode(200)
+      .header("ETag", not(nullValue()))
+      .body("name", equalTo("Test 1"))
+      .body("stages.name", contains("To do", "Done"))
+      .body("stages[0].workItems.title", contains("First", "Second"))
+      .body("stages[0].next", not(nullValue()))
+      .body("stages[1].workItems", emptyIterable())
+      .body("stages[1].next", nullValue());
+  }
+
   @Test
   public void testInvalidRequestWithEmptyBody() {
     given()
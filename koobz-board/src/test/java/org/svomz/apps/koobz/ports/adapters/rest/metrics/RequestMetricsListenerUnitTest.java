@@ -0,0 +1,75 @@
+package org.svomz.apps.koobz.ports.adapters.rest.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.junit.After;
+import org.junit.Test;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+public class RequestMetricsListenerUnitTest {
+
+  @After
+  public void tearDown() {
+    PersistenceActivity.clear();
+  }
+
+  @Test
+  public void itShouldWriteWhatThePersistenceDidInTheHeaderOfTheResponseWhenEnabled() {
+    MultivaluedMap<String, Object> headers = this.serve(true);
+
+    assertThat(headers.getFirst(RequestMetricsListener.PERSISTENCE_HEADER))
+      .isEqualTo("statements=2; entities=1; collections=0; flushes=0; flush-ms=0.000");
+  }
+
+  @Test
+  public void itShouldNotWriteTheHeaderWhenDisabled() {
+    MultivaluedMap<String, Object> headers = this.serve(false);
+
+    assertThat(headers).doesNotContainKey(RequestMetricsListener.PERSISTENCE_HEADER);
+  }
+
+  /**
+   * Serves a request which prepares 2 statements and loads 1 entity.
+   *
+   * @return the headers of its response.
+   */
+  private MultivaluedMap<String, Object> serve(final boolean persistenceHeader) {
+    RequestMetricsListener listener =
+      new RequestMetricsListener(new RequestMetrics(), persistenceHeader, 2);
+    MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+    ContainerResponse response = mock(ContainerResponse.class);
+    when(response.getHeaders()).thenReturn(headers);
+    ContainerRequest request = mock(ContainerRequest.class);
+    when(request.getMethod()).thenReturn("GET");
+
+    RequestEventListener recorder = listener.onRequest(this.event(RequestEvent.Type.START,
+      request, null));
+    PersistenceActivity.current().statementPrepared();
+    PersistenceActivity.current().statementPrepared();
+    PersistenceActivity.current().entityLoaded();
+    recorder.onEvent(this.event(RequestEvent.Type.RESP_FILTERS_START, request, response));
+    recorder.onEvent(this.event(RequestEvent.Type.FINISHED, request, response));
+
+    assertThat(PersistenceActivity.current()).isNull();
+    return headers;
+  }
+
+  private RequestEvent event(final RequestEvent.Type type, final ContainerRequest request,
+    final ContainerResponse response) {
+    RequestEvent event = mock(RequestEvent.class);
+    when(event.getType()).thenReturn(type);
+    when(event.getContainerRequest()).thenReturn(request);
+    when(event.getContainerResponse()).thenReturn(response);
+    return event;
+  }
+
+}
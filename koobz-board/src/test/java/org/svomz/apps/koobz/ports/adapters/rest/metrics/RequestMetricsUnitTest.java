@@ -0,0 +1,135 @@
+package org.svomz.apps.koobz.ports.adapters.rest.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.svomz.apps.koobz.application.PersistenceActivity;
+import org.svomz.apps.koobz.ports.adapters.rest.metrics.RequestMetrics.ResourceMethodMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+public class RequestMetricsUnitTest {
+
+  private static final String LABELS = "method=\"POST\",path=\"/workflows/{workflowId}/stages\"";
+
+  @Test
+  public void itShouldScrapeTheLatenciesAndTheErrorsOfEachResourceMethod() {
+    RequestMetrics requestMetrics = new RequestMetrics();
+    ResourceMethodMetrics createStage =
+      requestMetrics.ofResourceMethod("POST", "/workflows/{workflowId}/stages");
+    for (int i = 1; i <= 100; i++) {
+      requestMetrics.requestStarted();
+      createStage.started();
+      createStage.finished(TimeUnit.MILLISECONDS.toNanos(i), i % 10 == 0 ? "StageNotEmptyMapper"
+        : null);
+      requestMetrics.requestFinished();
+    }
+    createStage.started();
+    createStage.finished(TimeUnit.MILLISECONDS.toNanos(1), RequestMetrics.UNMAPPED);
+    requestMetrics.requestStarted();
+
+    String text = requestMetrics.scrape();
+
+    assertThat(text).contains(
+      "# TYPE koobz_http_request_duration_seconds histogram\n",
+      "koobz_http_requests_in_flight 1\n",
+      "koobz_http_resource_requests_in_flight{" + LABELS + "} 0\n",
+      "koobz_http_request_duration_seconds_bucket{" + LABELS + ",le=\"0.005\"} 6\n",
+      "koobz_http_request_duration_seconds_bucket{" + LABELS + ",le=\"0.05\"} 51\n",
+      "koobz_http_request_duration_seconds_bucket{" + LABELS + ",le=\"0.1\"} 101\n",
+      "koobz_http_request_duration_seconds_bucket{" + LABELS + ",le=\"+Inf\"} 101\n",
+      "koobz_http_request_duration_seconds_sum{" + LABELS + "} 5.051\n",
+      "koobz_http_request_duration_seconds_count{" + LABELS + "} 101\n",
+      "koobz_http_request_errors_total{" + LABELS + ",mapper=\"StageNotEmptyMapper\"} 10\n",
+      "koobz_http_request_errors_total{" + LABELS + ",mapper=\"unmapped\"} 1\n");
+  }
+
+  @Test
+  public void eachScrapeShouldSeeAllTheRequestsSinceTheStart() {
+    RequestMetrics requestMetrics = new RequestMetrics();
+    ResourceMethodMetrics getWorkflow =
+      requestMetrics.ofResourceMethod("GET", "/workflows/{workflowId}");
+    getWorkflow.started();
+    getWorkflow.finished(TimeUnit.SECONDS.toNanos(2), null);
+    String first = requestMetrics.scrape();
+
+    String second = requestMetrics.scrape();
+    getWorkflow.started();
+    getWorkflow.finished(TimeUnit.MILLISECONDS.toNanos(3), null);
+    String text = requestMetrics.scrape();
+
+    String labels = "{method=\"GET\",path=\"/workflows/{workflowId}\"";
+    assertThat(second).isEqualTo(first).contains(
+      "koobz_http_request_duration_seconds_bucket" + labels + ",le=\"1\"} 0\n",
+      "koobz_http_request_duration_seconds_bucket" + labels + ",le=\"2.5\"} 1\n");
+    assertThat(text).contains(
+      "koobz_http_request_duration_seconds_bucket" + labels + ",le=\"0.005\"} 1\n",
+      "koobz_http_request_duration_seconds_bucket" + labels + ",le=\"+Inf\"} 2\n",
+      "koobz_http_request_duration_seconds_count" + labels + "} 2\n");
+  }
+
+  @Test
+  public void itShouldScrapeWhatThePersistenceDidForTheRequestsOfEachResourceMethod() {
+    RequestMetrics requestMetrics = new RequestMetrics();
+    ResourceMethodMetrics getWorkflow =
+      requestMetrics.ofResourceMethod("GET", "/workflows/{workflowId}");
+    for (int i = 1; i <= 10; i++) {
+      PersistenceActivity activity = PersistenceActivity.start();
+      for (int j = 0; j < i; j++) {
+        activity.statementPrepared();
+        activity.entityLoaded();
+      }
+      activity.collectionInitialized();
+      activity.flushStarted();
+      activity.flushStarted();
+      activity.flushFinished();
+      activity.flushFinished();
+      getWorkflow.started();
+      getWorkflow.finished(TimeUnit.MILLISECONDS.toNanos(1), null);
+      getWorkflow.persisted(activity);
+    }
+    PersistenceActivity.clear();
+
+    String text = requestMetrics.scrape();
+
+    String labels = "{method=\"GET\",path=\"/workflows/{workflowId}\"";
+    assertThat(text).contains(
+      "# TYPE koobz_http_request_statements histogram\n",
+      "koobz_http_request_statements_bucket" + labels + ",le=\"0\"} 0\n",
+      "koobz_http_request_statements_bucket" + labels + ",le=\"5\"} 5\n",
+      "koobz_http_request_statements_bucket" + labels + ",le=\"10\"} 10\n",
+      "koobz_http_request_statements_bucket" + labels + ",le=\"+Inf\"} 10\n",
+      "koobz_http_request_statements_sum" + labels + "} 55\n",
+      "koobz_http_request_statements_count" + labels + "} 10\n",
+      "koobz_http_request_entities_loaded_total" + labels + "} 55\n",
+      "koobz_http_request_collections_initialized_total" + labels + "} 10\n",
+      "koobz_http_request_flushes_total" + labels + "} 10\n",
+      "koobz_http_request_flush_seconds_total" + labels + "} ");
+  }
+
+  @Test
+  public void theUsualStatementsShouldBeKnownOnceEnoughRequestsWereRecorded() {
+    RequestMetrics requestMetrics = new RequestMetrics();
+    ResourceMethodMetrics getWorkflow =
+      requestMetrics.ofResourceMethod("GET", "/workflows/{workflowId}");
+    for (int i = 1; i < 100; i++) {
+      getWorkflow.persisted(this.activityOf(i % 10 == 0 ? 20 : 3));
+    }
+    long unknown = getWorkflow.usualStatements();
+    getWorkflow.persisted(this.activityOf(3));
+    requestMetrics.scrape();
+
+    assertThat(unknown).isEqualTo(-1);
+    assertThat(getWorkflow.usualStatements()).isEqualTo(20);
+  }
+
+  private PersistenceActivity activityOf(final int statements) {
+    PersistenceActivity activity = PersistenceActivity.start();
+    PersistenceActivity.clear();
+    for (int i = 0; i < statements; i++) {
+      activity.statementPrepared();
+    }
+    return activity;
+  }
+
+}
@@ -0,0 +1,144 @@
+package org.svomz.apps.koobz.loadtests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+
+import org.svomz.apps.koobz.ports.adapters.rest.models.StageInputModel;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkItemArchivingInputModel;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkItemInputModel;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkItemMoveInputModel;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkItemPositionInputModel;
+import org.svomz.apps.koobz.ports.adapters.rest.models.WorkflowInputModel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Sends the REST calls of the simulated users to the board service, with the input models of the
+ * service as bodies. The connections are kept alive and reused: the bodies of the responses are
+ * always read to their end.
+ */
+final class BoardClient {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final String baseUri;
+
+  BoardClient(final String baseUri) {
+    this.baseUri = Preconditions.checkNotNull(baseUri);
+  }
+
+  /**
+   * @return the id of the new workflow.
+   * @throws IllegalStateException if the workflow is not created.
+   */
+  String createWorkflow(final String name) throws IOException {
+    return this.created(this.send("POST", "/workflows", new WorkflowInputModel(name)));
+  }
+
+  /**
+   * @return the id of the new stage.
+   * @throws IllegalStateException if the stage is not created.
+   */
+  String createStage(final String workflowId, final String name) throws IOException {
+    return this.created(this.send("POST", "/workflows/" + workflowId + "/stages",
+      new StageInputModel(name)));
+  }
+
+  Response createWorkItem(final String workflowId, final String stageId, final String title)
+    throws IOException {
+    return this.send("POST", "/workflows/" + workflowId + "/workitems",
+      new WorkItemInputModel(title, stageId, null, "The description of " + title));
+  }
+
+  Response readWorkflow(final String workflowId) throws IOException {
+    return this.send("GET", "/workflows/" + workflowId, null);
+  }
+
+  Response moveWorkItem(final String workflowId, final String workItemId, final String stageId)
+    throws IOException {
+    return this.send("POST", "/workflows/" + workflowId + "/workitems/" + workItemId + "/move",
+      new WorkItemMoveInputModel(stageId));
+  }
+
+  Response changeWorkItemPosition(final String workflowId, final String workItemId,
+    final int position) throws IOException {
+    return this.send("POST", "/workflows/" + workflowId + "/workitems/" + workItemId + "/position",
+      new WorkItemPositionInputModel(position));
+  }
+
+  Response archiveWorkItem(final String workflowId, final String workItemId) throws IOException {
+    return this.send("POST", "/workflows/" + workflowId + "/workitems/" + workItemId + "/archiving",
+      new WorkItemArchivingInputModel(true));
+  }
+
+  private String created(final Response response) {
+    Preconditions.checkState(response.isSuccessful(), "Expected a creation but got %s",
+      response.getStatus());
+    return response.getId();
+  }
+
+  private Response send(final String method, final String path, final Object body)
+    throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(this.baseUri + path)
+      .openConnection();
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Accept", "application/json");
+    if (body != null) {
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/json");
+      try (OutputStream output = connection.getOutputStream()) {
+        MAPPER.writeValue(output, body);
+      }
+    }
+
+    int status = connection.getResponseCode();
+    InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+    byte[] content = new byte[0];
+    if (input != null) {
+      try (InputStream in = input) {
+        content = ByteStreams.toByteArray(in);
+      }
+    }
+    return new Response(status, content);
+  }
+
+  static final class Response {
+
+    private final int status;
+    private final byte[] content;
+
+    private Response(final int status, final byte[] content) {
+      this.status = status;
+      this.content = content;
+    }
+
+    int getStatus() {
+      return this.status;
+    }
+
+    boolean isSuccessful() {
+      return this.status >= 200 && this.status < 300;
+    }
+
+    /**
+     * @return the id of the resource the response represents.
+     */
+    String getId() {
+      try {
+        JsonNode id = MAPPER.readTree(this.content).get("id");
+        Preconditions.checkState(id != null, "The response has no id");
+        return id.asText();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+  }
+
+}
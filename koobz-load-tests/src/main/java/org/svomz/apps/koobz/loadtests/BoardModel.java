@@ -0,0 +1,104 @@
+package org.svomz.apps.koobz.loadtests;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * What the simulated users know of a board: its stages, and the stage of each of its work items.
+ * A work item is checked out by the user changing it and checked in afterwards, so that two
+ * users never change the same work item at once: the requests fail only when the service fails.
+ */
+final class BoardModel {
+
+  private final String id;
+  private final List<String> stageIds;
+  private final int[] stageSizes;
+  private final List<WorkItemModel> idleWorkItems = new ArrayList<>();
+
+  BoardModel(final String id, final List<String> stageIds) {
+    this.id = Preconditions.checkNotNull(id);
+    this.stageIds = new ArrayList<>(stageIds);
+    this.stageSizes = new int[stageIds.size()];
+  }
+
+  String getId() {
+    return this.id;
+  }
+
+  int stageCount() {
+    return this.stageIds.size();
+  }
+
+  String stageId(final int stage) {
+    return this.stageIds.get(stage);
+  }
+
+  synchronized int stageSize(final int stage) {
+    return this.stageSizes[stage];
+  }
+
+  /**
+   * Records a work item added to the board, idle.
+   */
+  synchronized void added(final String workItemId, final int stage) {
+    this.stageSizes[stage]++;
+    this.idleWorkItems.add(new WorkItemModel(workItemId, stage));
+  }
+
+  /**
+   * @return the idle work item picked by the given number, which is not idle anymore, or nothing if
+   * all the work items are checked out.
+   */
+  synchronized Optional<WorkItemModel> checkOut(final int pick) {
+    if (this.idleWorkItems.isEmpty()) {
+      return Optional.empty();
+    }
+
+    int index = Math.floorMod(pick, this.idleWorkItems.size());
+    WorkItemModel workItem = this.idleWorkItems.get(index);
+    WorkItemModel last = this.idleWorkItems.remove(this.idleWorkItems.size() - 1);
+    if (index < this.idleWorkItems.size()) {
+      this.idleWorkItems.set(index, last);
+    }
+    return Optional.of(workItem);
+  }
+
+  /**
+   * Makes a checked out work item idle again, in the given stage.
+   */
+  synchronized void checkIn(final WorkItemModel workItem, final int stage) {
+    this.stageSizes[workItem.getStage()]--;
+    this.added(workItem.getId(), stage);
+  }
+
+  /**
+   * Records a checked out work item which is not on the board anymore.
+   */
+  synchronized void removed(final WorkItemModel workItem) {
+    this.stageSizes[workItem.getStage()]--;
+  }
+
+  static final class WorkItemModel {
+
+    private final String id;
+    private final int stage;
+
+    private WorkItemModel(final String id, final int stage) {
+      this.id = id;
+      this.stage = stage;
+    }
+
+    String getId() {
+      return this.id;
+    }
+
+    int getStage() {
+      return this.stage;
+    }
+
+  }
+
+}
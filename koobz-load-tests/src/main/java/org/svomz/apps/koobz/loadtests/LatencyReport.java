@@ -0,0 +1,196 @@
+package org.svomz.apps.koobz.loadtests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latencies of the requests of each operation, from the time each request was due to be sent
+ * to the time its response was read: the time a request waited for a simulated user is counted,
+ * as it would be by the real user waiting for it. Only the requests due after the warmup are
+ * measured. The requests not answered when the report is written are counted as timeouts, their
+ * latency being the time they had been waiting for.
+ *
+ * The report is written as JSON: the settings of the run, then for each operation and for all of
+ * them the counts, the percentiles in milliseconds, and the whole histogram in microseconds,
+ * compressed and encoded in base 64 as HdrHistogram does, to compare or merge the runs.
+ */
+final class LatencyReport {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private final long measuredFrom;
+  private final Map<Operation, Measures> measures = new EnumMap<>(Operation.class);
+  private final Set<Request> pending = ConcurrentHashMap.newKeySet();
+
+  LatencyReport(final long measuredFromNanos) {
+    this.measuredFrom = measuredFromNanos;
+    for (Operation operation : Operation.values()) {
+      this.measures.put(operation, new Measures());
+    }
+  }
+
+  /**
+   * Records the arrival of a request of the given operation, due to be sent at the given time.
+   *
+   * @return the request, to record how it ended
+   */
+  Request arrived(final Operation operation, final long dueNanos) {
+    Request request = new Request(operation, dueNanos);
+    this.pending.add(request);
+    return request;
+  }
+
+  void succeeded(final Request request, final long doneNanos) {
+    if (this.end(request)) {
+      this.measures.get(request.operation).record(doneNanos - request.due);
+    }
+  }
+
+  /**
+   * Records a request which got an error status or no response at all. Its latency is measured as
+   * well.
+   */
+  void failed(final Request request, final long doneNanos) {
+    if (this.end(request)) {
+      this.measures.get(request.operation).record(doneNanos - request.due);
+      this.measures.get(request.operation).errors.increment();
+    }
+  }
+
+  /**
+   * Records a request which was not sent because the board had no idle work item to change.
+   */
+  void skipped(final Request request) {
+    if (this.end(request)) {
+      this.measures.get(request.operation).skipped.increment();
+    }
+  }
+
+  /**
+   * Records the requests which have not ended yet as timeouts: the ones waiting for a user and the
+   * ones waiting for their response. They are not recorded again if they end later.
+   *
+   * @return the number of measured requests recorded as timeouts
+   */
+  long timedOut(final long nowNanos) {
+    long timeouts = 0;
+    for (Request request : this.pending) {
+      if (this.end(request)) {
+        this.measures.get(request.operation).record(nowNanos - request.due);
+        this.measures.get(request.operation).timeouts.increment();
+        timeouts++;
+      }
+    }
+    return timeouts;
+  }
+
+  /**
+   * Ends the request.
+   *
+   * @return whether it has to be recorded: it is measured, and it had not ended yet
+   */
+  private boolean end(final Request request) {
+    return this.pending.remove(request) && request.due >= this.measuredFrom;
+  }
+
+  void write(final LoadTestSettings settings, final long measuredNanos, final File output)
+    throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode report = mapper.createObjectNode();
+    ObjectNode settingsNode = report.putObject("settings");
+    settings.asMap().forEach(settingsNode::put);
+    report.put("measuredSeconds", measuredNanos / (double) TimeUnit.SECONDS.toNanos(1));
+
+    ObjectNode operations = report.putObject("operations");
+    Histogram all = new Histogram(SIGNIFICANT_DIGITS);
+    long errors = 0;
+    long timeouts = 0;
+    long skipped = 0;
+    for (Map.Entry<Operation, Measures> entry : this.measures.entrySet()) {
+      Measures measures = entry.getValue();
+      all.add(measures.latencies);
+      errors += measures.errors.sum();
+      timeouts += measures.timeouts.sum();
+      skipped += measures.skipped.sum();
+      write(operations.putObject(entry.getKey().label()), measures.latencies,
+        measures.errors.sum(), measures.timeouts.sum(), measures.skipped.sum(), measuredNanos);
+    }
+    write(report.putObject("all"), all, errors, timeouts, skipped, measuredNanos);
+
+    mapper.writerWithDefaultPrettyPrinter().writeValue(output, report);
+  }
+
+  private static void write(final ObjectNode node, final Histogram latencies, final long errors,
+    final long timeouts, final long skipped, final long measuredNanos) {
+    node.put("requests", latencies.getTotalCount());
+    node.put("errors", errors);
+    node.put("timeouts", timeouts);
+    node.put("skipped", skipped);
+    node.put("throughput",
+      latencies.getTotalCount() / (measuredNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+
+    ObjectNode latency = node.putObject("latencyMs");
+    latency.put("min", millis(latencies.getMinValue()));
+    latency.put("mean", latencies.getMean() / 1000);
+    for (double percentile : PERCENTILES) {
+      latency.put("p" + (percentile == Math.rint(percentile)
+        ? Integer.toString((int) percentile) : Double.toString(percentile)),
+        millis(latencies.getValueAtPercentile(percentile)));
+    }
+    latency.put("max", millis(latencies.getMaxValue()));
+
+    ByteBuffer buffer = ByteBuffer.allocate(latencies.getNeededByteBufferCapacity());
+    int length = latencies.encodeIntoCompressedByteBuffer(buffer);
+    node.put("histogramUs", Base64.getEncoder().encodeToString(
+      Arrays.copyOf(buffer.array(), length)));
+  }
+
+  private static double millis(final long micros) {
+    return micros / 1000.0;
+  }
+
+  private static final class Measures {
+
+    private final Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    private void record(final long nanos) {
+      this.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+  }
+
+  /**
+   * A request from its arrival to its end, recorded once.
+   */
+  static final class Request {
+
+    private final Operation operation;
+    private final long due;
+
+    private Request(final Operation operation, final long dueNanos) {
+      this.operation = operation;
+      this.due = dueNanos;
+    }
+
+  }
+
+}
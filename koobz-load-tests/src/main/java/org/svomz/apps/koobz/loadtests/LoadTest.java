@@ -0,0 +1,262 @@
+package org.svomz.apps.koobz.loadtests;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.svomz.apps.koobz.loadtests.BoardClient.Response;
+import org.svomz.apps.koobz.loadtests.BoardModel.WorkItemModel;
+import org.svomz.apps.koobz.loadtests.LatencyReport.Request;
+import org.svomz.apps.koobz.ports.adapters.rest.KoobzApplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the board service in process, on an in memory database, and puts load on its REST API: a
+ * mix of board reads, work item creations, moves, reorders and archivings, sent to a few boards by
+ * many simulated users.
+ *
+ * The load follows an open model: the requests arrive at the given rate, with exponential times
+ * between them, whether the previous ones are answered or not. A request arriving when all the
+ * users are busy waits for one, and its latency is measured from its arrival. The arrivals, the
+ * operations and the boards they go to only depend on the seed.
+ *
+ * The latencies are written as a JSON {@link LatencyReport}. The settings are given as --name=value
+ * arguments, see {@link LoadTestSettings}.
+ */
+public final class LoadTest {
+
+  private static final String PROFILE = "loadtest";
+
+  private final LoadTestSettings settings;
+  private final BoardClient client;
+  private final ExecutorService users;
+
+  private LoadTest(final LoadTestSettings settings, final BoardClient client) {
+    this.settings = settings;
+    this.client = client;
+    // daemons: a user still waiting for a response when the run ends does not keep it alive
+    this.users = Executors.newFixedThreadPool(settings.getUsers(),
+      new ThreadFactoryBuilder().setNameFormat("user-%d").setDaemon(true).build());
+  }
+
+  public static void main(final String... args) throws Exception {
+    LoadTestSettings settings = LoadTestSettings.parse(args);
+    // one kept alive connection per user
+    System.setProperty("http.maxConnections", Integer.toString(settings.getUsers()));
+
+    List<String> profiles = new ArrayList<>();
+    profiles.add(PROFILE);
+    Splitter.on(',').trimResults().omitEmptyStrings().split(settings.getProfiles())
+      .forEach(profiles::add);
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(KoobzApplication.class)
+      .profiles(profiles.toArray(new String[profiles.size()]))
+      .run();
+    try {
+      int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+      new LoadTest(settings, new BoardClient("http://localhost:" + port)).run();
+    } finally {
+      context.close();
+    }
+  }
+
+  private void run() throws InterruptedException, IOException {
+    Random random = new Random(this.settings.getSeed());
+    List<BoardModel> boards = this.createBoards(random);
+    Operation[] operations = this.mixOf(this.settings.getMix());
+
+    long start = System.nanoTime();
+    long measuredFrom = start + TimeUnit.SECONDS.toNanos(this.settings.getWarmupSeconds());
+    long end = measuredFrom + TimeUnit.SECONDS.toNanos(this.settings.getDurationSeconds());
+    LatencyReport report = new LatencyReport(measuredFrom);
+    double meanNanosBetweenArrivals = TimeUnit.SECONDS.toNanos(1) / this.settings.getRate();
+
+    long due = start;
+    while (true) {
+      due += (long) (-Math.log(1 - random.nextDouble()) * meanNanosBetweenArrivals);
+      if (due >= end) {
+        break;
+      }
+      Operation operation = operations[random.nextInt(operations.length)];
+      BoardModel board = boards.get(random.nextInt(boards.size()));
+      long pick = random.nextLong();
+
+      for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+        LockSupport.parkNanos(wait);
+      }
+      Request request = report.arrived(operation, due);
+      this.users.execute(() -> this.send(operation, board, pick, request, report));
+    }
+
+    this.users.shutdown();
+    if (!this.users.awaitTermination(1, TimeUnit.MINUTES)) {
+      // the requests waiting for a user are not sent anymore
+      this.users.shutdownNow();
+    }
+    long timeouts = report.timedOut(System.nanoTime());
+    File output = new File(this.settings.getOutput());
+    report.write(this.settings, end - measuredFrom, output);
+    if (timeouts > 0) {
+      System.out.println(timeouts + " requests had not ended a minute after the last arrival, "
+        + "they are counted as timeouts");
+    }
+    System.out.println("The latencies have been written to " + output.getAbsolutePath());
+  }
+
+  /**
+   * Creates the boards the load is put on, in parallel, with their work items spread over their
+   * stages.
+   */
+  private List<BoardModel> createBoards(final Random random) {
+    List<CompletableFuture<BoardModel>> boards = new ArrayList<>();
+    for (int i = 0; i < this.settings.getBoards(); i++) {
+      String name = "Board " + i;
+      long seed = random.nextLong();
+      boards.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return this.createBoard(name, new Random(seed));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, this.users));
+    }
+
+    List<BoardModel> created = new ArrayList<>();
+    boards.forEach(board -> created.add(board.join()));
+    return created;
+  }
+
+  private BoardModel createBoard(final String name, final Random random) throws IOException {
+    String workflowId = this.client.createWorkflow(name);
+    List<String> stageIds = new ArrayList<>();
+    for (int i = 0; i < this.settings.getStages(); i++) {
+      stageIds.add(this.client.createStage(workflowId, "Stage " + i));
+    }
+
+    BoardModel board = new BoardModel(workflowId, stageIds);
+    for (int i = 0; i < this.settings.getWorkItems(); i++) {
+      int stage = random.nextInt(stageIds.size());
+      Response response = this.client.createWorkItem(workflowId, stageIds.get(stage),
+        "Work item " + i);
+      Preconditions.checkState(response.isSuccessful(), "Expected a creation but got %s",
+        response.getStatus());
+      board.added(response.getId(), stage);
+    }
+    return board;
+  }
+
+  /**
+   * @return the operations, each one as many times as its weight: picking one of them at random
+   * follows the mix.
+   */
+  private Operation[] mixOf(final Map<Operation, Integer> mix) {
+    List<Operation> operations = new ArrayList<>();
+    mix.forEach((operation, weight) -> {
+      for (int i = 0; i < weight; i++) {
+        operations.add(operation);
+      }
+    });
+    return operations.toArray(new Operation[operations.size()]);
+  }
+
+  /**
+   * Sends a request of the given operation to the board. The work item it changes, and the stage
+   * or the position it is moved to, are picked with the given number.
+   */
+  private void send(final Operation operation, final BoardModel board, final long pick,
+    final Request request, final LatencyReport report) {
+    int workItemPick = (int) pick;
+    int targetPick = (int) (pick >>> 32);
+
+    Optional<WorkItemModel> workItem = Optional.empty();
+    if (operation != Operation.READ && operation != Operation.CREATE) {
+      workItem = board.checkOut(workItemPick);
+      if (!workItem.isPresent()) {
+        report.skipped(request);
+        return;
+      }
+    }
+
+    boolean successful;
+    try {
+      successful = this.perform(operation, board, workItem, targetPick);
+    } catch (IOException | RuntimeException e) {
+      workItem.ifPresent(checkedOut -> board.checkIn(checkedOut, checkedOut.getStage()));
+      successful = false;
+    }
+
+    if (successful) {
+      report.succeeded(request, System.nanoTime());
+    } else {
+      report.failed(request, System.nanoTime());
+    }
+  }
+
+  private boolean perform(final Operation operation, final BoardModel board,
+    final Optional<WorkItemModel> checkedOut, final int targetPick) throws IOException {
+    switch (operation) {
+      case READ:
+        return this.client.readWorkflow(board.getId()).isSuccessful();
+
+      case CREATE: {
+        int stage = Math.floorMod(targetPick, board.stageCount());
+        Response response = this.client.createWorkItem(board.getId(), board.stageId(stage),
+          "A work item");
+        if (response.isSuccessful()) {
+          board.added(response.getId(), stage);
+        }
+        return response.isSuccessful();
+      }
+
+      case MOVE: {
+        WorkItemModel workItem = checkedOut.get();
+        int stage = (workItem.getStage() + 1 + Math.floorMod(targetPick, board.stageCount() - 1))
+          % board.stageCount();
+        boolean moved = this.client.moveWorkItem(board.getId(), workItem.getId(),
+          board.stageId(stage)).isSuccessful();
+        board.checkIn(workItem, moved ? stage : workItem.getStage());
+        return moved;
+      }
+
+      case REORDER: {
+        WorkItemModel workItem = checkedOut.get();
+        int position = Math.floorMod(targetPick, Math.max(1, board.stageSize(workItem.getStage())));
+        boolean reordered = this.client.changeWorkItemPosition(board.getId(), workItem.getId(),
+          position).isSuccessful();
+        board.checkIn(workItem, workItem.getStage());
+        return reordered;
+      }
+
+      case ARCHIVE: {
+        WorkItemModel workItem = checkedOut.get();
+        boolean archived = this.client.archiveWorkItem(board.getId(), workItem.getId())
+          .isSuccessful();
+        if (archived) {
+          board.removed(workItem);
+        } else {
+          board.checkIn(workItem, workItem.getStage());
+        }
+        return archived;
+      }
+
+      default:
+        throw new IllegalArgumentException("Unknown operation " + operation);
+    }
+  }
+
+}
@@ -0,0 +1,150 @@
+package org.svomz.apps.koobz.loadtests;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The settings of a load test, read from the command line as --name=value arguments. The settings
+ * which are not given keep their default value.
+ */
+final class LoadTestSettings {
+
+  private static final String DEFAULT_MIX = "read:60,create:10,move:10,reorder:15,archive:5";
+
+  private final Map<String, String> values = new LinkedHashMap<>();
+  private final Map<Operation, Integer> mix;
+
+  private LoadTestSettings(final Map<String, String> arguments) {
+    this.values.put("rate", "100");
+    this.values.put("users", "50");
+    this.values.put("warmup", "10");
+    this.values.put("duration", "60");
+    this.values.put("boards", "10");
+    this.values.put("stages", "5");
+    this.values.put("work-items", "200");
+    this.values.put("mix", DEFAULT_MIX);
+    this.values.put("seed", "42");
+    this.values.put("profiles", "");
+    this.values.put("output", "load-test.json");
+
+    arguments.forEach((name, value) -> {
+      Preconditions.checkArgument(this.values.containsKey(name), "Unknown setting %s", name);
+      this.values.put(name, value);
+    });
+
+    this.mix = new EnumMap<>(Operation.class);
+    Splitter.on(',').trimResults().withKeyValueSeparator(':').split(this.values.get("mix"))
+      .forEach((label, weight) -> this.mix.put(Operation.ofLabel(label), Integer.valueOf(weight)));
+
+    Preconditions.checkArgument(this.getRate() > 0, "The rate must be positive");
+    Preconditions.checkArgument(this.getUsers() > 0, "The number of users must be positive");
+    Preconditions.checkArgument(this.getBoards() > 0, "The number of boards must be positive");
+    Preconditions.checkArgument(this.getStages() > 1, "The boards must have two stages at least");
+    Preconditions.checkArgument(this.mix.values().stream().allMatch(weight -> weight >= 0)
+      && this.mix.values().stream().anyMatch(weight -> weight > 0),
+      "The weights of the mix must not be negative, one at least being positive");
+  }
+
+  /**
+   * @throws IllegalArgumentException if an argument is not a --name=value pair of a known setting,
+   * or if a value is not valid.
+   */
+  static LoadTestSettings parse(final String... args) {
+    Map<String, String> arguments = new LinkedHashMap<>();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      Preconditions.checkArgument(arg.startsWith("--") && separator > 2,
+        "Expected --name=value but got %s", arg);
+      arguments.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    return new LoadTestSettings(arguments);
+  }
+
+  /**
+   * @return the number of requests started per second, whatever the time the previous ones take.
+   */
+  double getRate() {
+    return Double.parseDouble(this.values.get("rate"));
+  }
+
+  /**
+   * @return the number of simulated users, which is the number of requests in flight at most: the
+   * requests arriving when all of them are busy wait for one, and this wait is part of their
+   * latency.
+   */
+  int getUsers() {
+    return Integer.parseInt(this.values.get("users"));
+  }
+
+  /**
+   * @return the number of seconds the requests are sent before being measured.
+   */
+  int getWarmupSeconds() {
+    return Integer.parseInt(this.values.get("warmup"));
+  }
+
+  /**
+   * @return the number of seconds the requests are sent and measured, after the warmup.
+   */
+  int getDurationSeconds() {
+    return Integer.parseInt(this.values.get("duration"));
+  }
+
+  int getBoards() {
+    return Integer.parseInt(this.values.get("boards"));
+  }
+
+  int getStages() {
+    return Integer.parseInt(this.values.get("stages"));
+  }
+
+  /**
+   * @return the number of work items of each board before the load starts.
+   */
+  int getWorkItems() {
+    return Integer.parseInt(this.values.get("work-items"));
+  }
+
+  /**
+   * @return the weight of each operation in the requests sent.
+   */
+  Map<Operation, Integer> getMix() {
+    return Collections.unmodifiableMap(this.mix);
+  }
+
+  /**
+   * @return the seed of the arrivals, of the operations and of the boards, work items and positions
+   * they are sent to.
+   */
+  long getSeed() {
+    return Long.parseLong(this.values.get("seed"));
+  }
+
+  /**
+   * @return the Spring profiles of the board service added to the one of the load tests, for
+   * instance event-sourcing.
+   */
+  String getProfiles() {
+    return this.values.get("profiles");
+  }
+
+  /**
+   * @return the file the JSON report is written to.
+   */
+  String getOutput() {
+    return this.values.get("output");
+  }
+
+  /**
+   * @return all the settings, by name, as given or by default.
+   */
+  Map<String, String> asMap() {
+    return Collections.unmodifiableMap(this.values);
+  }
+
+}
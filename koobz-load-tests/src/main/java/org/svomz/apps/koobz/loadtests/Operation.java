@@ -0,0 +1,43 @@
+package org.svomz.apps.koobz.loadtests;
+
+/**
+ * The REST calls a simulated user makes, by the name they have in the mix of the settings and in
+ * the report.
+ */
+enum Operation {
+
+  /** Reads a whole board: GET /workflows/{id}. */
+  READ("read"),
+
+  /** Adds a work item to a stage: POST /workflows/{id}/workitems. */
+  CREATE("create"),
+
+  /** Moves a work item to another stage: POST /workflows/{id}/workitems/{id}/move. */
+  MOVE("move"),
+
+  /** Changes the position of a work item in its stage: POST .../workitems/{id}/position. */
+  REORDER("reorder"),
+
+  /** Archives a work item: POST /workflows/{id}/workitems/{id}/archiving. */
+  ARCHIVE("archive");
+
+  private final String label;
+
+  Operation(final String label) {
+    this.label = label;
+  }
+
+  String label() {
+    return this.label;
+  }
+
+  static Operation ofLabel(final String label) {
+    for (Operation operation : values()) {
+      if (operation.label.equals(label)) {
+        return operation;
+      }
+    }
+    throw new IllegalArgumentException("Unknown operation " + label);
+  }
+
+}